@@ -14,6 +14,11 @@ public class MainApp {
     private static final Logger logger = LoggerFactory.getLogger(MainApp.class);
 
     public static void main(String[] args) {
+        // 带命令参数时以无界面方式运行
+        if (args.length > 0 && ZkCommandLine.isCommand(args[0])) {
+            System.exit(ZkCommandLine.run(args));
+        }
+        
         logger.info("ZooKeeper客户端启动（多标签页版本）");
         
         // 初始化并应用主题
@@ -9,6 +9,7 @@ import javax.swing.event.ChangeListener;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -21,10 +22,19 @@ public class MultiTabZkClient extends JFrame {
     private JMenuBar menuBar;
     private JMenu sessionMenu;
     private JMenuItem newTabMenuItem;
+    private JMenuItem openSnapshotMenuItem;
+    private JMenuItem pointInTimeMenuItem;
     private JMenuItem closeTabMenuItem;
     private JMenuItem exitMenuItem;
+    private JMenu toolsMenu;
+    private JMenuItem compareSubtreeMenuItem;
+    private JMenuItem checkEnsembleMenuItem;
+    private JMenuItem mirrorMenuItem;
+    private JMenuItem txnLogMenuItem;
+    private JMenuItem hotPathsMenuItem;
     private JMenu helpMenu;
     private JMenuItem aboutMenuItem;
+    private JMenuItem edtStallMenuItem;
     private JMenuItem addSessionMenuItem;
     private JMenuItem manageSessionsMenuItem;
     private JMenu savedSessionsMenu;
@@ -35,6 +45,22 @@ public class MultiTabZkClient extends JFrame {
      * 主方法，程序入口
      */
     public static void main(String[] args) {
+        // 监视界面卡顿，记录EDT调用栈
+        ZkEdtWatchdog.start();
+        // 按路径统计请求并记录慢操作
+        ZkHotPaths.getInstance().install();
+        // 设置了zkclient.metrics.port时以Prometheus格式导出指标，默认只监听回环地址，可用zkclient.metrics.host修改
+        Integer metricsPort = Integer.getInteger("zkclient.metrics.port");
+        if (metricsPort != null) {
+            ZkMetrics.getInstance().install();
+            try {
+                new ZkMetricsServer(System.getProperty("zkclient.metrics.host", ZkMetricsServer.DEFAULT_HOST),
+                        metricsPort).start();
+            } catch (Exception e) {
+                logger.error("启动指标服务失败，端口 {}", metricsPort, e);
+            }
+        }
+        
         // 在Event Dispatch Thread中启动UI
         SwingUtilities.invokeLater(new Runnable() {
             @Override
@@ -127,6 +153,10 @@ public class MultiTabZkClient extends JFrame {
         // 会话菜单
         sessionMenu = new JMenu("会话");
         newTabMenuItem = new JMenuItem("新建连接标签页");
+        openSnapshotMenuItem = new JMenuItem("打开快照文件...");
+        openSnapshotMenuItem.setToolTipText("不连接服务器，只读浏览ZooKeeper的snapshot文件");
+        pointInTimeMenuItem = new JMenuItem("时间点恢复...");
+        pointInTimeMenuItem.setToolTipText("在快照上重放事务日志，浏览某个zxid或时刻的节点树");
         addSessionMenuItem = new JMenuItem("添加新会话");
         manageSessionsMenuItem = new JMenuItem("管理会话");
         savedSessionsMenu = new JMenu("已保存的会话");
@@ -134,6 +164,8 @@ public class MultiTabZkClient extends JFrame {
         exitMenuItem = new JMenuItem("退出");
         
         sessionMenu.add(newTabMenuItem);
+        sessionMenu.add(openSnapshotMenuItem);
+        sessionMenu.add(pointInTimeMenuItem);
         sessionMenu.addSeparator();
         sessionMenu.add(addSessionMenuItem);
         sessionMenu.add(manageSessionsMenuItem);
@@ -143,9 +175,32 @@ public class MultiTabZkClient extends JFrame {
         sessionMenu.addSeparator();
         sessionMenu.add(exitMenuItem);
         
+        // 工具菜单
+        toolsMenu = new JMenu("工具");
+        compareSubtreeMenuItem = new JMenuItem("比较子树...");
+        compareSubtreeMenuItem.setToolTipText("比较两个连接上的子树");
+        checkEnsembleMenuItem = new JMenuItem("检查集群一致性...");
+        checkEnsembleMenuItem.setToolTipText("逐个连接集群成员并比较同一子树");
+        toolsMenu.add(compareSubtreeMenuItem);
+        toolsMenu.add(checkEnsembleMenuItem);
+        mirrorMenuItem = new JMenuItem("子树镜像...");
+        mirrorMenuItem.setToolTipText("把一个连接上的子树持续同步到另一个连接");
+        toolsMenu.add(mirrorMenuItem);
+        toolsMenu.addSeparator();
+        txnLogMenuItem = new JMenuItem("查看事务日志...");
+        txnLogMenuItem.setToolTipText("离线查看ZooKeeper的log文件，按zxid、时间和路径筛选事务");
+        toolsMenu.add(txnLogMenuItem);
+        hotPathsMenuItem = new JMenuItem("热点路径...");
+        hotPathsMenuItem.setToolTipText("查看请求最多的路径和超过阈值的慢操作");
+        toolsMenu.add(hotPathsMenuItem);
+        
         // 帮助菜单
         helpMenu = new JMenu("帮助");
         aboutMenuItem = new JMenuItem("关于");
+        edtStallMenuItem = new JMenuItem("界面卡顿记录...");
+        edtStallMenuItem.setToolTipText("查看界面无响应时抓取的EDT调用栈和正在执行的ZooKeeper操作");
+        helpMenu.add(edtStallMenuItem);
+        helpMenu.addSeparator();
         helpMenu.add(aboutMenuItem);
         
         // 主题菜单
@@ -157,6 +212,7 @@ public class MultiTabZkClient extends JFrame {
         
         // 添加所有菜单到菜单栏
         menuBar.add(sessionMenu);
+        menuBar.add(toolsMenu);
         menuBar.add(themeMenu);
         menuBar.add(helpMenu);
         
@@ -171,6 +227,12 @@ public class MultiTabZkClient extends JFrame {
         // 新建标签页菜单项事件
         newTabMenuItem.addActionListener(e -> addNewConnectionTab());
         
+        // 打开快照文件菜单项事件
+        openSnapshotMenuItem.addActionListener(e -> openSnapshotFile());
+        
+        // 时间点恢复菜单项事件
+        pointInTimeMenuItem.addActionListener(e -> showPointInTimeDialog());
+        
         // 添加新会话菜单项事件
         addSessionMenuItem.addActionListener(e -> addNewSession());
         
@@ -183,6 +245,24 @@ public class MultiTabZkClient extends JFrame {
         // 退出菜单项事件
         exitMenuItem.addActionListener(e -> exitApplication());
         
+        // 比较子树菜单项事件
+        compareSubtreeMenuItem.addActionListener(e -> showCompareDialog());
+        
+        // 检查集群一致性菜单项事件
+        checkEnsembleMenuItem.addActionListener(e -> showEnsembleCheckDialog());
+        
+        // 子树镜像菜单项事件
+        mirrorMenuItem.addActionListener(e -> showMirrorDialog());
+        
+        // 查看事务日志菜单项事件
+        txnLogMenuItem.addActionListener(e -> showTxnLogDialog());
+        
+        // 热点路径菜单项事件
+        hotPathsMenuItem.addActionListener(e -> new ZkHotPathsDialog(this).setVisible(true));
+        
+        // 界面卡顿记录菜单项事件
+        edtStallMenuItem.addActionListener(e -> new ZkEdtStallDialog(this).setVisible(true));
+        
         // 关于菜单项事件
         aboutMenuItem.addActionListener(e -> showAboutDialog());
         
@@ -229,6 +309,105 @@ public class MultiTabZkClient extends JFrame {
         logger.info("创建了新的连接标签页: {}", defaultName);
     }
     
+    /**
+     * 选择快照文件，在后台建立索引后以只读标签页打开
+     */
+    private void openSnapshotFile() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("打开快照文件");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        final java.io.File file = chooser.getSelectedFile();
+        final ZkSnapshotClient snapshotClient = new ZkSnapshotClient(file);
+        
+        // 索引进度对话框
+        final JDialog progressDialog = new JDialog(this, "正在索引快照", false);
+        final JProgressBar progressBar = new JProgressBar(0, 1000);
+        progressBar.setStringPainted(true);
+        progressBar.setString(file.getName());
+        JPanel progressPanel = new JPanel(new BorderLayout(4, 4));
+        progressPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        progressPanel.add(new JLabel("正在索引 " + file.getAbsolutePath()), BorderLayout.NORTH);
+        progressPanel.add(progressBar, BorderLayout.CENTER);
+        progressDialog.getContentPane().add(progressPanel);
+        progressDialog.setSize(450, 110);
+        progressDialog.setLocationRelativeTo(this);
+        progressDialog.setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE);
+        final Timer progressTimer = new Timer(200, e -> {
+            long length = snapshotClient.getMappedLength();
+            if (length > 0) {
+                progressBar.setValue((int) (snapshotClient.getIndexedBytes() * 1000 / length));
+            }
+        });
+        progressTimer.start();
+        progressDialog.setVisible(true);
+        
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Exception error = null;
+                try {
+                    snapshotClient.load();
+                } catch (Exception e) {
+                    logger.error("打开快照文件失败: {}", file, e);
+                    error = e;
+                }
+                final Exception finalError = error;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        progressTimer.stop();
+                        progressDialog.dispose();
+                        if (finalError != null) {
+                            JOptionPane.showMessageDialog(MultiTabZkClient.this, "打开快照文件失败: " + finalError.getMessage(),
+                                    "错误", JOptionPane.ERROR_MESSAGE);
+                        } else {
+                            addReadOnlyTab(snapshotClient, snapshotClient.getFile().getName(),
+                                    snapshotClient.getFile().getAbsolutePath());
+                            logger.info("打开了快照文件: {}，{} 个节点", file, snapshotClient.getNodeCount());
+                        }
+                    }
+                });
+            }
+        }, "zk-snapshot-index").start();
+    }
+    
+    /**
+     * 显示时间点恢复对话框
+     */
+    private void showPointInTimeDialog() {
+        new ZkPointInTimeDialog(this, (client, name) ->
+                addReadOnlyTab(client, name, ((ZkPointInTimeClient) client).getDataDir().getAbsolutePath())).setVisible(true);
+    }
+    
+    /**
+     * 添加浏览离线数据的只读标签页
+     * @param tooltip 标签页提示，显示数据来源
+     */
+    private ZkConnectionTab addReadOnlyTab(ZkReadOnlyClient client, String name, String tooltip) {
+        ZkConnectionTab newTab = new ZkConnectionTab(name, client);
+        newTab.setCloseListener(new ZkConnectionTab.TabCloseListener() {
+            @Override
+            public void onTabClose(ZkConnectionTab tab) {
+                removeConnectionTab(tab);
+            }
+        });
+        
+        // 添加到标签面板
+        JPanel tabContentPanel = new JPanel(new BorderLayout());
+        tabContentPanel.add(newTab, BorderLayout.CENTER);
+        
+        int tabCount = tabbedPane.getTabCount();
+        tabbedPane.addTab(name, tabContentPanel);
+        tabbedPane.setTabComponentAt(tabCount, createTabComponent(name, newTab));
+        tabbedPane.setToolTipTextAt(tabCount, tooltip);
+        tabbedPane.setSelectedIndex(tabCount);
+        
+        logger.info("创建了只读标签页: {}", name);
+        return newTab;
+    }
+    
     /**
      * 创建带关闭按钮的标签组件
      */
@@ -320,6 +499,78 @@ public class MultiTabZkClient extends JFrame {
         return null;
     }
     
+    /**
+     * 获取所有已连接的标签页
+     */
+    private List<ZkConnectionTab> getConnectedTabs() {
+        List<ZkConnectionTab> tabs = new ArrayList<>();
+        for (int i = 0; i < tabbedPane.getTabCount(); i++) {
+            Component tabContent = tabbedPane.getComponentAt(i);
+            if (tabContent instanceof JPanel) {
+                Component[] components = ((JPanel) tabContent).getComponents();
+                if (components.length > 0 && components[0] instanceof ZkConnectionTab) {
+                    ZkConnectionTab tab = (ZkConnectionTab) components[0];
+                    if (tab.getZkClient().isConnected()) {
+                        tabs.add(tab);
+                    }
+                }
+            }
+        }
+        return tabs;
+    }
+    
+    /**
+     * 显示子树比较对话框
+     */
+    private void showCompareDialog() {
+        List<ZkConnectionTab> tabs = getConnectedTabs();
+        if (tabs.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "请先连接至少一个ZooKeeper服务器", "提示", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        ZkConnectionTab current = getCurrentConnectionTab();
+        new ZkSubtreeDiffDialog(this, tabs, tabs.contains(current) ? current : null).setVisible(true);
+    }
+    
+    /**
+     * 显示子树镜像对话框
+     */
+    private void showMirrorDialog() {
+        List<ZkConnectionTab> tabs = getConnectedTabs();
+        if (tabs.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "请先连接至少一个ZooKeeper服务器", "提示", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        ZkConnectionTab current = getCurrentConnectionTab();
+        new ZkMirrorDialog(this, tabs, tabs.contains(current) ? current : null).setVisible(true);
+    }
+    
+    /**
+     * 选择事务日志文件并显示事务日志查看对话框
+     */
+    private void showTxnLogDialog() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("打开事务日志");
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        new ZkTxnLogDialog(this, chooser.getSelectedFile()).setVisible(true);
+    }
+    
+    /**
+     * 显示集群一致性检查对话框，默认使用当前标签页的连接和选中路径
+     */
+    private void showEnsembleCheckDialog() {
+        ZkConnectionTab current = getCurrentConnectionTab();
+        String connectString = "";
+        String path = "/";
+        if (current != null && current.getZkClient().getConnectString() != null) {
+            connectString = current.getZkClient().getConnectString();
+            path = current.getSelectedPath();
+        }
+        new ZkEnsembleCheckDialog(this, connectString, path).setVisible(true);
+    }
+    
     /**
      * 关闭当前标签页
      */
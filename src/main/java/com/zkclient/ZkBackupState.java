@@ -0,0 +1,195 @@
+package com.zkclient;
+
+import org.apache.zookeeper.data.Stat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 增量备份的状态文件，记录上次备份时每个节点的zxid信息和见到的最大zxid
+ * 下次备份据此判断哪些节点的数据、ACL或子节点列表发生了变化
+ */
+public class ZkBackupState {
+    private static final int MAGIC = 0x5A4B4253; // "ZKBS"
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 单个节点在上次备份时的状态
+     */
+    public static class Entry {
+        final long czxid;
+        final long mzxid;
+        final long pzxid;
+        final int aversion;
+        List<String> children = Collections.emptyList();
+
+        Entry(long czxid, long mzxid, long pzxid, int aversion) {
+            this.czxid = czxid;
+            this.mzxid = mzxid;
+            this.pzxid = pzxid;
+            this.aversion = aversion;
+        }
+
+        /**
+         * @return 节点数据或ACL是否在上次备份之后发生变化，节点被删除后重建也视为变化
+         */
+        public boolean isModified(Stat stat) {
+            return czxid != stat.getCzxid() || mzxid != stat.getMzxid() || aversion != stat.getAversion();
+        }
+
+        /**
+         * @return 是否为上次备份时的同一个节点（未被删除后重建）
+         */
+        public boolean isSameNode(Stat stat) {
+            return czxid == stat.getCzxid();
+        }
+
+        /**
+         * @return 直接子节点列表是否在上次备份之后有增删
+         */
+        public boolean isChildrenChanged(Stat stat) {
+            return pzxid != stat.getPzxid();
+        }
+
+        /**
+         * @return 上次备份时的子节点名称
+         */
+        public List<String> getChildren() {
+            return children;
+        }
+    }
+
+    private final String rootPath;
+    private final long watermark;
+    private final Map<String, Entry> entries;
+
+    private ZkBackupState(String rootPath, long watermark, Map<String, Entry> entries) {
+        this.rootPath = rootPath;
+        this.watermark = watermark;
+        this.entries = entries;
+    }
+
+    public String getRootPath() {
+        return rootPath;
+    }
+
+    /**
+     * @return 上次备份时见到的最大zxid
+     */
+    public long getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * @return 节点在上次备份时的状态，上次备份时不存在则返回null
+     */
+    public Entry get(String path) {
+        return entries.get(path);
+    }
+
+    /**
+     * 读取状态文件，同时按父子关系建立子节点索引
+     * @param file 状态文件
+     */
+    public static ZkBackupState load(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("无效的备份状态文件: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("不支持的备份状态文件版本: " + version);
+            }
+            String rootPath = in.readUTF();
+            Map<String, Entry> entries = new HashMap<>();
+            while (in.readBoolean()) {
+                String path = in.readUTF();
+                Entry entry = new Entry(in.readLong(), in.readLong(), in.readLong(), in.readInt());
+                entries.put(path, entry);
+
+                // 状态文件按父节点在前的顺序写入，父节点条目此时已经存在
+                int slash = path.lastIndexOf('/');
+                if (slash >= 0 && !path.equals(rootPath)) {
+                    Entry parent = entries.get(slash == 0 ? "/" : path.substring(0, slash));
+                    if (parent != null) {
+                        if (parent.children.isEmpty()) {
+                            parent.children = new ArrayList<>();
+                        }
+                        parent.children.add(path.substring(slash + 1));
+                    }
+                }
+            }
+            // 最大zxid在遍历结束后才能确定，写在所有条目之后
+            long watermark = in.readLong();
+            return new ZkBackupState(rootPath, watermark, entries);
+        }
+    }
+
+    /**
+     * 状态文件写入器，节点必须按父节点在前的顺序写入
+     */
+    public static class Writer implements Closeable {
+        private final DataOutputStream out;
+        private long watermark = 0;
+
+        /**
+         * @param file 目标文件
+         * @param rootPath 备份的子树起点
+         * @param previousWatermark 上次备份的最大zxid，用作本次的初始值
+         */
+        public Writer(File file, String rootPath, long previousWatermark) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(new FileOutputStream(file), BUFFER_SIZE), BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(rootPath);
+            watermark = Math.max(0, previousWatermark);
+        }
+
+        public void append(String path, Stat stat) throws IOException {
+            out.writeBoolean(true);
+            out.writeUTF(path);
+            out.writeLong(stat.getCzxid());
+            out.writeLong(stat.getMzxid());
+            out.writeLong(stat.getPzxid());
+            out.writeInt(stat.getAversion());
+            watermark = Math.max(watermark, Math.max(stat.getMzxid(), Math.max(stat.getPzxid(), stat.getCzxid())));
+        }
+
+        /**
+         * @return 目前为止见到的最大zxid
+         */
+        public long getWatermark() {
+            return watermark;
+        }
+
+        /**
+         * 写入结束标记和最大zxid
+         */
+        public void finish() throws IOException {
+            out.writeBoolean(false);
+            out.writeLong(watermark);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.zkclient;
+
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.JTableHeader;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 子节点列表面板，以表格形式展示某个父节点下所有子节点的Stat信息
+ * 子节点的Stat通过流水线式异步exists请求填充，排序和过滤在后台线程完成
+ */
+public class ZkChildrenTablePanel extends JPanel {
+    private static final Logger logger = LoggerFactory.getLogger(ZkChildrenTablePanel.class);
+
+    // 同时在途的exists请求数
+    private static final int PIPELINE_WINDOW = 200;
+    // 加载过程中刷新表格的间隔（毫秒）
+    private static final int REPAINT_INTERVAL = 250;
+
+    private static final String[] COLUMN_NAMES = {
+        "名称", "数据长度", "子节点数", "版本", "修改时间", "临时节点所有者"
+    };
+
+    private final ZkClient zkClient;
+    private final ExecutorService executorService;
+    // 读取子节点属性的流水线扫描在单独的线程池中执行，排序过滤不会排在扫描后面
+    private final ExecutorService scanExecutorService;
+
+    private final ChildrenTableModel tableModel = new ChildrenTableModel();
+    private JTable table;
+    private JTextField filterField;
+    private JLabel parentLabel;
+    private JLabel countLabel;
+    private Timer repaintTimer;
+
+    // 以下字段只在EDT上读写
+    private String parentPath;
+    private List<ChildRow> allRows = Collections.emptyList();
+    private int sortColumn = -1;
+    private boolean sortAscending = true;
+
+    // 每次加载递增，用于丢弃过期的加载结果
+    private final AtomicInteger loadGeneration = new AtomicInteger();
+    // 每次重新计算视图递增，用于丢弃过期的排序结果
+    private final AtomicInteger viewGeneration = new AtomicInteger();
+
+    public ZkChildrenTablePanel(ZkClient zkClient, ExecutorService executorService, ExecutorService scanExecutorService) {
+        super(new BorderLayout());
+        this.zkClient = zkClient;
+        this.executorService = executorService;
+        this.scanExecutorService = scanExecutorService;
+
+        initComponents();
+    }
+
+    private void initComponents() {
+        parentLabel = new JLabel("父节点: -");
+        countLabel = new JLabel("");
+        filterField = new JTextField(15);
+        JButton refreshButton = new JButton("刷新");
+
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        topPanel.add(parentLabel);
+        topPanel.add(new JLabel(" 过滤: "));
+        topPanel.add(filterField);
+        topPanel.add(refreshButton);
+        topPanel.add(countLabel);
+        add(topPanel, BorderLayout.NORTH);
+
+        table = new JTable(tableModel);
+        table.setAutoCreateRowSorter(false);
+        table.setFillsViewportHeight(true);
+        table.getColumnModel().getColumn(0).setPreferredWidth(200);
+        table.getColumnModel().getColumn(4).setPreferredWidth(150);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        // 点击表头排序，排序本身在后台线程执行
+        final JTableHeader header = table.getTableHeader();
+        header.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = table.convertColumnIndexToModel(header.columnAtPoint(e.getPoint()));
+                if (column < 0) {
+                    return;
+                }
+                if (column == sortColumn) {
+                    sortAscending = !sortAscending;
+                } else {
+                    sortColumn = column;
+                    // 数值列默认降序，方便直接找到最大值
+                    sortAscending = column == 0;
+                }
+                recomputeView();
+            }
+        });
+
+        filterField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                recomputeView();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                recomputeView();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                recomputeView();
+            }
+        });
+
+        refreshButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (parentPath != null) {
+                    loadChildren(parentPath);
+                }
+            }
+        });
+
+        // 异步回调只修改行对象，由定时器批量刷新表格，避免每个回调都投递到EDT
+        repaintTimer = new Timer(REPAINT_INTERVAL, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                tableModel.fireRowsUpdated();
+                updateCountLabel();
+            }
+        });
+    }
+
+    /**
+     * @return 当前展示的父节点路径
+     */
+    public String getParentPath() {
+        return parentPath;
+    }
+
+    /**
+     * 加载指定父节点的子节点列表，必须在EDT上调用
+     * @param path 父节点路径
+     */
+    public void loadChildren(final String path) {
+        final int generation = loadGeneration.incrementAndGet();
+        parentPath = path;
+        parentLabel.setText("父节点: " + path);
+        countLabel.setText("正在加载...");
+        allRows = Collections.emptyList();
+        tableModel.setRows(allRows);
+
+        if (!zkClient.isConnected()) {
+            countLabel.setText("未连接");
+            return;
+        }
+
+        scanExecutorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                final List<String> names;
+                try {
+                    names = zkClient.getChildren(path);
+                } catch (final Exception e) {
+                    logger.error("加载子节点列表失败: {}", path, e);
+                    SwingUtilities.invokeLater(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (generation == loadGeneration.get()) {
+                                countLabel.setText("加载失败: " + e.getMessage());
+                            }
+                        }
+                    });
+                    return;
+                }
+
+                final List<ChildRow> rows = new ArrayList<>(names.size());
+                for (String name : names) {
+                    rows.add(new ChildRow(name));
+                }
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != loadGeneration.get()) {
+                            return;
+                        }
+                        allRows = rows;
+                        recomputeView();
+                        repaintTimer.start();
+                    }
+                });
+
+                fetchStats(path, rows, generation);
+            }
+        });
+    }
+
+    /**
+     * 以流水线方式为所有子节点发起异步exists请求
+     */
+    private void fetchStats(String path, List<ChildRow> rows, final int generation) {
+        final ZkRequestWindow window = new ZkRequestWindow(PIPELINE_WINDOW);
+        final String prefix = path.equals("/") ? "/" : path + "/";
+        AsyncCallback.StatCallback callback = new AsyncCallback.StatCallback() {
+            @Override
+            public void processResult(int rc, String p, Object ctx, Stat stat) {
+                ChildRow row = (ChildRow) ctx;
+                if (rc == KeeperException.Code.OK.intValue()) {
+                    row.stat = stat;
+                } else {
+                    row.error = KeeperException.Code.get(rc).name();
+                }
+                window.release();
+            }
+        };
+
+        try {
+            for (ChildRow row : rows) {
+                if (generation != loadGeneration.get()) {
+                    // 已切换到其他父节点，停止发起新请求
+                    break;
+                }
+                window.acquire();
+                zkClient.existsAsync(prefix + row.name, callback, row);
+            }
+            window.awaitIdle();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                if (generation != loadGeneration.get()) {
+                    return;
+                }
+                repaintTimer.stop();
+                // Stat全部到齐后按当前排序重新计算一次视图
+                recomputeView();
+            }
+        });
+    }
+
+    /**
+     * 在后台线程中按当前过滤条件和排序列重新计算表格视图
+     */
+    private void recomputeView() {
+        final int generation = viewGeneration.incrementAndGet();
+        final List<ChildRow> source = allRows;
+        final String filter = filterField.getText().trim().toLowerCase();
+        final int column = sortColumn;
+        final boolean ascending = sortAscending;
+
+        executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                final List<ChildRow> view = new ArrayList<>();
+                for (ChildRow row : source) {
+                    if (filter.isEmpty() || row.name.toLowerCase().contains(filter)) {
+                        view.add(row);
+                    }
+                }
+                if (column >= 0) {
+                    Comparator<ChildRow> comparator = comparatorFor(column);
+                    Collections.sort(view, ascending ? comparator : Collections.reverseOrder(comparator));
+                }
+
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == viewGeneration.get()) {
+                            tableModel.setRows(view);
+                            updateCountLabel();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void updateCountLabel() {
+        int loaded = 0;
+        for (ChildRow row : allRows) {
+            if (row.stat != null || row.error != null) {
+                loaded++;
+            }
+        }
+        countLabel.setText("显示 " + tableModel.getRowCount() + " / 共 " + allRows.size()
+                + " 个子节点，已加载属性 " + loaded);
+    }
+
+    /**
+     * 按列构造比较器，尚未加载Stat的行总是排在数值比较的最小端
+     */
+    private static Comparator<ChildRow> comparatorFor(final int column) {
+        if (column == 0) {
+            return new Comparator<ChildRow>() {
+                @Override
+                public int compare(ChildRow a, ChildRow b) {
+                    return a.name.compareTo(b.name);
+                }
+            };
+        }
+        return new Comparator<ChildRow>() {
+            @Override
+            public int compare(ChildRow a, ChildRow b) {
+                return Long.compare(numericValue(a, column), numericValue(b, column));
+            }
+        };
+    }
+
+    private static long numericValue(ChildRow row, int column) {
+        Stat stat = row.stat;
+        if (stat == null) {
+            return Long.MIN_VALUE;
+        }
+        switch (column) {
+            case 1:
+                return stat.getDataLength();
+            case 2:
+                return stat.getNumChildren();
+            case 3:
+                return stat.getVersion();
+            case 4:
+                return stat.getMtime();
+            case 5:
+                return stat.getEphemeralOwner();
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * 子节点表格中的一行，Stat由ZooKeeper事件线程异步写入
+     */
+    private static class ChildRow {
+        final String name;
+        volatile Stat stat;
+        volatile String error;
+
+        ChildRow(String name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * 子节点表格模型，只持有当前视图的行列表
+     */
+    private static class ChildrenTableModel extends AbstractTableModel {
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        private List<ChildRow> rows = Collections.emptyList();
+
+        void setRows(List<ChildRow> rows) {
+            this.rows = rows;
+            fireTableDataChanged();
+        }
+
+        void fireRowsUpdated() {
+            if (!rows.isEmpty()) {
+                fireTableRowsUpdated(0, rows.size() - 1);
+            }
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMN_NAMES[column];
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            ChildRow row = rows.get(rowIndex);
+            if (columnIndex == 0) {
+                return row.name;
+            }
+            Stat stat = row.stat;
+            if (stat == null) {
+                return row.error != null ? row.error : "...";
+            }
+            switch (columnIndex) {
+                case 1:
+                    return stat.getDataLength();
+                case 2:
+                    return stat.getNumChildren();
+                case 3:
+                    return stat.getVersion();
+                case 4:
+                    return dateFormat.format(new Date(stat.getMtime()));
+                case 5:
+                    return stat.getEphemeralOwner() == 0 ? "" : "0x" + Long.toHexString(stat.getEphemeralOwner());
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.zkclient;
+
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+/**
+ * 分块存储的大数据，突破单个节点jute.maxbuffer（默认1MB）的限制
+ * 节点本身的数据是固定长度的清单（魔数、代号、总长度、块大小、块数和CRC32），
+ * 数据按块大小切分后保存在名为chunk-代号-序号的子节点中，代号由cversion和随机数组成，并发的写入方互不重名。
+ * 单个multi请求同样受jute.maxbuffer限制，因此写入时先以多个multi批次写入新一代的数据块，
+ * 最后带版本检查地更新清单，清单切换是原子的：读取方看到的要么是完整的旧值，要么是完整的新值；
+ * 切换成功后再删除上一个清单的数据块；失败时只回滚本次创建的数据块。读取时并发读取所有数据块，按序号拼接并校验CRC32。
+ */
+public class ZkChunkedValue {
+    private static final Logger logger = LoggerFactory.getLogger(ZkChunkedValue.class);
+
+    private static final int MAGIC = 0x5A4B4348; // "ZKCH"
+    private static final byte VERSION = 1;
+    /** 清单的固定长度 */
+    public static final int MANIFEST_LENGTH = 4 + 1 + 8 + 8 + 4 + 4 + 8;
+    private static final String CHUNK_PREFIX = "chunk-";
+
+    // 每个数据块的大小
+    static final int CHUNK_SIZE = 256 * 1024;
+    // 每个multi批次的最大数据量，需要小于服务端jute.maxbuffer
+    private static final int BATCH_MAX_BYTES = 512 * 1024;
+    // 删除旧数据块时每个multi批次的最大操作数
+    private static final int BATCH_MAX_OPS = 200;
+    // 最大在途批次数
+    private static final int PIPELINE_WINDOW = 8;
+    // 读取过程中数据块被并发写入替换时的最大重试次数
+    private static final int MAX_READ_ATTEMPTS = 3;
+
+    /**
+     * 分块数据的清单
+     */
+    public static class Manifest {
+        private final long generation;
+        private final long totalSize;
+        private final int chunkSize;
+        private final int chunkCount;
+        private final long crc;
+
+        Manifest(long generation, long totalSize, int chunkSize, int chunkCount, long crc) {
+            this.generation = generation;
+            this.totalSize = totalSize;
+            this.chunkSize = chunkSize;
+            this.chunkCount = chunkCount;
+            this.crc = crc;
+        }
+
+        public long getGeneration() {
+            return generation;
+        }
+
+        public long getTotalSize() {
+            return totalSize;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public int getChunkCount() {
+            return chunkCount;
+        }
+
+        /**
+         * @param index 块序号
+         * @return 数据块的节点名称
+         */
+        public String chunkName(int index) {
+            return CHUNK_PREFIX + generation + "-" + String.format("%06d", index);
+        }
+
+        byte[] toBytes() {
+            return ByteBuffer.allocate(MANIFEST_LENGTH)
+                    .putInt(MAGIC).put(VERSION).putLong(generation).putLong(totalSize)
+                    .putInt(chunkSize).putInt(chunkCount).putLong(crc)
+                    .array();
+        }
+    }
+
+    /**
+     * @param data 节点数据
+     * @return 数据是分块清单时返回解析结果，否则返回null
+     */
+    public static Manifest parseManifest(byte[] data) {
+        if (data == null || data.length != MANIFEST_LENGTH) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+            return null;
+        }
+        long generation = buffer.getLong();
+        long totalSize = buffer.getLong();
+        int chunkSize = buffer.getInt();
+        int chunkCount = buffer.getInt();
+        long crc = buffer.getLong();
+        if (totalSize < 0 || totalSize > Integer.MAX_VALUE || chunkSize <= 0 || chunkCount < 0
+                || (long) chunkCount * chunkSize < totalSize) {
+            return null;
+        }
+        return new Manifest(generation, totalSize, chunkSize, chunkCount, crc);
+    }
+
+    /**
+     * 读取节点的值，节点是分块清单时读取并拼接所有数据块，否则直接返回节点数据
+     * @param zkClient 客户端
+     * @param path 节点路径
+     * @param stat 清单节点的状态
+     * @return 完整的值（原始字节）
+     */
+    static byte[] read(ZkClient zkClient, String path, Stat stat) throws KeeperException, InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            byte[] data = zkClient.getRawData(path, stat);
+            Manifest manifest = parseManifest(data);
+            if (manifest == null) {
+                return data;
+            }
+            try {
+                return readChunks(zkClient, path, manifest);
+            } catch (KeeperException.NoNodeException e) {
+                // 读取清单后数据块被新的写入替换，重新读取清单
+                if (attempt >= MAX_READ_ATTEMPTS) {
+                    throw e;
+                }
+                logger.debug("数据块已被替换，重新读取清单: {}", path);
+            }
+        }
+    }
+
+    /**
+     * 按清单并发读取所有数据块并拼接
+     * @param zkClient 客户端
+     * @param path 清单节点路径
+     * @param manifest 清单
+     * @return 完整的值（原始字节）
+     */
+    public static byte[] readChunks(ZkClient zkClient, final String path, final Manifest manifest)
+            throws KeeperException, InterruptedException {
+        final byte[] value = new byte[(int) manifest.totalSize];
+        final CountDownLatch latch = new CountDownLatch(manifest.chunkCount);
+        final AtomicReference<KeeperException> failure = new AtomicReference<>();
+        String prefix = path.equals("/") ? "/" : path + "/";
+        for (int i = 0; i < manifest.chunkCount; i++) {
+            zkClient.getDataAsync(prefix + manifest.chunkName(i), new AsyncCallback.DataCallback() {
+                @Override
+                public void processResult(int rc, String chunkPath, Object ctx, byte[] data, Stat stat) {
+                    try {
+                        if (rc != KeeperException.Code.OK.intValue()) {
+                            failure.compareAndSet(null, KeeperException.create(KeeperException.Code.get(rc), chunkPath));
+                            return;
+                        }
+                        long offset = (long) (Integer) ctx * manifest.chunkSize;
+                        long expected = Math.min(manifest.chunkSize, manifest.totalSize - offset);
+                        if (data == null || data.length != expected) {
+                            failure.compareAndSet(null, new KeeperException.DataInconsistencyException());
+                            logger.warn("数据块长度不符: {}，期望 {} 字节", chunkPath, expected);
+                            return;
+                        }
+                        System.arraycopy(data, 0, value, (int) offset, data.length);
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            }, i);
+        }
+        latch.await();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(value, 0, value.length);
+        if (crc.getValue() != manifest.crc) {
+            logger.warn("分块数据校验失败: {}", path);
+            throw new KeeperException.DataInconsistencyException();
+        }
+        return value;
+    }
+
+    /**
+     * 以分块格式写入节点的值，节点不存在时以PERSISTENT模式创建
+     * @param zkClient 客户端
+     * @param path 节点路径
+     * @param value 完整的值（原始字节）
+     * @param acl 节点不存在时使用的ACL，数据块使用清单节点的ACL
+     * @return 写入清单后的节点状态
+     * @throws KeeperException.BadVersionException 写入期间其他客户端修改了该节点
+     */
+    static Stat write(ZkClient zkClient, String path, byte[] value, List<ACL> acl)
+            throws KeeperException, InterruptedException {
+        if (value == null) {
+            value = new byte[0];
+        }
+        Stat stat = new Stat();
+        Manifest previous;
+        try {
+            previous = parseManifest(zkClient.getRawData(path, stat));
+        } catch (KeeperException.NoNodeException e) {
+            try {
+                zkClient.createRawNode(path, new byte[0], acl, CreateMode.PERSISTENT);
+            } catch (KeeperException.NodeExistsException ignored) {
+                // 并发创建，按已存在处理
+            }
+            previous = parseManifest(zkClient.getRawData(path, stat));
+        }
+        List<ACL> chunkAcl = zkClient.getAcl(path, new Stat());
+
+        // 高32位为cversion，每次创建或删除子节点都会增加，不会与之前的数据块重名；
+        // 同时读到相同cversion的并发写入方由低32位的随机数区分
+        long generation = ((long) stat.getCversion() << 32) | (ThreadLocalRandom.current().nextInt() & 0xFFFFFFFFL);
+        int chunkCount = (value.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        CRC32 crc = new CRC32();
+        crc.update(value, 0, value.length);
+        Manifest manifest = new Manifest(generation, value.length, CHUNK_SIZE, chunkCount, crc.getValue());
+
+        String prefix = path.equals("/") ? "/" : path + "/";
+        List<List<Op>> batches = new ArrayList<>();
+        List<Op> batch = new ArrayList<>();
+        int batchBytes = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            int offset = i * CHUNK_SIZE;
+            byte[] chunk = Arrays.copyOfRange(value, offset, Math.min(value.length, offset + CHUNK_SIZE));
+            if (!batch.isEmpty() && batchBytes + chunk.length > BATCH_MAX_BYTES) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                batchBytes = 0;
+            }
+            batch.add(Op.create(prefix + manifest.chunkName(i), chunk, chunkAcl, CreateMode.PERSISTENT));
+            batchBytes += chunk.length;
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+        }
+
+        List<String> created = Collections.synchronizedList(new ArrayList<String>());
+        try {
+            runBatches(zkClient, batches, created);
+            // 带版本检查地切换清单，写入期间节点被其他客户端修改时失败
+            stat = zkClient.updateRawNode(path, manifest.toBytes(), stat.getVersion());
+        } catch (KeeperException | InterruptedException e) {
+            deletePaths(zkClient, path, created);
+            throw e;
+        }
+        // 切换成功说明替换的正是开始时读到的清单，只删除它的数据块，不动其他写入方正在写入的数据块
+        if (previous != null) {
+            deleteChunks(zkClient, path, previous.generation);
+        }
+        return stat;
+    }
+
+    /**
+     * 以multiAsync流水线提交各批次，等待全部完成
+     * @param created 成功的批次中创建的路径，用于失败时回滚
+     */
+    private static void runBatches(ZkClient zkClient, final List<List<Op>> batches, final List<String> created)
+            throws KeeperException, InterruptedException {
+        final Semaphore window = new Semaphore(PIPELINE_WINDOW);
+        final CountDownLatch latch = new CountDownLatch(batches.size());
+        final AtomicReference<KeeperException> failure = new AtomicReference<>();
+        for (List<Op> ops : batches) {
+            window.acquire();
+            if (failure.get() != null) {
+                window.release();
+                latch.countDown();
+                continue;
+            }
+            final List<Op> submitted = ops;
+            zkClient.multiAsync(ops, new AsyncCallback.MultiCallback() {
+                @Override
+                public void processResult(int rc, String path, Object ctx, List<OpResult> opResults) {
+                    if (rc != KeeperException.Code.OK.intValue()) {
+                        failure.compareAndSet(null, KeeperException.create(KeeperException.Code.get(rc), path));
+                    } else {
+                        for (Op op : submitted) {
+                            created.add(op.getPath());
+                        }
+                    }
+                    window.release();
+                    latch.countDown();
+                }
+            }, null);
+        }
+        latch.await();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    /**
+     * 删除指定一代的数据块，尽力而为，失败只记录日志
+     * @param generation 代号
+     */
+    private static void deleteChunks(ZkClient zkClient, String path, long generation) {
+        String current = CHUNK_PREFIX + generation + "-";
+        String prefix = path.equals("/") ? "/" : path + "/";
+        List<String> paths = new ArrayList<>();
+        try {
+            for (String child : zkClient.getChildren(path)) {
+                if (child.startsWith(current)) {
+                    paths.add(prefix + child);
+                }
+            }
+        } catch (KeeperException e) {
+            logger.warn("删除数据块失败: {}，{}", path, e.getMessage());
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        deletePaths(zkClient, path, paths);
+    }
+
+    /**
+     * 以multi批量删除数据块，尽力而为，失败只记录日志
+     * @param path 清单节点路径，用于日志
+     * @param paths 数据块路径
+     */
+    private static void deletePaths(ZkClient zkClient, String path, List<String> paths) {
+        try {
+            List<Op> ops = new ArrayList<>();
+            synchronized (paths) {
+                for (String chunkPath : paths) {
+                    ops.add(Op.delete(chunkPath, -1));
+                }
+            }
+            for (int from = 0; from < ops.size(); from += BATCH_MAX_OPS) {
+                zkClient.multi(ops.subList(from, Math.min(ops.size(), from + BATCH_MAX_OPS)));
+            }
+        } catch (KeeperException e) {
+            logger.warn("删除数据块失败: {}，{}", path, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -11,6 +11,7 @@ import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * ZooKeeper客户端核心类，封装了与ZooKeeper服务器的交互操作
@@ -20,7 +21,17 @@ public class ZkClient {
     private ZooKeeper zk;
     private CountDownLatch connectedLatch = new CountDownLatch(1);
     private String connectString;
+    private boolean canBeReadOnly = false;
     private int sessionTimeout = 30000; // 默认会话超时时间30秒
+    // 读取子节点列表时顺带记录见到的路径，供跳转框补全
+    private final ZkPathTrie pathTrie = new ZkPathTrie();
+    // 透明压缩，默认关闭，关闭时读写的都是节点上的原始字节
+    private volatile boolean compressionEnabled = false;
+    private volatile ZkCompressionCodec compressionCodec = ZkCompression.getCodec("gzip");
+    // 创建节点时数据达到该大小才压缩
+    private volatile int compressionThreshold = 4096;
+    // 通过addWatch注册、尚未移除的持久watch数，会话过期后清零
+    private final AtomicInteger persistentWatchCount = new AtomicInteger();
 
     /**
      * 连接ZooKeeper服务器
@@ -28,11 +39,25 @@ public class ZkClient {
      * @return 是否连接成功
      */
     public boolean connect(String connectString) {
+        return connect(connectString, false);
+    }
+
+    /**
+     * 连接ZooKeeper服务器
+     * @param connectString ZooKeeper服务器连接字符串，格式为host:port
+     * @param canBeReadOnly 服务器与集群失去联系时是否允许以只读方式连接
+     * @return 是否连接成功
+     */
+    public boolean connect(String connectString, boolean canBeReadOnly) {
         this.connectString = connectString;
+        this.canBeReadOnly = canBeReadOnly;
         try {
             zk = new ZooKeeper(connectString, sessionTimeout, new Watcher() {
                 @Override
                 public void process(WatchedEvent event) {
+                    if (event.getType() == Event.EventType.None) {
+                        ZkOperationEvents.sessionStateChanged(connectString, event.getState().name());
+                    }
                     if (event.getState() == Event.KeeperState.SyncConnected) {
                         connectedLatch.countDown();
                         logger.info("成功连接到ZooKeeper服务器");
@@ -57,7 +82,7 @@ public class ZkClient {
                         connectedLatch.countDown();
                     }
                 }
-            });
+            }, canBeReadOnly);
             // 添加超时时间，防止一直等待
             boolean connected = connectedLatch.await(30, TimeUnit.SECONDS);
             if (!connected) {
@@ -71,6 +96,8 @@ public class ZkClient {
                     }
                 }
                 zk = null;
+            } else {
+                ZkMetrics.getInstance().register(this);
             }
             return connected;
         } catch (IOException e) {
@@ -88,16 +115,26 @@ public class ZkClient {
      */
     private void reconnect() throws IOException, InterruptedException {
         connectedLatch = new CountDownLatch(1);
+        persistentWatchCount.set(0);
         zk = new ZooKeeper(connectString, sessionTimeout, new Watcher() {
             @Override
             public void process(WatchedEvent event) {
+                if (event.getType() == Event.EventType.None) {
+                    ZkOperationEvents.sessionStateChanged(connectString, event.getState().name());
+                }
                 if (event.getState() == Event.KeeperState.SyncConnected) {
                     connectedLatch.countDown();
                     logger.info("重新连接到ZooKeeper服务器成功");
+                } else if (event.getState() == Event.KeeperState.ConnectedReadOnly) {
+                    connectedLatch.countDown();
+                    logger.warn("重新连接后以只读方式连接");
                 }
             }
-        });
-        connectedLatch.await();
+        }, canBeReadOnly);
+        // 在旧会话的事件线程上等待，不能无限阻塞；超时后新会话仍在后台继续连接
+        if (!connectedLatch.await(30, TimeUnit.SECONDS)) {
+            logger.error("重新连接ZooKeeper服务器超时");
+        }
     }
 
     /**
@@ -106,23 +143,188 @@ public class ZkClient {
      * @return 子节点列表
      */
     public List<String> getChildren(String path) throws KeeperException, InterruptedException {
-        if (zk == null || !zk.getState().isConnected()) {
-            throw new KeeperException.ConnectionLossException();
+        try {
+            List<String> children = call("getChildren", path, 0, new Request<List<String>>() {
+                @Override
+                public List<String> execute(ZooKeeper current) throws KeeperException, InterruptedException {
+                    return current.getChildren(path, false);
+                }
+            });
+            pathTrie.setChildren(path, children);
+            return children;
+        } catch (KeeperException.NoNodeException e) {
+            pathTrie.remove(path);
+            throw e;
         }
-        return zk.getChildren(path, false);
     }
 
     /**
-     * 获取节点数据
+     * 异步获取节点子列表及节点状态，用于流水线式批量读取
      * @param path 节点路径
-     * @param stat 节点状态
+     * @param cb 回调，未连接时立即以CONNECTIONLOSS回调
+     * @param ctx 回调上下文
+     */
+    public void getChildrenAsync(String path, AsyncCallback.Children2Callback cb, Object ctx) {
+        ZooKeeper current = zk;
+        if (current == null || !current.getState().isConnected()) {
+            cb.processResult(KeeperException.Code.CONNECTIONLOSS.intValue(), path, ctx, null, null);
+            return;
+        }
+        ZkOperationEvents.Span span = ZkOperationEvents.begin(connectString, "getChildren", path, 0);
+        current.getChildren(path, false, tracedChildren(span, recordChildren(cb)), ctx);
+    }
+
+    /**
+     * 包装子节点回调，把成功读取的子节点列表记入路径前缀树，节点不存在时从中删除
+     */
+    private AsyncCallback.Children2Callback recordChildren(final AsyncCallback.Children2Callback cb) {
+        return new AsyncCallback.Children2Callback() {
+            @Override
+            public void processResult(int rc, String path, Object ctx, List<String> children, Stat stat) {
+                if (rc == KeeperException.Code.OK.intValue()) {
+                    pathTrie.setChildren(path, children);
+                } else if (rc == KeeperException.Code.NONODE.intValue()) {
+                    pathTrie.remove(path);
+                }
+                cb.processResult(rc, path, ctx, children, stat);
+            }
+        };
+    }
+
+    /**
+     * @return 目前为止读取子节点列表时见到的所有路径
+     */
+    public ZkPathTrie getPathTrie() {
+        return pathTrie;
+    }
+
+    /**
+     * 异步获取节点下所有后代节点的数量（需要服务端3.6及以上版本）
+     * @param path 节点路径
+     * @param cb 回调，未连接时立即以CONNECTIONLOSS回调
+     * @param ctx 回调上下文
+     */
+    public void getAllChildrenNumberAsync(String path, AsyncCallback.AllChildrenNumberCallback cb, Object ctx) {
+        ZooKeeper current = zk;
+        if (current == null || !current.getState().isConnected()) {
+            cb.processResult(KeeperException.Code.CONNECTIONLOSS.intValue(), path, ctx, -1);
+            return;
+        }
+        ZkOperationEvents.Span span = ZkOperationEvents.begin(connectString, "getAllChildrenNumber", path, 0);
+        current.getAllChildrenNumber(path, tracedChildrenNumber(span, cb), ctx);
+    }
+
+    /**
+     * 获取节点数据，开启透明压缩时返回解压后的数据
+     * @param path 节点路径
+     * @param stat 节点状态，其中的数据长度是节点上存储的长度
      * @return 节点数据
      */
     public byte[] getData(String path, Stat stat) throws KeeperException, InterruptedException {
-        if (zk == null || !zk.getState().isConnected()) {
-            throw new KeeperException.ConnectionLossException();
+        return decodeData(path, getRawData(path, stat));
+    }
+
+    /**
+     * 按透明压缩设置处理读到的原始数据，关闭时原样返回
+     * @param path 节点路径，用于日志
+     * @param data 原始数据
+     * @return 解压后的数据
+     */
+    public byte[] decodeData(String path, byte[] data) {
+        if (!compressionEnabled) {
+            return data;
+        }
+        try {
+            return ZkCompression.decompress(data);
+        } catch (IOException e) {
+            // 头部符合但内容不是压缩数据，按原样返回
+            logger.warn("解压节点数据失败: {}，{}", path, e.getMessage());
+            return data;
+        }
+    }
+
+    /**
+     * 读取以分块格式保存的值（见ZkChunkedValue），并发读取所有数据块后拼接；
+     * 节点不是分块清单时与getData相同
+     * @param path 清单节点路径
+     * @param stat 清单节点的状态
+     * @return 完整的值，开启透明压缩时已解压
+     */
+    public byte[] readChunked(String path, Stat stat) throws KeeperException, InterruptedException {
+        return decodeData(path, ZkChunkedValue.read(this, path, stat));
+    }
+
+    /**
+     * 以分块格式写入值，突破单个节点的jute.maxbuffer限制；开启透明压缩时先压缩再分块
+     * @param path 清单节点路径，不存在时以PERSISTENT模式创建
+     * @param data 完整的值
+     * @param acl 创建节点时使用的ACL
+     * @return 写入后清单节点的状态
+     */
+    public Stat writeChunked(String path, byte[] data, List<ACL> acl) throws KeeperException, InterruptedException {
+        return ZkChunkedValue.write(this, path, encode(path, data), acl);
+    }
+
+    /**
+     * 获取节点上存储的原始数据，不做解压缩，用于需要逐字节复制的场景
+     * @param path 节点路径
+     * @param stat 节点状态
+     * @return 节点数据
+     */
+    public byte[] getRawData(String path, Stat stat) throws KeeperException, InterruptedException {
+        return call("getData", path, 0, new Request<byte[]>() {
+            @Override
+            public byte[] execute(ZooKeeper current) throws KeeperException, InterruptedException {
+                return current.getData(path, false, stat);
+            }
+        });
+    }
+
+    /**
+     * 异步获取节点数据，用于流水线式批量读取
+     * @param path 节点路径
+     * @param cb 回调，未连接时立即以CONNECTIONLOSS回调
+     * @param ctx 回调上下文
+     */
+    public void getDataAsync(String path, AsyncCallback.DataCallback cb, Object ctx) {
+        ZooKeeper current = zk;
+        if (current == null || !current.getState().isConnected()) {
+            cb.processResult(KeeperException.Code.CONNECTIONLOSS.intValue(), path, ctx, null, null);
+            return;
+        }
+        ZkOperationEvents.Span span = ZkOperationEvents.begin(connectString, "getData", path, 0);
+        current.getData(path, false, tracedData(span, cb), ctx);
+    }
+
+    /**
+     * 异步获取节点ACL，用于流水线式批量读取
+     * @param path 节点路径
+     * @param cb 回调，未连接时立即以CONNECTIONLOSS回调
+     * @param ctx 回调上下文
+     */
+    public void getAclAsync(String path, AsyncCallback.ACLCallback cb, Object ctx) {
+        ZooKeeper current = zk;
+        if (current == null || !current.getState().isConnected()) {
+            cb.processResult(KeeperException.Code.CONNECTIONLOSS.intValue(), path, ctx, null, null);
+            return;
         }
-        return zk.getData(path, false, stat);
+        ZkOperationEvents.Span span = ZkOperationEvents.begin(connectString, "getACL", path, 0);
+        current.getACL(path, new Stat(), tracedAcl(span, cb), ctx);
+    }
+
+    /**
+     * 获取节点ACL
+     * @param path 节点路径
+     * @param stat 节点状态
+     * @return 访问控制列表
+     */
+    public List<ACL> getAcl(String path, Stat stat) throws KeeperException, InterruptedException {
+        return call("getACL", path, 0, new Request<List<ACL>>() {
+            @Override
+            public List<ACL> execute(ZooKeeper current) throws KeeperException, InterruptedException {
+                return current.getACL(path, stat);
+            }
+        });
     }
 
     /**
@@ -131,14 +333,32 @@ public class ZkClient {
      * @return 节点状态
      */
     public Stat getStat(String path) throws KeeperException, InterruptedException {
-        if (zk == null || !zk.getState().isConnected()) {
-            throw new KeeperException.ConnectionLossException();
+        return call("exists", path, 0, new Request<Stat>() {
+            @Override
+            public Stat execute(ZooKeeper current) throws KeeperException, InterruptedException {
+                return current.exists(path, false);
+            }
+        });
+    }
+
+    /**
+     * 异步获取节点状态，用于流水线式批量读取
+     * @param path 节点路径
+     * @param cb 回调，节点不存在时stat为null，未连接时立即以CONNECTIONLOSS回调
+     * @param ctx 回调上下文
+     */
+    public void existsAsync(String path, AsyncCallback.StatCallback cb, Object ctx) {
+        ZooKeeper current = zk;
+        if (current == null || !current.getState().isConnected()) {
+            cb.processResult(KeeperException.Code.CONNECTIONLOSS.intValue(), path, ctx, null);
+            return;
         }
-        return zk.exists(path, false);
+        ZkOperationEvents.Span span = ZkOperationEvents.begin(connectString, "exists", path, 0);
+        current.exists(path, false, tracedStat(span, cb), ctx);
     }
 
     /**
-     * 创建节点
+     * 创建节点，开启透明压缩时压缩达到阈值的数据
      * @param path 节点路径
      * @param data 节点数据
      * @param acl 访问控制列表
@@ -146,24 +366,122 @@ public class ZkClient {
      * @return 创建的节点路径
      */
     public String createNode(String path, byte[] data, List<ACL> acl, CreateMode createMode) throws KeeperException, InterruptedException {
-        if (zk == null || !zk.getState().isConnected()) {
-            throw new KeeperException.ConnectionLossException();
-        }
-        return zk.create(path, data, acl, createMode);
+        return createRawNode(path, encode(path, data), acl, createMode);
+    }
+
+    /**
+     * 以原始字节创建节点，不做压缩
+     */
+    public String createRawNode(String path, byte[] data, List<ACL> acl, CreateMode createMode) throws KeeperException, InterruptedException {
+        return call("create", path, data != null ? data.length : 0, new Request<String>() {
+            @Override
+            public String execute(ZooKeeper current) throws KeeperException, InterruptedException {
+                return current.create(path, data, acl, createMode);
+            }
+        });
     }
 
     /**
-     * 更新节点数据
+     * 更新节点数据，开启透明压缩时保持节点现有的存储格式：
+     * 原数据是压缩的则用同一编解码器压缩，原数据未压缩则原样写入，与数据大小和选定的编解码器无关
      * @param path 节点路径
      * @param data 新的节点数据
      * @param version 版本号，如果为-1则忽略版本检查
      * @return 更新后的节点状态
      */
     public Stat updateNode(String path, byte[] data, int version) throws KeeperException, InterruptedException {
-        if (zk == null || !zk.getState().isConnected()) {
-            throw new KeeperException.ConnectionLossException();
+        if (!compressionEnabled) {
+            return updateRawNode(path, data, version);
+        }
+        return updateNode(path, data, version, ZkCompression.detect(getRawData(path, new Stat())));
+    }
+
+    /**
+     * 以指定的存储格式更新节点数据，用于显式压缩或解压单个节点
+     * @param path 节点路径
+     * @param data 新的节点数据（未压缩）
+     * @param version 版本号，如果为-1则忽略版本检查
+     * @param codec 写入时使用的编解码器，为null时原样写入
+     * @return 更新后的节点状态
+     */
+    public Stat updateNode(String path, byte[] data, int version, ZkCompressionCodec codec)
+            throws KeeperException, InterruptedException {
+        byte[] stored = data;
+        if (codec != null && data != null && data.length > 0 && ZkCompression.detect(data) == null) {
+            try {
+                // 保持格式，压缩后即使没有变小也按压缩格式写入
+                stored = codec.compress(data);
+            } catch (IOException e) {
+                logger.warn("压缩节点数据失败，按原样写入: {}，{}", path, e.getMessage());
+            }
         }
-        return zk.setData(path, data, version);
+        return updateRawNode(path, stored, version);
+    }
+
+    /**
+     * 以原始字节更新节点数据，不做压缩
+     */
+    public Stat updateRawNode(String path, byte[] data, int version) throws KeeperException, InterruptedException {
+        return call("setData", path, data != null ? data.length : 0, new Request<Stat>() {
+            @Override
+            public Stat execute(ZooKeeper current) throws KeeperException, InterruptedException {
+                return current.setData(path, data, version);
+            }
+        });
+    }
+
+    /**
+     * 开启透明压缩时，压缩达到阈值的数据；已经压缩过的数据和压缩后没有变小的数据原样写入
+     * 只用于新建节点和本客户端自己的分块格式，更新已有节点见updateNode
+     */
+    private byte[] encode(String path, byte[] data) {
+        ZkCompressionCodec codec = compressionCodec;
+        if (!compressionEnabled || codec == null || data == null || data.length < compressionThreshold) {
+            return data;
+        }
+        try {
+            return ZkCompression.compress(codec, data);
+        } catch (IOException e) {
+            logger.warn("压缩节点数据失败，按原样写入: {}，{}", path, e.getMessage());
+            return data;
+        }
+    }
+
+    /**
+     * 开启或关闭透明压缩
+     * 开启后getData自动识别并解压已压缩的数据，createNode和writeChunked压缩达到阈值的数据，
+     * updateNode保持节点原有的存储格式；
+     * 异步读写接口和multi不受影响，始终使用原始字节
+     * @param enabled 是否开启
+     */
+    public void setCompressionEnabled(boolean enabled) {
+        this.compressionEnabled = enabled;
+    }
+
+    public boolean isCompressionEnabled() {
+        return compressionEnabled;
+    }
+
+    /**
+     * @param codec 写入时使用的编解码器，见ZkCompression.getCodecs()
+     */
+    public void setCompressionCodec(ZkCompressionCodec codec) {
+        this.compressionCodec = codec;
+    }
+
+    public ZkCompressionCodec getCompressionCodec() {
+        return compressionCodec;
+    }
+
+    /**
+     * @param threshold 新建节点时数据达到该字节数才压缩
+     */
+    public void setCompressionThreshold(int threshold) {
+        this.compressionThreshold = threshold;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
     }
 
     /**
@@ -172,16 +490,287 @@ public class ZkClient {
      * @param version 版本号，如果为-1则忽略版本检查
      */
     public void deleteNode(String path, int version) throws KeeperException, InterruptedException {
-        if (zk == null || !zk.getState().isConnected()) {
+        call("delete", path, 0, new Request<Void>() {
+            @Override
+            public Void execute(ZooKeeper current) throws KeeperException, InterruptedException {
+                current.delete(path, version);
+                return null;
+            }
+        });
+    }
+
+    /**
+     * 异步创建节点，用于流水线式批量写入
+     * @param path 节点路径
+     * @param data 节点数据
+     * @param acl 访问控制列表
+     * @param createMode 创建模式
+     * @param cb 回调，未连接时立即以CONNECTIONLOSS回调
+     * @param ctx 回调上下文
+     */
+    public void createAsync(String path, byte[] data, List<ACL> acl, CreateMode createMode,
+                            AsyncCallback.StringCallback cb, Object ctx) {
+        ZooKeeper current = zk;
+        if (current == null || !current.getState().isConnected()) {
+            cb.processResult(KeeperException.Code.CONNECTIONLOSS.intValue(), path, ctx, null);
+            return;
+        }
+        ZkOperationEvents.Span span = ZkOperationEvents.begin(connectString, "create", path, data != null ? data.length : 0);
+        current.create(path, data, acl, createMode, tracedString(span, cb), ctx);
+    }
+
+    /**
+     * 异步更新节点数据，用于流水线式批量写入
+     * @param path 节点路径
+     * @param data 新的节点数据
+     * @param version 版本号，如果为-1则忽略版本检查
+     * @param cb 回调，未连接时立即以CONNECTIONLOSS回调
+     * @param ctx 回调上下文
+     */
+    public void updateNodeAsync(String path, byte[] data, int version, AsyncCallback.StatCallback cb, Object ctx) {
+        ZooKeeper current = zk;
+        if (current == null || !current.getState().isConnected()) {
+            cb.processResult(KeeperException.Code.CONNECTIONLOSS.intValue(), path, ctx, null);
+            return;
+        }
+        ZkOperationEvents.Span span = ZkOperationEvents.begin(connectString, "setData", path, data != null ? data.length : 0);
+        current.setData(path, data, version, tracedStat(span, cb), ctx);
+    }
+
+    /**
+     * 异步设置节点ACL
+     * @param path 节点路径
+     * @param acl 新的访问控制列表
+     * @param aversion ACL版本号，如果为-1则忽略版本检查
+     * @param cb 回调，未连接时立即以CONNECTIONLOSS回调
+     * @param ctx 回调上下文
+     */
+    public void setAclAsync(String path, List<ACL> acl, int aversion, AsyncCallback.StatCallback cb, Object ctx) {
+        ZooKeeper current = zk;
+        if (current == null || !current.getState().isConnected()) {
+            cb.processResult(KeeperException.Code.CONNECTIONLOSS.intValue(), path, ctx, null);
+            return;
+        }
+        ZkOperationEvents.Span span = ZkOperationEvents.begin(connectString, "setACL", path, 0);
+        current.setACL(path, acl, aversion, tracedStat(span, cb), ctx);
+    }
+
+    /**
+     * 递归删除节点及其所有子孙节点，以multi批量提交删除操作
+     * @param path 节点路径
+     * @return 是否全部删除成功
+     */
+    public boolean deleteRecursive(String path) throws KeeperException, InterruptedException {
+        return call("deleteRecursive", path, 0, new Request<Boolean>() {
+            @Override
+            public Boolean execute(ZooKeeper current) throws KeeperException, InterruptedException {
+                return ZKUtil.deleteRecursive(current, path, 1000);
+            }
+        });
+    }
+
+    /**
+     * 以事务方式执行一组操作，全部成功或全部失败
+     * @param ops 操作列表
+     * @return 每个操作的结果
+     */
+    public List<OpResult> multi(Iterable<Op> ops) throws KeeperException, InterruptedException {
+        return call("multi", null, 0, new Request<List<OpResult>>() {
+            @Override
+            public List<OpResult> execute(ZooKeeper current) throws KeeperException, InterruptedException {
+                return current.multi(ops);
+            }
+        });
+    }
+
+    /**
+     * 异步以事务方式执行一组操作，同一会话内的请求按发起顺序执行
+     * @param ops 操作列表
+     * @param cb 回调，未连接时立即以CONNECTIONLOSS回调
+     * @param ctx 回调上下文
+     */
+    public void multiAsync(Iterable<Op> ops, AsyncCallback.MultiCallback cb, Object ctx) {
+        ZooKeeper current = zk;
+        if (current == null || !current.getState().isConnected()) {
+            cb.processResult(KeeperException.Code.CONNECTIONLOSS.intValue(), null, ctx, null);
+            return;
+        }
+        ZkOperationEvents.Span span = ZkOperationEvents.begin(connectString, "multi", null, 0);
+        current.multi(ops, tracedMulti(span, cb), ctx);
+    }
+
+    /**
+     * 在节点上注册持久watch，会话重连后由客户端自动恢复，会话过期后失效
+     * @param path 节点路径
+     * @param watcher 事件处理器，也会收到连接状态事件
+     * @param mode PERSISTENT只监听该节点，PERSISTENT_RECURSIVE监听整棵子树
+     */
+    public void addWatch(String path, Watcher watcher, AddWatchMode mode) throws KeeperException, InterruptedException {
+        call("addWatch", path, 0, new Request<Void>() {
+            @Override
+            public Void execute(ZooKeeper current) throws KeeperException, InterruptedException {
+                current.addWatch(path, watcher, mode);
+                return null;
+            }
+        });
+        persistentWatchCount.incrementAndGet();
+    }
+
+    /**
+     * 移除节点上的watch，未连接时只在本地移除
+     * @param path 节点路径
+     * @param watcher 注册时使用的事件处理器
+     */
+    public void removeWatches(String path, Watcher watcher) throws KeeperException, InterruptedException {
+        if (zk == null) {
+            return;
+        }
+        zk.removeWatches(path, watcher, Watcher.WatcherType.Any, !zk.getState().isConnected());
+        if (persistentWatchCount.decrementAndGet() < 0) {
+            persistentWatchCount.set(0);
+        }
+    }
+
+    /**
+     * @return 通过addWatch注册、尚未移除的持久watch数
+     */
+    public int getPersistentWatchCount() {
+        return persistentWatchCount.get();
+    }
+
+    /**
+     * 同步请求，由call统一检查连接、登记EDT上的操作并发出埋点事件
+     */
+    private interface Request<T> {
+        T execute(ZooKeeper current) throws KeeperException, InterruptedException;
+    }
+
+    private <T> T call(String operation, String path, int requestBytes, Request<T> request)
+            throws KeeperException, InterruptedException {
+        ZooKeeper current = zk;
+        if (current == null || !current.getState().isConnected()) {
             throw new KeeperException.ConnectionLossException();
         }
-        zk.delete(path, version);
+        ZkOperationEvents.Span span = ZkOperationEvents.begin(connectString, operation, path, requestBytes);
+        String previous = ZkEdtWatchdog.enter(operation, path, connectString);
+        try {
+            T result = request.execute(current);
+            if (span != null) {
+                span.end(KeeperException.Code.OK.intValue(), result instanceof byte[] ? ((byte[]) result).length : 0);
+            }
+            return result;
+        } catch (KeeperException | InterruptedException | RuntimeException e) {
+            if (span != null) {
+                span.end(e);
+            }
+            throw e;
+        } finally {
+            ZkEdtWatchdog.exit(previous);
+        }
+    }
+
+    /*
+     * 以下traced*方法按回调类型包装异步回调，在回调时结束埋点；埋点关闭（span为null）时直接返回原回调
+     */
+
+    private static AsyncCallback.DataCallback tracedData(final ZkOperationEvents.Span span, final AsyncCallback.DataCallback cb) {
+        if (span == null) {
+            return cb;
+        }
+        return new AsyncCallback.DataCallback() {
+            @Override
+            public void processResult(int rc, String path, Object ctx, byte[] data, Stat stat) {
+                span.end(rc, data != null ? data.length : 0);
+                cb.processResult(rc, path, ctx, data, stat);
+            }
+        };
+    }
+
+    private static AsyncCallback.Children2Callback tracedChildren(final ZkOperationEvents.Span span,
+                                                                  final AsyncCallback.Children2Callback cb) {
+        if (span == null) {
+            return cb;
+        }
+        return new AsyncCallback.Children2Callback() {
+            @Override
+            public void processResult(int rc, String path, Object ctx, List<String> children, Stat stat) {
+                span.end(rc, 0);
+                cb.processResult(rc, path, ctx, children, stat);
+            }
+        };
+    }
+
+    private static AsyncCallback.AllChildrenNumberCallback tracedChildrenNumber(final ZkOperationEvents.Span span,
+                                                                                final AsyncCallback.AllChildrenNumberCallback cb) {
+        if (span == null) {
+            return cb;
+        }
+        return new AsyncCallback.AllChildrenNumberCallback() {
+            @Override
+            public void processResult(int rc, String path, Object ctx, int number) {
+                span.end(rc, 0);
+                cb.processResult(rc, path, ctx, number);
+            }
+        };
+    }
+
+    private static AsyncCallback.ACLCallback tracedAcl(final ZkOperationEvents.Span span, final AsyncCallback.ACLCallback cb) {
+        if (span == null) {
+            return cb;
+        }
+        return new AsyncCallback.ACLCallback() {
+            @Override
+            public void processResult(int rc, String path, Object ctx, List<ACL> acl, Stat stat) {
+                span.end(rc, 0);
+                cb.processResult(rc, path, ctx, acl, stat);
+            }
+        };
+    }
+
+    private static AsyncCallback.StatCallback tracedStat(final ZkOperationEvents.Span span, final AsyncCallback.StatCallback cb) {
+        if (span == null) {
+            return cb;
+        }
+        return new AsyncCallback.StatCallback() {
+            @Override
+            public void processResult(int rc, String path, Object ctx, Stat stat) {
+                span.end(rc, 0);
+                cb.processResult(rc, path, ctx, stat);
+            }
+        };
+    }
+
+    private static AsyncCallback.StringCallback tracedString(final ZkOperationEvents.Span span, final AsyncCallback.StringCallback cb) {
+        if (span == null) {
+            return cb;
+        }
+        return new AsyncCallback.StringCallback() {
+            @Override
+            public void processResult(int rc, String path, Object ctx, String name) {
+                span.end(rc, 0);
+                cb.processResult(rc, path, ctx, name);
+            }
+        };
+    }
+
+    private static AsyncCallback.MultiCallback tracedMulti(final ZkOperationEvents.Span span, final AsyncCallback.MultiCallback cb) {
+        if (span == null) {
+            return cb;
+        }
+        return new AsyncCallback.MultiCallback() {
+            @Override
+            public void processResult(int rc, String path, Object ctx, List<OpResult> opResults) {
+                span.end(rc, 0);
+                cb.processResult(rc, path, ctx, opResults);
+            }
+        };
     }
 
     /**
      * 关闭连接
      */
     public void close() {
+        ZkMetrics.getInstance().unregister(this);
         if (zk != null) {
             try {
                 zk.close();
@@ -199,4 +788,35 @@ public class ZkClient {
     public boolean isConnected() {
         return zk != null && zk.getState().isConnected();
     }
+
+    /**
+     * @return 最近一次连接使用的连接字符串
+     */
+    public String getConnectString() {
+        return connectString;
+    }
+
+    /**
+     * 检查是否以只读方式连接
+     * @return 服务器与集群失去联系、只提供只读服务时返回true
+     */
+    public boolean isReadOnly() {
+        return zk != null && zk.getState() == ZooKeeper.States.CONNECTEDREADONLY;
+    }
+
+    /**
+     * @return 当前会话状态，从未连接成功时返回null
+     */
+    public ZooKeeper.States getState() {
+        ZooKeeper current = zk;
+        return current != null ? current.getState() : null;
+    }
+
+    /**
+     * @return 当前会话ID，从未连接成功时返回0
+     */
+    public long getSessionId() {
+        ZooKeeper current = zk;
+        return current != null ? current.getSessionId() : 0;
+    }
 }
\ No newline at end of file
@@ -468,7 +468,6 @@ public class ZkClientGUI extends JFrame {
                 // 如果节点还没有加载过子节点
                 if (node.getUserObject() instanceof ZkNode && node.getChildCount() == 0) {
                     final DefaultMutableTreeNode finalNode = node;
-                    final DefaultMutableTreeNode[] loadingNodeRef = new DefaultMutableTreeNode[1];
                     
                     // 立即显示加载中状态，避免空白
                     SwingUtilities.invokeLater(new Runnable() {
@@ -476,7 +475,6 @@ public class ZkClientGUI extends JFrame {
                         public void run() {
                             // 添加一个临时的"加载中"节点作为反馈
                             DefaultMutableTreeNode loadingNode = new DefaultMutableTreeNode("正在加载...");
-                            loadingNodeRef[0] = loadingNode;
                             finalNode.add(loadingNode);
                             treeModel.nodeStructureChanged(finalNode);
                             statusLabel.setText("正在加载子节点...");
@@ -488,17 +486,16 @@ public class ZkClientGUI extends JFrame {
                         @Override
                         public void run() {
                             try {
-                                // 加载当前节点的直接子节点
-                                treeModel.refreshNode(finalNode);
+                                // 读取当前节点的直接子节点，模型只在EDT上修改
+                                final List<String> children = treeModel.fetchChildren(finalNode);
                                 
                                 // 在事件调度线程中更新UI
                                 SwingUtilities.invokeLater(new Runnable() {
                                     @Override
                                     public void run() {
-                                        // 移除临时加载节点
-                                        if (loadingNodeRef[0] != null && finalNode.isNodeChild(loadingNodeRef[0])) {
-                                            finalNode.remove(loadingNodeRef[0]);
-                                        }
+                                        // 替换全部子节点，临时加载节点随之移除
+                                        treeModel.applyChildren(finalNode, children);
+                                        treeModel.nodeStructureChanged(finalNode);
                                         // 展开节点以显示新加载的子节点
                                         zkTree.expandPath(path);
                                         statusLabel.setText("已连接到 " + hostField.getText().trim() + ":" + portField.getText().trim());
@@ -0,0 +1,314 @@
+package com.zkclient;
+
+import org.apache.zookeeper.AddWatchMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 无界面命令行入口，用于在服务器上批量执行导出等任务
+ */
+public class ZkCommandLine {
+    private static final Logger logger = LoggerFactory.getLogger(ZkCommandLine.class);
+
+    // 进度输出间隔（秒）
+    private static final int PROGRESS_INTERVAL = 5;
+    // monitor命令探测节点的间隔（秒）
+    private static final int PROBE_INTERVAL = 5;
+    // 进程退出时等待monitor命令关闭指标服务和连接的最长时间（秒）
+    private static final int SHUTDOWN_TIMEOUT = 10;
+
+    /**
+     * 判断启动参数是否为命令行命令
+     * @param name 第一个启动参数
+     */
+    public static boolean isCommand(String name) {
+        return "export".equals(name) || "import".equals(name) || "backup-incr".equals(name)
+                || "check-ensemble".equals(name) || "mirror".equals(name) || "monitor".equals(name)
+                || "help".equals(name);
+    }
+
+    /**
+     * 执行命令
+     * @param args 启动参数，第一个参数为命令名
+     * @return 进程退出码
+     */
+    public static int run(String[] args) {
+        String command = args[0];
+        try {
+            if ("export".equals(command) && args.length == 4) {
+                return export(args[1], args[2], new File(args[3]));
+            }
+            if ("import".equals(command) && (args.length == 4 || args.length == 5)) {
+                ZkSubtreeImporter.ConflictPolicy policy = args.length == 5
+                        ? ZkSubtreeImporter.ConflictPolicy.valueOf(args[4].toUpperCase())
+                        : ZkSubtreeImporter.ConflictPolicy.FAIL;
+                return importDump(args[1], args[2], new File(args[3]), policy);
+            }
+            if ("backup-incr".equals(command) && args.length == 5) {
+                return incrementalBackup(args[1], args[2], new File(args[3]), new File(args[4]));
+            }
+            if ("check-ensemble".equals(command) && args.length == 3) {
+                return checkEnsemble(args[1], args[2]);
+            }
+            if ("mirror".equals(command) && args.length == 5) {
+                return mirror(args[1], args[2], args[3], args[4]);
+            }
+            if ("monitor".equals(command) && (args.length == 3 || args.length == 4)) {
+                return monitor(args[1], args[2], args.length == 4 ? args[3] : null);
+            }
+        } catch (Exception e) {
+            logger.error("命令执行失败: {}", command, e);
+            System.err.println("命令执行失败: " + e.getMessage());
+            return 1;
+        }
+        printUsage();
+        return "help".equals(command) ? 0 : 2;
+    }
+
+    private static void printUsage() {
+        System.out.println("用法:");
+        System.out.println("  export <host:port> <path> <file(.jsonl.gz|.zip)>   导出子树");
+        System.out.println("  import <host:port> <path> <file> [overwrite|skip|fail]   导入子树，默认遇到已存在节点时失败");
+        System.out.println("  backup-incr <host:port> <path> <state-file> <file>   增量备份，状态文件不存在时执行完整备份");
+        System.out.println("  check-ensemble <host1:port1,host2:port2,...> <path>   逐个连接集群成员并比较子树，存在不一致时退出码为3");
+        System.out.println("  mirror <src-host:port> <src-path> <dst-host:port> <dst-path>   持续镜像子树，Ctrl+C停止");
+        System.out.println("  monitor <host:port> <[bind-address:]metrics-port> [path]   在/metrics上以Prometheus格式导出客户端指标，"
+                + "默认只监听127.0.0.1，定时探测节点，指定path时监听其子树的watch事件，Ctrl+C停止");
+    }
+
+    private static int export(String connectString, String path, File file) throws Exception {
+        final ZkClient zkClient = connect(connectString);
+        if (zkClient == null) {
+            return 1;
+        }
+        final ZkSubtreeExporter exporter = new ZkSubtreeExporter(zkClient, path, file);
+        ScheduledExecutorService progress = startProgress(new Runnable() {
+            @Override
+            public void run() {
+                System.out.println("已导出 " + exporter.getExportedCount() + " 个节点");
+            }
+        });
+        try {
+            exporter.run();
+            System.out.println("导出完成: " + exporter.getExportedCount() + " 个节点 -> " + file.getAbsolutePath());
+            return 0;
+        } finally {
+            progress.shutdownNow();
+            zkClient.close();
+        }
+    }
+
+    private static int importDump(String connectString, String path, File file,
+                                  ZkSubtreeImporter.ConflictPolicy policy) throws Exception {
+        final ZkClient zkClient = connect(connectString);
+        if (zkClient == null) {
+            return 1;
+        }
+        final ZkSubtreeImporter importer = new ZkSubtreeImporter(zkClient, file, path, policy);
+        ScheduledExecutorService progress = startProgress(new Runnable() {
+            @Override
+            public void run() {
+                System.out.println(String.format("已创建 %d，更新 %d，跳过 %d，%.1f 节点/秒",
+                        importer.getCreatedCount(), importer.getUpdatedCount(),
+                        importer.getSkippedCount(), importer.getNodesPerSecond()));
+            }
+        });
+        try {
+            importer.run();
+            System.out.println(String.format("导入完成: 创建 %d，更新 %d，跳过 %d，冲突 %d，删除 %d，%.1f 节点/秒",
+                    importer.getCreatedCount(), importer.getUpdatedCount(), importer.getSkippedCount(),
+                    importer.getConflictCount(), importer.getDeletedCount(), importer.getNodesPerSecond()));
+            return 0;
+        } finally {
+            progress.shutdownNow();
+            zkClient.close();
+        }
+    }
+
+    private static int incrementalBackup(String connectString, String path, File stateFile, File file)
+            throws Exception {
+        final ZkClient zkClient = connect(connectString);
+        if (zkClient == null) {
+            return 1;
+        }
+        final ZkIncrementalBackup backup = new ZkIncrementalBackup(zkClient, path, stateFile, file);
+        ScheduledExecutorService progress = startProgress(new Runnable() {
+            @Override
+            public void run() {
+                System.out.println("已扫描 " + backup.getScannedCount() + " 个节点，变化 " + backup.getChangedCount());
+            }
+        });
+        try {
+            backup.run();
+            System.out.println((backup.isFullBackup() ? "完整" : "增量") + "备份完成: 扫描 " + backup.getScannedCount()
+                    + "，变化 " + backup.getChangedCount() + "，删除 " + backup.getDeletedCount()
+                    + " -> " + file.getAbsolutePath());
+            return 0;
+        } finally {
+            progress.shutdownNow();
+            zkClient.close();
+        }
+    }
+
+    private static int checkEnsemble(String connectString, String path) throws Exception {
+        final ZkEnsembleChecker checker = new ZkEnsembleChecker(connectString, path);
+        ScheduledExecutorService progress = startProgress(new Runnable() {
+            @Override
+            public void run() {
+                System.out.println("已读取 " + checker.getScannedCount() + " 个节点");
+            }
+        });
+        try {
+            List<ZkEnsembleChecker.Divergence> divergences = checker.run();
+            System.out.print(checker.formatReport(divergences, Integer.MAX_VALUE));
+            for (ZkEnsembleChecker.Member member : checker.getMembers()) {
+                if (member.getError() != null) {
+                    return 1;
+                }
+            }
+            return divergences.isEmpty() ? 0 : 3;
+        } finally {
+            progress.shutdownNow();
+        }
+    }
+
+    private static int mirror(String sourceConnect, String sourcePath, String targetConnect, String targetPath)
+            throws Exception {
+        final ZkClient source = connect(sourceConnect);
+        if (source == null) {
+            return 1;
+        }
+        final ZkClient target = connect(targetConnect);
+        if (target == null) {
+            source.close();
+            return 1;
+        }
+        final ZkSubtreeMirror mirror = new ZkSubtreeMirror(source, sourcePath, target, targetPath);
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    mirror.stop();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }));
+        ScheduledExecutorService progress = startProgress(new Runnable() {
+            @Override
+            public void run() {
+                System.out.println(String.format("%s：复制 %d，同步 %d，对账 %d，待同步 %d，延迟 %d ms，错误 %d",
+                        mirror.getState(), mirror.getCopiedCount(), mirror.getAppliedCount(),
+                        mirror.getReconciledCount(), mirror.getPendingCount(), mirror.getLagMillis(),
+                        mirror.getErrorCount()));
+            }
+        });
+        try {
+            mirror.start();
+            while (mirror.getState() != ZkSubtreeMirror.State.STOPPED
+                    && mirror.getState() != ZkSubtreeMirror.State.FAILED) {
+                Thread.sleep(1000);
+            }
+            if (mirror.getState() == ZkSubtreeMirror.State.FAILED) {
+                System.err.println("镜像失败: " + mirror.getFailureMessage());
+                return 1;
+            }
+            return 0;
+        } finally {
+            progress.shutdownNow();
+            source.close();
+            target.close();
+        }
+    }
+
+    private static int monitor(final String connectString, String metricsAddress, String path) throws Exception {
+        // 监听地址可写为host:port或[ipv6]:port，只写端口时使用zkclient.metrics.host或回环地址
+        String host = System.getProperty("zkclient.metrics.host", ZkMetricsServer.DEFAULT_HOST);
+        int colon = metricsAddress.lastIndexOf(':');
+        if (colon >= 0) {
+            host = metricsAddress.substring(0, colon);
+            if (host.startsWith("[") && host.endsWith("]")) {
+                host = host.substring(1, host.length() - 1);
+            }
+        }
+        int metricsPort = Integer.parseInt(metricsAddress.substring(colon + 1));
+
+        ZkMetrics.getInstance().install();
+        final ZkClient zkClient = connect(connectString);
+        if (zkClient == null) {
+            return 1;
+        }
+        ZkMetricsServer server = new ZkMetricsServer(host, metricsPort);
+        final CountDownLatch stopped = new CountDownLatch(1);
+        final CountDownLatch closed = new CountDownLatch(1);
+        // Ctrl+C时通知主循环退出，并等待finally中的清理完成，否则JVM可能在关闭服务和连接前就停止
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                stopped.countDown();
+                try {
+                    closed.await(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }));
+        try {
+            server.start();
+            if (path != null) {
+                zkClient.addWatch(path, new Watcher() {
+                    @Override
+                    public void process(WatchedEvent event) {
+                        if (event.getType() != Event.EventType.None) {
+                            ZkMetrics.getInstance().recordWatchEvent(connectString, event.getType().name());
+                        }
+                    }
+                }, AddWatchMode.PERSISTENT_RECURSIVE);
+            }
+            String probePath = path != null ? path : "/";
+            System.out.println("指标地址: http://" + (host.indexOf(':') >= 0 ? "[" + host + "]" : host) + ":"
+                    + server.getPort() + "/metrics");
+            while (!stopped.await(PROBE_INTERVAL, TimeUnit.SECONDS)) {
+                // 定时探测，会话状态和请求耗时随之更新
+                try {
+                    zkClient.getStat(probePath);
+                } catch (KeeperException e) {
+                    logger.warn("探测节点失败: {}，{}", probePath, e.getMessage());
+                }
+            }
+            return 0;
+        } finally {
+            try {
+                server.stop();
+                zkClient.close();
+            } finally {
+                closed.countDown();
+            }
+        }
+    }
+
+    private static ZkClient connect(String connectString) {
+        ZkClient zkClient = new ZkClient();
+        if (!zkClient.connect(connectString)) {
+            System.err.println("连接失败: " + connectString);
+            return null;
+        }
+        return zkClient;
+    }
+
+    private static ScheduledExecutorService startProgress(Runnable task) {
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        scheduler.scheduleAtFixedRate(task, PROGRESS_INTERVAL, PROGRESS_INTERVAL, TimeUnit.SECONDS);
+        return scheduler;
+    }
+}
@@ -0,0 +1,139 @@
+package com.zkclient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 节点数据压缩编解码器的注册表
+ * 读取时按数据头部的魔数识别编解码器并解压，写入时用选定的编解码器压缩；
+ * 已经带有可识别头部的数据不会再次压缩，未压缩的数据原样读出，因此新旧数据可以混用。
+ */
+public class ZkCompression {
+    private static final Logger logger = LoggerFactory.getLogger(ZkCompression.class);
+
+    private static final List<ZkCompressionCodec> CODECS = loadCodecs();
+
+    /**
+     * @return 所有可用的编解码器，ServiceLoader加载的在前，内置的gzip在最后
+     */
+    public static List<ZkCompressionCodec> getCodecs() {
+        return CODECS;
+    }
+
+    /**
+     * @param name 编解码器名称
+     * @return 对应的编解码器，没有时返回null
+     */
+    public static ZkCompressionCodec getCodec(String name) {
+        for (ZkCompressionCodec codec : CODECS) {
+            if (codec.getName().equalsIgnoreCase(name)) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param data 节点数据
+     * @return 压缩该数据的编解码器，数据未压缩时返回null
+     */
+    public static ZkCompressionCodec detect(byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        for (ZkCompressionCodec codec : CODECS) {
+            try {
+                if (codec.matches(data)) {
+                    return codec;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("编解码器{}判断数据格式失败", codec.getName(), e);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 识别并解压数据，解压结果超过大小上限时抛出异常
+     * @param data 节点数据
+     * @return 解压后的数据，数据未压缩时原样返回
+     * @throws IOException 头部符合但内容损坏，或解压结果过大
+     */
+    public static byte[] decompress(byte[] data) throws IOException {
+        ZkCompressionCodec codec = detect(data);
+        if (codec == null) {
+            return data;
+        }
+        try (InputStream in = codec.decompress(new ByteArrayInputStream(data))) {
+            return ZkDataDecoders.readLimited(in);
+        }
+    }
+
+    /**
+     * 用指定的编解码器压缩数据，数据已经是压缩格式或压缩后没有变小时原样返回
+     * @param codec 编解码器
+     * @param data 原始数据
+     */
+    public static byte[] compress(ZkCompressionCodec codec, byte[] data) throws IOException {
+        if (data == null || data.length == 0 || detect(data) != null) {
+            return data;
+        }
+        byte[] compressed = codec.compress(data);
+        return compressed.length < data.length ? compressed : data;
+    }
+
+    private static List<ZkCompressionCodec> loadCodecs() {
+        List<ZkCompressionCodec> codecs = new ArrayList<>();
+        try {
+            for (ZkCompressionCodec codec : ServiceLoader.load(ZkCompressionCodec.class)) {
+                logger.info("加载压缩编解码器: {} ({})", codec.getName(), codec.getClass().getName());
+                codecs.add(codec);
+            }
+        } catch (ServiceConfigurationError e) {
+            logger.error("加载压缩编解码器失败", e);
+        }
+        codecs.add(new GzipCodec());
+        return Collections.unmodifiableList(codecs);
+    }
+
+    /**
+     * gzip，按魔数1f 8b识别
+     */
+    static class GzipCodec implements ZkCompressionCodec {
+        @Override
+        public String getName() {
+            return "gzip";
+        }
+
+        @Override
+        public boolean matches(byte[] data) {
+            return data.length >= 18 && (data[0] & 0xff) == 0x1f && (data[1] & 0xff) == 0x8b;
+        }
+
+        @Override
+        public byte[] compress(byte[] data) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(32, data.length / 4));
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192)) {
+                gzip.write(data);
+            }
+            return out.toByteArray();
+        }
+
+        @Override
+        public InputStream decompress(InputStream in) throws IOException {
+            return new GZIPInputStream(in, 8192);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.zkclient;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 节点数据压缩编解码器，由ZkClient在读写节点时透明使用（见ZkCompression）
+ * 除内置的gzip外，可以在META-INF/services/com.zkclient.ZkCompressionCodec中声明实现类，
+ * 例如LZ4 frame格式，通过ServiceLoader加载。实现必须是线程安全的。
+ */
+public interface ZkCompressionCodec {
+    /**
+     * @return 编解码器名称，例如"gzip"
+     */
+    String getName();
+
+    /**
+     * 根据数据头部的魔数判断数据是否由该编解码器压缩
+     * @param data 节点数据，非空
+     */
+    boolean matches(byte[] data);
+
+    /**
+     * @param data 原始数据
+     * @return 压缩后的数据，必须以matches能识别的头部开始
+     */
+    byte[] compress(byte[] data) throws IOException;
+
+    /**
+     * 返回解压缩流；ZkCompression.decompress在大小上限内读完整个流，返回完整的解压结果
+     * @param in 压缩数据
+     * @return 解压后的数据流
+     */
+    InputStream decompress(InputStream in) throws IOException;
+}
@@ -1,5 +1,6 @@
 package com.zkclient;
 
+import org.apache.zookeeper.AsyncCallback;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.data.Stat;
 import org.slf4j.Logger;
@@ -7,6 +8,8 @@ import org.slf4j.LoggerFactory;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 import javax.swing.event.TreeExpansionEvent;
 import javax.swing.event.TreeSelectionEvent;
 import javax.swing.event.TreeSelectionListener;
@@ -17,8 +20,16 @@ import javax.swing.tree.TreePath;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 表示单个ZooKeeper连接的标签页
@@ -37,12 +48,25 @@ public class ZkConnectionTab extends JPanel {
     private JTextField hostField;
     private JTextField portField;
     private JButton connectButton;
+    private JCheckBox compressionCheckBox;
     private JTree zkTree;
     private ZkTreeModel treeModel;
-    private JTextArea dataTextArea;
+    private ZkDataViewer dataViewer;
+    private final ZkDataDecoders dataDecoders = new ZkDataDecoders();
     private JTextArea statTextArea;
     private JLabel statusLabel;
+    private JTabbedPane detailTabs;
+    private ZkChildrenTablePanel childrenTablePanel;
+    private ZkSubtreeAnalysisPanel analysisPanel;
+    private ZkSearchPanel searchPanel;
+    private ZkServerHealthPanel healthPanel;
+    private ZkPathJumpBox jumpBox;
+    private JPopupMenu treePopupMenu;
     private ExecutorService executorService;
+    // 长时间的流水线扫描单独使用，不占用加载节点和排序过滤的线程
+    private final ExecutorService scanExecutorService = Executors.newCachedThreadPool();
+    // 后台线程的界面更新统一经由更新泵按帧在EDT上执行
+    private ZkEdtUpdatePump updatePump;
     
     private TabCloseListener closeListener;
     
@@ -103,30 +127,93 @@ public class ZkConnectionTab extends JPanel {
         });
     }
     
+    /**
+     * 构造一个浏览离线数据的只读标签页，例如快照文件
+     * @param name 标签页名称
+     * @param offlineClient 已加载完成的只读客户端
+     */
+    public ZkConnectionTab(String name, ZkReadOnlyClient offlineClient) {
+        super(new BorderLayout());
+        this.connectionName = name;
+        
+        executorService = Executors.newFixedThreadPool(5);
+        zkClient = offlineClient;
+        treeModel = new ZkTreeModel(zkClient);
+        
+        initComponents();
+        
+        // 没有服务器可连接，禁用连接设置
+        hostField.setText("");
+        hostField.setEnabled(false);
+        portField.setText("");
+        portField.setEnabled(false);
+        connectButton.setEnabled(false);
+        
+        setupLayout();
+        setupListeners();
+        
+        isConnected = true;
+        reloadTree();
+    }
+    
+    /**
+     * 只读数据源的内容变化后（例如时间点恢复前进到新的时刻）重新加载节点树
+     */
+    public void reloadTree() {
+        if (zkClient instanceof ZkReadOnlyClient) {
+            statusLabel.setText("只读" + ((ZkReadOnlyClient) zkClient).getDescription());
+        }
+        try {
+            treeModel.refreshTree();
+            DefaultMutableTreeNode rootNode = (DefaultMutableTreeNode) treeModel.getRoot();
+            if (rootNode.getUserObject() instanceof ZkNode) {
+                loadNodeData((ZkNode) rootNode.getUserObject());
+            }
+        } catch (Exception e) {
+            statusLabel.setText("刷新树结构失败: " + e.getMessage());
+            logger.error("刷新树结构失败", e);
+        }
+    }
+    
     public String getConnectionName() {
         return connectionName;
     }
     
+    public ZkClient getZkClient() {
+        return zkClient;
+    }
+    
+    /**
+     * 获取树中当前选中节点的路径
+     * @return 选中节点的路径，未选中时返回根路径
+     */
+    public String getSelectedPath() {
+        ZkNode zkNode = getSelectedZkNode();
+        return zkNode != null ? zkNode.getPath() : "/";
+    }
+    
     public void setCloseListener(TabCloseListener listener) {
         this.closeListener = listener;
     }
     
     private void initComponents() {
+        updatePump = new ZkEdtUpdatePump(treeModel);
+        
         // 连接设置面板组件
         hostField = new JTextField("localhost", 15);
         portField = new JTextField("2181", 8);
         connectButton = new JButton("连接");
+        compressionCheckBox = new JCheckBox("透明压缩");
+        compressionCheckBox.setToolTipText("读取时自动解压已压缩的数据，写入时压缩不小于 "
+                + zkClient.getCompressionThreshold() + " 字节的数据（"
+                + zkClient.getCompressionCodec().getName() + "）");
         
         // 树形结构组件
         zkTree = new JTree(treeModel);
         zkTree.setCellRenderer(new ZkNodeRenderer());
         
         // 数据展示组件
-        dataTextArea = new JTextArea();
-        dataTextArea.setEditable(false);
-        dataTextArea.setLineWrap(true);
-        dataTextArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
-        dataTextArea.setText("请选择一个节点以查看数据内容");
+        dataViewer = new ZkDataViewer();
         
         // 状态展示组件
         statTextArea = new JTextArea();
@@ -135,6 +222,90 @@ public class ZkConnectionTab extends JPanel {
         statTextArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
         statTextArea.setText("请选择一个节点以查看属性信息");
         
+        // 子节点列表
+        childrenTablePanel = new ZkChildrenTablePanel(zkClient, executorService, scanExecutorService);
+        
+        // 子树分析
+        analysisPanel = new ZkSubtreeAnalysisPanel(zkClient, scanExecutorService);
+        
+        // 子树搜索
+        searchPanel = new ZkSearchPanel(zkClient, scanExecutorService);
+        
+        // 集群成员状态
+        healthPanel = new ZkServerHealthPanel();
+        
+        // 跳转到路径，搜索结果双击时也跳转
+        ZkPathJumpBox.JumpListener jumpListener = new ZkPathJumpBox.JumpListener() {
+            @Override
+            public void jumpTo(String path) {
+                jumpToPath(path);
+            }
+        };
+        jumpBox = new ZkPathJumpBox(zkClient, executorService, jumpListener);
+        searchPanel.setJumpListener(jumpListener);
+        
+        // 节点右键菜单
+        treePopupMenu = new JPopupMenu();
+        JMenuItem showChildrenItem = new JMenuItem("查看子节点列表");
+        showChildrenItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                ZkNode zkNode = getSelectedZkNode();
+                if (zkNode != null) {
+                    detailTabs.setSelectedComponent(childrenTablePanel);
+                    childrenTablePanel.loadChildren(zkNode.getPath());
+                }
+            }
+        });
+        treePopupMenu.add(showChildrenItem);
+        JMenuItem analyzeItem = new JMenuItem("分析子树大小");
+        analyzeItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                ZkNode zkNode = getSelectedZkNode();
+                if (zkNode != null) {
+                    detailTabs.setSelectedComponent(analysisPanel);
+                    analysisPanel.startAnalysis(zkNode.getPath());
+                }
+            }
+        });
+        treePopupMenu.add(analyzeItem);
+        JMenuItem searchItem = new JMenuItem("在子树中搜索...");
+        searchItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                ZkNode zkNode = getSelectedZkNode();
+                if (zkNode != null) {
+                    detailTabs.setSelectedComponent(searchPanel);
+                    searchPanel.prepareSearch(zkNode.getPath());
+                }
+            }
+        });
+        treePopupMenu.add(searchItem);
+        treePopupMenu.addSeparator();
+        JMenuItem exportItem = new JMenuItem("导出子树...");
+        exportItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                ZkNode zkNode = getSelectedZkNode();
+                if (zkNode != null) {
+                    exportSubtree(zkNode.getPath());
+                }
+            }
+        });
+        treePopupMenu.add(exportItem);
+        JMenuItem importItem = new JMenuItem("导入到此节点...");
+        importItem.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                ZkNode zkNode = getSelectedZkNode();
+                if (zkNode != null) {
+                    importSubtree(zkNode.getPath());
+                }
+            }
+        });
+        treePopupMenu.add(importItem);
+        
         // 状态栏
         statusLabel = new JLabel("未连接");
     }
@@ -147,6 +318,7 @@ public class ZkConnectionTab extends JPanel {
         connectPanel.add(new JLabel(" 端口: "));
         connectPanel.add(portField);
         connectPanel.add(connectButton);
+        connectPanel.add(compressionCheckBox);
         
         add(connectPanel, BorderLayout.NORTH);
         
@@ -156,7 +328,10 @@ public class ZkConnectionTab extends JPanel {
         
         // 左侧树面板
         JPanel leftPanel = new JPanel(new BorderLayout());
-        leftPanel.add(new JLabel("ZooKeeper节点树"), BorderLayout.NORTH);
+        JPanel treeHeaderPanel = new JPanel(new BorderLayout());
+        treeHeaderPanel.add(new JLabel("ZooKeeper节点树"), BorderLayout.NORTH);
+        treeHeaderPanel.add(jumpBox, BorderLayout.SOUTH);
+        leftPanel.add(treeHeaderPanel, BorderLayout.NORTH);
         JScrollPane treeScrollPane = new JScrollPane(zkTree);
         treeScrollPane.setBorder(new EmptyBorder(5, 5, 5, 5));
         leftPanel.add(treeScrollPane, BorderLayout.CENTER);
@@ -165,15 +340,14 @@ public class ZkConnectionTab extends JPanel {
         // 右侧内容面板 - 使用JSplitPane垂直分割面板实现上下布局
         JSplitPane rightSplitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT);
         
-        // 节点数据JTextArea，包装在JScrollPane中（放在上半部分）
+        // 节点数据查看器（放在上半部分）
         JPanel dataPanel = new JPanel(new BorderLayout());
         dataPanel.add(new JLabel("节点数据"), BorderLayout.NORTH);
-        JScrollPane dataScrollPane = new JScrollPane(dataTextArea);
-        dataScrollPane.setBorder(BorderFactory.createCompoundBorder(
+        dataViewer.setBorder(BorderFactory.createCompoundBorder(
             new EmptyBorder(5, 5, 5, 5), 
             BorderFactory.createLineBorder(Color.GRAY, 1)
         ));
-        dataPanel.add(dataScrollPane, BorderLayout.CENTER);
+        dataPanel.add(dataViewer, BorderLayout.CENTER);
         rightSplitPane.setTopComponent(dataPanel);
         
         // 节点属性JTextArea，包装在JScrollPane中（放在下半部分）
@@ -190,10 +364,30 @@ public class ZkConnectionTab extends JPanel {
         // 设置分割线位置
         rightSplitPane.setDividerLocation(250);
         rightSplitPane.setResizeWeight(0.5); // 平均分配空间
-        mainSplitPane.setRightComponent(rightSplitPane);
+        
+        // 右侧使用标签页区分节点详情和子节点列表
+        detailTabs = new JTabbedPane();
+        detailTabs.addTab("节点详情", rightSplitPane);
+        detailTabs.addTab("子节点列表", childrenTablePanel);
+        detailTabs.addTab("子树分析", analysisPanel);
+        detailTabs.addTab("搜索", searchPanel);
+        if (!(zkClient instanceof ZkReadOnlyClient)) {
+            detailTabs.addTab("服务器状态", healthPanel);
+        }
+        mainSplitPane.setRightComponent(detailTabs);
         
         add(mainSplitPane, BorderLayout.CENTER);
         
+        // Ctrl+L聚焦跳转框
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(
+                KeyStroke.getKeyStroke(KeyEvent.VK_L, KeyEvent.CTRL_DOWN_MASK), "focusJumpBox");
+        getActionMap().put("focusJumpBox", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                jumpBox.focusInput();
+            }
+        });
+        
         // 底部状态栏
         JPanel statusPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         statusPanel.add(statusLabel);
@@ -215,6 +409,18 @@ public class ZkConnectionTab extends JPanel {
             }
         });
         
+        // 透明压缩开关，切换后重新加载当前节点的数据
+        compressionCheckBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                zkClient.setCompressionEnabled(compressionCheckBox.isSelected());
+                DefaultMutableTreeNode selected = (DefaultMutableTreeNode) zkTree.getLastSelectedPathComponent();
+                if (selected != null && selected.getUserObject() instanceof ZkNode) {
+                    loadNodeData((ZkNode) selected.getUserObject());
+                }
+            }
+        });
+        
         // 树选择监听器
         zkTree.addTreeSelectionListener(new TreeSelectionListener() {
             @Override
@@ -225,11 +431,43 @@ public class ZkConnectionTab extends JPanel {
                     if (selectedNode.getUserObject() instanceof ZkNode) {
                         ZkNode zkNode = (ZkNode) selectedNode.getUserObject();
                         loadNodeData(zkNode);
+                        if (detailTabs.getSelectedComponent() == childrenTablePanel) {
+                            childrenTablePanel.loadChildren(zkNode.getPath());
+                        }
                     }
                 }
             }
         });
         
+        // 切换到子节点列表时加载当前选中节点的子节点
+        detailTabs.addChangeListener(new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                if (detailTabs.getSelectedComponent() == childrenTablePanel) {
+                    ZkNode zkNode = getSelectedZkNode();
+                    if (zkNode != null && !zkNode.getPath().equals(childrenTablePanel.getParentPath())) {
+                        childrenTablePanel.loadChildren(zkNode.getPath());
+                    }
+                } else if (detailTabs.getSelectedComponent() == healthPanel && zkClient.isConnected()) {
+                    // 第一次切换到服务器状态时才开始轮询
+                    healthPanel.start(zkClient.getConnectString());
+                }
+            }
+        });
+        
+        // 节点右键菜单
+        zkTree.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                showTreePopup(e);
+            }
+            
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                showTreePopup(e);
+            }
+        });
+        
         // 树展开监听器 - 实现按需加载子节点
         zkTree.addTreeWillExpandListener(new TreeWillExpandListener() {
             @Override
@@ -240,46 +478,29 @@ public class ZkConnectionTab extends JPanel {
                 // 如果节点还没有加载过子节点
                 if (node.getUserObject() instanceof ZkNode && node.getChildCount() == 0) {
                     final DefaultMutableTreeNode finalNode = node;
-                    final DefaultMutableTreeNode[] loadingNodeRef = new DefaultMutableTreeNode[1];
                     
-                    // 立即显示加载中状态
-                    SwingUtilities.invokeLater(new Runnable() {
-                        @Override
-                        public void run() {
-                            DefaultMutableTreeNode loadingNode = new DefaultMutableTreeNode("正在加载...");
-                            loadingNodeRef[0] = loadingNode;
-                            finalNode.add(loadingNode);
-                            treeModel.nodeStructureChanged(finalNode);
-                            statusLabel.setText("正在加载子节点...");
-                        }
-                    });
+                    // 立即显示加载中状态，子节点列表到达后整体替换
+                    finalNode.add(new DefaultMutableTreeNode("正在加载..."));
+                    treeModel.nodeStructureChanged(finalNode);
+                    statusLabel.setText("正在加载子节点...");
                     
-                    // 在后台线程中加载子节点
+                    // 在后台线程中读取子节点，结果经更新泵在EDT上应用
                     executorService.submit(new Runnable() {
                         @Override
                         public void run() {
-                            try {
-                                treeModel.refreshNode(finalNode);
-                                
-                                SwingUtilities.invokeLater(new Runnable() {
-                                    @Override
-                                    public void run() {
-                                        if (loadingNodeRef[0] != null && finalNode.isNodeChild(loadingNodeRef[0])) {
-                                            finalNode.remove(loadingNodeRef[0]);
-                                        }
-                                        zkTree.expandPath(path);
-                                        statusLabel.setText("已连接到 " + hostField.getText().trim() + ":" + portField.getText().trim());
-                                    }
-                                });
-                            } catch (Exception e) {
-                                logger.error("加载子节点失败", e);
-                                SwingUtilities.invokeLater(new Runnable() {
-                                    @Override
-                                    public void run() {
-                                        statusLabel.setText("加载子节点失败");
-                                    }
-                                });
-                            }
+                            updatePump.postChildren(finalNode, treeModel.fetchChildren(finalNode));
+                            updatePump.post(new Runnable() {
+                                @Override
+                                public void run() {
+                                    zkTree.expandPath(path);
+                                }
+                            });
+                            updatePump.post(statusLabel, new Runnable() {
+                                @Override
+                                public void run() {
+                                    statusLabel.setText("已连接到 " + hostField.getText().trim() + ":" + portField.getText().trim());
+                                }
+                            });
                         }
                     });
                     
@@ -297,6 +518,204 @@ public class ZkConnectionTab extends JPanel {
         zkTree.setRootVisible(true);
     }
     
+    /**
+     * 弹出节点右键菜单，并先选中鼠标所在的节点
+     */
+    private void showTreePopup(MouseEvent e) {
+        if (!e.isPopupTrigger()) {
+            return;
+        }
+        TreePath path = zkTree.getPathForLocation(e.getX(), e.getY());
+        if (path == null) {
+            return;
+        }
+        zkTree.setSelectionPath(path);
+        treePopupMenu.show(zkTree, e.getX(), e.getY());
+    }
+    
+    /**
+     * 跳转到指定路径：一次性并发读取各级上级节点的子节点列表，再在EDT上逐级填充、展开并选中目标节点
+     * @param path 目标路径
+     */
+    public void jumpToPath(final String path) {
+        if (!path.startsWith("/")) {
+            statusLabel.setText("路径必须以/开头");
+            return;
+        }
+        if (!isConnected) {
+            statusLabel.setText("未连接");
+            return;
+        }
+        statusLabel.setText("正在跳转到 " + path + "...");
+        List<String> ancestors = new ArrayList<>();
+        ancestors.add("/");
+        for (int i = path.indexOf('/', 1); i > 0; i = path.indexOf('/', i + 1)) {
+            ancestors.add(path.substring(0, i));
+        }
+        if (path.equals("/")) {
+            ancestors.clear();
+        }
+        final Map<String, List<String>> childrenByPath = new ConcurrentHashMap<>();
+        final AtomicInteger remaining = new AtomicInteger(ancestors.size());
+        // 所有上级节点的回调都返回后由最后一个回调提交，不占用线程等待
+        final Runnable select = new Runnable() {
+            @Override
+            public void run() {
+                DefaultMutableTreeNode node = treeModel.materializePath(path, childrenByPath);
+                TreePath treePath = new TreePath(node.getPath());
+                zkTree.setSelectionPath(treePath);
+                zkTree.scrollPathToVisible(treePath);
+                String reached = node.getUserObject() instanceof ZkNode
+                        ? ((ZkNode) node.getUserObject()).getPath() : "/";
+                if (reached.equals(path)) {
+                    statusLabel.setText("已跳转到 " + path);
+                } else {
+                    zkClient.getPathTrie().remove(path);
+                    statusLabel.setText("节点不存在: " + path + "，已定位到 " + reached);
+                }
+            }
+        };
+        AsyncCallback.Children2Callback callback = new AsyncCallback.Children2Callback() {
+            @Override
+            public void processResult(int rc, String parentPath, Object ctx, List<String> children, Stat stat) {
+                if (rc == KeeperException.Code.OK.intValue()) {
+                    childrenByPath.put(parentPath, children);
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    updatePump.post(select);
+                }
+            }
+        };
+        if (ancestors.isEmpty()) {
+            updatePump.post(select);
+        }
+        for (String ancestor : ancestors) {
+            zkClient.getChildrenAsync(ancestor, callback, null);
+        }
+    }
+    
+    /**
+     * 获取树中当前选中的ZK节点
+     * @return 选中的节点，未选中时返回null
+     */
+    private ZkNode getSelectedZkNode() {
+        TreePath selectedPath = zkTree.getSelectionPath();
+        if (selectedPath == null) {
+            return null;
+        }
+        DefaultMutableTreeNode node = (DefaultMutableTreeNode) selectedPath.getLastPathComponent();
+        if (node.getUserObject() instanceof ZkNode) {
+            return (ZkNode) node.getUserObject();
+        }
+        return null;
+    }
+    
+    /**
+     * 选择导出文件并在后台导出子树，导出进度显示在状态栏
+     * @param path 子树起点
+     */
+    private void exportSubtree(final String path) {
+        if (!zkClient.isConnected()) {
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("导出子树 " + path);
+        chooser.setSelectedFile(new java.io.File("zk-export.jsonl.gz"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        final java.io.File file = chooser.getSelectedFile();
+        final ZkSubtreeExporter exporter = new ZkSubtreeExporter(zkClient, path, file);
+        final Timer progressTimer = new Timer(500, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                statusLabel.setText("正在导出 " + path + "：已导出 " + exporter.getExportedCount() + " 个节点");
+            }
+        });
+        progressTimer.start();
+        
+        scanExecutorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                String result;
+                try {
+                    exporter.run();
+                    result = "导出完成：" + exporter.getExportedCount() + " 个节点 -> " + file.getName();
+                } catch (Exception e) {
+                    logger.error("导出子树失败: {}", path, e);
+                    result = "导出失败: " + e.getMessage();
+                }
+                final String finalResult = result;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        progressTimer.stop();
+                        statusLabel.setText(finalResult);
+                    }
+                });
+            }
+        });
+    }
+    
+    /**
+     * 选择导出文件和冲突策略，在后台把子树导入到指定节点，导入速率显示在状态栏
+     * @param path 导入位置，导出文件中的子树起点映射到该路径
+     */
+    private void importSubtree(final String path) {
+        if (!zkClient.isConnected()) {
+            return;
+        }
+        if (zkClient.isReadOnly()) {
+            JOptionPane.showMessageDialog(this, "只读连接不能导入", "提示", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        JFileChooser chooser = new JFileChooser();
+        chooser.setDialogTitle("导入到 " + path);
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        final ZkSubtreeImporter.ConflictPolicy policy = (ZkSubtreeImporter.ConflictPolicy) JOptionPane.showInputDialog(
+                this, "节点已存在时：", "导入子树", JOptionPane.QUESTION_MESSAGE, null,
+                ZkSubtreeImporter.ConflictPolicy.values(), ZkSubtreeImporter.ConflictPolicy.SKIP);
+        if (policy == null) {
+            return;
+        }
+        final ZkSubtreeImporter importer = new ZkSubtreeImporter(zkClient, chooser.getSelectedFile(), path, policy);
+        final Timer progressTimer = new Timer(500, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                statusLabel.setText(String.format("正在导入到 %s：已创建 %d，更新 %d，跳过 %d，%.1f 节点/秒",
+                        path, importer.getCreatedCount(), importer.getUpdatedCount(),
+                        importer.getSkippedCount(), importer.getNodesPerSecond()));
+            }
+        });
+        progressTimer.start();
+        
+        scanExecutorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                String result;
+                try {
+                    importer.run();
+                    result = String.format("导入完成：创建 %d，更新 %d，跳过 %d，冲突 %d，%.1f 节点/秒",
+                            importer.getCreatedCount(), importer.getUpdatedCount(), importer.getSkippedCount(),
+                            importer.getConflictCount(), importer.getNodesPerSecond());
+                } catch (Exception e) {
+                    logger.error("导入子树失败: {}", path, e);
+                    result = "导入失败: " + e.getMessage();
+                }
+                final String finalResult = result;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        progressTimer.stop();
+                        statusLabel.setText(finalResult);
+                    }
+                });
+            }
+        });
+    }
+    
     /**
      * 连接到ZooKeeper服务器
      */
@@ -321,6 +740,9 @@ public class ZkConnectionTab extends JPanel {
                             connectButton.setText("断开连接");
                             connectButton.setEnabled(true);
                             isConnected = true;
+                            if (detailTabs.getSelectedComponent() == healthPanel) {
+                                healthPanel.start(connectString);
+                            }
                             
                             try {
                                 treeModel.refreshTree();
@@ -350,6 +772,9 @@ public class ZkConnectionTab extends JPanel {
         if (zkClient != null && zkClient.isConnected()) {
             statusLabel.setText("正在断开连接...");
             connectButton.setEnabled(false);
+            // 索引的watch需要在连接关闭前移除
+            searchPanel.close();
+            healthPanel.close();
             
             executorService.submit(new Runnable() {
                 @Override
@@ -368,7 +793,7 @@ public class ZkConnectionTab extends JPanel {
                             connectButton.setEnabled(true);
                             isConnected = false;
                             
-                            dataTextArea.setText("");
+                            dataViewer.setMessage("");
                             statTextArea.setText("");
                             
                             try {
@@ -396,20 +821,21 @@ public class ZkConnectionTab extends JPanel {
             public void run() {
                 try {
                     final Stat stat = new Stat();
-                    final byte[] data = zkClient.getData(zkNode.getPath(), stat);
+                    byte[] raw = zkClient.getRawData(zkNode.getPath(), stat);
+                    // 分块存储的节点显示拼接后的完整值
+                    final ZkChunkedValue.Manifest manifest = ZkChunkedValue.parseManifest(raw);
+                    if (manifest != null) {
+                        raw = ZkChunkedValue.readChunks(zkClient, zkNode.getPath(), manifest);
+                    }
+                    final byte[] data = zkClient.decodeData(zkNode.getPath(), raw);
+                    // 解码（解压缩、格式化等）在后台线程完成，同一版本的数据只解码一次
+                    final ZkDataDecoders.Decoded decoded = dataDecoders.decode(zkNode.getPath(), stat.getMzxid(), data);
                     
-                    SwingUtilities.invokeLater(new Runnable() {
+                    // 快速切换选中节点时同一帧内只显示最后一个
+                    updatePump.post(dataViewer, new Runnable() {
                         @Override
                         public void run() {
-                            if (data != null) {
-                                try {
-                                    dataTextArea.setText(new String(data, "UTF-8"));
-                                } catch (Exception e) {
-                                    dataTextArea.setText("无法解析数据: " + e.getMessage());
-                                }
-                            } else {
-                                dataTextArea.setText("无数据");
-                            }
+                            dataViewer.setData(data, decoded);
                             
                             StringBuilder statBuilder = new StringBuilder();
                             statBuilder.append("版本: " + stat.getVersion() + "\n");
@@ -417,15 +843,22 @@ public class ZkConnectionTab extends JPanel {
                             statBuilder.append("修改时间: " + new java.util.Date(stat.getMtime()) + "\n");
                             statBuilder.append("子节点数: " + stat.getNumChildren() + "\n");
                             statBuilder.append("数据长度: " + stat.getDataLength() + "\n");
+                            if (manifest != null) {
+                                statBuilder.append("分块存储: " + manifest.getChunkCount() + " 块，共 "
+                                        + manifest.getTotalSize() + " 字节\n");
+                            }
+                            if (data != null && data.length != (manifest != null ? manifest.getTotalSize() : stat.getDataLength())) {
+                                statBuilder.append("解压后长度: " + data.length + "\n");
+                            }
                             statBuilder.append("会话ID: " + stat.getEphemeralOwner() + "\n");
                             statTextArea.setText(statBuilder.toString());
                         }
                     });
                 } catch (final Exception e) {
-                    SwingUtilities.invokeLater(new Runnable() {
+                    updatePump.post(dataViewer, new Runnable() {
                         @Override
                         public void run() {
-                            dataTextArea.setText("加载数据失败: " + e.getMessage());
+                            dataViewer.setMessage("加载数据失败: " + e.getMessage());
                             statTextArea.setText("加载属性失败: " + e.getMessage());
                         }
                     });
@@ -476,6 +909,8 @@ public class ZkConnectionTab extends JPanel {
      */
     public void disconnectFromZkOnly() {
         if (zkClient != null && zkClient.isConnected()) {
+            searchPanel.close();
+            healthPanel.close();
             try {
                 logger.info("断开ZooKeeper连接: {}", connectionName);
                 zkClient.close();
@@ -489,5 +924,8 @@ public class ZkConnectionTab extends JPanel {
         if (executorService != null && !executorService.isShutdown()) {
             executorService.shutdown();
         }
+        scanExecutorService.shutdown();
+        updatePump.stop();
+        dataDecoders.clear();
     }
 }
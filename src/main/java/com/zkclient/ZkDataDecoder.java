@@ -0,0 +1,34 @@
+package com.zkclient;
+
+import java.io.IOException;
+
+/**
+ * 节点数据解码器，用于在数据面板中以更易读的形式显示数据
+ * 除内置解码器外，可以在META-INF/services/com.zkclient.ZkDataDecoder中声明实现类，
+ * 通过ServiceLoader加载，并优先于内置解码器使用。
+ * 实现必须是线程安全的，解码在后台线程中执行。
+ */
+public interface ZkDataDecoder {
+    /**
+     * @return 显示在数据面板中的名称，例如"JSON"
+     */
+    String getName();
+
+    /**
+     * 根据内容判断能否解码，只应检查数据头部等少量内容
+     * @param data 节点数据，非空
+     */
+    boolean accepts(byte[] data);
+
+    /**
+     * @param data 节点数据
+     * @return 解码结果；isTextOutput为true时是UTF-8文本，否则是还需要继续解码的数据（例如解压缩的结果）
+     * @throws IOException 数据格式错误
+     */
+    byte[] decode(byte[] data) throws IOException;
+
+    /**
+     * @return 解码结果是否为最终显示的文本
+     */
+    boolean isTextOutput();
+}
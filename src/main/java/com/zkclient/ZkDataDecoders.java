@@ -0,0 +1,436 @@
+package com.zkclient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 节点数据解码流水线
+ * 依次尝试各个解码器，第一个接受数据的解码器负责解码；解码结果不是文本时（例如解压缩）继续解码。
+ * 解码结果按(路径, mzxid)缓存，同一版本的数据重复查看时不再解码。
+ */
+public class ZkDataDecoders {
+    private static final Logger logger = LoggerFactory.getLogger(ZkDataDecoders.class);
+
+    // 解码结果缓存的总大小上限（字节）
+    private static final long MAX_CACHE_BYTES = 32L * 1024 * 1024;
+    // 解码流水线的最大层数，例如gzip套gzip
+    private static final int MAX_DEPTH = 4;
+    // 解压缩结果的大小上限，防止压缩炸弹
+    static final int MAX_DECODED_SIZE = 64 * 1024 * 1024;
+
+    private static final List<ZkDataDecoder> DECODERS = loadDecoders();
+
+    // 所有实例合计的缓存统计，供ZkMetrics导出
+    private static final LongAdder cacheHits = new LongAdder();
+    private static final LongAdder cacheMisses = new LongAdder();
+    private static final LongAdder cacheEvictions = new LongAdder();
+    private static final AtomicLong totalCacheBytes = new AtomicLong();
+
+    /**
+     * 解码结果
+     */
+    public static class Decoded {
+        private final String description;
+        private final byte[] text;
+
+        Decoded(String description, byte[] text) {
+            this.description = description;
+            this.text = text;
+        }
+
+        /**
+         * @return 使用的解码器，例如"gzip → JSON"
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * @return 解码结果，通常是UTF-8文本；只经过解压缩时是解压后的数据
+         */
+        public byte[] getText() {
+            return text;
+        }
+    }
+
+    // 按访问顺序排列，最久未访问的在前
+    private final LinkedHashMap<String, Decoded> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cacheBytes;
+
+    /**
+     * @return 所有实例累计的缓存命中次数
+     */
+    public static long getCacheHits() {
+        return cacheHits.sum();
+    }
+
+    /**
+     * @return 所有实例累计的缓存未命中次数
+     */
+    public static long getCacheMisses() {
+        return cacheMisses.sum();
+    }
+
+    /**
+     * @return 所有实例累计因超出大小上限而淘汰的缓存项数
+     */
+    public static long getCacheEvictions() {
+        return cacheEvictions.sum();
+    }
+
+    /**
+     * @return 所有实例当前缓存的解码结果总字节数
+     */
+    public static long getCacheBytes() {
+        return totalCacheBytes.get();
+    }
+
+    /**
+     * @return 所有可用的解码器，ServiceLoader加载的在前
+     */
+    public static List<ZkDataDecoder> getDecoders() {
+        return DECODERS;
+    }
+
+    /**
+     * 解码节点数据，结果按路径和mzxid缓存
+     * @param path 节点路径
+     * @param mzxid 数据版本
+     * @param data 节点数据
+     * @return 解码结果，没有解码器接受该数据时返回null
+     */
+    public Decoded decode(String path, long mzxid, byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        String key = path + "@" + mzxid;
+        synchronized (cache) {
+            Decoded cached = cache.get(key);
+            if (cached != null || cache.containsKey(key)) {
+                cacheHits.increment();
+                return cached;
+            }
+        }
+        cacheMisses.increment();
+        Decoded decoded = decode(data);
+        synchronized (cache) {
+            long before = cacheBytes;
+            Decoded previous = cache.put(key, decoded);
+            cacheBytes += (decoded != null ? decoded.text.length : 0) - (previous != null ? previous.text.length : 0);
+            Iterator<Decoded> it = cache.values().iterator();
+            while (cacheBytes > MAX_CACHE_BYTES && it.hasNext()) {
+                Decoded eldest = it.next();
+                cacheBytes -= eldest != null ? eldest.text.length : 0;
+                it.remove();
+                cacheEvictions.increment();
+            }
+            totalCacheBytes.addAndGet(cacheBytes - before);
+        }
+        return decoded;
+    }
+
+    /**
+     * 清空本实例的解码结果缓存
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+            totalCacheBytes.addAndGet(-cacheBytes);
+            cacheBytes = 0;
+        }
+    }
+
+    /**
+     * 不使用缓存，直接解码
+     * @return 解码结果，没有解码器接受该数据时返回null
+     */
+    public static Decoded decode(byte[] data) {
+        StringBuilder description = new StringBuilder();
+        byte[] current = data;
+        for (int depth = 0; depth < MAX_DEPTH; depth++) {
+            ZkDataDecoder decoder = find(current);
+            if (decoder == null) {
+                break;
+            }
+            byte[] output;
+            try {
+                output = decoder.decode(current);
+            } catch (Exception e) {
+                // 头部符合但内容不是该格式，按未解码处理
+                logger.debug("{}解码失败: {}", decoder.getName(), e.getMessage());
+                break;
+            }
+            if (description.length() > 0) {
+                description.append(" → ");
+            }
+            description.append(decoder.getName());
+            current = output;
+            if (decoder.isTextOutput()) {
+                return new Decoded(description.toString(), current);
+            }
+        }
+        if (description.length() == 0) {
+            return null;
+        }
+        // 只解压缩了，结果本身不再有解码器接受，按原样显示
+        return new Decoded(description.toString(), current);
+    }
+
+    private static ZkDataDecoder find(byte[] data) {
+        if (data.length == 0) {
+            return null;
+        }
+        for (ZkDataDecoder decoder : DECODERS) {
+            try {
+                if (decoder.accepts(data)) {
+                    return decoder;
+                }
+            } catch (RuntimeException e) {
+                logger.warn("解码器{}判断数据格式失败", decoder.getName(), e);
+            }
+        }
+        return null;
+    }
+
+    private static List<ZkDataDecoder> loadDecoders() {
+        List<ZkDataDecoder> decoders = new ArrayList<>();
+        try {
+            for (ZkDataDecoder decoder : ServiceLoader.load(ZkDataDecoder.class)) {
+                logger.info("加载数据解码器: {} ({})", decoder.getName(), decoder.getClass().getName());
+                decoders.add(decoder);
+            }
+        } catch (ServiceConfigurationError e) {
+            logger.error("加载数据解码器失败", e);
+        }
+        // 压缩编解码器（见ZkCompression）同时作为解码流水线的解压缩步骤
+        for (ZkCompressionCodec codec : ZkCompression.getCodecs()) {
+            decoders.add(new CodecDecoder(codec));
+        }
+        decoders.add(new JavaSerializationDecoder());
+        decoders.add(new JsonDecoder());
+        decoders.add(new PropertiesDecoder());
+        return Collections.unmodifiableList(decoders);
+    }
+
+    /**
+     * 读取整个流，超过大小上限时抛出异常
+     */
+    static byte[] readLimited(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) > 0) {
+            if (out.size() + n > MAX_DECODED_SIZE) {
+                throw new IOException("解码结果超过 " + MAX_DECODED_SIZE + " 字节");
+            }
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static int firstNonWhitespace(byte[] data) {
+        int i = 0;
+        // 跳过UTF-8 BOM
+        if (data.length >= 3 && (data[0] & 0xff) == 0xef && (data[1] & 0xff) == 0xbb && (data[2] & 0xff) == 0xbf) {
+            i = 3;
+        }
+        while (i < data.length && (data[i] == ' ' || data[i] == '\t' || data[i] == '\r' || data[i] == '\n')) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 解压缩，委托给压缩编解码器
+     */
+    static class CodecDecoder implements ZkDataDecoder {
+        private final ZkCompressionCodec codec;
+
+        CodecDecoder(ZkCompressionCodec codec) {
+            this.codec = codec;
+        }
+
+        @Override
+        public String getName() {
+            return codec.getName();
+        }
+
+        @Override
+        public boolean accepts(byte[] data) {
+            return codec.matches(data);
+        }
+
+        @Override
+        public byte[] decode(byte[] data) throws IOException {
+            try (InputStream in = codec.decompress(new ByteArrayInputStream(data))) {
+                return readLimited(in);
+            }
+        }
+
+        @Override
+        public boolean isTextOutput() {
+            return false;
+        }
+    }
+
+    /**
+     * JSON格式化，按首个非空白字符为{或[识别
+     */
+    static class JsonDecoder implements ZkDataDecoder {
+        private final ObjectMapper objectMapper = new ObjectMapper();
+
+        @Override
+        public String getName() {
+            return "JSON";
+        }
+
+        @Override
+        public boolean accepts(byte[] data) {
+            int i = firstNonWhitespace(data);
+            return i < data.length && (data[i] == '{' || data[i] == '[');
+        }
+
+        @Override
+        public byte[] decode(byte[] data) throws IOException {
+            int offset = firstNonWhitespace(data);
+            JsonNode tree = objectMapper.readTree(data, offset, data.length - offset);
+            return objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(tree);
+        }
+
+        @Override
+        public boolean isTextOutput() {
+            return true;
+        }
+    }
+
+    /**
+     * properties文件，按键排序显示并还原转义字符
+     * 非注释行中大多数是key=value或key: value形式时识别为properties
+     */
+    static class PropertiesDecoder implements ZkDataDecoder {
+        // 只检查前面的行
+        private static final int SNIFF_LINES = 20;
+
+        @Override
+        public String getName() {
+            return "properties";
+        }
+
+        @Override
+        public boolean accepts(byte[] data) {
+            String head = new String(data, 0, Math.min(data.length, 4096), StandardCharsets.UTF_8);
+            int lines = 0;
+            int pairs = 0;
+            for (String line : head.split("\n", SNIFF_LINES + 1)) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#") || line.startsWith("!")) {
+                    continue;
+                }
+                lines++;
+                int separator = indexOfSeparator(line);
+                if (separator > 0 && line.substring(0, separator).trim().indexOf(' ') < 0) {
+                    pairs++;
+                }
+                if (lines >= SNIFF_LINES) {
+                    break;
+                }
+            }
+            return pairs > 0 && pairs * 10 >= lines * 8;
+        }
+
+        private static int indexOfSeparator(String line) {
+            int equals = line.indexOf('=');
+            int colon = line.indexOf(':');
+            if (equals < 0) {
+                return colon;
+            }
+            return colon < 0 ? equals : Math.min(equals, colon);
+        }
+
+        @Override
+        public byte[] decode(byte[] data) throws IOException {
+            Properties properties = new Properties();
+            properties.load(new InputStreamReader(new ByteArrayInputStream(data), StandardCharsets.UTF_8));
+            Map<String, String> sorted = new TreeMap<>();
+            for (String name : properties.stringPropertyNames()) {
+                sorted.put(name, properties.getProperty(name));
+            }
+            StringBuilder text = new StringBuilder();
+            for (Map.Entry<String, String> entry : sorted.entrySet()) {
+                text.append(entry.getKey()).append(" = ").append(entry.getValue()).append('\n');
+            }
+            return text.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public boolean isTextOutput() {
+            return true;
+        }
+    }
+
+    /**
+     * Java序列化数据，只解析流头部的类描述，不反序列化对象
+     */
+    static class JavaSerializationDecoder implements ZkDataDecoder {
+        private static final int STREAM_MAGIC = 0xaced;
+        private static final byte TC_OBJECT = 0x73;
+        private static final byte TC_CLASSDESC = 0x72;
+
+        @Override
+        public String getName() {
+            return "Java序列化";
+        }
+
+        @Override
+        public boolean accepts(byte[] data) {
+            return data.length >= 4 && (data[0] & 0xff) == 0xac && (data[1] & 0xff) == 0xed;
+        }
+
+        @Override
+        public byte[] decode(byte[] data) throws IOException {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            if (in.readUnsignedShort() != STREAM_MAGIC) {
+                throw new IOException("不是Java序列化数据");
+            }
+            int version = in.readUnsignedShort();
+            StringBuilder text = new StringBuilder();
+            text.append("Java序列化数据，流版本 ").append(version).append("，").append(data.length).append(" 字节\n");
+            if (data.length > 6 && data[4] == TC_OBJECT && data[5] == TC_CLASSDESC) {
+                in.skipBytes(2);
+                String className = in.readUTF();
+                long serialVersionUid = in.readLong();
+                text.append("对象类型: ").append(className).append('\n');
+                text.append("serialVersionUID: ").append(serialVersionUid).append('\n');
+            }
+            text.append("（出于安全考虑不反序列化对象，可切换到十六进制查看原始数据）\n");
+            return text.toString().getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public boolean isTextOutput() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.zkclient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 在节点数据的字节上查找子串或正则表达式
+ * 普通子串（以及ASCII子串的忽略大小写查找）直接在UTF-8字节上用Horspool算法匹配，不解码数据；
+ * 正则表达式对纯ASCII数据以字节视图作为CharSequence匹配，其他数据才解码为字符串。
+ * 实例不可变，可以被多个线程同时使用。
+ */
+public class ZkDataMatcher {
+    // 片段中匹配位置前后保留的字节数
+    private static final int SNIPPET_CONTEXT = 40;
+
+    private final String text;
+    private final boolean regex;
+    private final boolean ignoreCase;
+    private final byte[] needle;
+    private final int[] shift;
+    private final Pattern pattern;
+
+    /**
+     * 一次匹配的位置
+     */
+    public static class Match {
+        private final int start;
+        private final int end;
+
+        Match(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @return 匹配在数据中的起始字节位置
+         */
+        public int getStart() {
+            return start;
+        }
+
+        /**
+         * @return 匹配在数据中的结束字节位置（不含）
+         */
+        public int getEnd() {
+            return end;
+        }
+    }
+
+    /**
+     * @param text 要查找的文本或正则表达式
+     * @param regex 是否为正则表达式
+     * @param ignoreCase 是否忽略大小写
+     * @throws java.util.regex.PatternSyntaxException 正则表达式语法错误
+     */
+    public ZkDataMatcher(String text, boolean regex, boolean ignoreCase) {
+        this.text = text;
+        this.regex = regex;
+        this.ignoreCase = ignoreCase;
+        if (!regex && (!ignoreCase || isAscii(text))) {
+            needle = text.getBytes(StandardCharsets.UTF_8);
+            if (ignoreCase) {
+                for (int i = 0; i < needle.length; i++) {
+                    needle[i] = fold(needle[i]);
+                }
+            }
+            shift = new int[256];
+            for (int i = 0; i < 256; i++) {
+                shift[i] = needle.length;
+            }
+            for (int i = 0; i < needle.length - 1; i++) {
+                shift[needle[i] & 0xff] = needle.length - 1 - i;
+            }
+            pattern = null;
+        } else {
+            needle = null;
+            shift = null;
+            int flags = ignoreCase ? Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE : 0;
+            pattern = Pattern.compile(regex ? text : Pattern.quote(text), flags);
+        }
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public boolean isRegex() {
+        return regex;
+    }
+
+    public boolean isIgnoreCase() {
+        return ignoreCase;
+    }
+
+    /**
+     * 查找第一个匹配
+     * @return 匹配位置，没有匹配时返回null
+     */
+    public Match find(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (needle != null) {
+            int index = indexOf(data);
+            return index < 0 ? null : new Match(index, index + needle.length);
+        }
+        if (isAscii(data)) {
+            Matcher matcher = pattern.matcher(new AsciiSequence(data, 0, data.length));
+            return matcher.find() ? new Match(matcher.start(), matcher.end()) : null;
+        }
+        String decoded = new String(data, StandardCharsets.UTF_8);
+        Matcher matcher = pattern.matcher(decoded);
+        if (!matcher.find()) {
+            return null;
+        }
+        // 字符位置换算为字节位置
+        int start = decoded.substring(0, matcher.start()).getBytes(StandardCharsets.UTF_8).length;
+        int end = start + decoded.substring(matcher.start(), matcher.end()).getBytes(StandardCharsets.UTF_8).length;
+        return new Match(start, end);
+    }
+
+    /**
+     * Horspool查找，忽略大小写时比较前先折叠ASCII字母
+     */
+    private int indexOf(byte[] data) {
+        int n = needle.length;
+        if (n == 0) {
+            return 0;
+        }
+        int last = n - 1;
+        int pos = 0;
+        while (pos <= data.length - n) {
+            int i = last;
+            while (i >= 0 && (ignoreCase ? fold(data[pos + i]) : data[pos + i]) == needle[i]) {
+                i--;
+            }
+            if (i < 0) {
+                return pos;
+            }
+            byte tail = data[pos + last];
+            pos += shift[(ignoreCase ? fold(tail) : tail) & 0xff];
+        }
+        return -1;
+    }
+
+    private static byte fold(byte b) {
+        return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAscii(byte[] data) {
+        for (byte b : data) {
+            if (b < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 截取匹配位置附近的数据作为显示用的片段，边界对齐到UTF-8字符起点
+     */
+    public static String snippet(byte[] data, Match match) {
+        int from = Math.max(0, match.getStart() - SNIPPET_CONTEXT);
+        int to = Math.min(data.length, match.getEnd() + SNIPPET_CONTEXT);
+        while (from > 0 && (data[from] & 0xc0) == 0x80) {
+            from--;
+        }
+        while (to < data.length && (data[to] & 0xc0) == 0x80) {
+            to++;
+        }
+        String snippet = new String(data, from, to - from, StandardCharsets.UTF_8).replace('\n', ' ').replace('\r', ' ');
+        return (from > 0 ? "..." : "") + snippet + (to < data.length ? "..." : "");
+    }
+
+    /**
+     * 纯ASCII字节数组的CharSequence视图，正则匹配时不需要复制和解码
+     */
+    private static class AsciiSequence implements CharSequence {
+        private final byte[] data;
+        private final int offset;
+        private final int length;
+
+        AsciiSequence(byte[] data, int offset, int length) {
+            this.data = data;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) data[offset + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new AsciiSequence(data, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(data, offset, length, StandardCharsets.US_ASCII);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.zkclient;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 节点数据查看器，以虚拟列表按行显示数据
+ * 列表只保存行的起始位置，每行的文本在绘制时才从字节数组生成，并且使用固定行高和行宽，
+ * 布局时不需要测量所有行，因此jute.maxbuffer以内的数据都可以立即打开。
+ * 十六进制模式每行16字节，文本模式按换行和最大行长切分UTF-8数据；
+ * 自动模式优先显示解码器（见ZkDataDecoders）的解码结果，没有解码结果时
+ * 对合法的UTF-8文本使用文本模式，否则使用十六进制模式；文本和十六进制模式总是显示原始数据。
+ */
+public class ZkDataViewer extends JPanel {
+    private static final String[] MODES = {"自动", "文本", "十六进制"};
+    private static final int MODE_AUTO = 0;
+    private static final int MODE_TEXT = 1;
+    private static final int MODE_HEX = 2;
+
+    // 十六进制模式每行的字节数
+    private static final int HEX_BYTES_PER_ROW = 16;
+    // 文本模式每行的最大字节数，超长的行折成多行
+    private static final int TEXT_MAX_ROW_BYTES = 256;
+    // 判断为文本时允许的控制字符比例
+    private static final double MAX_CONTROL_RATIO = 0.01;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final JComboBox<String> modeComboBox = new JComboBox<>(MODES);
+    private final JLabel infoLabel = new JLabel(" ");
+    private final JList<String> list = new JList<>();
+    private byte[] data;
+    private ZkDataDecoders.Decoded decoded;
+
+    public ZkDataViewer() {
+        super(new BorderLayout());
+
+        list.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        list.setSelectionMode(ListSelectionModel.MULTIPLE_INTERVAL_SELECTION);
+        FontMetrics metrics = list.getFontMetrics(list.getFont());
+        list.setFixedCellHeight(metrics.getHeight() + 1);
+
+        JPanel toolbar = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        toolbar.add(new JLabel("显示:"));
+        toolbar.add(modeComboBox);
+        toolbar.add(infoLabel);
+        add(toolbar, BorderLayout.NORTH);
+        add(new JScrollPane(list), BorderLayout.CENTER);
+
+        modeComboBox.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (data != null) {
+                    render();
+                }
+            }
+        });
+        setMessage("请选择一个节点以查看数据内容");
+    }
+
+    /**
+     * 显示节点数据，必须在EDT上调用
+     * @param data 节点数据，null或空数组时显示"无数据"
+     */
+    public void setData(byte[] data) {
+        setData(data, null);
+    }
+
+    /**
+     * 显示节点数据及其解码结果，必须在EDT上调用
+     * @param data 节点数据，null或空数组时显示"无数据"
+     * @param decoded 在后台线程得到的解码结果，没有时为null
+     */
+    public void setData(byte[] data, ZkDataDecoders.Decoded decoded) {
+        if (data == null || data.length == 0) {
+            setMessage("无数据");
+            return;
+        }
+        this.data = data;
+        this.decoded = decoded;
+        render();
+    }
+
+    /**
+     * 显示一行提示信息代替数据，必须在EDT上调用
+     */
+    public void setMessage(String message) {
+        data = null;
+        decoded = null;
+        infoLabel.setText(" ");
+        list.setFixedCellWidth(-1);
+        DefaultListModel<String> model = new DefaultListModel<>();
+        model.addElement(message);
+        list.setModel(model);
+    }
+
+    private void render() {
+        int mode = modeComboBox.getSelectedIndex();
+        boolean showDecoded = mode == MODE_AUTO && decoded != null;
+        byte[] shown = showDecoded ? decoded.getText() : data;
+        boolean text = mode == MODE_TEXT || (mode == MODE_AUTO && isText(shown));
+        FontMetrics metrics = list.getFontMetrics(list.getFont());
+        AbstractListModel<String> model;
+        int columns;
+        if (text) {
+            TextModel textModel = new TextModel(shown);
+            model = textModel;
+            // 汉字等宽字符在等宽字体中占两列，UTF-8中占三字节，按字节数估算不会过窄
+            columns = textModel.maxRowBytes + 2;
+        } else {
+            model = new HexModel(shown);
+            columns = 10 + HEX_BYTES_PER_ROW * 3 + 2 + HEX_BYTES_PER_ROW + 2;
+        }
+        list.setFixedCellWidth(metrics.charWidth('M') * columns);
+        list.setModel(model);
+        if (showDecoded) {
+            infoLabel.setText(data.length + " 字节，" + decoded.getDescription() + "，解码后 " + shown.length
+                    + " 字节，" + model.getSize() + " 行");
+        } else {
+            infoLabel.setText(data.length + " 字节，" + (text ? "文本" : "十六进制") + "，" + model.getSize() + " 行");
+        }
+        list.ensureIndexIsVisible(0);
+    }
+
+    /**
+     * @return 数据是否为合法的UTF-8，并且除制表符和换行外的控制字符很少
+     */
+    static boolean isText(byte[] data) {
+        try {
+            StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(data));
+        } catch (CharacterCodingException e) {
+            return false;
+        }
+        int control = 0;
+        for (byte b : data) {
+            if (b >= 0 && b < 0x20 && b != '\t' && b != '\n' && b != '\r') {
+                control++;
+            }
+        }
+        return control <= data.length * MAX_CONTROL_RATIO;
+    }
+
+    /**
+     * 十六进制视图：偏移、16个字节的十六进制和可打印的ASCII字符
+     */
+    private static class HexModel extends AbstractListModel<String> {
+        private final byte[] data;
+
+        HexModel(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        public int getSize() {
+            return (data.length + HEX_BYTES_PER_ROW - 1) / HEX_BYTES_PER_ROW;
+        }
+
+        @Override
+        public String getElementAt(int index) {
+            int offset = index * HEX_BYTES_PER_ROW;
+            int end = Math.min(offset + HEX_BYTES_PER_ROW, data.length);
+            StringBuilder row = new StringBuilder(80);
+            String address = Integer.toHexString(offset);
+            for (int i = address.length(); i < 8; i++) {
+                row.append('0');
+            }
+            row.append(address).append("  ");
+            for (int i = offset; i < offset + HEX_BYTES_PER_ROW; i++) {
+                if (i < end) {
+                    row.append(HEX_DIGITS[(data[i] >> 4) & 0xf]).append(HEX_DIGITS[data[i] & 0xf]).append(' ');
+                } else {
+                    row.append("   ");
+                }
+                if (i == offset + HEX_BYTES_PER_ROW / 2 - 1) {
+                    row.append(' ');
+                }
+            }
+            row.append(" |");
+            for (int i = offset; i < end; i++) {
+                row.append(data[i] >= 0x20 && data[i] < 0x7f ? (char) data[i] : '.');
+            }
+            return row.append('|').toString();
+        }
+    }
+
+    /**
+     * 文本视图：构造时只扫描一遍数据记录每行的起始位置，行内容在绘制时才解码
+     */
+    private static class TextModel extends AbstractListModel<String> {
+        private final byte[] data;
+        private int[] rowStarts = new int[64];
+        private int rowCount;
+        int maxRowBytes;
+
+        TextModel(byte[] data) {
+            this.data = data;
+            int start = 0;
+            while (start < data.length) {
+                int end = start;
+                int limit = Math.min(data.length, start + TEXT_MAX_ROW_BYTES);
+                while (end < limit && data[end] != '\n') {
+                    end++;
+                }
+                if (end < data.length && data[end] == '\n') {
+                    end++;
+                } else {
+                    // 在最大行长处折行，不拆开一个UTF-8字符
+                    while (end < data.length && end > start + 1 && (data[end] & 0xc0) == 0x80) {
+                        end--;
+                    }
+                }
+                addRow(start);
+                maxRowBytes = Math.max(maxRowBytes, end - start);
+                start = end;
+            }
+        }
+
+        private void addRow(int start) {
+            if (rowCount == rowStarts.length) {
+                rowStarts = Arrays.copyOf(rowStarts, rowCount * 2);
+            }
+            rowStarts[rowCount++] = start;
+        }
+
+        @Override
+        public int getSize() {
+            return rowCount;
+        }
+
+        @Override
+        public String getElementAt(int index) {
+            int start = rowStarts[index];
+            int end = index + 1 < rowCount ? rowStarts[index + 1] : data.length;
+            while (end > start && (data[end - 1] == '\n' || data[end - 1] == '\r')) {
+                end--;
+            }
+            return new String(data, start, end - start, StandardCharsets.UTF_8).replace("\t", "    ");
+        }
+    }
+}
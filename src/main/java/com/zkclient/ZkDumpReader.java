@@ -0,0 +1,275 @@
+package com.zkclient;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Id;
+import org.apache.zookeeper.data.Stat;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * 子树导出文件读取器，按记录流式读取ZkDumpWriter写出的文件
+ * 根据文件头的魔数自动识别gzip、zip或未压缩的JSON Lines
+ * 版本2起文件以结束记录收尾，读到文件末尾仍没有结束记录或记录数不符时抛出IOException，
+ * 避免把取消或失败的导出当作完整文件导入。
+ */
+public class ZkDumpReader implements ZkSubtreeImporter.RecordSource {
+    // 解压后的读缓冲区大小
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final InputStream in;
+    private final JsonParser parser;
+    private String rootPath;
+    private String type = ZkDumpWriter.TYPE_FULL;
+    private long baseZxid = -1;
+    private long createdAt;
+    private int version;
+    private long recordCount = 0;
+    private boolean ended = false;
+
+    /**
+     * 打开导出文件并读取文件头
+     * @param file 导出文件
+     */
+    public ZkDumpReader(File file) throws IOException {
+        InputStream raw = new BufferedInputStream(new FileInputStream(file), READ_BUFFER_SIZE);
+        try {
+            in = new BufferedInputStream(decompress(raw), READ_BUFFER_SIZE);
+            parser = jsonFactory.createParser(in);
+            readHeader();
+        } catch (IOException e) {
+            raw.close();
+            throw e;
+        }
+    }
+
+    private static InputStream decompress(InputStream raw) throws IOException {
+        raw.mark(4);
+        int b1 = raw.read();
+        int b2 = raw.read();
+        raw.reset();
+        if (b1 == 0x1f && b2 == 0x8b) {
+            return new GZIPInputStream(raw, READ_BUFFER_SIZE);
+        }
+        if (b1 == 'P' && b2 == 'K') {
+            ZipInputStream zipIn = new ZipInputStream(raw);
+            ZipEntry entry = zipIn.getNextEntry();
+            if (entry == null) {
+                throw new IOException("zip文件中没有导出数据");
+            }
+            return zipIn;
+        }
+        return raw;
+    }
+
+    private void readHeader() throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("无效的导出文件：缺少文件头");
+        }
+        String format = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if ("format".equals(field)) {
+                format = parser.getText();
+            } else if ("version".equals(field)) {
+                version = parser.getIntValue();
+            } else if ("type".equals(field)) {
+                type = parser.getText();
+            } else if ("baseZxid".equals(field)) {
+                baseZxid = parser.getLongValue();
+            } else if ("root".equals(field)) {
+                rootPath = parser.getText();
+            } else if ("createdAt".equals(field)) {
+                createdAt = parser.getLongValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (!ZkDumpWriter.FORMAT.equals(format)) {
+            throw new IOException("无效的导出文件格式: " + format);
+        }
+    }
+
+    /**
+     * @return 导出时的子树起点
+     */
+    @Override
+    public String getRootPath() {
+        return rootPath;
+    }
+
+    /**
+     * @return 是否为增量文件
+     */
+    public boolean isDelta() {
+        return ZkDumpWriter.TYPE_DELTA.equals(type);
+    }
+
+    /**
+     * @return 增量文件的基准zxid，完整导出时为-1
+     */
+    public long getBaseZxid() {
+        return baseZxid;
+    }
+
+    /**
+     * @return 导出时间
+     */
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * 读取下一条节点记录
+     * @return 节点记录，已到文件末尾时返回null
+     */
+    @Override
+    public ZkDumpRecord next() throws IOException {
+        if (ended) {
+            return null;
+        }
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            // 版本1的文件没有结束记录
+            if (version >= 2) {
+                throw new IOException("导出文件不完整：缺少结束记录，导出可能被取消或失败");
+            }
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new IOException("无效的节点记录: " + parser.getCurrentLocation());
+        }
+        String path = null;
+        Stat stat = new Stat();
+        byte[] data = null;
+        List<ACL> acl = new ArrayList<>();
+        boolean deleted = false;
+        boolean end = false;
+        long expectedRecords = -1;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("path".equals(field)) {
+                path = parser.getText();
+            } else if ("stat".equals(field)) {
+                readStat(stat);
+            } else if ("data".equals(field)) {
+                data = value == JsonToken.VALUE_NULL ? null : parser.getBinaryValue();
+            } else if ("acl".equals(field)) {
+                readAcl(acl);
+            } else if ("deleted".equals(field)) {
+                deleted = parser.getBooleanValue();
+            } else if ("end".equals(field)) {
+                end = parser.getBooleanValue();
+            } else if ("records".equals(field)) {
+                expectedRecords = parser.getLongValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (end) {
+            if (expectedRecords != recordCount) {
+                throw new IOException("导出文件不完整：结束记录中的记录数为 " + expectedRecords
+                        + "，实际读取 " + recordCount);
+            }
+            ended = true;
+            return null;
+        }
+        if (path == null) {
+            throw new IOException("节点记录缺少path字段: " + parser.getCurrentLocation());
+        }
+        recordCount++;
+        if (deleted) {
+            return ZkDumpRecord.deleted(path);
+        }
+        return new ZkDumpRecord(path, stat, data, acl);
+    }
+
+    private void readStat(Stat stat) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            long value = parser.getLongValue();
+            switch (field) {
+                case "czxid":
+                    stat.setCzxid(value);
+                    break;
+                case "mzxid":
+                    stat.setMzxid(value);
+                    break;
+                case "ctime":
+                    stat.setCtime(value);
+                    break;
+                case "mtime":
+                    stat.setMtime(value);
+                    break;
+                case "version":
+                    stat.setVersion((int) value);
+                    break;
+                case "cversion":
+                    stat.setCversion((int) value);
+                    break;
+                case "aversion":
+                    stat.setAversion((int) value);
+                    break;
+                case "ephemeralOwner":
+                    stat.setEphemeralOwner(value);
+                    break;
+                case "dataLength":
+                    stat.setDataLength((int) value);
+                    break;
+                case "numChildren":
+                    stat.setNumChildren((int) value);
+                    break;
+                case "pzxid":
+                    stat.setPzxid(value);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private void readAcl(List<ACL> acl) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            int perms = 0;
+            String scheme = null;
+            String id = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if ("perms".equals(field)) {
+                    perms = parser.getIntValue();
+                } else if ("scheme".equals(field)) {
+                    scheme = parser.getText();
+                } else if ("id".equals(field)) {
+                    id = parser.getText();
+                }
+            }
+            acl.add(new ACL(perms, new Id(scheme, id)));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            parser.close();
+        } finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.zkclient;
+
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
+
+import java.util.List;
+
+/**
+ * 子树导出文件中的一条节点记录
+ */
+public class ZkDumpRecord {
+    private final String path;
+    private final Stat stat;
+    private final byte[] data;
+    private final List<ACL> acl;
+    private final boolean deleted;
+
+    public ZkDumpRecord(String path, Stat stat, byte[] data, List<ACL> acl) {
+        this(path, stat, data, acl, false);
+    }
+
+    private ZkDumpRecord(String path, Stat stat, byte[] data, List<ACL> acl, boolean deleted) {
+        this.path = path;
+        this.stat = stat;
+        this.data = data;
+        this.acl = acl;
+        this.deleted = deleted;
+    }
+
+    /**
+     * 创建增量文件中的删除记录，表示该节点及其整个子树已被删除
+     * @param path 被删除的节点路径
+     */
+    public static ZkDumpRecord deleted(String path) {
+        return new ZkDumpRecord(path, null, null, null, true);
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public Stat getStat() {
+        return stat;
+    }
+
+    /**
+     * @return 节点数据，节点数据为null时返回null
+     */
+    public byte[] getData() {
+        return data;
+    }
+
+    public List<ACL> getAcl() {
+        return acl;
+    }
+
+    /**
+     * @return 是否为删除记录，删除记录没有Stat、数据和ACL
+     */
+    public boolean isDeleted() {
+        return deleted;
+    }
+}
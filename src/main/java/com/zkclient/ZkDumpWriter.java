@@ -0,0 +1,184 @@
+package com.zkclient;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 子树导出文件写入器
+ * 文件为JSON Lines格式：首行为文件头，之后每行一条节点记录，数据以base64编码。
+ * 以.zip结尾的文件写为单条目zip压缩包，其余写为gzip。
+ * 记录逐条写入固定大小的缓冲区，不在内存中累积整棵树。
+ * 增量文件（delta）在文件头中记录基准zxid，并可包含删除记录。
+ * 只有调用finish()才会写入包含记录数的结束记录，取消或失败后关闭的文件没有结束记录，读取时会被拒绝。
+ */
+public class ZkDumpWriter implements Closeable {
+    public static final String FORMAT = "zkclient-dump";
+    public static final int VERSION = 2;
+    public static final String ZIP_ENTRY_NAME = "dump.jsonl";
+    public static final String TYPE_FULL = "full";
+    public static final String TYPE_DELTA = "delta";
+
+    // 压缩前的写缓冲区大小
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private static final JsonFactory jsonFactory = new JsonFactory();
+
+    private final OutputStream out;
+    private final JsonGenerator generator;
+    private long recordCount = 0;
+    private boolean finished = false;
+
+    /**
+     * 创建完整导出文件并写入文件头
+     * @param file 目标文件
+     * @param rootPath 导出的子树起点
+     */
+    public ZkDumpWriter(File file, String rootPath) throws IOException {
+        this(file, rootPath, -1);
+    }
+
+    /**
+     * 创建导出文件并写入文件头
+     * @param file 目标文件
+     * @param rootPath 导出的子树起点
+     * @param baseZxid 增量文件的基准zxid，只包含该zxid之后的变化；-1表示完整导出
+     */
+    public ZkDumpWriter(File file, String rootPath, long baseZxid) throws IOException {
+        OutputStream fileOut = new FileOutputStream(file);
+        try {
+            if (file.getName().toLowerCase().endsWith(".zip")) {
+                ZipOutputStream zipOut = new ZipOutputStream(fileOut);
+                zipOut.putNextEntry(new ZipEntry(ZIP_ENTRY_NAME));
+                out = new BufferedOutputStream(zipOut, WRITE_BUFFER_SIZE);
+            } else {
+                out = new BufferedOutputStream(new GZIPOutputStream(fileOut, WRITE_BUFFER_SIZE), WRITE_BUFFER_SIZE);
+            }
+        } catch (IOException e) {
+            fileOut.close();
+            throw e;
+        }
+        generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        // 每条记录单独成行，不需要默认的空格分隔符
+        generator.setRootValueSeparator(null);
+
+        generator.writeStartObject();
+        generator.writeStringField("format", FORMAT);
+        generator.writeNumberField("version", VERSION);
+        generator.writeStringField("type", baseZxid < 0 ? TYPE_FULL : TYPE_DELTA);
+        generator.writeStringField("root", rootPath);
+        if (baseZxid >= 0) {
+            generator.writeNumberField("baseZxid", baseZxid);
+        }
+        generator.writeNumberField("createdAt", System.currentTimeMillis());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * 写入一条节点记录
+     */
+    public void write(String path, Stat stat, byte[] data, List<ACL> acl) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("path", path);
+
+        generator.writeObjectFieldStart("stat");
+        generator.writeNumberField("czxid", stat.getCzxid());
+        generator.writeNumberField("mzxid", stat.getMzxid());
+        generator.writeNumberField("ctime", stat.getCtime());
+        generator.writeNumberField("mtime", stat.getMtime());
+        generator.writeNumberField("version", stat.getVersion());
+        generator.writeNumberField("cversion", stat.getCversion());
+        generator.writeNumberField("aversion", stat.getAversion());
+        generator.writeNumberField("ephemeralOwner", stat.getEphemeralOwner());
+        generator.writeNumberField("dataLength", stat.getDataLength());
+        generator.writeNumberField("numChildren", stat.getNumChildren());
+        generator.writeNumberField("pzxid", stat.getPzxid());
+        generator.writeEndObject();
+
+        if (data == null) {
+            generator.writeNullField("data");
+        } else {
+            generator.writeFieldName("data");
+            generator.writeBinary(data);
+        }
+
+        generator.writeArrayFieldStart("acl");
+        if (acl != null) {
+            for (ACL entry : acl) {
+                generator.writeStartObject();
+                generator.writeNumberField("perms", entry.getPerms());
+                generator.writeStringField("scheme", entry.getId().getScheme());
+                generator.writeStringField("id", entry.getId().getId());
+                generator.writeEndObject();
+            }
+        }
+        generator.writeEndArray();
+
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        recordCount++;
+    }
+
+    /**
+     * 写入一条删除记录，表示该节点及其整个子树已被删除
+     */
+    public void writeDeleted(String path) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("path", path);
+        generator.writeBooleanField("deleted", true);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        recordCount++;
+    }
+
+    /**
+     * @return 已写入的节点记录数
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * 写入结束记录，表示文件完整；之后不能再写入节点记录
+     */
+    public void finish() throws IOException {
+        generator.writeStartObject();
+        generator.writeBooleanField("end", true);
+        generator.writeNumberField("records", recordCount);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        finished = true;
+    }
+
+    /**
+     * @return 是否已写入结束记录
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            generator.close();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.zkclient;
+
+import javax.swing.*;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.text.SimpleDateFormat;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 界面卡顿记录对话框，显示ZkEdtWatchdog环形缓冲区中的卡顿及其EDT调用栈
+ */
+public class ZkEdtStallDialog extends JDialog {
+    private final DefaultListModel<ZkEdtWatchdog.Stall> listModel = new DefaultListModel<>();
+    private final JList<ZkEdtWatchdog.Stall> stallList = new JList<>(listModel);
+    private final JTextArea stackArea = new JTextArea();
+    private final JLabel summaryLabel = new JLabel(" ");
+
+    public ZkEdtStallDialog(Frame owner) {
+        super(owner, "界面卡顿记录", false);
+        initComponents();
+        refresh();
+        setSize(900, 600);
+        setLocationRelativeTo(owner);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+    }
+
+    private void initComponents() {
+        final SimpleDateFormat format = new SimpleDateFormat("HH:mm:ss.SSS");
+        stallList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        stallList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                ZkEdtWatchdog.Stall stall = (ZkEdtWatchdog.Stall) value;
+                long duration = stall.getDurationMs();
+                String text = format.format(new Date(stall.getStartTime())) + "  "
+                        + (duration >= 0 ? duration + " 毫秒" : "进行中")
+                        + (stall.getOperation() != null ? "  " + stall.getOperation() : "");
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        stallList.addListSelectionListener(new ListSelectionListener() {
+            @Override
+            public void valueChanged(ListSelectionEvent e) {
+                ZkEdtWatchdog.Stall stall = stallList.getSelectedValue();
+                stackArea.setText(stall != null ? stall.format() : "");
+                stackArea.setCaretPosition(0);
+            }
+        });
+        stackArea.setEditable(false);
+        stackArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JButton refreshButton = new JButton("刷新");
+        refreshButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                refresh();
+            }
+        });
+        JButton clearButton = new JButton("清空");
+        clearButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                ZkEdtWatchdog.clear();
+                refresh();
+            }
+        });
+
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        topPanel.add(refreshButton);
+        topPanel.add(clearButton);
+        topPanel.add(summaryLabel);
+
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+                new JScrollPane(stallList), new JScrollPane(stackArea));
+        splitPane.setDividerLocation(200);
+
+        getContentPane().setLayout(new BorderLayout());
+        getContentPane().add(topPanel, BorderLayout.NORTH);
+        getContentPane().add(splitPane, BorderLayout.CENTER);
+    }
+
+    private void refresh() {
+        List<ZkEdtWatchdog.Stall> stalls = ZkEdtWatchdog.getStalls();
+        // 最新的在前
+        Collections.reverse(stalls);
+        listModel.clear();
+        for (ZkEdtWatchdog.Stall stall : stalls) {
+            listModel.addElement(stall);
+        }
+        if (!ZkEdtWatchdog.isStarted()) {
+            summaryLabel.setText("卡顿监视未启动");
+        } else {
+            summaryLabel.setText("阈值 " + ZkEdtWatchdog.getThresholdMs() + " 毫秒，累计卡顿 "
+                    + ZkEdtWatchdog.getStallCount() + " 次，最大响应延迟 " + ZkEdtWatchdog.getMaxLatencyMs()
+                    + " 毫秒，最近 " + ZkEdtWatchdog.getLastLatencyMs() + " 毫秒");
+        }
+        if (!listModel.isEmpty()) {
+            stallList.setSelectedIndex(0);
+        } else {
+            stackArea.setText("");
+        }
+    }
+}
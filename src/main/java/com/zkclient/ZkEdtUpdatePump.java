@@ -0,0 +1,197 @@
+package com.zkclient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.TreeNode;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * EDT更新泵，汇总后台线程产生的界面和树模型更新，按帧批量在EDT上执行
+ * 后台线程只向无锁队列提交更新，不再各自调用invokeLater；有待处理的更新时，
+ * 计时器每帧在EDT上取出一批更新：同一节点的子节点列表和同一键的更新只执行最后一次，
+ * 子节点列表全部应用后，只对最上层的变化节点发出一次nodeStructureChanged，
+ * 因此无论后台产生更新的速度多快，EDT每帧的工作量都是有界的。
+ */
+public class ZkEdtUpdatePump {
+    private static final Logger logger = LoggerFactory.getLogger(ZkEdtUpdatePump.class);
+
+    // 帧间隔（毫秒）
+    private static final int FRAME_MS = 16;
+    // 每帧最多取出的更新数，其余留到下一帧
+    private static final int MAX_UPDATES_PER_FRAME = 5000;
+
+    /**
+     * 队列中的一条更新，node、key都为null时是按提交顺序执行的普通任务
+     */
+    private static class Update {
+        final DefaultMutableTreeNode node;
+        final List<String> children;
+        final Object key;
+        final Runnable task;
+
+        Update(DefaultMutableTreeNode node, List<String> children, Object key, Runnable task) {
+            this.node = node;
+            this.children = children;
+            this.key = key;
+            this.task = task;
+        }
+    }
+
+    private final ZkTreeModel treeModel;
+    private final ConcurrentLinkedQueue<Update> queue = new ConcurrentLinkedQueue<>();
+    // 计时器是否在运行或即将启动
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final Timer timer;
+    private volatile boolean stopped;
+
+    /**
+     * @param treeModel 子节点列表更新应用到的树模型
+     */
+    public ZkEdtUpdatePump(ZkTreeModel treeModel) {
+        this.treeModel = treeModel;
+        this.timer = new Timer(FRAME_MS, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                drain();
+            }
+        });
+        timer.setCoalesce(true);
+    }
+
+    /**
+     * 提交一个界面任务，同一帧内的任务按提交顺序执行，可以在任意线程调用
+     */
+    public void post(Runnable task) {
+        offer(new Update(null, null, null, task));
+    }
+
+    /**
+     * 提交一个可合并的界面任务，同一帧内相同键的任务只执行最后提交的一个，
+     * 例如状态栏文字、当前选中节点的数据；可以在任意线程调用
+     * @param key 合并用的键
+     * @param task 任务
+     */
+    public void post(Object key, Runnable task) {
+        offer(new Update(null, null, key, task));
+    }
+
+    /**
+     * 提交树节点新的子节点列表，同一帧内同一节点只应用最后一次；可以在任意线程调用
+     * @param node 树节点
+     * @param children 子节点名称列表，null表示读取失败，清空子节点
+     */
+    public void postChildren(DefaultMutableTreeNode node, List<String> children) {
+        offer(new Update(node, children != null ? children : Collections.<String>emptyList(), null, null));
+    }
+
+    /**
+     * 停止泵，丢弃尚未执行的更新
+     */
+    public void stop() {
+        stopped = true;
+        queue.clear();
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                timer.stop();
+            }
+        });
+    }
+
+    private void offer(Update update) {
+        if (stopped) {
+            return;
+        }
+        queue.offer(update);
+        if (scheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    if (!stopped) {
+                        timer.start();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 在EDT上取出一批更新并合并执行
+     */
+    private void drain() {
+        Map<DefaultMutableTreeNode, List<String>> childrenUpdates = new LinkedHashMap<>();
+        Map<Object, Runnable> keyedTasks = new LinkedHashMap<>();
+        List<Runnable> tasks = new ArrayList<>();
+        Update update;
+        int count = 0;
+        while (count < MAX_UPDATES_PER_FRAME && (update = queue.poll()) != null) {
+            count++;
+            if (update.node != null) {
+                childrenUpdates.put(update.node, update.children);
+            } else if (update.key != null) {
+                // 重新放入，使顺序以最后一次提交为准
+                keyedTasks.remove(update.key);
+                keyedTasks.put(update.key, update.task);
+            } else {
+                tasks.add(update.task);
+            }
+        }
+
+        if (!childrenUpdates.isEmpty()) {
+            for (Map.Entry<DefaultMutableTreeNode, List<String>> entry : childrenUpdates.entrySet()) {
+                treeModel.applyChildren(entry.getKey(), entry.getValue());
+            }
+            // 上级节点已经发出结构变化时，下级节点的事件是多余的
+            for (DefaultMutableTreeNode node : childrenUpdates.keySet()) {
+                if (!hasChangedAncestor(node, childrenUpdates) && isAttached(node)) {
+                    treeModel.nodeStructureChanged(node);
+                }
+            }
+        }
+        run(tasks);
+        run(keyedTasks.values());
+
+        scheduled.set(false);
+        if (queue.isEmpty() || !scheduled.compareAndSet(false, true)) {
+            timer.stop();
+        }
+    }
+
+    private void run(Iterable<Runnable> tasks) {
+        for (Runnable task : tasks) {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                logger.error("界面更新任务执行失败", e);
+            }
+        }
+    }
+
+    private static boolean hasChangedAncestor(DefaultMutableTreeNode node, Map<DefaultMutableTreeNode, ?> changed) {
+        for (TreeNode parent = node.getParent(); parent != null; parent = parent.getParent()) {
+            if (changed.containsKey(parent)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return 节点是否仍在当前的树中，刷新整棵树后旧节点的事件不需要发出
+     */
+    private boolean isAttached(DefaultMutableTreeNode node) {
+        return node.getRoot() == treeModel.getRoot();
+    }
+}
@@ -0,0 +1,272 @@
+package com.zkclient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.SwingUtilities;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * EDT卡顿监视器
+ * 后台守护线程定期向EDT投递心跳，心跳从投递到执行的延迟就是界面的响应时间；
+ * 延迟超过阈值时立即抓取EDT的调用栈和EDT上正在执行的ZooKeeper操作（由ZkClient登记），
+ * 记入固定大小的环形缓冲区，卡顿结束后补上总时长并写入日志。
+ * 在帮助菜单的"界面卡顿记录"中查看。
+ */
+public class ZkEdtWatchdog {
+    private static final Logger logger = LoggerFactory.getLogger(ZkEdtWatchdog.class);
+
+    // 卡顿阈值（毫秒），可用系统属性zkclient.edt.stallThresholdMs修改
+    private static final long STALL_THRESHOLD_MS = Long.getLong("zkclient.edt.stallThresholdMs", 300L);
+    // 心跳检查间隔（毫秒）
+    private static final long CHECK_INTERVAL_MS = 50;
+    // 环形缓冲区大小
+    private static final int MAX_STALLS = 100;
+    // 每条记录最多保存的栈帧数
+    private static final int MAX_STACK_DEPTH = 64;
+
+    /**
+     * 一次卡顿记录
+     */
+    public static class Stall {
+        private final long startTime;
+        private final String operation;
+        private final StackTraceElement[] stack;
+        // 卡顿结束前为-1
+        private volatile long durationMs = -1;
+
+        Stall(long startTime, String operation, StackTraceElement[] stack) {
+            this.startTime = startTime;
+            this.operation = operation;
+            this.stack = stack;
+        }
+
+        /**
+         * @return 卡顿开始的时间（毫秒时间戳）
+         */
+        public long getStartTime() {
+            return startTime;
+        }
+
+        /**
+         * @return 抓取调用栈时EDT上正在执行的ZooKeeper操作，没有时为null
+         */
+        public String getOperation() {
+            return operation;
+        }
+
+        public StackTraceElement[] getStack() {
+            return stack;
+        }
+
+        /**
+         * @return 卡顿总时长（毫秒），仍在卡顿时返回-1
+         */
+        public long getDurationMs() {
+            return durationMs;
+        }
+
+        /**
+         * @return 操作和调用栈的文本形式
+         */
+        public String format() {
+            StringBuilder text = new StringBuilder();
+            text.append("ZooKeeper操作: ").append(operation != null ? operation : "无").append('\n');
+            for (StackTraceElement element : stack) {
+                text.append("\tat ").append(element).append('\n');
+            }
+            return text.toString();
+        }
+    }
+
+    private static final Object lock = new Object();
+    // 环形缓冲区，next指向下一个写入位置
+    private static final Stall[] stalls = new Stall[MAX_STALLS];
+    private static int next;
+    private static long stallCount;
+
+    private static volatile Thread edtThread;
+    private static volatile boolean started;
+    // EDT上正在执行的ZooKeeper操作，只由EDT写入
+    private static volatile String edtOperation;
+
+    // 心跳延迟统计，只由监视线程写入
+    private static volatile long lastLatencyMs;
+    private static volatile long maxLatencyMs;
+
+    /**
+     * 启动监视线程，重复调用无效
+     */
+    public static synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                monitor();
+            }
+        }, "EDT-watchdog");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("EDT卡顿监视已启动，阈值 {} 毫秒", STALL_THRESHOLD_MS);
+    }
+
+    /**
+     * 登记EDT上开始执行的ZooKeeper操作，在其他线程上调用时什么也不做
+     * @param operation 操作名称，例如"getChildren"
+     * @param path 节点路径，没有时为null
+     * @param server 连接字符串
+     * @return 之前登记的操作，操作结束时传给exit恢复；不在EDT上时返回null
+     */
+    static String enter(String operation, String path, String server) {
+        if (Thread.currentThread() != edtThread) {
+            return null;
+        }
+        String previous = edtOperation;
+        edtOperation = operation + (path != null ? " " + path : "") + " @" + server;
+        return previous;
+    }
+
+    /**
+     * 结束enter登记的操作
+     * @param previous enter的返回值
+     */
+    static void exit(String previous) {
+        if (Thread.currentThread() == edtThread) {
+            edtOperation = previous;
+        }
+    }
+
+    /**
+     * @return 卡顿记录，从旧到新
+     */
+    public static List<Stall> getStalls() {
+        synchronized (lock) {
+            List<Stall> result = new ArrayList<>(MAX_STALLS);
+            for (int i = 0; i < MAX_STALLS; i++) {
+                Stall stall = stalls[(next + i) % MAX_STALLS];
+                if (stall != null) {
+                    result.add(stall);
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 清空卡顿记录
+     */
+    public static void clear() {
+        synchronized (lock) {
+            Arrays.fill(stalls, null);
+            next = 0;
+        }
+    }
+
+    /**
+     * @return 启动以来的卡顿次数，包括已被环形缓冲区覆盖的
+     */
+    public static long getStallCount() {
+        synchronized (lock) {
+            return stallCount;
+        }
+    }
+
+    /**
+     * @return 最近一次心跳的延迟（毫秒）
+     */
+    public static long getLastLatencyMs() {
+        return lastLatencyMs;
+    }
+
+    /**
+     * @return 启动以来心跳的最大延迟（毫秒）
+     */
+    public static long getMaxLatencyMs() {
+        return maxLatencyMs;
+    }
+
+    public static long getThresholdMs() {
+        return STALL_THRESHOLD_MS;
+    }
+
+    public static boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * 监视循环：同一时刻最多只有一个心跳在途，心跳执行后再投递下一个
+     */
+    private static void monitor() {
+        final long[] executedAt = new long[1];
+        final Object heartbeatLock = new Object();
+        while (true) {
+            final long postedAt = System.nanoTime();
+            synchronized (heartbeatLock) {
+                executedAt[0] = 0;
+            }
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    edtThread = Thread.currentThread();
+                    synchronized (heartbeatLock) {
+                        executedAt[0] = System.nanoTime();
+                        heartbeatLock.notifyAll();
+                    }
+                }
+            });
+
+            Stall stall = null;
+            long executed;
+            try {
+                synchronized (heartbeatLock) {
+                    long deadline = postedAt + STALL_THRESHOLD_MS * 1000000L;
+                    while (executedAt[0] == 0) {
+                        long waitNanos = deadline - System.nanoTime();
+                        if (stall == null && waitNanos <= 0) {
+                            // 超过阈值，在卡顿进行中抓取调用栈
+                            stall = capture();
+                        }
+                        if (stall != null) {
+                            heartbeatLock.wait(CHECK_INTERVAL_MS);
+                        } else {
+                            heartbeatLock.wait(Math.max(1, waitNanos / 1000000L));
+                        }
+                    }
+                    executed = executedAt[0];
+                }
+                long latencyMs = (executed - postedAt) / 1000000L;
+                lastLatencyMs = latencyMs;
+                if (latencyMs > maxLatencyMs) {
+                    maxLatencyMs = latencyMs;
+                }
+                if (stall != null) {
+                    stall.durationMs = latencyMs;
+                    logger.warn("界面卡顿 {} 毫秒\n{}", latencyMs, stall.format());
+                }
+                Thread.sleep(CHECK_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private static Stall capture() {
+        Thread edt = edtThread;
+        StackTraceElement[] stack = edt != null ? edt.getStackTrace() : new StackTraceElement[0];
+        if (stack.length > MAX_STACK_DEPTH) {
+            stack = Arrays.copyOf(stack, MAX_STACK_DEPTH);
+        }
+        Stall stall = new Stall(System.currentTimeMillis() - STALL_THRESHOLD_MS, edtOperation, stack);
+        synchronized (lock) {
+            stalls[next] = stall;
+            next = (next + 1) % MAX_STALLS;
+            stallCount++;
+        }
+        return stall;
+    }
+}
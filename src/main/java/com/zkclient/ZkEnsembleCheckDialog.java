@@ -0,0 +1,169 @@
+package com.zkclient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 集群一致性检查对话框，在后台执行ZkEnsembleChecker并以文本显示检查报告
+ */
+public class ZkEnsembleCheckDialog extends JDialog {
+    private static final Logger logger = LoggerFactory.getLogger(ZkEnsembleCheckDialog.class);
+
+    // 检查过程中刷新进度的间隔（毫秒）
+    private static final int PROGRESS_INTERVAL = 500;
+    // 报告中最多列出的不一致节点数
+    private static final int REPORT_LIMIT = 1000;
+
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+
+    private JTextField connectStringField;
+    private JTextField pathField;
+    private JButton checkButton;
+    private JButton stopButton;
+    private JLabel statusLabel;
+    private JTextArea reportArea;
+    private Timer progressTimer;
+
+    private volatile ZkEnsembleChecker checker;
+
+    /**
+     * @param owner 主窗口
+     * @param connectString 默认的集群连接串
+     * @param path 默认的子树起点
+     */
+    public ZkEnsembleCheckDialog(Frame owner, String connectString, String path) {
+        super(owner, "检查集群一致性", false);
+        initComponents(connectString, path);
+        setSize(900, 600);
+        setLocationRelativeTo(owner);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                ZkEnsembleChecker current = checker;
+                if (current != null) {
+                    current.cancel();
+                }
+                progressTimer.stop();
+                executorService.shutdownNow();
+            }
+        });
+    }
+
+    private void initComponents(String connectString, String path) {
+        connectStringField = new JTextField(connectString, 30);
+        connectStringField.setToolTipText("集群所有成员，逗号分隔，例如 zk1:2181,zk2:2181,zk3:2181");
+        pathField = new JTextField(path, 15);
+        checkButton = new JButton("开始检查");
+        stopButton = new JButton("停止");
+        stopButton.setEnabled(false);
+        statusLabel = new JLabel(" ");
+
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        topPanel.add(new JLabel("集群成员:"));
+        topPanel.add(connectStringField);
+        topPanel.add(new JLabel("路径:"));
+        topPanel.add(pathField);
+        topPanel.add(checkButton);
+        topPanel.add(stopButton);
+
+        reportArea = new JTextArea();
+        reportArea.setEditable(false);
+        reportArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        getContentPane().setLayout(new BorderLayout());
+        getContentPane().add(topPanel, BorderLayout.NORTH);
+        getContentPane().add(new JScrollPane(reportArea), BorderLayout.CENTER);
+        getContentPane().add(statusLabel, BorderLayout.SOUTH);
+
+        checkButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                startCheck();
+            }
+        });
+        stopButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                ZkEnsembleChecker current = checker;
+                if (current != null) {
+                    current.cancel();
+                }
+            }
+        });
+        progressTimer = new Timer(PROGRESS_INTERVAL, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                ZkEnsembleChecker current = checker;
+                if (current == null) {
+                    return;
+                }
+                StringBuilder sb = new StringBuilder("正在读取：");
+                for (ZkEnsembleChecker.Member member : current.getMembers()) {
+                    sb.append(member.getAddress()).append(' ').append(member.getScannedCount()).append("  ");
+                }
+                statusLabel.setText(sb.toString());
+            }
+        });
+    }
+
+    private void startCheck() {
+        String connectString = connectStringField.getText().trim();
+        final String path = pathField.getText().trim();
+        if (connectString.isEmpty() || !path.startsWith("/")) {
+            JOptionPane.showMessageDialog(this, "请填写集群成员和以/开头的路径", "提示", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        final ZkEnsembleChecker newChecker = new ZkEnsembleChecker(connectString, path);
+        if (newChecker.getMembers().size() < 2) {
+            JOptionPane.showMessageDialog(this, "至少需要两个集群成员才能比较", "提示", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        checker = newChecker;
+        reportArea.setText("");
+        checkButton.setEnabled(false);
+        stopButton.setEnabled(true);
+        progressTimer.start();
+
+        executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                String report;
+                String result;
+                try {
+                    List<ZkEnsembleChecker.Divergence> divergences = newChecker.run();
+                    report = newChecker.isCancelled() ? "" : newChecker.formatReport(divergences, REPORT_LIMIT);
+                    result = newChecker.isCancelled() ? "检查已取消"
+                            : (divergences.isEmpty() ? "各成员一致" : "发现 " + divergences.size() + " 处不一致");
+                } catch (Exception e) {
+                    logger.error("集群一致性检查失败: {}", path, e);
+                    report = "";
+                    result = "检查失败: " + e.getMessage();
+                }
+                final String finalReport = report;
+                final String finalResult = result;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        progressTimer.stop();
+                        checkButton.setEnabled(true);
+                        stopButton.setEnabled(false);
+                        reportArea.setText(finalReport);
+                        reportArea.setCaretPosition(0);
+                        statusLabel.setText(finalResult);
+                    }
+                });
+            }
+        });
+    }
+}
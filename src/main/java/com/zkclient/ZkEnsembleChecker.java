@@ -0,0 +1,452 @@
+package com.zkclient;
+
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 集群成员一致性检查
+ * 为连接串中的每个服务器单独建立会话（允许只读连接），在所有成员上并发遍历同一子树，
+ * 比较每个节点在各成员上的数据、版本和zxid，找出不一致的节点。
+ * 客户端无法直接读取服务器已应用的最新zxid，成员的落后程度用其子树内见到的最大zxid与其他成员比较得出。
+ * 在有写入的集群上检查时，遍历期间发生的变化也会表现为不一致，需结合zxid判断。
+ */
+public class ZkEnsembleChecker {
+    private static final Logger logger = LoggerFactory.getLogger(ZkEnsembleChecker.class);
+
+    // 每个成员遍历时的最大在途节点数
+    private static final int PIPELINE_WINDOW = 200;
+
+    /**
+     * 节点在某个成员上的状态，只保留比较所需的字段和数据摘要
+     */
+    static class NodeState {
+        final int version;
+        final int cversion;
+        final int aversion;
+        final long mzxid;
+        final long pzxid;
+        final int numChildren;
+        final byte[] dataDigest;
+
+        NodeState(Stat stat, byte[] dataDigest) {
+            this.version = stat.getVersion();
+            this.cversion = stat.getCversion();
+            this.aversion = stat.getAversion();
+            this.mzxid = stat.getMzxid();
+            this.pzxid = stat.getPzxid();
+            this.numChildren = stat.getNumChildren();
+            this.dataDigest = dataDigest;
+        }
+
+        boolean sameStat(NodeState other) {
+            return version == other.version && cversion == other.cversion && aversion == other.aversion
+                    && mzxid == other.mzxid && pzxid == other.pzxid;
+        }
+
+        boolean sameChildren(NodeState other) {
+            return numChildren == other.numChildren;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("version=%d cversion=%d aversion=%d mzxid=0x%x pzxid=0x%x 子节点=%d 数据摘要=%s",
+                    version, cversion, aversion, mzxid, pzxid, numChildren, shortHex(dataDigest));
+        }
+    }
+
+    /**
+     * 单个集群成员的检查结果
+     */
+    public static class Member {
+        private final String address;
+        private volatile ZkTreeWalker walker;
+        private ZkClient zkClient;
+        private Map<String, NodeState> nodes = Collections.emptyMap();
+        private long watermark = 0;
+        private boolean readOnly = false;
+        private String error;
+
+        Member(String address) {
+            this.address = address;
+        }
+
+        public String getAddress() {
+            return address;
+        }
+
+        /**
+         * @return 已读取的节点数
+         */
+        public long getScannedCount() {
+            ZkTreeWalker current = walker;
+            return current == null ? 0 : current.getVisitedCount();
+        }
+
+        /**
+         * @return 子树内见到的最大zxid
+         */
+        public long getWatermark() {
+            return watermark;
+        }
+
+        public boolean isReadOnly() {
+            return readOnly;
+        }
+
+        /**
+         * @return 连接或遍历失败的原因，成功时为null
+         */
+        public String getError() {
+            return error;
+        }
+    }
+
+    /**
+     * 不一致的节点
+     */
+    public static class Divergence {
+        private final String path;
+        private final String kind;
+        private final List<String> details;
+
+        Divergence(String path, String kind, List<String> details) {
+            this.path = path;
+            this.kind = kind;
+            this.details = details;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return 不一致的类型：缺失、数据、版本或子节点
+         */
+        public String getKind() {
+            return kind;
+        }
+
+        /**
+         * @return 与成员顺序对应的各成员上的节点状态
+         */
+        public List<String> getDetails() {
+            return details;
+        }
+    }
+
+    private final String rootPath;
+    private final List<Member> members = new ArrayList<>();
+    private volatile boolean cancelled = false;
+
+    /**
+     * @param connectString 集群连接串，可以带chroot后缀
+     * @param rootPath 检查的子树起点
+     */
+    public ZkEnsembleChecker(String connectString, String rootPath) {
+        this.rootPath = rootPath;
+        for (String address : splitConnectString(connectString)) {
+            members.add(new Member(address));
+        }
+    }
+
+    /**
+     * 把集群连接串拆成单个服务器的连接串，chroot后缀附加到每个服务器上
+     */
+    static List<String> splitConnectString(String connectString) {
+        String hosts = connectString.trim();
+        String chroot = "";
+        int slash = hosts.indexOf('/');
+        if (slash >= 0) {
+            chroot = hosts.substring(slash);
+            hosts = hosts.substring(0, slash);
+        }
+        List<String> addresses = new ArrayList<>();
+        for (String host : hosts.split(",")) {
+            if (!host.trim().isEmpty()) {
+                addresses.add(host.trim() + chroot);
+            }
+        }
+        return addresses;
+    }
+
+    public List<Member> getMembers() {
+        return members;
+    }
+
+    /**
+     * @return 所有成员已读取的节点数之和
+     */
+    public long getScannedCount() {
+        long count = 0;
+        for (Member member : members) {
+            count += member.getScannedCount();
+        }
+        return count;
+    }
+
+    public void cancel() {
+        cancelled = true;
+        for (Member member : members) {
+            ZkTreeWalker walker = member.walker;
+            if (walker != null) {
+                walker.cancel();
+            }
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 连接所有成员并并发遍历子树，阻塞直到完成
+     * @return 按路径排序的不一致节点
+     */
+    public List<Divergence> run() throws InterruptedException {
+        long startTime = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, members.size()));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < members.size(); i++) {
+                final int index = i;
+                futures.add(executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        checkMember(index);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    logger.error("检查集群成员失败", e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+            for (Member member : members) {
+                if (member.zkClient != null) {
+                    member.zkClient.close();
+                }
+            }
+        }
+        if (cancelled) {
+            logger.info("集群一致性检查已取消");
+            return Collections.emptyList();
+        }
+
+        List<Divergence> divergences = compare();
+        logger.info("集群一致性检查完成: {}，{} 个成员，{} 处不一致，耗时 {} ms", rootPath, members.size(),
+                divergences.size(), System.currentTimeMillis() - startTime);
+        return divergences;
+    }
+
+    /**
+     * 连接一个成员并遍历子树，在该成员自己的线程上执行
+     */
+    private void checkMember(int index) {
+        Member member = members.get(index);
+        ZkClient zkClient = new ZkClient();
+        member.zkClient = zkClient;
+        if (!zkClient.connect(member.address, true)) {
+            member.error = "连接失败";
+            return;
+        }
+        member.readOnly = zkClient.isReadOnly();
+        ZkTreeWalker walker = new ZkTreeWalker(zkClient, PIPELINE_WINDOW);
+        walker.setFetchData(true);
+        member.walker = walker;
+        if (cancelled) {
+            walker.cancel();
+        }
+
+        final MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        final Map<String, NodeState> nodes = new HashMap<>();
+        final long[] watermark = new long[1];
+        try {
+            walker.walk(rootPath, new ZkTreeWalker.Visitor() {
+                @Override
+                public boolean visit(ZkTreeWalker.Node node) {
+                    Stat stat = node.getStat();
+                    md.reset();
+                    if (node.getData() != null) {
+                        md.update(node.getData());
+                    }
+                    nodes.put(node.getPath(), new NodeState(stat, md.digest()));
+                    watermark[0] = Math.max(watermark[0],
+                            Math.max(stat.getCzxid(), Math.max(stat.getMzxid(), stat.getPzxid())));
+                    return true;
+                }
+            });
+            member.nodes = nodes;
+            member.watermark = watermark[0];
+        } catch (Exception e) {
+            logger.error("遍历集群成员失败: {}", member.address, e);
+            member.error = "遍历失败: " + e.getMessage();
+        }
+    }
+
+    /**
+     * 比较各成员的节点状态，每个路径只在第一个包含它的成员处比较一次
+     */
+    private List<Divergence> compare() {
+        List<Member> checked = new ArrayList<>();
+        for (Member member : members) {
+            if (member.error == null) {
+                checked.add(member);
+            }
+        }
+        List<Divergence> divergences = new ArrayList<>();
+        if (checked.size() < 2) {
+            return divergences;
+        }
+        for (int i = 0; i < checked.size(); i++) {
+            for (String path : checked.get(i).nodes.keySet()) {
+                boolean seenBefore = false;
+                for (int j = 0; j < i && !seenBefore; j++) {
+                    seenBefore = checked.get(j).nodes.containsKey(path);
+                }
+                if (!seenBefore) {
+                    Divergence divergence = comparePath(path, checked);
+                    if (divergence != null) {
+                        divergences.add(divergence);
+                    }
+                }
+            }
+        }
+        Collections.sort(divergences, new Comparator<Divergence>() {
+            @Override
+            public int compare(Divergence a, Divergence b) {
+                return a.getPath().compareTo(b.getPath());
+            }
+        });
+        return divergences;
+    }
+
+    private Divergence comparePath(String path, List<Member> checked) {
+        NodeState first = null;
+        boolean missing = false;
+        boolean dataDiffers = false;
+        boolean statDiffers = false;
+        boolean childrenDiffer = false;
+        List<String> details = new ArrayList<>();
+        for (Member member : checked) {
+            NodeState state = member.nodes.get(path);
+            details.add(member.address + ": " + (state == null ? "不存在" : state.toString()));
+            if (state == null) {
+                missing = true;
+            } else if (first == null) {
+                first = state;
+            } else {
+                dataDiffers |= !Arrays.equals(first.dataDigest, state.dataDigest);
+                statDiffers |= !first.sameStat(state);
+                childrenDiffer |= !first.sameChildren(state);
+            }
+        }
+        String kind;
+        if (missing) {
+            kind = "缺失";
+        } else if (dataDiffers) {
+            kind = "数据";
+        } else if (childrenDiffer) {
+            kind = "子节点";
+        } else if (statDiffers) {
+            kind = "版本";
+        } else {
+            return null;
+        }
+        return new Divergence(path, kind, details);
+    }
+
+    /**
+     * 按各成员见到的最大zxid计算落后程度
+     * @return 与成员顺序对应的描述，连接失败的成员为null
+     */
+    public List<String> describeLag() {
+        long max = 0;
+        for (Member member : members) {
+            if (member.error == null) {
+                max = Math.max(max, member.watermark);
+            }
+        }
+        List<String> lags = new ArrayList<>();
+        for (Member member : members) {
+            if (member.error != null) {
+                lags.add(null);
+            } else if ((member.watermark >>> 32) != (max >>> 32)) {
+                lags.add(String.format("zxid=0x%x，epoch落后（最新0x%x）", member.watermark, max));
+            } else {
+                lags.add(String.format("zxid=0x%x，落后 %d 个事务", member.watermark, max - member.watermark));
+            }
+        }
+        return lags;
+    }
+
+    /**
+     * 生成文本报告
+     * @param divergences run()返回的不一致节点
+     * @param limit 最多列出的不一致节点数
+     */
+    public String formatReport(List<Divergence> divergences, int limit) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("子树: ").append(rootPath).append('\n');
+        List<String> lags = describeLag();
+        for (int i = 0; i < members.size(); i++) {
+            Member member = members.get(i);
+            sb.append("  ").append(member.address);
+            if (member.error != null) {
+                sb.append("  ").append(member.error).append('\n');
+                continue;
+            }
+            sb.append("  节点数 ").append(member.nodes.size());
+            if (member.readOnly) {
+                sb.append("  只读");
+            }
+            sb.append("  ").append(lags.get(i)).append('\n');
+        }
+        sb.append("不一致节点: ").append(divergences.size()).append('\n');
+        int count = 0;
+        for (Divergence divergence : divergences) {
+            if (count++ >= limit) {
+                sb.append("... 其余 ").append(divergences.size() - limit).append(" 个未列出\n");
+                break;
+            }
+            sb.append('[').append(divergence.getKind()).append("] ").append(divergence.getPath()).append('\n');
+            for (String detail : divergence.getDetails()) {
+                sb.append("    ").append(detail).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String shortHex(byte[] digest) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 4 && i < digest.length; i++) {
+            sb.append(String.format("%02x", digest[i] & 0xff));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,147 @@
+package com.zkclient;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 以非阻塞Netty连接发送ZooKeeper四字命令（mntr、srvr、cons、wchs等）
+ * 服务器写完响应后主动关闭连接，连接关闭时把收到的全部内容作为响应回调。
+ * 所有请求共用一个守护事件循环线程，同时向多个集群成员发送命令不需要额外的线程。
+ */
+public class ZkFourLetterClient {
+    // 单个响应的大小上限，防止cons等命令在连接很多的服务器上占用过多内存
+    private static final int MAX_RESPONSE_BYTES = 4 * 1024 * 1024;
+
+    private static EventLoopGroup group;
+
+    /**
+     * 命令完成时的回调，在事件循环线程上调用，必须足够快
+     */
+    public interface Callback {
+        /**
+         * @param response 服务器的响应，失败时为null
+         * @param error 失败原因，成功时为null
+         */
+        void completed(String response, Throwable error);
+    }
+
+    /**
+     * 异步发送一个四字命令
+     * @param host 服务器地址
+     * @param port 客户端端口
+     * @param command 四字命令
+     * @param timeoutMillis 连接和读取的超时时间（毫秒）
+     * @param callback 回调，保证只调用一次
+     */
+    public static void send(String host, int port, final String command, int timeoutMillis, final Callback callback) {
+        final ResponseHandler handler = new ResponseHandler(command, callback);
+        Bootstrap bootstrap = new Bootstrap()
+                .group(getGroup())
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, timeoutMillis)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new ReadTimeoutHandler(timeoutMillis, TimeUnit.MILLISECONDS), handler);
+                    }
+                });
+        bootstrap.connect(host, port).addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (!future.isSuccess()) {
+                    handler.complete(null, future.cause());
+                }
+            }
+        });
+    }
+
+    private static synchronized EventLoopGroup getGroup() {
+        if (group == null) {
+            group = new NioEventLoopGroup(1, new DefaultThreadFactory("zkclient-4lw", true));
+        }
+        return group;
+    }
+
+    /**
+     * 连接建立后写入命令，累积响应直到服务器关闭连接
+     */
+    private static class ResponseHandler extends ChannelInboundHandlerAdapter {
+        private final String command;
+        private final Callback callback;
+        private ByteBuf response;
+        private boolean completed;
+
+        ResponseHandler(String command, Callback callback) {
+            this.command = command;
+            this.callback = callback;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            response = ctx.alloc().buffer();
+            ctx.writeAndFlush(Unpooled.copiedBuffer(command, CharsetUtil.US_ASCII));
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ByteBuf buf = (ByteBuf) msg;
+            try {
+                if (response.readableBytes() + buf.readableBytes() > MAX_RESPONSE_BYTES) {
+                    complete(null, new IOException(command + "的响应超过" + MAX_RESPONSE_BYTES + "字节"));
+                    ctx.close();
+                    return;
+                }
+                response.writeBytes(buf);
+            } finally {
+                buf.release();
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            if (response != null) {
+                complete(response.toString(CharsetUtil.UTF_8), null);
+            } else {
+                complete(null, new IOException("连接已关闭"));
+            }
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            complete(null, cause);
+            ctx.close();
+        }
+
+        /**
+         * 只回调一次，并释放响应缓冲区；都在事件循环线程上调用，不需要同步
+         */
+        void complete(String text, Throwable error) {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            if (response != null) {
+                response.release();
+                response = null;
+            }
+            callback.completed(text, error);
+        }
+    }
+}
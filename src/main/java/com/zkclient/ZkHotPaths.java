@@ -0,0 +1,416 @@
+package com.zkclient;
+
+import org.apache.zookeeper.KeeperException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按路径统计请求次数和耗时的热点表，并记录慢操作
+ * 以ZkOperationListener接收所有ZkClient请求。路径数量不受限制，因此使用space-saving算法
+ * 只保留固定数量的计数器：新路径到来而计数器已满时，替换计数最小的计数器，新计数为最小值加一，
+ * 最小值记为误差上限。计数器按计数分桶并以双向链表按计数升序连接，
+ * 找最小计数和计数加一都是O(1)。出现次数超过总请求数/容量的路径一定在表中。
+ * 超过阈值的请求写入日志，并保存在固定大小的环形缓冲区中。
+ */
+public class ZkHotPaths implements ZkOperationListener {
+    private static final Logger logger = LoggerFactory.getLogger(ZkHotPaths.class);
+
+    // 计数器数量
+    private static final int CAPACITY = 1000;
+    // 保存的慢操作数量
+    private static final int MAX_SLOW_OPS = 500;
+
+    private static final ZkHotPaths INSTANCE = new ZkHotPaths();
+
+    /**
+     * 一个路径的统计，返回给调用方的是快照
+     */
+    public static class PathStats {
+        final String server;
+        final String path;
+        long count;
+        long error;
+        long totalLatencyNanos;
+        long maxLatencyNanos;
+        long bytes;
+        long failures;
+        long slowCount;
+        // 所在的计数桶，快照中为null
+        Bucket bucket;
+        PathStats prev;
+        PathStats next;
+
+        PathStats(String server, String path) {
+            this.server = server;
+            this.path = path;
+        }
+
+        PathStats copy() {
+            PathStats copy = new PathStats(server, path);
+            copy.count = count;
+            copy.error = error;
+            copy.totalLatencyNanos = totalLatencyNanos;
+            copy.maxLatencyNanos = maxLatencyNanos;
+            copy.bytes = bytes;
+            copy.failures = failures;
+            copy.slowCount = slowCount;
+            return copy;
+        }
+
+        public String getServer() {
+            return server;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return 请求次数的估计值，不小于真实值
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return 估计值的误差上限，真实次数在[count - error, count]之间
+         */
+        public long getError() {
+            return error;
+        }
+
+        /**
+         * @return 进入统计表以来的平均耗时（毫秒）
+         */
+        public double getAverageLatencyMs() {
+            long counted = count - error;
+            return counted > 0 ? totalLatencyNanos / 1e6 / counted : 0;
+        }
+
+        public double getMaxLatencyMs() {
+            return maxLatencyNanos / 1e6;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getSlowCount() {
+            return slowCount;
+        }
+    }
+
+    /**
+     * 一次慢操作
+     */
+    public static class SlowOperation {
+        private final long time;
+        private final String server;
+        private final String operation;
+        private final String path;
+        private final int bytes;
+        private final long latencyNanos;
+        private final int resultCode;
+
+        SlowOperation(long time, String server, String operation, String path, int bytes, long latencyNanos, int resultCode) {
+            this.time = time;
+            this.server = server;
+            this.operation = operation;
+            this.path = path;
+            this.bytes = bytes;
+            this.latencyNanos = latencyNanos;
+            this.resultCode = resultCode;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public String getServer() {
+            return server;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public int getBytes() {
+            return bytes;
+        }
+
+        public double getLatencyMs() {
+            return latencyNanos / 1e6;
+        }
+
+        public String getResult() {
+            KeeperException.Code code = KeeperException.Code.get(resultCode);
+            return code != null ? code.name() : String.valueOf(resultCode);
+        }
+    }
+
+    /**
+     * 计数相同的计数器组成的桶，桶之间按计数升序连接
+     */
+    private static class Bucket {
+        final long count;
+        PathStats head;
+        Bucket prev;
+        Bucket next;
+
+        Bucket(long count) {
+            this.count = count;
+        }
+    }
+
+    private final Map<String, PathStats> counters = new HashMap<>();
+    // 计数最小的桶
+    private Bucket minBucket;
+    private long totalCount;
+
+    private final SlowOperation[] slowOps = new SlowOperation[MAX_SLOW_OPS];
+    private int nextSlowOp;
+    private volatile long slowThresholdNanos =
+            Long.getLong("zkclient.slowOpThresholdMs", 200L) * 1000000L;
+    private volatile boolean installed;
+
+    /**
+     * @return 全局的热点表
+     */
+    public static ZkHotPaths getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 注册为操作监听器，开始统计，重复调用无效
+     */
+    public synchronized void install() {
+        if (!installed) {
+            installed = true;
+            ZkOperationEvents.addListener(this);
+        }
+    }
+
+    public boolean isInstalled() {
+        return installed;
+    }
+
+    /**
+     * @param thresholdMs 慢操作阈值（毫秒）
+     */
+    public void setSlowThresholdMs(long thresholdMs) {
+        this.slowThresholdNanos = thresholdMs * 1000000L;
+    }
+
+    public long getSlowThresholdMs() {
+        return slowThresholdNanos / 1000000L;
+    }
+
+    @Override
+    public void operationCompleted(String server, String operation, String path, int bytes, long latencyNanos, int resultCode) {
+        boolean slow = latencyNanos >= slowThresholdNanos;
+        String key = path != null ? path : "(" + operation + ")";
+        synchronized (this) {
+            PathStats stats = offer(server, key);
+            stats.totalLatencyNanos += latencyNanos;
+            stats.maxLatencyNanos = Math.max(stats.maxLatencyNanos, latencyNanos);
+            stats.bytes += bytes;
+            if (resultCode != KeeperException.Code.OK.intValue()) {
+                stats.failures++;
+            }
+            if (slow) {
+                stats.slowCount++;
+                slowOps[nextSlowOp] = new SlowOperation(System.currentTimeMillis(), server, operation, path,
+                        bytes, latencyNanos, resultCode);
+                nextSlowOp = (nextSlowOp + 1) % MAX_SLOW_OPS;
+            }
+        }
+        if (slow) {
+            KeeperException.Code code = KeeperException.Code.get(resultCode);
+            logger.warn("慢操作 {} {} 耗时 {} 毫秒，{} 字节，服务器 {}，结果 {}", operation, path,
+                    latencyNanos / 1000000L, bytes, server, code != null ? code : resultCode);
+        }
+    }
+
+    /**
+     * space-saving的一次计数：已有计数器时加一，否则新建或替换计数最小的计数器
+     */
+    private PathStats offer(String server, String path) {
+        totalCount++;
+        String key = server + '\u0000' + path;
+        PathStats stats = counters.get(key);
+        if (stats != null) {
+            increment(stats);
+            return stats;
+        }
+        if (counters.size() < CAPACITY) {
+            stats = new PathStats(server, path);
+            counters.put(key, stats);
+            stats.count = 1;
+            attach(stats, findOrCreateFirst(1));
+            return stats;
+        }
+        PathStats evicted = minBucket.head;
+        counters.remove(evicted.server + '\u0000' + evicted.path);
+        stats = new PathStats(server, path);
+        stats.count = evicted.count;
+        stats.bucket = evicted.bucket;
+        // 新路径可能在被替换的路径之前已经出现过至多evicted.count次
+        stats.error = evicted.count;
+        replace(evicted, stats);
+        counters.put(key, stats);
+        increment(stats);
+        return stats;
+    }
+
+    private Bucket findOrCreateFirst(long count) {
+        if (minBucket != null && minBucket.count == count) {
+            return minBucket;
+        }
+        Bucket bucket = new Bucket(count);
+        bucket.next = minBucket;
+        if (minBucket != null) {
+            minBucket.prev = bucket;
+        }
+        minBucket = bucket;
+        return bucket;
+    }
+
+    private void increment(PathStats stats) {
+        Bucket current = stats.bucket;
+        long count = current.count + 1;
+        Bucket target = current.next;
+        if (target == null || target.count != count) {
+            target = new Bucket(count);
+            target.prev = current;
+            target.next = current.next;
+            if (current.next != null) {
+                current.next.prev = target;
+            }
+            current.next = target;
+        }
+        detach(stats);
+        stats.count = count;
+        attach(stats, target);
+    }
+
+    private static void attach(PathStats stats, Bucket bucket) {
+        stats.bucket = bucket;
+        stats.prev = null;
+        stats.next = bucket.head;
+        if (bucket.head != null) {
+            bucket.head.prev = stats;
+        }
+        bucket.head = stats;
+    }
+
+    /**
+     * 把计数器移出所在的桶，桶空了时从桶链表中删除
+     */
+    private void detach(PathStats stats) {
+        Bucket bucket = stats.bucket;
+        if (stats.prev != null) {
+            stats.prev.next = stats.next;
+        } else {
+            bucket.head = stats.next;
+        }
+        if (stats.next != null) {
+            stats.next.prev = stats.prev;
+        }
+        stats.prev = null;
+        stats.next = null;
+        stats.bucket = null;
+        if (bucket.head == null) {
+            if (bucket.prev != null) {
+                bucket.prev.next = bucket.next;
+            } else {
+                minBucket = bucket.next;
+            }
+            if (bucket.next != null) {
+                bucket.next.prev = bucket.prev;
+            }
+        }
+    }
+
+    /**
+     * 用新计数器原地替换桶中的旧计数器
+     */
+    private void replace(PathStats old, PathStats replacement) {
+        Bucket bucket = old.bucket;
+        replacement.prev = old.prev;
+        replacement.next = old.next;
+        if (old.prev != null) {
+            old.prev.next = replacement;
+        } else {
+            bucket.head = replacement;
+        }
+        if (old.next != null) {
+            old.next.prev = replacement;
+        }
+    }
+
+    /**
+     * @param limit 最多返回的数量
+     * @return 请求次数最多的路径，按计数降序
+     */
+    public synchronized List<PathStats> getTopPaths(int limit) {
+        List<PathStats> result = new ArrayList<>(Math.min(limit, counters.size()));
+        Bucket last = minBucket;
+        while (last != null && last.next != null) {
+            last = last.next;
+        }
+        for (Bucket bucket = last; bucket != null && result.size() < limit; bucket = bucket.prev) {
+            for (PathStats stats = bucket.head; stats != null && result.size() < limit; stats = stats.next) {
+                result.add(stats.copy());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return 最近的慢操作，从新到旧
+     */
+    public synchronized List<SlowOperation> getSlowOperations() {
+        List<SlowOperation> result = new ArrayList<>();
+        for (int i = 1; i <= MAX_SLOW_OPS; i++) {
+            SlowOperation op = slowOps[(nextSlowOp - i + MAX_SLOW_OPS) % MAX_SLOW_OPS];
+            if (op == null) {
+                break;
+            }
+            result.add(op);
+        }
+        return result;
+    }
+
+    /**
+     * @return 统计开始以来的请求总数
+     */
+    public synchronized long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * 清空所有统计和慢操作记录
+     */
+    public synchronized void reset() {
+        counters.clear();
+        minBucket = null;
+        totalCount = 0;
+        for (int i = 0; i < MAX_SLOW_OPS; i++) {
+            slowOps[i] = null;
+        }
+        nextSlowOp = 0;
+    }
+}
@@ -0,0 +1,207 @@
+package com.zkclient;
+
+import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 热点路径对话框，显示ZkHotPaths中请求最多的路径和最近的慢操作，打开期间定时刷新
+ */
+public class ZkHotPathsDialog extends JDialog {
+    // 显示的热点路径数
+    private static final int TOP_LIMIT = 200;
+    // 自动刷新间隔（毫秒）
+    private static final int REFRESH_INTERVAL = 2000;
+
+    private final ZkHotPaths hotPaths = ZkHotPaths.getInstance();
+    private final PathTableModel pathModel = new PathTableModel();
+    private final SlowTableModel slowModel = new SlowTableModel();
+    private final JLabel summaryLabel = new JLabel(" ");
+    private final Timer refreshTimer;
+
+    public ZkHotPathsDialog(Frame owner) {
+        super(owner, "热点路径", false);
+        initComponents();
+        refreshTimer = new Timer(REFRESH_INTERVAL, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                refresh();
+            }
+        });
+        refreshTimer.start();
+        refresh();
+        setSize(1000, 600);
+        setLocationRelativeTo(owner);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                refreshTimer.stop();
+            }
+        });
+    }
+
+    private void initComponents() {
+        final JSpinner thresholdSpinner = new JSpinner(
+                new SpinnerNumberModel((int) hotPaths.getSlowThresholdMs(), 1, 600000, 50));
+        thresholdSpinner.addChangeListener(new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                hotPaths.setSlowThresholdMs(((Number) thresholdSpinner.getValue()).longValue());
+            }
+        });
+        JButton refreshButton = new JButton("刷新");
+        refreshButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                refresh();
+            }
+        });
+        JButton resetButton = new JButton("清空统计");
+        resetButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                hotPaths.reset();
+                refresh();
+            }
+        });
+
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        topPanel.add(new JLabel("慢操作阈值(毫秒):"));
+        topPanel.add(thresholdSpinner);
+        topPanel.add(refreshButton);
+        topPanel.add(resetButton);
+        topPanel.add(summaryLabel);
+
+        JTable pathTable = new JTable(pathModel);
+        pathTable.setAutoCreateRowSorter(true);
+        pathTable.getColumnModel().getColumn(1).setPreferredWidth(320);
+        JTable slowTable = new JTable(slowModel);
+        slowTable.setAutoCreateRowSorter(true);
+        slowTable.getColumnModel().getColumn(3).setPreferredWidth(320);
+
+        JTabbedPane tabs = new JTabbedPane();
+        tabs.addTab("热点路径", new JScrollPane(pathTable));
+        tabs.addTab("慢操作", new JScrollPane(slowTable));
+
+        getContentPane().setLayout(new BorderLayout());
+        getContentPane().add(topPanel, BorderLayout.NORTH);
+        getContentPane().add(tabs, BorderLayout.CENTER);
+    }
+
+    private void refresh() {
+        pathModel.setRows(hotPaths.getTopPaths(TOP_LIMIT));
+        slowModel.setRows(hotPaths.getSlowOperations());
+        summaryLabel.setText(hotPaths.isInstalled()
+                ? "累计请求 " + hotPaths.getTotalCount() + " 次，计数为估计值，误差列为上限"
+                : "统计未启用");
+    }
+
+    private static class PathTableModel extends AbstractTableModel {
+        private final String[] columns = {"服务器", "路径", "请求数", "误差", "平均耗时(ms)", "最大耗时(ms)",
+                "字节数", "失败数", "慢操作数"};
+        private List<ZkHotPaths.PathStats> rows = new ArrayList<>();
+
+        void setRows(List<ZkHotPaths.PathStats> rows) {
+            this.rows = rows;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            if (column <= 1) {
+                return String.class;
+            }
+            return column == 4 || column == 5 ? Double.class : Long.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            ZkHotPaths.PathStats stats = rows.get(row);
+            switch (column) {
+                case 0: return stats.getServer();
+                case 1: return stats.getPath();
+                case 2: return stats.getCount();
+                case 3: return stats.getError();
+                case 4: return Math.round(stats.getAverageLatencyMs() * 100) / 100.0;
+                case 5: return Math.round(stats.getMaxLatencyMs() * 100) / 100.0;
+                case 6: return stats.getBytes();
+                case 7: return stats.getFailures();
+                default: return stats.getSlowCount();
+            }
+        }
+    }
+
+    private static class SlowTableModel extends AbstractTableModel {
+        private final String[] columns = {"时间", "服务器", "操作", "路径", "耗时(ms)", "字节数", "结果"};
+        private final SimpleDateFormat format = new SimpleDateFormat("HH:mm:ss.SSS");
+        private List<ZkHotPaths.SlowOperation> rows = new ArrayList<>();
+
+        void setRows(List<ZkHotPaths.SlowOperation> rows) {
+            this.rows = rows;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int column) {
+            if (column == 4) {
+                return Double.class;
+            }
+            return column == 5 ? Integer.class : String.class;
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            ZkHotPaths.SlowOperation op = rows.get(row);
+            switch (column) {
+                case 0: return format.format(new Date(op.getTime()));
+                case 1: return op.getServer();
+                case 2: return op.getOperation();
+                case 3: return op.getPath();
+                case 4: return Math.round(op.getLatencyMs() * 100) / 100.0;
+                case 5: return op.getBytes();
+                default: return op.getResult();
+            }
+        }
+    }
+}
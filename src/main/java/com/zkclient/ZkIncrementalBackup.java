@@ -0,0 +1,197 @@
+package com.zkclient;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 基于mzxid/pzxid变化检测的增量备份
+ * 与上次备份的状态文件比较：mzxid或aversion未变化的节点不读取数据和ACL，
+ * pzxid未变化的节点不检查子节点删除；只把变化和删除的节点写入增量文件。
+ * 没有状态文件时执行完整备份，生成的文件与子树导出格式相同，可作为增量的基准。
+ * ZooKeeper的pzxid只反映直接子节点的增删，不反映更深层的变化，
+ * 因此仍需逐个获取每个节点的Stat，但数据读取和写出量只与变化量有关。
+ */
+public class ZkIncrementalBackup {
+    private static final Logger logger = LoggerFactory.getLogger(ZkIncrementalBackup.class);
+
+    // 最大在途节点数
+    private static final int PIPELINE_WINDOW = 200;
+
+    private final ZkClient zkClient;
+    private final String rootPath;
+    private final File stateFile;
+    private final File outputFile;
+    private final ZkTreeWalker walker;
+
+    private volatile long scannedCount = 0;
+    private volatile long changedCount = 0;
+    private volatile long deletedCount = 0;
+    private volatile boolean fullBackup = true;
+
+    /**
+     * @param zkClient ZooKeeper客户端
+     * @param rootPath 备份的子树起点
+     * @param stateFile 状态文件，不存在时执行完整备份，成功后被更新
+     * @param outputFile 本次生成的完整或增量文件
+     */
+    public ZkIncrementalBackup(ZkClient zkClient, String rootPath, File stateFile, File outputFile) {
+        this.zkClient = zkClient;
+        this.rootPath = rootPath;
+        this.stateFile = stateFile;
+        this.outputFile = outputFile;
+        this.walker = new ZkTreeWalker(zkClient, PIPELINE_WINDOW);
+        this.walker.setFetchData(true);
+        this.walker.setFetchAcl(true);
+    }
+
+    public long getScannedCount() {
+        return scannedCount;
+    }
+
+    /**
+     * @return 新增或修改的节点数
+     */
+    public long getChangedCount() {
+        return changedCount;
+    }
+
+    /**
+     * @return 被删除的子树数
+     */
+    public long getDeletedCount() {
+        return deletedCount;
+    }
+
+    /**
+     * @return 本次是否为完整备份
+     */
+    public boolean isFullBackup() {
+        return fullBackup;
+    }
+
+    public void cancel() {
+        walker.cancel();
+    }
+
+    /**
+     * 执行备份，成功后才替换状态文件
+     */
+    public void run() throws IOException, KeeperException, InterruptedException {
+        final ZkBackupState previous = loadPreviousState();
+        fullBackup = previous == null;
+        long baseZxid = previous == null ? -1 : previous.getWatermark();
+        logger.info("开始{}备份 {}，基准zxid: 0x{}", fullBackup ? "完整" : "增量", rootPath, Long.toHexString(baseZxid));
+
+        File tempState = new File(stateFile.getPath() + ".tmp");
+        final ZkBackupState.Writer stateWriter = new ZkBackupState.Writer(tempState, rootPath, baseZxid);
+        try (final ZkDumpWriter writer = new ZkDumpWriter(outputFile, rootPath, baseZxid)) {
+            if (previous != null) {
+                walker.setDataFilter(new ZkTreeWalker.DataFilter() {
+                    @Override
+                    public boolean needData(String path, Stat stat) {
+                        ZkBackupState.Entry entry = previous.get(path);
+                        return entry == null || entry.isModified(stat);
+                    }
+                });
+            }
+            walker.walk(rootPath, new ZkTreeWalker.Visitor() {
+                // 新建或重建的父节点，其子节点一定也是新的，不需要再写删除记录
+                private final Set<String> newParents = new HashSet<>();
+
+                @Override
+                public boolean visit(ZkTreeWalker.Node node) {
+                    try {
+                        visitNode(node, previous, writer, stateWriter, newParents);
+                    } catch (IOException e) {
+                        walker.cancel();
+                        throw new UncheckedIOException(e);
+                    }
+                    return true;
+                }
+            });
+            if (!walker.isCancelled()) {
+                writer.finish();
+            }
+            stateWriter.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            stateWriter.close();
+        }
+
+        if (walker.isCancelled()) {
+            Files.deleteIfExists(tempState.toPath());
+            logger.info("备份已取消，状态文件未更新");
+            return;
+        }
+        Files.move(tempState.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        logger.info("备份完成: 扫描 {} 个节点，变化 {}，删除 {}，最大zxid: 0x{}", scannedCount, changedCount,
+                deletedCount, Long.toHexString(stateWriter.getWatermark()));
+    }
+
+    private ZkBackupState loadPreviousState() throws IOException {
+        if (!stateFile.exists()) {
+            return null;
+        }
+        ZkBackupState state = ZkBackupState.load(stateFile);
+        if (!rootPath.equals(state.getRootPath())) {
+            logger.warn("状态文件的备份起点 {} 与本次 {} 不同，执行完整备份", state.getRootPath(), rootPath);
+            return null;
+        }
+        return state;
+    }
+
+    private void visitNode(ZkTreeWalker.Node node, ZkBackupState previous, ZkDumpWriter writer,
+                           ZkBackupState.Writer stateWriter, Set<String> newParents) throws IOException {
+        String path = node.getPath();
+        Stat stat = node.getStat();
+        stateWriter.append(path, stat);
+        scannedCount++;
+
+        ZkBackupState.Entry entry = previous == null ? null : previous.get(path);
+        boolean sameNode = entry != null && entry.isSameNode(stat);
+
+        // 开启ACL读取时，只有被数据过滤器选中的节点才会带有ACL
+        if (node.getAcl() != null) {
+            if (entry != null && !sameNode && !newParents.contains(parentOf(path))) {
+                // 节点被删除后重建，先删除旧子树再写入新节点
+                writer.writeDeleted(path);
+                deletedCount++;
+            }
+            writer.write(path, stat, node.getData(), node.getAcl());
+            changedCount++;
+        }
+        if (previous != null && !sameNode && stat.getNumChildren() > 0) {
+            newParents.add(path);
+        }
+
+        if (sameNode && entry.isChildrenChanged(stat)) {
+            // 直接子节点有增删，找出上次存在而现在不存在的子节点
+            List<String> children = node.getChildren();
+            Set<String> current = children == null ? new HashSet<String>() : new HashSet<>(children);
+            String prefix = path.equals("/") ? "/" : path + "/";
+            for (String name : entry.getChildren()) {
+                if (!current.contains(name)) {
+                    writer.writeDeleted(prefix + name);
+                    deletedCount++;
+                }
+            }
+        }
+    }
+
+    private static String parentOf(String path) {
+        int slash = path.lastIndexOf('/');
+        return slash <= 0 ? "/" : path.substring(0, slash);
+    }
+}
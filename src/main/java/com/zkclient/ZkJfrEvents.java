@@ -0,0 +1,160 @@
+package com.zkclient;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+import org.apache.zookeeper.KeeperException;
+
+/**
+ * 自定义JFR事件，只由ZkOperationEvents在确认运行时支持jdk.jfr后通过反射加载
+ * 通过FlightRecorderListener跟踪是否有录制在运行，没有录制时不创建事件对象。
+ * 本类不参与默认编译，只在JDK 11及以上由pom.xml中的jfr配置单独编译。
+ */
+class ZkJfrEvents implements ZkJfrRecorder {
+    private static final String CATEGORY = "ZooKeeper Client";
+
+    private volatile boolean recording;
+
+    @Name("com.zkclient.Operation")
+    @Label("ZooKeeper Operation")
+    @Description("ZkClient发起的一次ZooKeeper请求")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class OperationEvent extends Event {
+        @Label("Server")
+        String server;
+        @Label("Operation")
+        String operation;
+        @Label("Path")
+        String path;
+        @Label("Bytes")
+        @DataAmount
+        int bytes;
+        @Label("Result Code")
+        int resultCode;
+        @Label("Result")
+        String result;
+    }
+
+    @Name("com.zkclient.TreeLoad")
+    @Label("Tree Load")
+    @Description("节点树展开时加载一个节点的子节点")
+    @Category(CATEGORY)
+    static class TreeLoadEvent extends Event {
+        @Label("Path")
+        String path;
+        @Label("Child Count")
+        int childCount;
+    }
+
+    @Name("com.zkclient.SessionState")
+    @Label("Session State")
+    @Description("ZooKeeper会话状态变化")
+    @Category(CATEGORY)
+    @StackTrace(false)
+    static class SessionStateEvent extends Event {
+        @Label("Server")
+        String server;
+        @Label("State")
+        String state;
+    }
+
+    /**
+     * 注册事件类型并开始跟踪录制状态，不会主动初始化JFR
+     */
+    @Override
+    public void install() {
+        FlightRecorder.register(OperationEvent.class);
+        FlightRecorder.register(TreeLoadEvent.class);
+        FlightRecorder.register(SessionStateEvent.class);
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override
+            public void recorderInitialized(FlightRecorder recorder) {
+                updateRecording();
+            }
+
+            @Override
+            public void recordingStateChanged(Recording changed) {
+                updateRecording();
+            }
+        });
+        updateRecording();
+    }
+
+    private void updateRecording() {
+        boolean running = false;
+        if (FlightRecorder.isInitialized()) {
+            for (Recording r : FlightRecorder.getFlightRecorder().getRecordings()) {
+                if (r.getState() == RecordingState.RUNNING) {
+                    running = true;
+                    break;
+                }
+            }
+        }
+        recording = running;
+    }
+
+    @Override
+    public boolean isRecording() {
+        return recording;
+    }
+
+    @Override
+    public Object beginOperation() {
+        OperationEvent event = new OperationEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitOperation(Object token, String server, String operation, String path, int bytes, int resultCode) {
+        OperationEvent event = (OperationEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.server = server;
+            event.operation = operation;
+            event.path = path;
+            event.bytes = bytes;
+            event.resultCode = resultCode;
+            KeeperException.Code code = KeeperException.Code.get(resultCode);
+            event.result = code != null ? code.name() : String.valueOf(resultCode);
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginTreeLoad() {
+        TreeLoadEvent event = new TreeLoadEvent();
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitTreeLoad(Object token, String path, int childCount) {
+        TreeLoadEvent event = (TreeLoadEvent) token;
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.childCount = childCount;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void commitSessionState(String server, String state) {
+        SessionStateEvent event = new SessionStateEvent();
+        if (event.shouldCommit()) {
+            event.server = server;
+            event.state = state;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.zkclient;
+
+/**
+ * JFR事件的发出接口，由ZkOperationEvents通过反射加载实现类ZkJfrEvents
+ * ZkJfrEvents依赖jdk.jfr，只在JDK 11及以上由jfr构建配置单独编译；
+ * 其余代码只通过本接口调用，不直接引用jdk.jfr，可以在没有jdk.jfr的JDK 8上编译和运行。
+ */
+interface ZkJfrRecorder {
+    /**
+     * 注册事件类型并开始跟踪录制状态
+     */
+    void install();
+
+    /**
+     * @return 是否有JFR录制在运行
+     */
+    boolean isRecording();
+
+    Object beginOperation();
+
+    void commitOperation(Object token, String server, String operation, String path, int bytes, int resultCode);
+
+    Object beginTreeLoad();
+
+    void commitTreeLoad(Object token, String path, int childCount);
+
+    void commitSessionState(String server, String state);
+}
@@ -0,0 +1,145 @@
+package com.zkclient;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 只读内存映射文件，按绝对位置读取jute二进制格式的基本类型
+ * 单个MappedByteBuffer最大2GB，大文件按固定大小分段映射，跨段的读取逐字节拼接。
+ * 读取方法不修改任何共享位置，可以被多个线程同时调用。
+ */
+public class ZkMappedFile implements Closeable {
+    // 每段映射的大小
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private final File file;
+    private final long length;
+    private volatile MappedByteBuffer[] segments;
+
+    /**
+     * @param file 要映射的文件
+     */
+    public ZkMappedFile(File file) throws IOException {
+        this.file = file;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            length = channel.size();
+            int count = (int) ((length + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long start = i * SEGMENT_SIZE;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, length - start));
+                segments[i].order(ByteOrder.BIG_ENDIAN);
+            }
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public byte readByte(long pos) throws IOException {
+        check(pos, 1);
+        return segments[(int) (pos / SEGMENT_SIZE)].get((int) (pos % SEGMENT_SIZE));
+    }
+
+    public int readInt(long pos) throws IOException {
+        check(pos, 4);
+        int offset = (int) (pos % SEGMENT_SIZE);
+        MappedByteBuffer segment = segments[(int) (pos / SEGMENT_SIZE)];
+        if (offset + 4 <= segment.limit()) {
+            return segment.getInt(offset);
+        }
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | (readByte(pos + i) & 0xff);
+        }
+        return value;
+    }
+
+    public long readLong(long pos) throws IOException {
+        check(pos, 8);
+        int offset = (int) (pos % SEGMENT_SIZE);
+        MappedByteBuffer segment = segments[(int) (pos / SEGMENT_SIZE)];
+        if (offset + 8 <= segment.limit()) {
+            return segment.getLong(offset);
+        }
+        return ((long) readInt(pos) << 32) | (readInt(pos + 4) & 0xffffffffL);
+    }
+
+    /**
+     * 读取一段字节
+     */
+    public byte[] readBytes(long pos, int count) throws IOException {
+        check(pos, count);
+        byte[] bytes = new byte[count];
+        int copied = 0;
+        while (copied < count) {
+            long current = pos + copied;
+            MappedByteBuffer segment = segments[(int) (current / SEGMENT_SIZE)];
+            int offset = (int) (current % SEGMENT_SIZE);
+            int chunk = Math.min(count - copied, segment.limit() - offset);
+            // duplicate出独立的位置，不影响其他线程
+            ByteBuffer view = segment.duplicate();
+            view.position(offset);
+            view.get(bytes, copied, chunk);
+            copied += chunk;
+        }
+        return bytes;
+    }
+
+    /**
+     * 读取jute的buffer：4字节长度加内容，长度为-1表示null
+     */
+    public byte[] readBuffer(long pos) throws IOException {
+        int len = readInt(pos);
+        if (len < 0) {
+            return null;
+        }
+        return readBytes(pos + 4, len);
+    }
+
+    /**
+     * 读取jute的字符串：4字节长度加UTF-8内容，长度为-1表示null
+     */
+    public String readString(long pos) throws IOException {
+        byte[] bytes = readBuffer(pos);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return jute的buffer或字符串在文件中占用的字节数
+     */
+    public long bufferSize(long pos) throws IOException {
+        int len = readInt(pos);
+        return 4 + Math.max(0, len);
+    }
+
+    private void check(long pos, int count) throws IOException {
+        if (segments.length == 0 && length > 0) {
+            throw new IOException("文件已关闭: " + file);
+        }
+        if (pos < 0 || count < 0 || pos + count > length) {
+            throw new IOException("读取超出文件范围: " + file + " 位置 " + pos + " 长度 " + count);
+        }
+    }
+
+    /**
+     * 释放映射，依赖GC回收映射内存
+     */
+    @Override
+    public void close() {
+        segments = new MappedByteBuffer[0];
+    }
+}
@@ -0,0 +1,226 @@
+package com.zkclient;
+
+import org.apache.zookeeper.KeeperException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 子树的Merkle摘要树
+ * 每个节点保存自身数据的摘要和整棵子树的摘要，子树摘要由数据摘要和按名称排序的子节点摘要计算得到，
+ * 两棵子树的摘要相同即可认为内容（名称和数据）相同，比较时只需深入摘要不同的分支。
+ * 摘要树只保存摘要和子节点名称，不保存节点数据。
+ */
+public class ZkMerkleDigest {
+    // 遍历时的最大在途节点数
+    private static final int PIPELINE_WINDOW = 200;
+
+    /**
+     * 单个节点的摘要
+     */
+    public static class NodeDigest {
+        private final byte[] dataDigest;
+        private final List<String> children;
+        private byte[] subtreeDigest;
+
+        NodeDigest(byte[] dataDigest, List<String> children) {
+            this.dataDigest = dataDigest;
+            this.children = children;
+        }
+
+        public byte[] getDataDigest() {
+            return dataDigest;
+        }
+
+        public byte[] getSubtreeDigest() {
+            return subtreeDigest;
+        }
+
+        /**
+         * @return 按名称排序的子节点名称
+         */
+        public List<String> getChildren() {
+            return children;
+        }
+    }
+
+    private final String rootPath;
+    // 以相对起点的路径为键，起点自身为空字符串
+    private final Map<String, NodeDigest> digests = new HashMap<>();
+    private volatile long nodeCount = 0;
+
+    private ZkMerkleDigest(String rootPath) {
+        this.rootPath = rootPath;
+    }
+
+    public String getRootPath() {
+        return rootPath;
+    }
+
+    public long getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @param relativePath 相对起点的路径，起点自身为空字符串
+     * @return 节点摘要，不存在时返回null
+     */
+    public NodeDigest get(String relativePath) {
+        return digests.get(relativePath);
+    }
+
+    /**
+     * 把相对路径还原为完整路径
+     */
+    public String toFullPath(String relativePath) {
+        if (relativePath.isEmpty()) {
+            return rootPath;
+        }
+        return rootPath.equals("/") ? relativePath : rootPath + relativePath;
+    }
+
+    /**
+     * 遍历子树并计算摘要树，阻塞直到完成
+     * @param zkClient ZooKeeper客户端
+     * @param rootPath 子树起点
+     * @param walker 用于遍历的遍历器，调用方可以通过它取消计算，传入null时新建
+     */
+    public static ZkMerkleDigest compute(ZkClient zkClient, String rootPath, ZkTreeWalker walker)
+            throws KeeperException, InterruptedException {
+        final ZkMerkleDigest result = new ZkMerkleDigest(rootPath);
+        final Builder builder = result.new Builder();
+        if (walker == null) {
+            walker = new ZkTreeWalker(zkClient, PIPELINE_WINDOW);
+        }
+        walker.setFetchData(true);
+        walker.walk(rootPath, new ZkTreeWalker.Visitor() {
+            @Override
+            public boolean visit(ZkTreeWalker.Node node) {
+                builder.add(result.toRelativePath(node.getPath()), node.getData(), node.getChildren());
+                return true;
+            }
+        });
+        builder.finish();
+        return result;
+    }
+
+    private String toRelativePath(String path) {
+        if (path.equals(rootPath)) {
+            return "";
+        }
+        return rootPath.equals("/") ? path : path.substring(rootPath.length());
+    }
+
+    /**
+     * 自底向上计算子树摘要
+     * 节点按父节点在前的顺序加入，所有子节点都完成后父节点的子树摘要才能确定。
+     */
+    class Builder {
+        private final MessageDigest md;
+        // 尚未完成的节点：已完成的子节点摘要，以及还在等待的子节点数
+        private final Map<String, TreeMap<String, byte[]>> pendingChildren = new HashMap<>();
+        private final Map<String, Integer> pendingCounts = new HashMap<>();
+
+        Builder() {
+            try {
+                md = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * 加入一个节点
+         * @param relativePath 相对起点的路径
+         * @param data 节点数据
+         * @param childNames 子节点名称
+         */
+        void add(String relativePath, byte[] data, List<String> childNames) {
+            List<String> sorted = childNames == null || childNames.isEmpty()
+                    ? Collections.<String>emptyList() : new ArrayList<>(childNames);
+            Collections.sort(sorted);
+            md.reset();
+            if (data != null) {
+                md.update(data);
+            }
+            NodeDigest digest = new NodeDigest(md.digest(), sorted);
+            digests.put(relativePath, digest);
+            nodeCount++;
+
+            if (sorted.isEmpty()) {
+                complete(relativePath, digest, Collections.<String, byte[]>emptyMap());
+            } else {
+                pendingChildren.put(relativePath, new TreeMap<String, byte[]>());
+                pendingCounts.put(relativePath, sorted.size());
+            }
+        }
+
+        /**
+         * 处理遍历期间被删除、因而永远不会到达的子节点：按深度从深到浅直接完成剩余节点
+         */
+        void finish() {
+            List<String> remaining = new ArrayList<>(pendingChildren.keySet());
+            Collections.sort(remaining, new Comparator<String>() {
+                @Override
+                public int compare(String a, String b) {
+                    return Integer.compare(depthOf(b), depthOf(a));
+                }
+            });
+            for (String path : remaining) {
+                TreeMap<String, byte[]> children = pendingChildren.remove(path);
+                if (children != null) {
+                    pendingCounts.remove(path);
+                    complete(path, digests.get(path), children);
+                }
+            }
+        }
+
+        private void complete(String relativePath, NodeDigest digest, Map<String, byte[]> childDigests) {
+            md.reset();
+            md.update(digest.dataDigest);
+            for (Map.Entry<String, byte[]> child : childDigests.entrySet()) {
+                md.update(child.getKey().getBytes(StandardCharsets.UTF_8));
+                md.update((byte) 0);
+                md.update(child.getValue());
+            }
+            digest.subtreeDigest = md.digest();
+
+            if (relativePath.isEmpty()) {
+                return;
+            }
+            int slash = relativePath.lastIndexOf('/');
+            String parent = relativePath.substring(0, slash);
+            TreeMap<String, byte[]> siblings = pendingChildren.get(parent);
+            if (siblings == null) {
+                return;
+            }
+            siblings.put(relativePath.substring(slash + 1), digest.subtreeDigest);
+            int count = pendingCounts.get(parent) - 1;
+            if (count == 0) {
+                pendingChildren.remove(parent);
+                pendingCounts.remove(parent);
+                complete(parent, digests.get(parent), siblings);
+            } else {
+                pendingCounts.put(parent, count);
+            }
+        }
+
+        private int depthOf(String relativePath) {
+            int depth = 0;
+            for (int i = 0; i < relativePath.length(); i++) {
+                if (relativePath.charAt(i) == '/') {
+                    depth++;
+                }
+            }
+            return depth;
+        }
+    }
+}
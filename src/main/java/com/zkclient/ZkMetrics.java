@@ -0,0 +1,313 @@
+package com.zkclient;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.ZooKeeper;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 以Prometheus文本格式（0.0.4）导出的客户端指标
+ * 注册为ZkOperationListener后，按服务器和操作类型把请求耗时记入固定分桶的直方图，记录时只做原子加法，
+ * 不分配对象。会话状态、持久watch数和路径缓存大小在导出时从已连接的ZkClient读取。
+ * 导出内容追加到调用方提供的StringBuilder，数值逐字符写入，重复使用同一个StringBuilder时每次抓取几乎不产生垃圾。
+ */
+public class ZkMetrics implements ZkOperationListener {
+    // 直方图各桶的上限（纳秒），之后还有一个+Inf桶
+    private static final long[] BUCKET_NANOS = {
+            500000L, 1000000L, 2500000L, 5000000L, 10000000L, 25000000L, 50000000L,
+            100000000L, 250000000L, 500000000L, 1000000000L, 2500000000L, 5000000000L, 10000000000L};
+    // 与BUCKET_NANOS对应的le标签（秒）
+    private static final String[] BUCKET_LABELS = {
+            "0.0005", "0.001", "0.0025", "0.005", "0.01", "0.025", "0.05",
+            "0.1", "0.25", "0.5", "1", "2.5", "5", "10"};
+    private static final ZooKeeper.States[] STATES = ZooKeeper.States.values();
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ZkMetrics INSTANCE = new ZkMetrics();
+
+    /**
+     * 一个服务器上一种操作的耗时直方图和计数
+     */
+    private static class Histogram {
+        // 各桶的计数（非累计），最后一个是+Inf桶
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKET_NANOS.length + 1);
+        final AtomicLong sumNanos = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+
+        void record(long latencyNanos, int size, boolean failed) {
+            int i = 0;
+            while (i < BUCKET_NANOS.length && latencyNanos > BUCKET_NANOS[i]) {
+                i++;
+            }
+            buckets.incrementAndGet(i);
+            sumNanos.addAndGet(latencyNanos);
+            bytes.addAndGet(size);
+            if (failed) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    // 服务器 -> 操作类型 -> 直方图
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, Histogram>> histograms = new ConcurrentHashMap<>();
+    // 服务器 -> 会话状态 -> 次数
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, AtomicLong>> sessionEvents = new ConcurrentHashMap<>();
+    // 服务器 -> watch事件类型 -> 次数
+    private final ConcurrentHashMap<String, ConcurrentHashMap<String, AtomicLong>> watchEvents = new ConcurrentHashMap<>();
+    // 已连接的客户端，连接成功时注册，关闭时注销
+    private final CopyOnWriteArrayList<ZkClient> clients = new CopyOnWriteArrayList<>();
+    private volatile boolean installed;
+
+    /**
+     * @return 全局的指标表
+     */
+    public static ZkMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 注册为操作监听器，开始统计请求，重复调用无效
+     */
+    public synchronized void install() {
+        if (!installed) {
+            installed = true;
+            ZkOperationEvents.addListener(this);
+        }
+    }
+
+    public boolean isInstalled() {
+        return installed;
+    }
+
+    /**
+     * 登记一个已连接的客户端，导出时读取它的会话状态和缓存大小
+     */
+    public void register(ZkClient zkClient) {
+        clients.addIfAbsent(zkClient);
+    }
+
+    public void unregister(ZkClient zkClient) {
+        clients.remove(zkClient);
+    }
+
+    @Override
+    public void operationCompleted(String server, String operation, String path, int bytes, long latencyNanos, int resultCode) {
+        ConcurrentHashMap<String, Histogram> byOperation = submap(histograms, server);
+        Histogram histogram = byOperation.get(operation);
+        if (histogram == null) {
+            Histogram created = new Histogram();
+            histogram = byOperation.putIfAbsent(operation, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        histogram.record(latencyNanos, bytes, resultCode != KeeperException.Code.OK.intValue());
+    }
+
+    @Override
+    public void sessionStateChanged(String server, String state) {
+        increment(sessionEvents, server, state);
+    }
+
+    /**
+     * 记录一次watch事件
+     * @param server 连接字符串
+     * @param type 事件类型，见Watcher.Event.EventType
+     */
+    public void recordWatchEvent(String server, String type) {
+        increment(watchEvents, server, type);
+    }
+
+    private static void increment(ConcurrentHashMap<String, ConcurrentHashMap<String, AtomicLong>> counters,
+                                  String server, String name) {
+        ConcurrentHashMap<String, AtomicLong> byName = submap(counters, server);
+        AtomicLong counter = byName.get(name);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = byName.putIfAbsent(name, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        counter.incrementAndGet();
+    }
+
+    private static <V> ConcurrentHashMap<String, V> submap(ConcurrentHashMap<String, ConcurrentHashMap<String, V>> map,
+                                                           String server) {
+        String key = server != null ? server : "";
+        ConcurrentHashMap<String, V> submap = map.get(key);
+        if (submap == null) {
+            ConcurrentHashMap<String, V> created = new ConcurrentHashMap<>();
+            submap = map.putIfAbsent(key, created);
+            if (submap == null) {
+                submap = created;
+            }
+        }
+        return submap;
+    }
+
+    /**
+     * 以Prometheus文本格式导出所有指标
+     * @param out 追加输出的缓冲区
+     */
+    public void render(StringBuilder out) {
+        header(out, "zkclient_request_duration_seconds", "histogram", "ZooKeeper请求耗时");
+        for (Map.Entry<String, ConcurrentHashMap<String, Histogram>> server : histograms.entrySet()) {
+            for (Map.Entry<String, Histogram> operation : server.getValue().entrySet()) {
+                Histogram histogram = operation.getValue();
+                long cumulative = 0;
+                for (int i = 0; i <= BUCKET_NANOS.length; i++) {
+                    cumulative += histogram.buckets.get(i);
+                    out.append("zkclient_request_duration_seconds_bucket");
+                    labels(out, server.getKey(), "operation", operation.getKey());
+                    out.append(",le=\"").append(i < BUCKET_LABELS.length ? BUCKET_LABELS[i] : "+Inf").append("\"} ");
+                    out.append(cumulative).append('\n');
+                }
+                out.append("zkclient_request_duration_seconds_sum");
+                labels(out, server.getKey(), "operation", operation.getKey());
+                out.append("} ");
+                appendSeconds(out, histogram.sumNanos.get());
+                out.append('\n');
+                sample(out, "zkclient_request_duration_seconds_count", server.getKey(), "operation", operation.getKey(),
+                        cumulative);
+            }
+        }
+        header(out, "zkclient_request_errors_total", "counter", "结果码不是OK的ZooKeeper请求数");
+        for (Map.Entry<String, ConcurrentHashMap<String, Histogram>> server : histograms.entrySet()) {
+            for (Map.Entry<String, Histogram> operation : server.getValue().entrySet()) {
+                sample(out, "zkclient_request_errors_total", server.getKey(), "operation", operation.getKey(),
+                        operation.getValue().errors.get());
+            }
+        }
+        header(out, "zkclient_request_bytes_total", "counter", "请求和响应中节点数据的字节数");
+        for (Map.Entry<String, ConcurrentHashMap<String, Histogram>> server : histograms.entrySet()) {
+            for (Map.Entry<String, Histogram> operation : server.getValue().entrySet()) {
+                sample(out, "zkclient_request_bytes_total", server.getKey(), "operation", operation.getKey(),
+                        operation.getValue().bytes.get());
+            }
+        }
+        renderCounters(out, sessionEvents, "zkclient_session_events_total", "state", "会话状态变化次数");
+        renderCounters(out, watchEvents, "zkclient_watch_events_total", "type", "收到的watch事件数");
+
+        header(out, "zkclient_clients", "gauge", "已连接的客户端数");
+        out.append("zkclient_clients ").append(clients.size()).append('\n');
+        header(out, "zkclient_session_state", "gauge", "客户端会话状态，当前状态为1");
+        for (ZkClient zkClient : clients) {
+            ZooKeeper.States current = zkClient.getState();
+            for (ZooKeeper.States state : STATES) {
+                out.append("zkclient_session_state");
+                clientLabels(out, zkClient);
+                out.append(",state=\"").append(state.name()).append("\"} ").append(state == current ? 1 : 0).append('\n');
+            }
+        }
+        header(out, "zkclient_persistent_watches", "gauge", "通过addWatch注册的持久watch数");
+        for (ZkClient zkClient : clients) {
+            out.append("zkclient_persistent_watches");
+            clientLabels(out, zkClient);
+            out.append("} ").append(zkClient.getPersistentWatchCount()).append('\n');
+        }
+        header(out, "zkclient_path_cache_entries", "gauge", "路径补全缓存中的路径数");
+        for (ZkClient zkClient : clients) {
+            out.append("zkclient_path_cache_entries");
+            clientLabels(out, zkClient);
+            out.append("} ").append(zkClient.getPathTrie().size()).append('\n');
+        }
+
+        header(out, "zkclient_decode_cache_hits_total", "counter", "节点数据解码缓存命中次数");
+        out.append("zkclient_decode_cache_hits_total ").append(ZkDataDecoders.getCacheHits()).append('\n');
+        header(out, "zkclient_decode_cache_misses_total", "counter", "节点数据解码缓存未命中次数");
+        out.append("zkclient_decode_cache_misses_total ").append(ZkDataDecoders.getCacheMisses()).append('\n');
+        header(out, "zkclient_decode_cache_evictions_total", "counter", "节点数据解码缓存淘汰次数");
+        out.append("zkclient_decode_cache_evictions_total ").append(ZkDataDecoders.getCacheEvictions()).append('\n');
+        header(out, "zkclient_decode_cache_bytes", "gauge", "节点数据解码缓存占用的字节数");
+        out.append("zkclient_decode_cache_bytes ").append(ZkDataDecoders.getCacheBytes()).append('\n');
+    }
+
+    private static void renderCounters(StringBuilder out, ConcurrentHashMap<String, ConcurrentHashMap<String, AtomicLong>> counters,
+                                       String name, String labelName, String help) {
+        header(out, name, "counter", help);
+        for (Map.Entry<String, ConcurrentHashMap<String, AtomicLong>> server : counters.entrySet()) {
+            for (Map.Entry<String, AtomicLong> counter : server.getValue().entrySet()) {
+                sample(out, name, server.getKey(), labelName, counter.getKey(), counter.getValue().get());
+            }
+        }
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String server, String labelName, String labelValue,
+                               long value) {
+        out.append(name);
+        labels(out, server, labelName, labelValue);
+        out.append("} ").append(value).append('\n');
+    }
+
+    /**
+     * 写入标签，不含结尾的右花括号，调用方可以继续追加标签
+     */
+    private static void labels(StringBuilder out, String server, String labelName, String labelValue) {
+        out.append("{server=\"");
+        appendLabelValue(out, server);
+        out.append("\",").append(labelName).append("=\"");
+        appendLabelValue(out, labelValue);
+        out.append('"');
+    }
+
+    /**
+     * 写入客户端的服务器和会话ID标签，不含结尾的右花括号
+     */
+    private static void clientLabels(StringBuilder out, ZkClient zkClient) {
+        out.append("{server=\"");
+        appendLabelValue(out, zkClient.getConnectString());
+        out.append("\",session=\"0x");
+        long sessionId = zkClient.getSessionId();
+        int shift = 60;
+        while (shift > 0 && (sessionId >>> shift) == 0) {
+            shift -= 4;
+        }
+        for (; shift >= 0; shift -= 4) {
+            out.append(HEX[(int) (sessionId >>> shift) & 0xf]);
+        }
+        out.append('"');
+    }
+
+    /**
+     * 按文本格式的要求转义标签值中的反斜杠、双引号和换行
+     */
+    private static void appendLabelValue(StringBuilder out, String value) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\') {
+                out.append("\\\\");
+            } else if (c == '"') {
+                out.append("\\\"");
+            } else if (c == '\n') {
+                out.append("\\n");
+            } else {
+                out.append(c);
+            }
+        }
+    }
+
+    /**
+     * 把纳秒数写成秒，保留9位小数，避免格式化double产生的临时对象
+     */
+    private static void appendSeconds(StringBuilder out, long nanos) {
+        out.append(nanos / 1000000000L).append('.');
+        long fraction = nanos % 1000000000L;
+        for (long digit = 100000000L; digit > 0; digit /= 10) {
+            out.append((char) ('0' + fraction / digit % 10));
+        }
+    }
+}
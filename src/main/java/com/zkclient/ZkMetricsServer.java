@@ -0,0 +1,170 @@
+package com.zkclient;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetSocketAddress;
+
+/**
+ * 基于Netty的嵌入式HTTP服务，在/metrics上以Prometheus文本格式导出ZkMetrics
+ * 只用一个事件循环线程接受连接和处理请求，导出内容写入重复使用的StringBuilder，
+ * 再直接编码到池化的ByteBuf中，支持keep-alive，每隔几秒抓取一次的开销可以忽略。
+ */
+public class ZkMetricsServer {
+    private static final Logger logger = LoggerFactory.getLogger(ZkMetricsServer.class);
+
+    /** 默认只监听本机回环地址，需要远程抓取时显式指定监听地址 */
+    public static final String DEFAULT_HOST = "127.0.0.1";
+    private static final String METRICS_PATH = "/metrics";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    // 请求体大小上限，抓取请求没有请求体
+    private static final int MAX_REQUEST_BYTES = 8192;
+
+    private final String host;
+    private final int port;
+    // 只在唯一的事件循环线程上使用
+    private final StringBuilder buffer = new StringBuilder(16 * 1024);
+    private EventLoopGroup group;
+    private Channel channel;
+
+    /**
+     * @param host 监听地址，0.0.0.0表示所有网卡，默认应使用DEFAULT_HOST
+     * @param port 监听端口，0表示随机端口
+     */
+    public ZkMetricsServer(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * 开始监听，重复调用无效
+     */
+    public synchronized void start() throws InterruptedException {
+        if (channel != null) {
+            return;
+        }
+        group = new NioEventLoopGroup(1, new DefaultThreadFactory("zkclient-metrics", true));
+        try {
+            final MetricsHandler handler = new MetricsHandler();
+            ServerBootstrap bootstrap = new ServerBootstrap()
+                    .group(group)
+                    .channel(NioServerSocketChannel.class)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ch.pipeline().addLast(new HttpServerCodec(),
+                                    new HttpObjectAggregator(MAX_REQUEST_BYTES), handler);
+                        }
+                    });
+            channel = bootstrap.bind(host, port).sync().channel();
+        } catch (InterruptedException | RuntimeException e) {
+            group.shutdownGracefully();
+            group = null;
+            throw e;
+        }
+        logger.info("指标服务已启动: http://{}:{}{}", host, getPort(), METRICS_PATH);
+    }
+
+    /**
+     * @return 实际监听的端口
+     */
+    public synchronized int getPort() {
+        return channel != null ? ((InetSocketAddress) channel.localAddress()).getPort() : port;
+    }
+
+    /**
+     * 停止监听并关闭所有连接
+     */
+    public synchronized void stop() {
+        if (channel == null) {
+            return;
+        }
+        channel.close().syncUninterruptibly();
+        group.shutdownGracefully();
+        channel = null;
+        group = null;
+        logger.info("指标服务已停止");
+    }
+
+    @ChannelHandler.Sharable
+    private class MetricsHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+            if (!request.decoderResult().isSuccess()) {
+                send(ctx, request, HttpResponseStatus.BAD_REQUEST, "请求格式错误\n");
+                return;
+            }
+            String uri = request.uri();
+            int query = uri.indexOf('?');
+            String path = query >= 0 ? uri.substring(0, query) : uri;
+            if (!METRICS_PATH.equals(path)) {
+                send(ctx, request, HttpResponseStatus.NOT_FOUND, "指标地址为" + METRICS_PATH + "\n");
+                return;
+            }
+            if (!HttpMethod.GET.equals(request.method())) {
+                send(ctx, request, HttpResponseStatus.METHOD_NOT_ALLOWED, "只支持GET\n");
+                return;
+            }
+            buffer.setLength(0);
+            ZkMetrics.getInstance().render(buffer);
+            ByteBuf content = ctx.alloc().buffer(ByteBufUtil.utf8Bytes(buffer));
+            ByteBufUtil.writeUtf8(content, buffer);
+            send(ctx, request, HttpResponseStatus.OK, content);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            logger.debug("指标请求处理失败: {}", cause.toString());
+            ctx.close();
+        }
+    }
+
+    private static void send(ChannelHandlerContext ctx, FullHttpRequest request, HttpResponseStatus status,
+                             String message) {
+        send(ctx, request, status, Unpooled.copiedBuffer(message, CharsetUtil.UTF_8));
+    }
+
+    private static void send(ChannelHandlerContext ctx, FullHttpRequest request, HttpResponseStatus status,
+                             ByteBuf content) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, content);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, CONTENT_TYPE);
+        HttpUtil.setContentLength(response, content.readableBytes());
+        boolean keepAlive = HttpUtil.isKeepAlive(request) && status == HttpResponseStatus.OK;
+        if (keepAlive) {
+            if (!request.protocolVersion().isKeepAliveDefault()) {
+                response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+            }
+            ctx.writeAndFlush(response);
+        } else {
+            response.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.CLOSE);
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.zkclient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.List;
+
+/**
+ * 子树镜像对话框，选择源和目标标签页启动ZkSubtreeMirror并定时显示同步状态
+ * 镜像随对话框关闭而停止，需要长期运行时使用mirror命令行
+ */
+public class ZkMirrorDialog extends JDialog {
+    private static final Logger logger = LoggerFactory.getLogger(ZkMirrorDialog.class);
+
+    // 刷新状态的间隔（毫秒）
+    private static final int REFRESH_INTERVAL = 1000;
+
+    private JComboBox<TabItem> sourceCombo;
+    private JComboBox<TabItem> targetCombo;
+    private JTextField sourcePathField;
+    private JTextField targetPathField;
+    private JButton startButton;
+    private JButton stopButton;
+    private JTextArea statusArea;
+    private Timer refreshTimer;
+
+    private ZkSubtreeMirror mirror;
+
+    /**
+     * 下拉框中的标签页
+     */
+    private static class TabItem {
+        private final ZkConnectionTab tab;
+
+        TabItem(ZkConnectionTab tab) {
+            this.tab = tab;
+        }
+
+        @Override
+        public String toString() {
+            return tab.getConnectionName();
+        }
+    }
+
+    /**
+     * @param owner 主窗口
+     * @param tabs 已连接的标签页
+     * @param current 当前标签页，作为源的默认选择
+     */
+    public ZkMirrorDialog(Frame owner, List<ZkConnectionTab> tabs, ZkConnectionTab current) {
+        super(owner, "子树镜像", false);
+        initComponents(tabs, current);
+        setSize(700, 360);
+        setLocationRelativeTo(owner);
+        setDefaultCloseOperation(DO_NOTHING_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                if (mirror != null && isRunning()) {
+                    int result = JOptionPane.showConfirmDialog(ZkMirrorDialog.this, "关闭窗口将停止镜像，是否继续？",
+                            "确认", JOptionPane.YES_NO_OPTION);
+                    if (result != JOptionPane.YES_OPTION) {
+                        return;
+                    }
+                }
+                stopMirror();
+                refreshTimer.stop();
+                dispose();
+            }
+        });
+    }
+
+    private void initComponents(List<ZkConnectionTab> tabs, ZkConnectionTab current) {
+        sourceCombo = new JComboBox<>();
+        targetCombo = new JComboBox<>();
+        for (ZkConnectionTab tab : tabs) {
+            sourceCombo.addItem(new TabItem(tab));
+            targetCombo.addItem(new TabItem(tab));
+        }
+        int sourceIndex = Math.max(0, tabs.indexOf(current));
+        sourceCombo.setSelectedIndex(sourceIndex);
+        targetCombo.setSelectedIndex(tabs.size() > 1 ? (sourceIndex == 0 ? 1 : 0) : 0);
+        String defaultPath = current != null ? current.getSelectedPath() : "/";
+        sourcePathField = new JTextField(defaultPath, 25);
+        targetPathField = new JTextField(defaultPath, 25);
+        startButton = new JButton("开始镜像");
+        stopButton = new JButton("停止");
+        stopButton.setEnabled(false);
+
+        JPanel selectPanel = new JPanel(new GridLayout(2, 4, 4, 4));
+        selectPanel.add(new JLabel("源:"));
+        selectPanel.add(sourceCombo);
+        selectPanel.add(new JLabel("路径:"));
+        selectPanel.add(sourcePathField);
+        selectPanel.add(new JLabel("目标:"));
+        selectPanel.add(targetCombo);
+        selectPanel.add(new JLabel("路径:"));
+        selectPanel.add(targetPathField);
+
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        buttonPanel.add(startButton);
+        buttonPanel.add(stopButton);
+
+        JPanel topPanel = new JPanel(new BorderLayout());
+        topPanel.setBorder(BorderFactory.createEmptyBorder(4, 4, 4, 4));
+        topPanel.add(selectPanel, BorderLayout.NORTH);
+        topPanel.add(buttonPanel, BorderLayout.SOUTH);
+
+        statusArea = new JTextArea();
+        statusArea.setEditable(false);
+        statusArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        getContentPane().setLayout(new BorderLayout());
+        getContentPane().add(topPanel, BorderLayout.NORTH);
+        getContentPane().add(new JScrollPane(statusArea), BorderLayout.CENTER);
+
+        startButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                startMirror();
+            }
+        });
+        stopButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                stopMirror();
+            }
+        });
+        refreshTimer = new Timer(REFRESH_INTERVAL, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                refreshStatus();
+            }
+        });
+    }
+
+    private boolean isRunning() {
+        ZkSubtreeMirror.State state = mirror.getState();
+        return state != ZkSubtreeMirror.State.STOPPED && state != ZkSubtreeMirror.State.FAILED;
+    }
+
+    private void startMirror() {
+        TabItem source = (TabItem) sourceCombo.getSelectedItem();
+        TabItem target = (TabItem) targetCombo.getSelectedItem();
+        String sourcePath = sourcePathField.getText().trim();
+        String targetPath = targetPathField.getText().trim();
+        if (source == null || target == null || !sourcePath.startsWith("/") || !targetPath.startsWith("/")) {
+            JOptionPane.showMessageDialog(this, "请选择源和目标的连接并填写以/开头的路径", "提示", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (source.tab == target.tab && overlaps(sourcePath, targetPath)) {
+            JOptionPane.showMessageDialog(this, "同一连接上的源和目标子树不能重叠", "提示", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (!source.tab.getZkClient().isConnected() || !target.tab.getZkClient().isConnected()) {
+            JOptionPane.showMessageDialog(this, "源和目标的连接都必须已连接", "提示", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (target.tab.getZkClient().isReadOnly()) {
+            JOptionPane.showMessageDialog(this, "目标连接是只读的，不能作为镜像目标", "提示", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        mirror = new ZkSubtreeMirror(source.tab.getZkClient(), sourcePath, target.tab.getZkClient(), targetPath);
+        mirror.start();
+        logger.info("启动子树镜像: {}{} -> {}{}", source, sourcePath, target, targetPath);
+        startButton.setEnabled(false);
+        stopButton.setEnabled(true);
+        refreshTimer.start();
+        refreshStatus();
+    }
+
+    private static boolean overlaps(String a, String b) {
+        return a.equals("/") || b.equals("/") || a.equals(b) || a.startsWith(b + "/") || b.startsWith(a + "/");
+    }
+
+    private void stopMirror() {
+        if (mirror == null) {
+            return;
+        }
+        stopButton.setEnabled(false);
+        final ZkSubtreeMirror current = mirror;
+        // 停止时需要等待在途批次完成，不在事件线程上等待
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    current.stop();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "zk-mirror-stop").start();
+    }
+
+    private void refreshStatus() {
+        if (mirror == null) {
+            return;
+        }
+        StringBuilder sb = new StringBuilder();
+        sb.append("状态: ").append(mirror.getState()).append('\n');
+        if (mirror.getFailureMessage() != null) {
+            sb.append("失败原因: ").append(mirror.getFailureMessage()).append('\n');
+        }
+        sb.append("全量同步次数: ").append(mirror.getResyncCount()).append('\n');
+        sb.append("全量复制节点: ").append(mirror.getCopiedCount()).append('\n');
+        sb.append("收到变化事件: ").append(mirror.getEventCount()).append('\n');
+        sb.append("批量同步路径: ").append(mirror.getAppliedCount()).append('\n');
+        sb.append("逐个对账路径: ").append(mirror.getReconciledCount()).append('\n');
+        sb.append("待同步路径: ").append(mirror.getPendingCount()).append('\n');
+        sb.append("复制延迟: ").append(mirror.getLagMillis()).append(" ms\n");
+        sb.append("错误: ").append(mirror.getErrorCount()).append('\n');
+        statusArea.setText(sb.toString());
+        if (!isRunning()) {
+            refreshTimer.stop();
+            startButton.setEnabled(true);
+            stopButton.setEnabled(false);
+        }
+    }
+}
@@ -1,52 +1,73 @@
 package com.zkclient;
 
-import org.apache.zookeeper.data.Stat;
-
 /**
  * 表示ZooKeeper节点的数据类
+ * 节点只保存父节点引用和驻留（intern）后的名称，完整路径按需拼接，
+ * 深层的树不会在每个节点上重复保存上级路径；哈希值由父节点哈希和名称组合并缓存。
  */
 public class ZkNode {
-    private String path;
-    private String name;
-    private byte[] data;
-    private Stat stat;
+    private final ZkNode parent;
+    private final String name;
+    private final int hash;
     private boolean isLeaf = true;
 
-    public ZkNode(String path, String name) {
-        this.path = path;
-        this.name = name;
-    }
-
-    public String getPath() {
-        return path;
+    /**
+     * 创建根节点
+     */
+    public ZkNode() {
+        this(null, "/");
     }
 
-    public void setPath(String path) {
-        this.path = path;
+    /**
+     * @param parent 父节点，根节点为null
+     * @param name 节点名称
+     */
+    public ZkNode(ZkNode parent, String name) {
+        this.parent = parent;
+        this.name = name.intern();
+        this.hash = parent == null ? this.name.hashCode() : 31 * parent.hash + this.name.hashCode();
     }
 
-    public String getName() {
-        return name;
+    /**
+     * @return 父节点，根节点返回null
+     */
+    public ZkNode getParent() {
+        return parent;
     }
 
-    public void setName(String name) {
-        this.name = name;
-    }
-
-    public byte[] getData() {
-        return data;
+    /**
+     * @return 完整路径，每次调用时从父节点链拼接
+     */
+    public String getPath() {
+        if (parent == null) {
+            return "/";
+        }
+        if (parent.parent == null) {
+            return "/" + name;
+        }
+        StringBuilder builder = new StringBuilder(64);
+        appendPath(builder);
+        return builder.toString();
     }
 
-    public void setData(byte[] data) {
-        this.data = data;
+    private void appendPath(StringBuilder builder) {
+        if (parent == null) {
+            return;
+        }
+        parent.appendPath(builder);
+        builder.append('/').append(name);
     }
 
-    public Stat getStat() {
-        return stat;
+    /**
+     * @param childName 子节点名称
+     * @return 子节点的完整路径
+     */
+    public String childPath(String childName) {
+        return parent == null ? "/" + childName : getPath() + "/" + childName;
     }
 
-    public void setStat(Stat stat) {
-        this.stat = stat;
+    public String getName() {
+        return name;
     }
 
     public boolean isLeaf() {
@@ -69,11 +90,15 @@ public class ZkNode {
 
         ZkNode zkNode = (ZkNode) o;
 
-        return path != null ? path.equals(zkNode.path) : zkNode.path == null;
+        // 名称已驻留，可以直接比较引用；哈希不同时不需要比较父节点链
+        if (hash != zkNode.hash || name != zkNode.name) {
+            return false;
+        }
+        return parent != null ? parent.equals(zkNode.parent) : zkNode.parent == null;
     }
 
     @Override
     public int hashCode() {
-        return path != null ? path.hashCode() : 0;
+        return hash;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,157 @@
+package com.zkclient;
+
+import org.apache.zookeeper.KeeperException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * ZooKeeper操作、树加载和会话状态的埋点
+ * 运行时支持jdk.jfr且构建包含ZkJfrEvents时发出自定义JFR事件（见ZkJfrRecorder），同时通知已注册的ZkOperationListener。
+ * 没有JFR录制在运行、也没有监听器时，begin返回null，调用方不计时也不分配对象。
+ * 设置系统属性zkclient.jfr.disabled=true可以完全关闭JFR事件。
+ */
+public class ZkOperationEvents {
+    private static final Logger logger = LoggerFactory.getLogger(ZkOperationEvents.class);
+
+    // JFR不可用时为null
+    private static final ZkJfrRecorder jfr = initJfr();
+    private static final List<ZkOperationListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 一次进行中的操作，只在埋点开启时创建
+     */
+    public static class Span {
+        private final long startNanos = System.nanoTime();
+        private final Object event;
+        private final String server;
+        private final String operation;
+        private final String path;
+        private final int requestBytes;
+
+        Span(Object event, String server, String operation, String path, int requestBytes) {
+            this.event = event;
+            this.server = server;
+            this.operation = operation;
+            this.path = path;
+            this.requestBytes = requestBytes;
+        }
+
+        /**
+         * 结束操作，发出事件并通知监听器
+         * @param resultCode 结果码
+         * @param responseBytes 响应中节点数据的字节数
+         */
+        public void end(int resultCode, int responseBytes) {
+            long latency = System.nanoTime() - startNanos;
+            int bytes = requestBytes + responseBytes;
+            if (event != null) {
+                jfr.commitOperation(event, server, operation, path, bytes, resultCode);
+            }
+            for (ZkOperationListener listener : listeners) {
+                try {
+                    listener.operationCompleted(server, operation, path, bytes, latency, resultCode);
+                } catch (RuntimeException e) {
+                    logger.warn("操作监听器执行失败", e);
+                }
+            }
+        }
+
+        /**
+         * 以异常结束操作
+         */
+        public void end(Exception e) {
+            end(e instanceof KeeperException ? ((KeeperException) e).code().intValue()
+                    : KeeperException.Code.SYSTEMERROR.intValue(), 0);
+        }
+    }
+
+    public static void addListener(ZkOperationListener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeListener(ZkOperationListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return 是否有JFR录制在运行或已注册监听器
+     */
+    public static boolean isEnabled() {
+        return !listeners.isEmpty() || (jfr != null && jfr.isRecording());
+    }
+
+    /**
+     * 开始一次操作
+     * @param server 连接字符串
+     * @param operation 操作类型
+     * @param path 节点路径
+     * @param requestBytes 请求中节点数据的字节数
+     * @return 埋点关闭时返回null
+     */
+    public static Span begin(String server, String operation, String path, int requestBytes) {
+        boolean recording = jfr != null && jfr.isRecording();
+        if (!recording && listeners.isEmpty()) {
+            return null;
+        }
+        return new Span(recording ? jfr.beginOperation() : null, server, operation, path, requestBytes);
+    }
+
+    /**
+     * 开始一次树加载，埋点关闭时返回null
+     * @return 传给treeLoaded的事件
+     */
+    public static Object beginTreeLoad() {
+        return jfr != null && jfr.isRecording() ? jfr.beginTreeLoad() : null;
+    }
+
+    /**
+     * 结束一次树加载
+     * @param event beginTreeLoad的返回值，为null时什么也不做
+     * @param path 加载的节点
+     * @param childCount 加载到的子节点数
+     */
+    public static void treeLoaded(Object event, String path, int childCount) {
+        if (event != null) {
+            jfr.commitTreeLoad(event, path, childCount);
+        }
+    }
+
+    /**
+     * 会话状态变化，发出事件并通知监听器
+     * @param server 连接字符串
+     * @param state 新状态
+     */
+    public static void sessionStateChanged(String server, String state) {
+        if (jfr != null && jfr.isRecording()) {
+            jfr.commitSessionState(server, state);
+        }
+        for (ZkOperationListener listener : listeners) {
+            try {
+                listener.sessionStateChanged(server, state);
+            } catch (RuntimeException e) {
+                logger.warn("操作监听器执行失败", e);
+            }
+        }
+    }
+
+    private static ZkJfrRecorder initJfr() {
+        if (Boolean.getBoolean("zkclient.jfr.disabled")) {
+            return null;
+        }
+        try {
+            Class.forName("jdk.jfr.FlightRecorder");
+            // 通过反射加载，没有jdk.jfr的JDK上构建时不包含ZkJfrEvents
+            ZkJfrRecorder recorder = (ZkJfrRecorder) Class.forName("com.zkclient.ZkJfrEvents")
+                    .getDeclaredConstructor().newInstance();
+            recorder.install();
+            return recorder;
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            // 运行时不支持JFR、构建不包含ZkJfrEvents，或不允许注册事件
+            logger.debug("JFR不可用，不发出JFR事件: {}", e.toString());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.zkclient;
+
+/**
+ * ZooKeeper操作完成时的回调，通过ZkOperationEvents.addListener注册
+ * 在发起操作的线程或ZooKeeper的事件线程上调用，实现必须线程安全并且足够快，不能阻塞。
+ */
+public interface ZkOperationListener {
+    /**
+     * @param server 连接字符串
+     * @param operation 操作类型，例如"getData"
+     * @param path 节点路径，multi等没有单一路径的操作为null
+     * @param bytes 请求和响应中节点数据的字节数
+     * @param latencyNanos 从发起到完成的耗时（纳秒）
+     * @param resultCode 结果码，见KeeperException.Code
+     */
+    void operationCompleted(String server, String operation, String path, int bytes, long latencyNanos, int resultCode);
+
+    /**
+     * 会话状态变化，在ZooKeeper的事件线程上调用，默认忽略
+     * @param server 连接字符串
+     * @param state 新状态，见Watcher.Event.KeeperState
+     */
+    default void sessionStateChanged(String server, String state) {
+    }
+}
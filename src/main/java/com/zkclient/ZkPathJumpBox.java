@@ -0,0 +1,256 @@
+package com.zkclient;
+
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.data.Stat;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 跳转到路径的输入框，在ZkClient记录的路径前缀树上补全
+ * 以/开头的输入按层前缀补全，某一级的子节点还没有读取过时异步读取后再补全；
+ * 其他输入在所有见到过的路径上模糊匹配。
+ * 上下键选择候选，Tab接受候选，回车跳转。
+ */
+public class ZkPathJumpBox extends JPanel {
+    // 输入停顿多久后计算候选（毫秒）
+    private static final int SUGGEST_DELAY = 150;
+    // 最多显示的候选数
+    private static final int MAX_SUGGESTIONS = 50;
+
+    /**
+     * 跳转回调，在EDT上调用
+     */
+    public interface JumpListener {
+        void jumpTo(String path);
+    }
+
+    private final ZkClient zkClient;
+    private final ExecutorService executorService;
+    private final JumpListener listener;
+
+    private final JTextField textField = new JTextField();
+    private final DefaultListModel<String> suggestionModel = new DefaultListModel<>();
+    private final JList<String> suggestionList = new JList<>(suggestionModel);
+    private final JPopupMenu popup = new JPopupMenu();
+    private final Timer suggestTimer;
+    // 最近一次异步读取子节点的路径，避免节点不存在时反复请求
+    private String fetchedPath;
+
+    /**
+     * @param zkClient ZooKeeper客户端，候选来自它的路径前缀树
+     * @param executorService 计算模糊匹配候选的线程池
+     * @param listener 跳转回调
+     */
+    public ZkPathJumpBox(ZkClient zkClient, ExecutorService executorService, JumpListener listener) {
+        super(new BorderLayout());
+        this.zkClient = zkClient;
+        this.executorService = executorService;
+        this.listener = listener;
+
+        textField.setToolTipText("输入/开头的路径按层补全，或输入任意片段模糊查找见到过的路径；回车跳转");
+        add(new JLabel("跳转: "), BorderLayout.WEST);
+        add(textField, BorderLayout.CENTER);
+
+        suggestionList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        suggestionList.setFocusable(false);
+        JScrollPane scrollPane = new JScrollPane(suggestionList);
+        scrollPane.setBorder(BorderFactory.createEmptyBorder());
+        popup.add(scrollPane);
+        popup.setFocusable(false);
+
+        suggestTimer = new Timer(SUGGEST_DELAY, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                updateSuggestions();
+            }
+        });
+        suggestTimer.setRepeats(false);
+
+        textField.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                suggestTimer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                suggestTimer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                suggestTimer.restart();
+            }
+        });
+        textField.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                handleKey(e);
+            }
+        });
+        textField.setFocusTraversalKeysEnabled(false);
+        textField.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                popup.setVisible(false);
+            }
+        });
+        suggestionList.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = suggestionList.locationToIndex(e.getPoint());
+                if (index >= 0) {
+                    jump(suggestionModel.get(index));
+                }
+            }
+        });
+    }
+
+    /**
+     * 把焦点移到输入框并选中已有内容
+     */
+    public void focusInput() {
+        textField.requestFocusInWindow();
+        textField.selectAll();
+    }
+
+    private void handleKey(KeyEvent e) {
+        int selected = suggestionList.getSelectedIndex();
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_DOWN:
+                if (popup.isVisible() && selected < suggestionModel.size() - 1) {
+                    select(selected + 1);
+                }
+                e.consume();
+                break;
+            case KeyEvent.VK_UP:
+                if (popup.isVisible() && selected > 0) {
+                    select(selected - 1);
+                }
+                e.consume();
+                break;
+            case KeyEvent.VK_TAB:
+                // 接受候选，继续输入下一级
+                if (popup.isVisible() && selected >= 0) {
+                    textField.setText(suggestionModel.get(selected) + "/");
+                }
+                e.consume();
+                break;
+            case KeyEvent.VK_ENTER:
+                String text = textField.getText().trim();
+                if (popup.isVisible() && selected >= 0) {
+                    jump(suggestionModel.get(selected));
+                } else if (text.startsWith("/")) {
+                    jump(text.length() > 1 && text.endsWith("/") ? text.substring(0, text.length() - 1) : text);
+                }
+                e.consume();
+                break;
+            case KeyEvent.VK_ESCAPE:
+                popup.setVisible(false);
+                e.consume();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void select(int index) {
+        suggestionList.setSelectedIndex(index);
+        suggestionList.ensureIndexIsVisible(index);
+    }
+
+    private void jump(String path) {
+        suggestTimer.stop();
+        popup.setVisible(false);
+        textField.setText(path);
+        listener.jumpTo(path);
+    }
+
+    private void updateSuggestions() {
+        final String text = textField.getText().trim();
+        if (text.isEmpty() || !textField.isFocusOwner()) {
+            popup.setVisible(false);
+            return;
+        }
+        final ZkPathTrie trie = zkClient.getPathTrie();
+        if (text.startsWith("/")) {
+            int slash = text.lastIndexOf('/');
+            String parentPath = slash == 0 ? "/" : text.substring(0, slash);
+            if (trie.getChildren(parentPath) == null) {
+                fetchChildren(parentPath);
+            }
+            showSuggestions(text, trie.complete(text, MAX_SUGGESTIONS));
+            return;
+        }
+        // 模糊匹配要遍历整棵前缀树，放到后台计算
+        executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                final List<String> paths = trie.fuzzy(text, MAX_SUGGESTIONS);
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        showSuggestions(text, paths);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 异步读取还没有记录过的一级子节点，读取结果由ZkClient记入前缀树，之后重新计算候选
+     */
+    private void fetchChildren(final String parentPath) {
+        if (parentPath.equals(fetchedPath) || !zkClient.isConnected()) {
+            return;
+        }
+        fetchedPath = parentPath;
+        zkClient.getChildrenAsync(parentPath, new AsyncCallback.Children2Callback() {
+            @Override
+            public void processResult(int rc, String path, Object ctx, List<String> children, Stat stat) {
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        updateSuggestions();
+                    }
+                });
+            }
+        }, null);
+    }
+
+    private void showSuggestions(String text, List<String> paths) {
+        // 计算期间输入已经变化，丢弃过期的结果
+        if (!text.equals(textField.getText().trim()) || !textField.isFocusOwner()) {
+            return;
+        }
+        suggestionModel.clear();
+        for (String path : paths) {
+            suggestionModel.addElement(path);
+        }
+        if (paths.isEmpty()) {
+            popup.setVisible(false);
+            return;
+        }
+        suggestionList.setVisibleRowCount(Math.min(paths.size(), 12));
+        suggestionList.setSelectedIndex(0);
+        popup.setPopupSize(new Dimension(Math.max(textField.getWidth(), 300),
+                suggestionList.getPreferredScrollableViewportSize().height + 4));
+        // 弹出窗口显示后不会随内容改变大小，重新显示
+        popup.setVisible(false);
+        popup.show(textField, 0, textField.getHeight());
+        textField.requestFocusInWindow();
+    }
+}
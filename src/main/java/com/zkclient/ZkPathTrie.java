@@ -0,0 +1,346 @@
+package com.zkclient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * 记录目前为止见到过的所有节点路径的前缀树，用于跳转框的补全
+ * 每个节点只保存自己的名称，子节点按名称排序存放在数组中，按二分查找；
+ * 一次读取到的整个子节点列表批量合并，大扇出的节点也不会逐个插入。
+ * 树中的路径只是曾经见到过的，不保证仍然存在。
+ * 所有方法都是线程安全的。
+ */
+public class ZkPathTrie {
+    private static final Node[] NO_CHILDREN = new Node[0];
+
+    // 模糊匹配时最多评分的候选路径数，超出后不再继续遍历
+    private static final int MAX_FUZZY_CANDIDATES = 200000;
+
+    private static final Comparator<Node> NAME_ORDER = new Comparator<Node>() {
+        @Override
+        public int compare(Node a, Node b) {
+            return a.name.compareTo(b.name);
+        }
+    };
+
+    private static final class Node {
+        final String name;
+        Node[] children = NO_CHILDREN;
+        int childCount;
+        // 是否读取过完整的子节点列表
+        boolean loaded;
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        int indexOf(String childName) {
+            int low = 0;
+            int high = childCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = children[mid].name.compareTo(childName);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        Node child(String childName) {
+            int index = indexOf(childName);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node addChild(String childName) {
+            int index = indexOf(childName);
+            if (index >= 0) {
+                return children[index];
+            }
+            index = -index - 1;
+            if (childCount == children.length) {
+                children = Arrays.copyOf(children, Math.max(4, childCount * 2));
+            }
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+            Node child = new Node(childName);
+            children[index] = child;
+            childCount++;
+            return child;
+        }
+
+        void removeChild(String childName) {
+            int index = indexOf(childName);
+            if (index >= 0) {
+                System.arraycopy(children, index + 1, children, index, childCount - index - 1);
+                children[--childCount] = null;
+            }
+        }
+    }
+
+    /**
+     * 模糊匹配的一个结果
+     */
+    private static final class Scored {
+        final String path;
+        final int score;
+
+        Scored(String path, int score) {
+            this.path = path;
+            this.score = score;
+        }
+    }
+
+    private final Node root = new Node("");
+    private int size = 1;
+
+    /**
+     * @return 树中的路径数（含根节点）
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 记录一个路径及其所有上级路径
+     */
+    public synchronized void add(String path) {
+        Node node = root;
+        for (String name : split(path)) {
+            node = addChild(node, name);
+        }
+    }
+
+    /**
+     * 用读取到的完整子节点列表替换一个节点的子节点，保留仍然存在的子节点下已记录的路径
+     * @param path 父节点路径
+     * @param names 子节点名称
+     */
+    public synchronized void setChildren(String path, List<String> names) {
+        Node parent = root;
+        for (String name : split(path)) {
+            parent = addChild(parent, name);
+        }
+        Node[] merged = new Node[names.size()];
+        int kept = 0;
+        for (int i = 0; i < merged.length; i++) {
+            Node existing = parent.child(names.get(i));
+            if (existing != null) {
+                kept += count(existing);
+                merged[i] = existing;
+            } else {
+                merged[i] = new Node(names.get(i));
+                size++;
+            }
+        }
+        int previous = 0;
+        for (int i = 0; i < parent.childCount; i++) {
+            previous += count(parent.children[i]);
+        }
+        size -= previous - kept;
+        Arrays.sort(merged, NAME_ORDER);
+        parent.children = merged;
+        parent.childCount = merged.length;
+        parent.loaded = true;
+    }
+
+    /**
+     * 删除一个路径及其下所有路径，例如发现节点已不存在时
+     */
+    public synchronized void remove(String path) {
+        String[] names = split(path);
+        if (names.length == 0) {
+            return;
+        }
+        Node parent = root;
+        for (int i = 0; i < names.length - 1 && parent != null; i++) {
+            parent = parent.child(names[i]);
+        }
+        Node node = parent != null ? parent.child(names[names.length - 1]) : null;
+        if (node != null) {
+            size -= count(node);
+            parent.removeChild(node.name);
+        }
+    }
+
+    /**
+     * @return 最近一次读取到的子节点名称，路径不在树中或没有读取过它的子节点列表时返回null
+     */
+    public synchronized List<String> getChildren(String path) {
+        Node node = find(path);
+        if (node == null || !node.loaded) {
+            return null;
+        }
+        List<String> names = new ArrayList<>(node.childCount);
+        for (int i = 0; i < node.childCount; i++) {
+            names.add(node.children[i].name);
+        }
+        return names;
+    }
+
+    /**
+     * 前缀补全：最后一个'/'之前的部分必须是记录过的路径，之后的部分作为子节点名称的前缀，
+     * 先按区分大小写匹配，没有结果时再忽略大小写
+     * @param prefix 以/开头的输入
+     * @param limit 最多返回的路径数
+     * @return 按名称排序的完整路径
+     */
+    public synchronized List<String> complete(String prefix, int limit) {
+        List<String> result = new ArrayList<>();
+        int slash = prefix.lastIndexOf('/');
+        if (slash < 0) {
+            return result;
+        }
+        String parentPath = slash == 0 ? "/" : prefix.substring(0, slash);
+        String partial = prefix.substring(slash + 1);
+        Node parent = find(parentPath);
+        if (parent == null) {
+            return result;
+        }
+        String base = slash == 0 ? "/" : parentPath + "/";
+        // 子节点有序，区分大小写的前缀匹配是连续的一段
+        int index = parent.indexOf(partial);
+        for (int i = index >= 0 ? index : -index - 1; i < parent.childCount && result.size() < limit; i++) {
+            if (!parent.children[i].name.startsWith(partial)) {
+                break;
+            }
+            result.add(base + parent.children[i].name);
+        }
+        if (result.isEmpty()) {
+            for (int i = 0; i < parent.childCount && result.size() < limit; i++) {
+                String name = parent.children[i].name;
+                if (name.regionMatches(true, 0, partial, 0, partial.length())) {
+                    result.add(base + name);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 模糊匹配：输入的字符按顺序（不要求连续，忽略大小写）出现在路径中即为匹配，
+     * 连续匹配、在名称开头匹配以及路径较短的得分更高
+     * @param query 输入
+     * @param limit 最多返回的路径数
+     * @return 按得分从高到低排列的路径
+     */
+    public List<String> fuzzy(String query, int limit) {
+        final String lowerQuery = query.toLowerCase();
+        PriorityQueue<Scored> top = new PriorityQueue<>(limit + 1, new Comparator<Scored>() {
+            @Override
+            public int compare(Scored a, Scored b) {
+                return a.score != b.score ? Integer.compare(a.score, b.score) : b.path.compareTo(a.path);
+            }
+        });
+        int[] budget = {MAX_FUZZY_CANDIDATES};
+        synchronized (this) {
+            StringBuilder path = new StringBuilder();
+            for (int i = 0; i < root.childCount && budget[0] > 0; i++) {
+                collect(root.children[i], path, 0, lowerQuery, top, limit, budget);
+            }
+        }
+        List<String> result = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            result.add(top.poll().path);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * 深度优先遍历，matched为上级路径已贪心匹配的输入字符数；全部匹配后子孙节点也都匹配
+     */
+    private void collect(Node node, StringBuilder path, int matched, String query, PriorityQueue<Scored> top,
+                         int limit, int[] budget) {
+        int length = path.length();
+        path.append('/').append(node.name);
+        for (int i = length; i < path.length() && matched < query.length(); i++) {
+            if (Character.toLowerCase(path.charAt(i)) == query.charAt(matched)) {
+                matched++;
+            }
+        }
+        if (matched == query.length()) {
+            budget[0]--;
+            String candidate = path.toString();
+            top.add(new Scored(candidate, score(candidate, query)));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        for (int i = 0; i < node.childCount && budget[0] > 0; i++) {
+            collect(node.children[i], path, matched, query, top, limit, budget);
+        }
+        path.setLength(length);
+    }
+
+    /**
+     * 模糊匹配得分，query已转为小写且确定是candidate的子序列
+     */
+    static int score(String candidate, String query) {
+        int score = 0;
+        int q = 0;
+        boolean previousMatched = false;
+        for (int i = 0; i < candidate.length() && q < query.length(); i++) {
+            char c = Character.toLowerCase(candidate.charAt(i));
+            if (c == query.charAt(q)) {
+                score += 1;
+                if (previousMatched) {
+                    score += 5;
+                }
+                if (i > 0 && "/-_.".indexOf(candidate.charAt(i - 1)) >= 0) {
+                    score += 8;
+                }
+                q++;
+                previousMatched = true;
+            } else {
+                previousMatched = false;
+            }
+        }
+        // 匹配落在最后一级名称中的更可能是要找的节点
+        int lastSlash = candidate.lastIndexOf('/');
+        if (candidate.substring(lastSlash + 1).toLowerCase().contains(query)) {
+            score += 20;
+        }
+        return score * 100 - candidate.length();
+    }
+
+    private Node find(String path) {
+        Node node = root;
+        for (String name : split(path)) {
+            node = node.child(name);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    private Node addChild(Node parent, String name) {
+        int before = parent.childCount;
+        Node child = parent.addChild(name);
+        size += parent.childCount - before;
+        return child;
+    }
+
+    private static int count(Node node) {
+        int total = 1;
+        for (int i = 0; i < node.childCount; i++) {
+            total += count(node.children[i]);
+        }
+        return total;
+    }
+
+    private static String[] split(String path) {
+        if (path.equals("/") || path.isEmpty()) {
+            return new String[0];
+        }
+        return path.substring(1).split("/");
+    }
+}
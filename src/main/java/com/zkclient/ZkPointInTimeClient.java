@@ -0,0 +1,637 @@
+package com.zkclient;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
+import org.apache.zookeeper.server.EphemeralType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 时间点恢复：在最近的快照上重放事务日志，得到指定zxid或时刻的只读节点树
+ * 快照通过ZkSnapshotClient映射读取，重放修改过的节点以写时复制的方式保存在内存覆盖层中，
+ * 未修改的节点直接读快照。重放是流式的，向后前进只继续重放新的事务；
+ * 回到更早的时刻才需要丢弃覆盖层，从合适的快照重新开始。
+ * 快照是模糊快照，可能已包含快照zxid之后的部分事务，重放时对已存在的节点按覆盖处理、对不存在的节点忽略删除，与服务器恢复时的行为一致。
+ */
+public class ZkPointInTimeClient extends ZkReadOnlyClient {
+    private static final Logger logger = LoggerFactory.getLogger(ZkPointInTimeClient.class);
+
+    // 重放时每处理多少条事务释放一次锁，让界面可以读取
+    private static final int BATCH_SIZE = 1000;
+
+    private final File dataDir;
+    private final Object lock = new Object();
+    private final List<File> snapshotFiles = new ArrayList<>();
+    private final List<ZkTxnLog> logs = new ArrayList<>();
+
+    private volatile ZkSnapshotClient snapshot;
+    private volatile boolean closed;
+    private volatile long appliedCount;
+    private volatile long skippedCount;
+
+    // 覆盖层：修改过的节点，DELETED表示已删除
+    private final Map<String, OverlayNode> overlay = new HashMap<>();
+    // 重放中创建的临时节点，按所有者会话
+    private final Map<Long, Set<String>> sessionNodes = new HashMap<>();
+    // 下一条要重放的事务所在的日志和位置
+    private int logIndex;
+    private long logOffset;
+    private long currentZxid = -1;
+    private long currentTime;
+
+    private static final OverlayNode DELETED = new OverlayNode();
+
+    /**
+     * 覆盖层中的节点
+     */
+    private static class OverlayNode {
+        byte[] data;
+        List<ACL> acl;
+        Stat stat;
+        Set<String> children;
+    }
+
+    /**
+     * @param dataDir ZooKeeper的数据目录，包含snapshot.*和log.*文件（通常是version-2目录）
+     */
+    public ZkPointInTimeClient(File dataDir) {
+        this.dataDir = dataDir;
+    }
+
+    /**
+     * 扫描数据目录并为所有事务日志建立索引
+     */
+    public void load() throws IOException {
+        File[] files = dataDir.listFiles();
+        if (files == null) {
+            throw new IOException("无法读取目录: " + dataDir);
+        }
+        List<File> logFiles = new ArrayList<>();
+        for (File file : files) {
+            if (fileZxid(file, "snapshot.") >= 0) {
+                snapshotFiles.add(file);
+            } else if (fileZxid(file, "log.") >= 0) {
+                logFiles.add(file);
+            }
+        }
+        if (snapshotFiles.isEmpty()) {
+            throw new IOException("目录中没有快照文件: " + dataDir);
+        }
+        Collections.sort(snapshotFiles, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(fileZxid(a, "snapshot."), fileZxid(b, "snapshot."));
+            }
+        });
+        Collections.sort(logFiles, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                return Long.compare(fileZxid(a, "log."), fileZxid(b, "log."));
+            }
+        });
+        try {
+            for (File file : logFiles) {
+                ZkTxnLog log = new ZkTxnLog(file);
+                log.load();
+                logs.add(log);
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return 文件名中的zxid，文件名不是prefix加十六进制zxid的格式时返回-1
+     */
+    private static long fileZxid(File file, String prefix) {
+        String name = file.getName();
+        if (!name.startsWith(prefix)) {
+            return -1;
+        }
+        String suffix = name.substring(prefix.length());
+        int dot = suffix.indexOf('.');
+        try {
+            return Long.parseLong(dot >= 0 ? suffix.substring(0, dot) : suffix, 16);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 前进或回退到指定zxid（包含该事务）
+     */
+    public void seekZxid(long zxid) throws IOException {
+        if (snapshot == null || zxid < getCurrentZxid()) {
+            reset(chooseSnapshot(zxid));
+        }
+        replay(zxid, Long.MAX_VALUE);
+    }
+
+    /**
+     * 前进或回退到指定时刻，重放时间不晚于该时刻的全部事务
+     */
+    public void seekTime(long time) throws IOException {
+        if (snapshot == null || time < getCurrentTime()) {
+            reset(chooseSnapshotByTime(time));
+        }
+        replay(Long.MAX_VALUE, time);
+    }
+
+    /**
+     * 选择在指定时刻之前生成的最新快照，快照时刻取快照zxid对应事务的时间
+     */
+    private File chooseSnapshotByTime(long time) throws IOException {
+        for (int i = snapshotFiles.size() - 1; i >= 0; i--) {
+            File file = snapshotFiles.get(i);
+            long snapshotTime = txnTime(fileZxid(file, "snapshot."));
+            if (snapshotTime < 0) {
+                // 对应的日志已被清理，用文件修改时间近似
+                snapshotTime = file.lastModified();
+            }
+            if (snapshotTime <= time) {
+                return file;
+            }
+        }
+        throw new IOException("没有早于该时刻的快照");
+    }
+
+    /**
+     * @return zxid对应事务的时间，日志中没有该事务时返回-1
+     */
+    private long txnTime(long zxid) throws IOException {
+        if (zxid == 0) {
+            // 初始的空快照
+            return 0;
+        }
+        for (ZkTxnLog log : logs) {
+            if (log.getTxnCount() > 0 && log.getFirstZxid() <= zxid && zxid <= log.getLastZxid()) {
+                ZkTxnEntry entry = log.read(log.findZxid(zxid));
+                return entry != null ? entry.getTime() : -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 选择zxid不大于目标的最新快照
+     */
+    private File chooseSnapshot(long zxid) throws IOException {
+        for (int i = snapshotFiles.size() - 1; i >= 0; i--) {
+            File file = snapshotFiles.get(i);
+            if (fileZxid(file, "snapshot.") <= zxid) {
+                return file;
+            }
+        }
+        throw new IOException("没有早于 0x" + Long.toHexString(zxid) + " 的快照");
+    }
+
+    private void reset(File snapshotFile) throws IOException {
+        ZkSnapshotClient newSnapshot = snapshot;
+        if (newSnapshot == null || !newSnapshot.getFile().equals(snapshotFile)) {
+            newSnapshot = new ZkSnapshotClient(snapshotFile);
+            newSnapshot.load();
+        }
+        long snapshotTime = txnTime(newSnapshot.getZxid());
+        synchronized (lock) {
+            ZkSnapshotClient old = snapshot;
+            if (old != null && old != newSnapshot) {
+                old.close();
+            }
+            snapshot = newSnapshot;
+            overlay.clear();
+            sessionNodes.clear();
+            appliedCount = 0;
+            skippedCount = 0;
+            currentZxid = newSnapshot.getZxid();
+            currentTime = snapshotTime < 0 ? snapshotFile.lastModified() : snapshotTime;
+            locateLog(currentZxid + 1);
+        }
+        logger.info("时间点恢复以快照 {} 为起点", snapshotFile);
+    }
+
+    /**
+     * 定位包含指定zxid的事务日志位置
+     */
+    private void locateLog(long zxid) throws IOException {
+        logIndex = logs.size();
+        logOffset = 0;
+        for (int i = 0; i < logs.size(); i++) {
+            ZkTxnLog log = logs.get(i);
+            if (log.getTxnCount() > 0 && log.getLastZxid() >= zxid) {
+                logIndex = i;
+                logOffset = log.findZxid(zxid);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 从当前位置继续重放，直到zxid或时间超过目标
+     */
+    private void replay(long targetZxid, long targetTime) throws IOException {
+        while (!closed) {
+            synchronized (lock) {
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    if (logIndex >= logs.size()) {
+                        return;
+                    }
+                    ZkTxnLog log = logs.get(logIndex);
+                    ZkTxnEntry entry = log.read(logOffset);
+                    if (entry == null) {
+                        logIndex++;
+                        logOffset = logIndex < logs.size() ? logs.get(logIndex).getStartOffset() : 0;
+                        continue;
+                    }
+                    if (entry.getZxid() > targetZxid || entry.getTime() > targetTime) {
+                        return;
+                    }
+                    logOffset = entry.getNextOffset();
+                    if (entry.getZxid() <= currentZxid) {
+                        continue;
+                    }
+                    apply(entry);
+                    currentZxid = entry.getZxid();
+                    currentTime = entry.getTime();
+                    appliedCount++;
+                }
+            }
+        }
+    }
+
+    private void apply(ZkTxnEntry entry) {
+        List<ZkTxnEntry.Operation> operations = entry.getOperations();
+        // 失败的multi中所有操作都记为error，整体不生效
+        for (ZkTxnEntry.Operation op : operations) {
+            if (op.getType() == ZooDefs.OpCode.error && entry.getType() == ZooDefs.OpCode.multi) {
+                return;
+            }
+        }
+        for (ZkTxnEntry.Operation op : operations) {
+            applyOperation(entry, op);
+        }
+    }
+
+    private void applyOperation(ZkTxnEntry entry, ZkTxnEntry.Operation op) {
+        switch (op.getType()) {
+            case ZooDefs.OpCode.create:
+            case ZooDefs.OpCode.create2:
+            case ZooDefs.OpCode.createContainer:
+            case ZooDefs.OpCode.createTTL:
+                applyCreate(entry, op);
+                break;
+            case ZooDefs.OpCode.delete:
+            case ZooDefs.OpCode.deleteContainer:
+                applyDelete(op.getPath(), entry.getZxid());
+                break;
+            case ZooDefs.OpCode.setData:
+            case ZooDefs.OpCode.reconfig:
+                OverlayNode node = modify(op.getPath());
+                if (node == null) {
+                    skippedCount++;
+                    return;
+                }
+                node.data = op.getData();
+                node.stat.setVersion(op.getVersion());
+                node.stat.setMzxid(entry.getZxid());
+                node.stat.setMtime(entry.getTime());
+                break;
+            case ZooDefs.OpCode.setACL:
+                node = modify(op.getPath());
+                if (node == null) {
+                    skippedCount++;
+                    return;
+                }
+                node.acl = op.getAcl();
+                node.stat.setAversion(op.getVersion());
+                break;
+            case ZooDefs.OpCode.closeSession:
+                List<String> paths = op.getPaths();
+                if (paths == null) {
+                    paths = sessionEphemerals(entry.getSessionId());
+                }
+                for (String path : paths) {
+                    applyDelete(path, entry.getZxid());
+                }
+                break;
+            default:
+                // createSession、check、error不改变节点树
+                break;
+        }
+    }
+
+    private void applyCreate(ZkTxnEntry entry, ZkTxnEntry.Operation op) {
+        String path = op.getPath();
+        int slash = path.lastIndexOf('/');
+        OverlayNode parent = modify(slash == 0 ? "/" : path.substring(0, slash));
+        if (parent == null) {
+            skippedCount++;
+            return;
+        }
+        long ephemeralOwner = 0;
+        if (op.isEphemeral()) {
+            ephemeralOwner = entry.getSessionId();
+        } else if (op.isContainer()) {
+            ephemeralOwner = EphemeralType.CONTAINER_EPHEMERAL_OWNER;
+        } else if (op.getTtl() > 0) {
+            ephemeralOwner = EphemeralType.TTL.toEphemeralOwner(op.getTtl());
+        }
+        OverlayNode node = new OverlayNode();
+        node.data = op.getData();
+        node.acl = op.getAcl();
+        node.children = new LinkedHashSet<>();
+        node.stat = new Stat(entry.getZxid(), entry.getZxid(), entry.getTime(), entry.getTime(),
+                0, 0, 0, ephemeralOwner, 0, 0, entry.getZxid());
+        overlay.put(path, node);
+        if (op.isEphemeral()) {
+            Set<String> owned = sessionNodes.get(ephemeralOwner);
+            if (owned == null) {
+                owned = new HashSet<>();
+                sessionNodes.put(ephemeralOwner, owned);
+            }
+            owned.add(path);
+        }
+        parent.children.add(path.substring(slash + 1));
+        int parentCVersion = op.getVersion();
+        parent.stat.setCversion(parentCVersion == -1 ? parent.stat.getCversion() + 1 : parentCVersion);
+        parent.stat.setPzxid(entry.getZxid());
+    }
+
+    private void applyDelete(String path, long zxid) {
+        OverlayNode node = get(path);
+        int slash = path.lastIndexOf('/');
+        OverlayNode parent = modify(slash == 0 ? "/" : path.substring(0, slash));
+        if (node == null || parent == null) {
+            skippedCount++;
+            return;
+        }
+        long owner = node.stat.getEphemeralOwner();
+        Set<String> owned = sessionNodes.get(owner);
+        if (owned != null) {
+            owned.remove(path);
+        }
+        overlay.put(path, DELETED);
+        parent.children.remove(path.substring(slash + 1));
+        if (zxid > parent.stat.getPzxid()) {
+            parent.stat.setPzxid(zxid);
+        }
+    }
+
+    /**
+     * 会话当前拥有的临时节点：快照中的和重放中创建的
+     * 快照中的临时节点被setData或setACL复制到覆盖层后仍属于该会话，按覆盖层中的所有者判断
+     */
+    private List<String> sessionEphemerals(long sessionId) {
+        Set<String> paths = new LinkedHashSet<>();
+        for (String path : snapshot.getEphemeralPaths(sessionId)) {
+            OverlayNode node = overlay.get(path);
+            if (node == null || (node != DELETED && node.stat.getEphemeralOwner() == sessionId)) {
+                paths.add(path);
+            }
+        }
+        Set<String> owned = sessionNodes.get(sessionId);
+        if (owned != null) {
+            paths.addAll(owned);
+        }
+        return new ArrayList<>(paths);
+    }
+
+    /**
+     * 读取节点，覆盖层优先，未修改过的节点只读取状态，不复制
+     * @return 覆盖层中的节点或从快照复制的节点，不存在时返回null
+     */
+    private OverlayNode get(String path) {
+        OverlayNode node = overlay.get(path);
+        if (node != null) {
+            return node == DELETED ? null : node;
+        }
+        return copyFromSnapshot(path);
+    }
+
+    /**
+     * 取得可以修改的节点，快照中的节点先复制到覆盖层
+     */
+    private OverlayNode modify(String path) {
+        OverlayNode node = overlay.get(path);
+        if (node != null) {
+            return node == DELETED ? null : node;
+        }
+        node = copyFromSnapshot(path);
+        if (node != null) {
+            overlay.put(path, node);
+        }
+        return node;
+    }
+
+    private OverlayNode copyFromSnapshot(String path) {
+        try {
+            Stat stat = snapshot.readStat(path);
+            if (stat == null) {
+                return null;
+            }
+            OverlayNode node = new OverlayNode();
+            node.stat = stat;
+            node.data = snapshot.readData(path, null);
+            node.acl = snapshot.readAcl(path, null);
+            node.children = new LinkedHashSet<>(snapshot.readChildren(path));
+            return node;
+        } catch (KeeperException e) {
+            logger.warn("读取快照节点失败: {}", path, e);
+            return null;
+        }
+    }
+
+    private ZkSnapshotClient requireSnapshot() throws KeeperException {
+        ZkSnapshotClient current = snapshot;
+        if (current == null || closed) {
+            throw new KeeperException.ConnectionLossException();
+        }
+        return current;
+    }
+
+    private static Stat statOf(OverlayNode node) {
+        Stat stat = node.stat;
+        return new Stat(stat.getCzxid(), stat.getMzxid(), stat.getCtime(), stat.getMtime(), stat.getVersion(),
+                stat.getCversion(), stat.getAversion(), stat.getEphemeralOwner(),
+                node.data == null ? 0 : node.data.length, node.children.size(), stat.getPzxid());
+    }
+
+    private static void copyStat(Stat from, Stat to) {
+        to.setCzxid(from.getCzxid());
+        to.setMzxid(from.getMzxid());
+        to.setCtime(from.getCtime());
+        to.setMtime(from.getMtime());
+        to.setVersion(from.getVersion());
+        to.setCversion(from.getCversion());
+        to.setAversion(from.getAversion());
+        to.setEphemeralOwner(from.getEphemeralOwner());
+        to.setDataLength(from.getDataLength());
+        to.setNumChildren(from.getNumChildren());
+        to.setPzxid(from.getPzxid());
+    }
+
+    @Override
+    protected List<String> readChildren(String path) throws KeeperException {
+        synchronized (lock) {
+            ZkSnapshotClient current = requireSnapshot();
+            OverlayNode node = overlay.get(path);
+            if (node == DELETED) {
+                throw new KeeperException.NoNodeException(path);
+            }
+            return node != null ? new ArrayList<>(node.children) : current.readChildren(path);
+        }
+    }
+
+    @Override
+    protected Stat readStat(String path) throws KeeperException {
+        synchronized (lock) {
+            ZkSnapshotClient current = requireSnapshot();
+            OverlayNode node = overlay.get(path);
+            if (node == DELETED) {
+                return null;
+            }
+            return node != null ? statOf(node) : current.readStat(path);
+        }
+    }
+
+    @Override
+    protected byte[] readData(String path, Stat stat) throws KeeperException {
+        synchronized (lock) {
+            ZkSnapshotClient current = requireSnapshot();
+            OverlayNode node = overlay.get(path);
+            if (node == DELETED) {
+                throw new KeeperException.NoNodeException(path);
+            }
+            if (node == null) {
+                return current.readData(path, stat);
+            }
+            if (stat != null) {
+                copyStat(statOf(node), stat);
+            }
+            return node.data;
+        }
+    }
+
+    @Override
+    protected List<ACL> readAcl(String path, Stat stat) throws KeeperException {
+        synchronized (lock) {
+            ZkSnapshotClient current = requireSnapshot();
+            OverlayNode node = overlay.get(path);
+            if (node == DELETED) {
+                throw new KeeperException.NoNodeException(path);
+            }
+            if (node == null) {
+                return current.readAcl(path, stat);
+            }
+            if (stat != null) {
+                copyStat(statOf(node), stat);
+            }
+            return node.acl;
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        ZkSnapshotClient current = snapshot;
+        synchronized (lock) {
+            String time = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(currentTime);
+            return "时间点 zxid 0x" + Long.toHexString(currentZxid) + " (" + time + ")"
+                    + (current != null ? "，基于 " + current.getFile().getName() : "");
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return !closed && snapshot != null;
+    }
+
+    public File getDataDir() {
+        return dataDir;
+    }
+
+    /**
+     * @return 当前恢复到的zxid
+     */
+    public long getCurrentZxid() {
+        synchronized (lock) {
+            return currentZxid;
+        }
+    }
+
+    /**
+     * @return 最后重放的事务时间，尚未重放事务时为快照的时刻
+     */
+    public long getCurrentTime() {
+        synchronized (lock) {
+            return currentTime;
+        }
+    }
+
+    /**
+     * @return 从快照起已重放的事务数，用于显示进度
+     */
+    public long getAppliedCount() {
+        return appliedCount;
+    }
+
+    /**
+     * @return 因节点不存在而忽略的操作数，来自模糊快照中已包含的事务
+     */
+    public long getSkippedCount() {
+        return skippedCount;
+    }
+
+    /**
+     * @return 事务日志覆盖的最后一个zxid，没有日志时返回-1
+     */
+    public long getLastLoggedZxid() {
+        for (int i = logs.size() - 1; i >= 0; i--) {
+            if (logs.get(i).getTxnCount() > 0) {
+                return logs.get(i).getLastZxid();
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return 事务日志覆盖的最后时刻
+     */
+    public long getLastLoggedTime() {
+        for (int i = logs.size() - 1; i >= 0; i--) {
+            if (logs.get(i).getTxnCount() > 0) {
+                return logs.get(i).getLastTime();
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (lock) {
+            if (snapshot != null) {
+                snapshot.close();
+            }
+            for (ZkTxnLog log : logs) {
+                log.close();
+            }
+            overlay.clear();
+            sessionNodes.clear();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.zkclient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 时间点恢复对话框：选择数据目录和目标zxid或时刻，恢复结果在只读标签页中浏览
+ * 对话框保持打开时可以继续输入更晚的时刻向前推进，标签页随之刷新，不需要从快照重新开始
+ */
+public class ZkPointInTimeDialog extends JDialog {
+    private static final Logger logger = LoggerFactory.getLogger(ZkPointInTimeDialog.class);
+
+    // 刷新进度的间隔（毫秒）
+    private static final int PROGRESS_INTERVAL = 300;
+
+    /**
+     * 用于打开恢复结果标签页的回调
+     */
+    public interface TabOpener {
+        ZkConnectionTab openTab(ZkReadOnlyClient client, String name);
+    }
+
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private final TabOpener tabOpener;
+
+    private JTextField dirField;
+    private JButton browseButton;
+    private JTextField targetField;
+    private JButton seekButton;
+    private JLabel rangeLabel;
+    private JLabel statusLabel;
+    private Timer progressTimer;
+
+    // 只在事件线程上访问
+    private ZkPointInTimeClient client;
+    private ZkConnectionTab tab;
+
+    /**
+     * @param owner 主窗口
+     * @param tabOpener 恢复完成后打开标签页
+     */
+    public ZkPointInTimeDialog(Frame owner, TabOpener tabOpener) {
+        super(owner, "时间点恢复", false);
+        this.tabOpener = tabOpener;
+        initComponents();
+        setSize(700, 200);
+        setLocationRelativeTo(owner);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                progressTimer.stop();
+                executorService.shutdownNow();
+                // 恢复结果已交给标签页时由标签页负责关闭
+                if (client != null && tab == null) {
+                    client.close();
+                }
+            }
+        });
+    }
+
+    private void initComponents() {
+        dirField = new JTextField(35);
+        dirField.setToolTipText("ZooKeeper数据目录，包含snapshot.*和log.*文件，通常是dataDir/version-2");
+        browseButton = new JButton("浏览...");
+        targetField = new JTextField(20);
+        targetField.setToolTipText("zxid（如0x100000001）或时间（yyyy-MM-dd HH:mm:ss）");
+        seekButton = new JButton("恢复");
+        rangeLabel = new JLabel(" ");
+        statusLabel = new JLabel(" ");
+
+        JPanel dirPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        dirPanel.add(new JLabel("数据目录:"));
+        dirPanel.add(dirField);
+        dirPanel.add(browseButton);
+
+        JPanel targetPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        targetPanel.add(new JLabel("恢复到:"));
+        targetPanel.add(targetField);
+        targetPanel.add(seekButton);
+
+        JPanel formPanel = new JPanel(new GridLayout(3, 1));
+        formPanel.add(dirPanel);
+        formPanel.add(targetPanel);
+        formPanel.add(rangeLabel);
+
+        getContentPane().setLayout(new BorderLayout());
+        getContentPane().add(formPanel, BorderLayout.CENTER);
+        getContentPane().add(statusLabel, BorderLayout.SOUTH);
+
+        browseButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                JFileChooser chooser = new JFileChooser();
+                chooser.setDialogTitle("选择ZooKeeper数据目录");
+                chooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+                if (chooser.showOpenDialog(ZkPointInTimeDialog.this) == JFileChooser.APPROVE_OPTION) {
+                    dirField.setText(chooser.getSelectedFile().getAbsolutePath());
+                }
+            }
+        });
+        seekButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                seek();
+            }
+        });
+        progressTimer = new Timer(PROGRESS_INTERVAL, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (client != null) {
+                    statusLabel.setText("正在重放：已重放 " + client.getAppliedCount() + " 条事务");
+                }
+            }
+        });
+    }
+
+    private void seek() {
+        long[] parsed;
+        try {
+            parsed = ZkTxnLogDialog.parseBound(targetField.getText());
+        } catch (ParseException | NumberFormatException e) {
+            parsed = null;
+        }
+        final long[] target = parsed;
+        if (target == null) {
+            JOptionPane.showMessageDialog(this, "请输入0x开头的zxid或yyyy-MM-dd HH:mm:ss格式的时间",
+                    "提示", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        // 标签页关闭后客户端随之关闭，需要重新加载
+        if (client != null && !client.isConnected() && tab != null) {
+            client = null;
+            tab = null;
+        }
+        final File dir = new File(dirField.getText().trim());
+        if (client != null && !client.getDataDir().equals(dir)) {
+            if (tab == null) {
+                client.close();
+            }
+            client = null;
+            tab = null;
+        }
+        final boolean needLoad = client == null;
+        if (needLoad) {
+            client = new ZkPointInTimeClient(dir);
+        }
+        final ZkPointInTimeClient current = client;
+        seekButton.setEnabled(false);
+        dirField.setEnabled(false);
+        statusLabel.setText(needLoad ? "正在索引事务日志..." : "正在重放...");
+        progressTimer.start();
+
+        executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                String error = null;
+                try {
+                    if (needLoad) {
+                        current.load();
+                    }
+                    if (target[0] == 1) {
+                        current.seekZxid(target[1]);
+                    } else {
+                        current.seekTime(target[1]);
+                    }
+                } catch (Exception e) {
+                    logger.error("时间点恢复失败: {}", dir, e);
+                    error = "恢复失败: " + e.getMessage();
+                }
+                final String finalError = error;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        progressTimer.stop();
+                        seekButton.setEnabled(true);
+                        dirField.setEnabled(true);
+                        if (finalError != null) {
+                            statusLabel.setText(finalError);
+                            if (needLoad) {
+                                current.close();
+                                client = null;
+                            }
+                            return;
+                        }
+                        seekButton.setText("前进/回退到");
+                        SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+                        rangeLabel.setText(String.format("  日志覆盖到 zxid 0x%x（%s）", current.getLastLoggedZxid(),
+                                dateFormat.format(current.getLastLoggedTime())));
+                        statusLabel.setText(current.getDescription() + "，已重放 " + current.getAppliedCount() + " 条事务");
+                        if (tab == null) {
+                            tab = tabOpener.openTab(current, "时间点 " + dir.getName());
+                        } else {
+                            tab.reloadTree();
+                        }
+                    }
+                });
+            }
+        });
+    }
+}
@@ -0,0 +1,225 @@
+package com.zkclient;
+
+import org.apache.zookeeper.AddWatchMode;
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
+
+import java.util.List;
+
+/**
+ * 不连接服务器的只读数据源，例如快照文件
+ * 以ZkClient子类的形式提供，节点树、数据、属性、子节点列表、子树分析、导出和比较等功能无需修改即可使用。
+ * 读取都在本地完成，异步方法在调用线程上直接回调；所有写操作以NOTREADONLY失败。
+ */
+public abstract class ZkReadOnlyClient extends ZkClient {
+
+    /**
+     * 读取子节点名称
+     * @throws KeeperException.NoNodeException 节点不存在
+     */
+    protected abstract List<String> readChildren(String path) throws KeeperException;
+
+    /**
+     * 读取节点状态
+     * @return 节点状态，节点不存在时返回null
+     */
+    protected abstract Stat readStat(String path) throws KeeperException;
+
+    /**
+     * 读取节点数据
+     * @param stat 不为null时填入节点状态
+     * @throws KeeperException.NoNodeException 节点不存在
+     */
+    protected abstract byte[] readData(String path, Stat stat) throws KeeperException;
+
+    /**
+     * 读取节点ACL
+     * @param stat 不为null时填入节点状态
+     * @throws KeeperException.NoNodeException 节点不存在
+     */
+    protected abstract List<ACL> readAcl(String path, Stat stat) throws KeeperException;
+
+    /**
+     * @return 数据源的描述，显示在标签页中
+     */
+    public abstract String getDescription();
+
+    @Override
+    public boolean connect(String connectString) {
+        return false;
+    }
+
+    @Override
+    public boolean connect(String connectString, boolean canBeReadOnly) {
+        return false;
+    }
+
+    @Override
+    public String getConnectString() {
+        return null;
+    }
+
+    @Override
+    public boolean isConnected() {
+        return true;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return true;
+    }
+
+    @Override
+    public List<String> getChildren(String path) throws KeeperException {
+        List<String> children = readChildren(path);
+        getPathTrie().setChildren(path, children);
+        return children;
+    }
+
+    @Override
+    public void getChildrenAsync(String path, AsyncCallback.Children2Callback cb, Object ctx) {
+        try {
+            List<String> children = readChildren(path);
+            getPathTrie().setChildren(path, children);
+            cb.processResult(KeeperException.Code.OK.intValue(), path, ctx, children, readStat(path));
+        } catch (KeeperException e) {
+            cb.processResult(e.code().intValue(), path, ctx, null, null);
+        }
+    }
+
+    @Override
+    public void getAllChildrenNumberAsync(String path, AsyncCallback.AllChildrenNumberCallback cb, Object ctx) {
+        try {
+            cb.processResult(KeeperException.Code.OK.intValue(), path, ctx, countDescendants(path));
+        } catch (KeeperException e) {
+            cb.processResult(e.code().intValue(), path, ctx, -1);
+        }
+    }
+
+    /**
+     * @return 节点的全部后代数量，子类可以用索引直接计算
+     */
+    protected int countDescendants(String path) throws KeeperException {
+        int count = 0;
+        String prefix = path.equals("/") ? "/" : path + "/";
+        for (String child : readChildren(path)) {
+            count += 1 + countDescendants(prefix + child);
+        }
+        return count;
+    }
+
+    @Override
+    public byte[] getRawData(String path, Stat stat) throws KeeperException {
+        return readData(path, stat);
+    }
+
+    @Override
+    public void getDataAsync(String path, AsyncCallback.DataCallback cb, Object ctx) {
+        try {
+            Stat stat = new Stat();
+            byte[] data = readData(path, stat);
+            cb.processResult(KeeperException.Code.OK.intValue(), path, ctx, data, stat);
+        } catch (KeeperException e) {
+            cb.processResult(e.code().intValue(), path, ctx, null, null);
+        }
+    }
+
+    @Override
+    public List<ACL> getAcl(String path, Stat stat) throws KeeperException {
+        return readAcl(path, stat);
+    }
+
+    @Override
+    public void getAclAsync(String path, AsyncCallback.ACLCallback cb, Object ctx) {
+        try {
+            Stat stat = new Stat();
+            List<ACL> acl = readAcl(path, stat);
+            cb.processResult(KeeperException.Code.OK.intValue(), path, ctx, acl, stat);
+        } catch (KeeperException e) {
+            cb.processResult(e.code().intValue(), path, ctx, null, null);
+        }
+    }
+
+    @Override
+    public Stat getStat(String path) throws KeeperException {
+        return readStat(path);
+    }
+
+    @Override
+    public void existsAsync(String path, AsyncCallback.StatCallback cb, Object ctx) {
+        try {
+            Stat stat = readStat(path);
+            cb.processResult(stat == null ? KeeperException.Code.NONODE.intValue() : KeeperException.Code.OK.intValue(),
+                    path, ctx, stat);
+        } catch (KeeperException e) {
+            cb.processResult(e.code().intValue(), path, ctx, null);
+        }
+    }
+
+    @Override
+    public String createNode(String path, byte[] data, List<ACL> acl, CreateMode createMode) throws KeeperException {
+        throw new KeeperException.NotReadOnlyException();
+    }
+
+    @Override
+    public String createRawNode(String path, byte[] data, List<ACL> acl, CreateMode createMode) throws KeeperException {
+        throw new KeeperException.NotReadOnlyException();
+    }
+
+    @Override
+    public Stat updateNode(String path, byte[] data, int version) throws KeeperException {
+        throw new KeeperException.NotReadOnlyException();
+    }
+
+    @Override
+    public Stat updateRawNode(String path, byte[] data, int version) throws KeeperException {
+        throw new KeeperException.NotReadOnlyException();
+    }
+
+    @Override
+    public void deleteNode(String path, int version) throws KeeperException {
+        throw new KeeperException.NotReadOnlyException();
+    }
+
+    @Override
+    public void createAsync(String path, byte[] data, List<ACL> acl, CreateMode createMode,
+                            AsyncCallback.StringCallback cb, Object ctx) {
+        cb.processResult(KeeperException.Code.NOTREADONLY.intValue(), path, ctx, null);
+    }
+
+    @Override
+    public void updateNodeAsync(String path, byte[] data, int version, AsyncCallback.StatCallback cb, Object ctx) {
+        cb.processResult(KeeperException.Code.NOTREADONLY.intValue(), path, ctx, null);
+    }
+
+    @Override
+    public boolean deleteRecursive(String path) throws KeeperException {
+        throw new KeeperException.NotReadOnlyException();
+    }
+
+    @Override
+    public List<OpResult> multi(Iterable<Op> ops) throws KeeperException {
+        throw new KeeperException.NotReadOnlyException();
+    }
+
+    @Override
+    public void multiAsync(Iterable<Op> ops, AsyncCallback.MultiCallback cb, Object ctx) {
+        cb.processResult(KeeperException.Code.NOTREADONLY.intValue(), null, ctx, null);
+    }
+
+    @Override
+    public void addWatch(String path, Watcher watcher, AddWatchMode mode) throws KeeperException {
+        throw new KeeperException.NotReadOnlyException();
+    }
+
+    @Override
+    public void removeWatches(String path, Watcher watcher) {
+        // 没有注册过watch
+    }
+}
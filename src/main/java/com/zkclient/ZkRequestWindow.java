@@ -0,0 +1,56 @@
+package com.zkclient;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * 异步请求流水线窗口，限制同时在途的ZooKeeper请求数量
+ * 发起请求前调用acquire，回调完成后调用release
+ */
+public class ZkRequestWindow {
+    private final int size;
+    private final Semaphore permits;
+
+    /**
+     * @param size 最大在途请求数
+     */
+    public ZkRequestWindow(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("窗口大小必须大于0: " + size);
+        }
+        this.size = size;
+        this.permits = new Semaphore(size);
+    }
+
+    /**
+     * 占用一个在途名额，窗口已满时阻塞
+     */
+    public void acquire() throws InterruptedException {
+        permits.acquire();
+    }
+
+    /**
+     * 释放一个在途名额
+     */
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * 等待所有在途请求完成
+     */
+    public void awaitIdle() throws InterruptedException {
+        permits.acquire(size);
+        permits.release(size);
+    }
+
+    /**
+     * @return 当前在途请求数
+     */
+    public int inFlight() {
+        return size - permits.availablePermits();
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
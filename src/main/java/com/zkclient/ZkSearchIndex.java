@@ -0,0 +1,692 @@
+package com.zkclient;
+
+import org.apache.zookeeper.AddWatchMode;
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 子树数据的倒排索引，保存在磁盘上，用于重复的全文搜索
+ * 节点数据按字母数字串（ASCII字母转为小写）和单个汉字切分为词，每个词记录包含它的节点（文档）列表。
+ * 节点每次重新索引都分配新的文档号并把旧文档号标记为已删除，因此倒排列表只追加且始终有序，
+ * 保存时再压缩掉已删除的文档。
+ * 索引通过子树上的持久递归watch保持最新；从磁盘加载或会话过期后先按mzxid重新校验整棵子树，
+ * 只读取mzxid变化了的节点数据。
+ * 查询按同样的规则切词，每个词作为前缀匹配，结果为所有词都命中的节点，不区分大小写。
+ */
+public class ZkSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ZkSearchIndex.class);
+
+    private static final int MAGIC = 0x5A4B5349; // "ZKSI"
+    private static final int VERSION = 1;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // 建立和校验索引时的最大在途节点数
+    private static final int READ_WINDOW = 200;
+    // 词的最大长度，超出部分截断
+    private static final int MAX_TOKEN_LENGTH = 64;
+    // 每个节点最多索引的不同词数
+    private static final int MAX_TOKENS_PER_NODE = 10000;
+
+    private final ZkClient zkClient;
+    private final File file;
+
+    // 以下字段都由this保护
+    private String rootPath;
+    private final List<String> docPaths = new ArrayList<>();
+    private long[] docMzxids = new long[1024];
+    private final BitSet deletedDocs = new BitSet();
+    private final Map<String, Integer> pathDocs = new HashMap<>();
+    private final TreeMap<String, IntList> postings = new TreeMap<>();
+    private long updatedTime;
+    private boolean dirty;
+    // 本次校验开始时的文档数，之后新建的文档视为已校验
+    private int validatingFrom = -1;
+    private BitSet validatedDocs;
+    // 遍历期间删除的路径及其最后的mzxid，挡住删除前读到、删除后才访问到的旧版本
+    private final Map<String, Long> tombstones = new HashMap<>();
+
+    private volatile ZkTreeWalker walker;
+    private volatile boolean watching;
+
+    private final Watcher watcher = new Watcher() {
+        @Override
+        public void process(WatchedEvent event) {
+            handleEvent(event);
+        }
+    };
+
+    private final AsyncCallback.DataCallback dataCallback = new AsyncCallback.DataCallback() {
+        @Override
+        public void processResult(int rc, String path, Object ctx, byte[] data, Stat stat) {
+            if (rc == KeeperException.Code.OK.intValue()) {
+                updateFromEvent(path, stat.getMzxid(), data);
+            } else if (rc == KeeperException.Code.NONODE.intValue()) {
+                remove(path);
+            } else {
+                logger.warn("索引更新读取节点失败: {} {}", path, KeeperException.Code.get(rc));
+            }
+        }
+    };
+
+    /**
+     * 只追加的int列表，用作倒排列表
+     */
+    private static class IntList {
+        int[] values = new int[2];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.max(2, size * 2));
+            }
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * @param zkClient ZooKeeper客户端
+     * @param file 索引文件
+     */
+    public ZkSearchIndex(ZkClient zkClient, File file) {
+        this.zkClient = zkClient;
+        this.file = file;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return 索引的子树起点，尚未建立时返回null
+     */
+    public synchronized String getRootPath() {
+        return rootPath;
+    }
+
+    /**
+     * @return 索引中的节点数
+     */
+    public synchronized int getNodeCount() {
+        return pathDocs.size();
+    }
+
+    /**
+     * @return 索引中的不同词数（含只出现在已删除文档中的词）
+     */
+    public synchronized int getTokenCount() {
+        return postings.size();
+    }
+
+    /**
+     * @return 最近一次建立或校验完成的时间
+     */
+    public synchronized long getUpdatedTime() {
+        return updatedTime;
+    }
+
+    /**
+     * @return watch是否有效，无效时索引可能已经过期，需要先校验
+     */
+    public boolean isWatching() {
+        return watching;
+    }
+
+    /**
+     * @return 当前建立或校验过程已访问的节点数
+     */
+    public long getProgress() {
+        ZkTreeWalker current = walker;
+        return current != null ? current.getVisitedCount() : 0;
+    }
+
+    /**
+     * @return 路径是否在索引的子树内
+     */
+    public synchronized boolean covers(String path) {
+        return rootPath != null && isUnder(path, rootPath);
+    }
+
+    /**
+     * 取消正在进行的建立或校验
+     */
+    public void cancel() {
+        ZkTreeWalker current = walker;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    /**
+     * 从索引文件加载
+     * @return 文件不存在时返回false
+     */
+    public synchronized boolean load() throws IOException {
+        if (!file.exists()) {
+            return false;
+        }
+        clear();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("无效的索引文件: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("不支持的索引文件版本: " + version);
+            }
+            rootPath = in.readUTF();
+            updatedTime = in.readLong();
+            int docCount = in.readInt();
+            for (int i = 0; i < docCount; i++) {
+                addDoc(in.readUTF(), in.readLong());
+            }
+            int tokenCount = in.readInt();
+            for (int i = 0; i < tokenCount; i++) {
+                String token = in.readUTF();
+                IntList list = new IntList();
+                list.values = new int[in.readInt()];
+                // 文档号按差值存储
+                int doc = 0;
+                while (list.size < list.values.length) {
+                    doc += in.readInt();
+                    list.values[list.size++] = doc;
+                }
+                postings.put(token, list);
+            }
+        }
+        dirty = false;
+        logger.info("加载搜索索引 {}: {} 个节点，{} 个词", file, docPaths.size(), postings.size());
+        return true;
+    }
+
+    /**
+     * 压缩掉已删除的文档后写入索引文件，先写临时文件再替换
+     */
+    public synchronized void save() throws IOException {
+        if (rootPath == null) {
+            return;
+        }
+        compact();
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("无法创建目录: " + parent);
+        }
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(tempFile), BUFFER_SIZE), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(rootPath);
+            out.writeLong(updatedTime);
+            out.writeInt(docPaths.size());
+            for (int doc = 0; doc < docPaths.size(); doc++) {
+                out.writeUTF(docPaths.get(doc));
+                out.writeLong(docMzxids[doc]);
+            }
+            out.writeInt(postings.size());
+            for (Map.Entry<String, IntList> entry : postings.entrySet()) {
+                IntList list = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeInt(list.size);
+                int previous = 0;
+                for (int i = 0; i < list.size; i++) {
+                    out.writeInt(list.values[i] - previous);
+                    previous = list.values[i];
+                }
+            }
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        dirty = false;
+        logger.info("保存搜索索引 {}: {} 个节点，{} 个词", file, docPaths.size(), postings.size());
+    }
+
+    /**
+     * 对子树做一次完整扫描，重新建立索引，完成后开始监听变化
+     * 阻塞直到扫描完成或被取消，取消时索引内容不完整，不会开始监听
+     * @param path 子树起点
+     */
+    public void build(String path) throws KeeperException, InterruptedException {
+        stopWatching();
+        synchronized (this) {
+            clear();
+            rootPath = path;
+            dirty = true;
+        }
+        logger.info("开始建立搜索索引: {}", path);
+        long start = System.currentTimeMillis();
+        // 先注册watch再扫描，扫描期间的变化由事件补上
+        startWatching();
+        ZkTreeWalker current = new ZkTreeWalker(zkClient, READ_WINDOW);
+        current.setFetchData(true);
+        walker = current;
+        try {
+            current.walk(path, new ZkTreeWalker.Visitor() {
+                @Override
+                public boolean visit(ZkTreeWalker.Node node) {
+                    update(node.getPath(), node.getStat().getMzxid(), node.getData());
+                    return true;
+                }
+            });
+        } finally {
+            endWalk();
+        }
+        if (current.isCancelled()) {
+            stopWatching();
+            return;
+        }
+        synchronized (this) {
+            updatedTime = System.currentTimeMillis();
+        }
+        logger.info("搜索索引建立完成: {}，{} 个节点，{} 个词，耗时 {} ms", path, getNodeCount(), getTokenCount(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 按mzxid校验整棵子树：先开始监听，再遍历子树，只读取新增或mzxid变化了的节点数据，
+     * 遍历中没有见到的节点从索引中删除
+     */
+    public void revalidate() throws KeeperException, InterruptedException {
+        String path;
+        synchronized (this) {
+            path = rootPath;
+            if (path == null) {
+                return;
+            }
+            validatingFrom = docPaths.size();
+            validatedDocs = new BitSet(validatingFrom);
+        }
+        logger.info("开始校验搜索索引: {}", path);
+        long start = System.currentTimeMillis();
+        startWatching();
+        ZkTreeWalker current = new ZkTreeWalker(zkClient, READ_WINDOW);
+        current.setFetchData(true);
+        current.setDataFilter(new ZkTreeWalker.DataFilter() {
+            @Override
+            public boolean needData(String path, Stat stat) {
+                return !isCurrent(path, stat.getMzxid());
+            }
+        });
+        final long[] changed = new long[1];
+        walker = current;
+        try {
+            current.walk(path, new ZkTreeWalker.Visitor() {
+                @Override
+                public boolean visit(ZkTreeWalker.Node node) {
+                    if (validate(node.getPath(), node.getStat().getMzxid(), node.getData())) {
+                        changed[0]++;
+                    }
+                    return true;
+                }
+            });
+        } finally {
+            endWalk();
+        }
+        int removed = 0;
+        synchronized (this) {
+            if (!current.isCancelled()) {
+                for (int doc = 0; doc < validatingFrom; doc++) {
+                    if (!deletedDocs.get(doc) && !validatedDocs.get(doc)) {
+                        pathDocs.remove(docPaths.get(doc));
+                        deletedDocs.set(doc);
+                        removed++;
+                    }
+                }
+                updatedTime = System.currentTimeMillis();
+                dirty |= changed[0] > 0 || removed > 0;
+            }
+            validatingFrom = -1;
+            validatedDocs = null;
+        }
+        logger.info("搜索索引校验{}: {}，更新 {} 个节点，删除 {} 个节点，耗时 {} ms",
+                current.isCancelled() ? "已取消" : "完成", path, changed[0], removed, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 查询索引
+     * @param query 查询文本，切词后每个词作为前缀匹配
+     * @param underPath 只返回该路径下的节点
+     * @return 命中节点的路径，按索引顺序排列；查询中没有可用的词时返回空列表
+     */
+    public synchronized List<String> search(String query, String underPath) {
+        Set<String> tokens = new LinkedHashSet<>();
+        tokenize(query, tokens, Integer.MAX_VALUE);
+        List<String> result = new ArrayList<>();
+        if (tokens.isEmpty()) {
+            return result;
+        }
+        BitSet matched = null;
+        for (String token : tokens) {
+            BitSet docs = new BitSet(docPaths.size());
+            SortedMap<String, IntList> range = postings.subMap(token, token + Character.MAX_VALUE);
+            for (IntList list : range.values()) {
+                for (int i = 0; i < list.size; i++) {
+                    docs.set(list.values[i]);
+                }
+            }
+            if (matched == null) {
+                matched = docs;
+            } else {
+                matched.and(docs);
+            }
+            if (matched.isEmpty()) {
+                return result;
+            }
+        }
+        matched.andNot(deletedDocs);
+        for (int doc = matched.nextSetBit(0); doc >= 0; doc = matched.nextSetBit(doc + 1)) {
+            String path = docPaths.get(doc);
+            if (isUnder(path, underPath)) {
+                result.add(path);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 停止监听，有未保存的变化时写入索引文件
+     */
+    public void close() {
+        stopWatching();
+        cancel();
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            try {
+                save();
+            } catch (IOException e) {
+                logger.error("保存搜索索引失败: {}", file, e);
+            }
+        }
+    }
+
+    private void startWatching() throws KeeperException, InterruptedException {
+        String path = getRootPath();
+        if (path == null || watching) {
+            return;
+        }
+        zkClient.addWatch(path, watcher, AddWatchMode.PERSISTENT_RECURSIVE);
+        watching = true;
+    }
+
+    private void stopWatching() {
+        String path = getRootPath();
+        if (!watching || path == null) {
+            return;
+        }
+        watching = false;
+        try {
+            zkClient.removeWatches(path, watcher);
+        } catch (Exception e) {
+            logger.debug("移除watch失败: {}", e.getMessage());
+        }
+    }
+
+    private void handleEvent(WatchedEvent event) {
+        if (event.getType() == Watcher.Event.EventType.None) {
+            // 会话过期或连接关闭后watch失效，期间的变化只能通过校验补上
+            if (event.getState() == Watcher.Event.KeeperState.Expired
+                    || event.getState() == Watcher.Event.KeeperState.Closed) {
+                watching = false;
+            }
+            return;
+        }
+        if (!watching || event.getPath() == null) {
+            return;
+        }
+        switch (event.getType()) {
+            case NodeCreated:
+            case NodeDataChanged:
+                zkClient.getDataAsync(event.getPath(), dataCallback, null);
+                break;
+            case NodeDeleted:
+                remove(event.getPath());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private synchronized boolean isCurrent(String path, long mzxid) {
+        Integer doc = pathDocs.get(path);
+        return doc != null && docMzxids[doc] == mzxid;
+    }
+
+    /**
+     * 校验时访问到一个节点
+     * @return 是否重新索引了该节点
+     */
+    private synchronized boolean validate(String path, long mzxid, byte[] data) {
+        Integer doc = pathDocs.get(path);
+        if (doc != null && docMzxids[doc] == mzxid) {
+            validatedDocs.set(doc);
+            return false;
+        }
+        if (data == null) {
+            // 过滤时还是旧版本，之后已由watch事件更新
+            if (doc != null) {
+                validatedDocs.set(doc);
+            }
+            return false;
+        }
+        update(path, mzxid, data);
+        return true;
+    }
+
+    /**
+     * 事件触发的读取与watch事件同序，读到的总是删除之后的版本，不受墓碑限制
+     */
+    private synchronized void updateFromEvent(String path, long mzxid, byte[] data) {
+        tombstones.remove(path);
+        update(path, mzxid, data);
+    }
+
+    /**
+     * 重新索引一个节点，mzxid不比已索引的版本或删除时的版本新时忽略
+     */
+    private synchronized void update(String path, long mzxid, byte[] data) {
+        if (rootPath == null || !isUnder(path, rootPath)) {
+            return;
+        }
+        Long deleted = tombstones.get(path);
+        if (deleted != null && deleted >= mzxid) {
+            return;
+        }
+        Integer old = pathDocs.get(path);
+        if (old != null) {
+            if (docMzxids[old] >= mzxid) {
+                return;
+            }
+            deletedDocs.set(old);
+        }
+        int doc = addDoc(path, mzxid);
+        if (data != null && data.length > 0) {
+            Set<String> tokens = new LinkedHashSet<>();
+            tokenize(data, tokens);
+            for (String token : tokens) {
+                IntList list = postings.get(token);
+                if (list == null) {
+                    list = new IntList();
+                    postings.put(token, list);
+                }
+                list.add(doc);
+            }
+        }
+        dirty = true;
+    }
+
+    private synchronized void remove(String path) {
+        Integer doc = pathDocs.remove(path);
+        if (walker != null) {
+            // 删除前没有索引过的节点不知道版本，遍历中再访问到一律视为旧版本，重新创建由事件补上
+            tombstones.put(path, doc != null ? docMzxids[doc] : Long.MAX_VALUE);
+        }
+        if (doc != null) {
+            deletedDocs.set(doc);
+            dirty = true;
+        }
+    }
+
+    /**
+     * 遍历结束后不会再有旧版本的访问，丢弃墓碑
+     */
+    private synchronized void endWalk() {
+        walker = null;
+        tombstones.clear();
+    }
+
+    private int addDoc(String path, long mzxid) {
+        int doc = docPaths.size();
+        docPaths.add(path);
+        if (doc == docMzxids.length) {
+            docMzxids = Arrays.copyOf(docMzxids, doc * 2);
+        }
+        docMzxids[doc] = mzxid;
+        pathDocs.put(path, doc);
+        return doc;
+    }
+
+    private void clear() {
+        rootPath = null;
+        docPaths.clear();
+        docMzxids = new long[1024];
+        deletedDocs.clear();
+        pathDocs.clear();
+        postings.clear();
+        tombstones.clear();
+        updatedTime = 0;
+    }
+
+    /**
+     * 重新编号文档，去掉已删除的文档和不再有文档的词
+     */
+    private void compact() {
+        if (deletedDocs.isEmpty()) {
+            return;
+        }
+        int[] remap = new int[docPaths.size()];
+        List<String> paths = new ArrayList<>(pathDocs.size());
+        long[] mzxids = new long[Math.max(1024, pathDocs.size())];
+        for (int doc = 0; doc < docPaths.size(); doc++) {
+            if (deletedDocs.get(doc)) {
+                remap[doc] = -1;
+            } else {
+                remap[doc] = paths.size();
+                mzxids[paths.size()] = docMzxids[doc];
+                paths.add(docPaths.get(doc));
+            }
+        }
+        Iterator<Map.Entry<String, IntList>> it = postings.entrySet().iterator();
+        while (it.hasNext()) {
+            IntList list = it.next().getValue();
+            int size = 0;
+            for (int i = 0; i < list.size; i++) {
+                int doc = remap[list.values[i]];
+                if (doc >= 0) {
+                    list.values[size++] = doc;
+                }
+            }
+            if (size == 0) {
+                it.remove();
+            } else {
+                list.size = size;
+            }
+        }
+        docPaths.clear();
+        docPaths.addAll(paths);
+        docMzxids = mzxids;
+        deletedDocs.clear();
+        pathDocs.clear();
+        for (int doc = 0; doc < docPaths.size(); doc++) {
+            pathDocs.put(docPaths.get(doc), doc);
+        }
+    }
+
+    private static boolean isUnder(String path, String root) {
+        return root.equals("/") || path.equals(root) || path.startsWith(root + "/");
+    }
+
+    /**
+     * 切分节点数据，纯ASCII数据直接在字节上切分，其他数据解码为UTF-8后切分
+     */
+    static void tokenize(byte[] data, Set<String> tokens) {
+        for (byte b : data) {
+            if (b < 0) {
+                tokenize(new String(data, StandardCharsets.UTF_8), tokens, MAX_TOKENS_PER_NODE);
+                return;
+            }
+        }
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= data.length && tokens.size() < MAX_TOKENS_PER_NODE; i++) {
+            char c = i < data.length ? (char) data[i] : ' ';
+            if (isWordChar(c)) {
+                if (token.length() < MAX_TOKEN_LENGTH) {
+                    token.append(Character.toLowerCase(c));
+                }
+            } else if (token.length() > 0) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+    }
+
+    /**
+     * 切分文本：连续的字母数字为一个词，每个汉字单独为一个词
+     */
+    static void tokenize(String text, Set<String> tokens, int maxTokens) {
+        StringBuilder token = new StringBuilder();
+        int i = 0;
+        while (i <= text.length() && tokens.size() < maxTokens) {
+            int c = i < text.length() ? text.codePointAt(i) : ' ';
+            boolean han = Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+            if (!han && (Character.isLetterOrDigit(c) || c == '_')) {
+                if (token.length() < MAX_TOKEN_LENGTH) {
+                    token.appendCodePoint(Character.toLowerCase(c));
+                }
+            } else {
+                if (token.length() > 0) {
+                    tokens.add(token.toString());
+                    token.setLength(0);
+                }
+                if (han) {
+                    tokens.add(new String(Character.toChars(c)));
+                }
+            }
+            i += Character.charCount(c);
+        }
+    }
+
+    private static boolean isWordChar(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9' || c == '_';
+    }
+}
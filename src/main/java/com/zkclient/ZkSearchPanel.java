@@ -0,0 +1,492 @@
+package com.zkclient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 子树搜索面板，在后台执行ZkSubtreeSearch，命中结果边搜索边显示
+ * 勾选"使用索引"时非正则查询改为查询按连接保存在磁盘上的倒排索引（ZkSearchIndex），
+ * 索引未在监听变化时先按mzxid校验一遍再查询。
+ */
+public class ZkSearchPanel extends JPanel {
+    private static final Logger logger = LoggerFactory.getLogger(ZkSearchPanel.class);
+
+    // 把命中结果刷新到表格的间隔（毫秒）
+    private static final int REFRESH_INTERVAL = 200;
+    // 表格中最多显示的命中数，超出后只计数
+    private static final int MAX_DISPLAY_HITS = 10000;
+    // 索引文件所在目录，与会话配置文件一样相对工作目录
+    private static final String INDEX_DIR = "zk_index";
+
+    private final ZkClient zkClient;
+    private final ExecutorService executorService;
+
+    private final HitTableModel tableModel = new HitTableModel();
+    private final ConcurrentLinkedQueue<ZkSubtreeSearch.Hit> pendingHits = new ConcurrentLinkedQueue<>();
+    private JTextField rootField;
+    private JTextField queryField;
+    private JCheckBox regexCheckBox;
+    private JCheckBox ignoreCaseCheckBox;
+    private JCheckBox matchPathCheckBox;
+    private JCheckBox indexCheckBox;
+    private JButton indexButton;
+    private JButton searchButton;
+    private JButton stopButton;
+    private JLabel summaryLabel;
+    private JTable table;
+    private Timer refreshTimer;
+
+    private volatile ZkSubtreeSearch search;
+    private ZkPathJumpBox.JumpListener jumpListener;
+    // 只在事件线程上访问，索引本身的操作在后台线程执行
+    private ZkSearchIndex index;
+    private boolean indexLoaded;
+    private volatile boolean indexing;
+
+    public ZkSearchPanel(ZkClient zkClient, ExecutorService executorService) {
+        super(new BorderLayout());
+        this.zkClient = zkClient;
+        this.executorService = executorService;
+
+        initComponents();
+    }
+
+    private void initComponents() {
+        rootField = new JTextField("/", 15);
+        queryField = new JTextField(20);
+        regexCheckBox = new JCheckBox("正则");
+        ignoreCaseCheckBox = new JCheckBox("忽略大小写");
+        matchPathCheckBox = new JCheckBox("匹配路径");
+        searchButton = new JButton("搜索");
+        stopButton = new JButton("停止");
+        stopButton.setEnabled(false);
+        indexCheckBox = new JCheckBox("使用索引");
+        indexCheckBox.setToolTipText("按词前缀查询磁盘上的索引，不区分大小写，不支持正则");
+        indexButton = new JButton("建立索引");
+        indexButton.setToolTipText("扫描起点下的子树建立索引，之后通过watch保持最新");
+        summaryLabel = new JLabel("");
+
+        JPanel inputPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        inputPanel.add(new JLabel("起点:"));
+        inputPanel.add(rootField);
+        inputPanel.add(new JLabel("查找:"));
+        inputPanel.add(queryField);
+        inputPanel.add(searchButton);
+        inputPanel.add(stopButton);
+
+        JPanel optionPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        optionPanel.add(regexCheckBox);
+        optionPanel.add(ignoreCaseCheckBox);
+        optionPanel.add(matchPathCheckBox);
+        optionPanel.add(indexCheckBox);
+        optionPanel.add(indexButton);
+        optionPanel.add(summaryLabel);
+
+        JPanel topPanel = new JPanel(new GridLayout(2, 1));
+        topPanel.add(inputPanel);
+        topPanel.add(optionPanel);
+        add(topPanel, BorderLayout.NORTH);
+
+        table = new JTable(tableModel);
+        table.setFillsViewportHeight(true);
+        table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        table.getColumnModel().getColumn(0).setPreferredWidth(250);
+        table.getColumnModel().getColumn(1).setPreferredWidth(50);
+        table.getColumnModel().getColumn(2).setPreferredWidth(400);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+        table.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int row = table.rowAtPoint(e.getPoint());
+                if (e.getClickCount() == 2 && row >= 0 && jumpListener != null) {
+                    jumpListener.jumpTo(tableModel.getHit(table.convertRowIndexToModel(row)).getPath());
+                }
+            }
+        });
+
+        ActionListener searchAction = new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                startSearch(rootField.getText().trim());
+            }
+        };
+        indexButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                buildIndex(rootField.getText().trim());
+            }
+        });
+        searchButton.addActionListener(searchAction);
+        queryField.addActionListener(searchAction);
+        stopButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                ZkSubtreeSearch current = search;
+                if (current != null) {
+                    current.cancel();
+                }
+                if (index != null) {
+                    index.cancel();
+                }
+            }
+        });
+
+        refreshTimer = new Timer(REFRESH_INTERVAL, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                refreshResults();
+            }
+        });
+    }
+
+    /**
+     * 设置双击命中结果时的跳转回调
+     */
+    public void setJumpListener(ZkPathJumpBox.JumpListener jumpListener) {
+        this.jumpListener = jumpListener;
+    }
+
+    /**
+     * 设置搜索起点并把焦点移到查找框，必须在EDT上调用
+     * @param path 搜索起点
+     */
+    public void prepareSearch(String path) {
+        rootField.setText(path);
+        queryField.requestFocusInWindow();
+    }
+
+    /**
+     * 开始搜索，已有搜索任务会被取消，必须在EDT上调用
+     * @param path 搜索起点
+     */
+    public void startSearch(final String path) {
+        String query = queryField.getText();
+        if (query.isEmpty() || !path.startsWith("/")) {
+            summaryLabel.setText("请填写以/开头的起点和查找内容");
+            return;
+        }
+        if (!zkClient.isConnected()) {
+            summaryLabel.setText("未连接");
+            return;
+        }
+        final ZkDataMatcher matcher;
+        try {
+            matcher = new ZkDataMatcher(query, regexCheckBox.isSelected(), ignoreCaseCheckBox.isSelected());
+        } catch (PatternSyntaxException e) {
+            summaryLabel.setText("正则表达式错误: " + e.getDescription());
+            return;
+        }
+        if (indexCheckBox.isSelected() && !regexCheckBox.isSelected()) {
+            startIndexedSearch(path, query);
+            return;
+        }
+        ZkSubtreeSearch previous = search;
+        if (previous != null) {
+            previous.cancel();
+        }
+        pendingHits.clear();
+        tableModel.clear();
+
+        final ZkSubtreeSearch current = new ZkSubtreeSearch(zkClient, path, matcher, matchPathCheckBox.isSelected(),
+                new ZkSubtreeSearch.HitListener() {
+                    @Override
+                    public void onHit(ZkSubtreeSearch.Hit hit) {
+                        pendingHits.add(hit);
+                    }
+                });
+        search = current;
+        summaryLabel.setText("正在搜索...");
+        setRunning(true);
+        refreshTimer.start();
+
+        executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                final long start = System.currentTimeMillis();
+                String error = null;
+                try {
+                    current.run();
+                } catch (Exception e) {
+                    logger.error("子树搜索失败: {}", path, e);
+                    error = e.getMessage();
+                }
+                final String finalError = error;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (search != current) {
+                            return;
+                        }
+                        refreshTimer.stop();
+                        setRunning(false);
+                        refreshResults();
+                        long elapsed = System.currentTimeMillis() - start;
+                        if (finalError != null) {
+                            summaryLabel.setText("搜索失败: " + finalError);
+                        } else if (current.isCancelled()) {
+                            summaryLabel.setText(summaryLabel.getText() + " (已停止)");
+                        } else {
+                            summaryLabel.setText(summaryLabel.getText() + "，耗时 " + elapsed + " ms");
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 扫描起点下的子树建立索引，替换该连接已有的索引，必须在EDT上调用
+     * @param path 索引的子树起点
+     */
+    public void buildIndex(final String path) {
+        final ZkSearchIndex current = getIndex();
+        if (current == null) {
+            summaryLabel.setText("当前连接不支持索引");
+            return;
+        }
+        if (!path.startsWith("/")) {
+            summaryLabel.setText("请填写以/开头的起点");
+            return;
+        }
+        indexLoaded = true;
+        runIndexTask(new IndexTask() {
+            @Override
+            public String run() throws Exception {
+                long start = System.currentTimeMillis();
+                current.build(path);
+                if (!current.isWatching()) {
+                    return "建立索引已停止";
+                }
+                current.save();
+                return "索引建立完成：" + current.getNodeCount() + " 个节点，" + current.getTokenCount()
+                        + " 个词，耗时 " + (System.currentTimeMillis() - start) + " ms";
+            }
+        });
+    }
+
+    /**
+     * 查询索引，索引未在监听变化时先校验
+     */
+    private void startIndexedSearch(final String path, final String query) {
+        final ZkSearchIndex current = getIndex();
+        if (current == null) {
+            summaryLabel.setText("当前连接不支持索引");
+            return;
+        }
+        final boolean needLoad = !indexLoaded;
+        indexLoaded = true;
+        runIndexTask(new IndexTask() {
+            @Override
+            public String run() throws Exception {
+                if (needLoad && !current.load()) {
+                    return "该连接尚未建立索引，请先点击\"建立索引\"";
+                }
+                if (!current.covers(path)) {
+                    return "索引范围为 " + current.getRootPath() + "，不包含起点 " + path;
+                }
+                if (!current.isWatching()) {
+                    current.revalidate();
+                    if (!current.isWatching()) {
+                        return "索引校验已停止";
+                    }
+                    current.save();
+                }
+                long start = System.nanoTime();
+                List<String> paths = current.search(query, path);
+                long elapsed = (System.nanoTime() - start) / 1000;
+                for (String hitPath : paths) {
+                    pendingHits.add(new ZkSubtreeSearch.Hit(hitPath, -1, 0, "(索引命中)"));
+                }
+                String summary = "索引命中 " + paths.size() + " 个节点，查询耗时 " + elapsed / 1000.0 + " ms（索引共 "
+                        + current.getNodeCount() + " 个节点）";
+                if (paths.size() > MAX_DISPLAY_HITS) {
+                    summary += "，仅显示前 " + MAX_DISPLAY_HITS + " 个";
+                }
+                return summary;
+            }
+        });
+    }
+
+    /**
+     * 在后台执行的索引操作
+     */
+    private interface IndexTask {
+        /**
+         * @return 完成后显示的摘要
+         */
+        String run() throws Exception;
+    }
+
+    private void runIndexTask(final IndexTask task) {
+        ZkSubtreeSearch previous = search;
+        if (previous != null) {
+            previous.cancel();
+        }
+        search = null;
+        pendingHits.clear();
+        tableModel.clear();
+        indexing = true;
+        summaryLabel.setText("正在处理索引...");
+        setRunning(true);
+        refreshTimer.start();
+
+        executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                String summary;
+                try {
+                    summary = task.run();
+                } catch (Exception e) {
+                    logger.error("索引操作失败", e);
+                    summary = "索引操作失败: " + e.getMessage();
+                }
+                final String finalSummary = summary;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        indexing = false;
+                        refreshTimer.stop();
+                        setRunning(false);
+                        refreshResults();
+                        summaryLabel.setText(finalSummary);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 按当前连接取得索引，连接地址变化后换用对应的索引文件；只读数据源不支持索引
+     */
+    private ZkSearchIndex getIndex() {
+        String connectString = zkClient.getConnectString();
+        if (zkClient instanceof ZkReadOnlyClient || connectString == null) {
+            return null;
+        }
+        File file = new File(INDEX_DIR, connectString.replaceAll("[^A-Za-z0-9._-]", "_") + ".idx");
+        if (index == null || !index.getFile().equals(file)) {
+            if (index != null) {
+                index.close();
+            }
+            index = new ZkSearchIndex(zkClient, file);
+            indexLoaded = false;
+        }
+        return index;
+    }
+
+    /**
+     * 停止搜索和索引监听，保存索引中未写入磁盘的变化，必须在断开连接前调用
+     */
+    public void close() {
+        refreshTimer.stop();
+        ZkSubtreeSearch current = search;
+        if (current != null) {
+            current.cancel();
+        }
+        if (index != null) {
+            index.close();
+        }
+    }
+
+    private void setRunning(boolean running) {
+        searchButton.setEnabled(!running);
+        indexButton.setEnabled(!running);
+        stopButton.setEnabled(running);
+    }
+
+    private void refreshResults() {
+        if (indexing) {
+            ZkSearchIndex current = index;
+            if (current != null && current.getProgress() > 0) {
+                summaryLabel.setText("正在扫描子树：已读取 " + current.getProgress() + " 个节点");
+            }
+        }
+        List<ZkSubtreeSearch.Hit> batch = new ArrayList<>();
+        ZkSubtreeSearch.Hit hit;
+        while ((hit = pendingHits.poll()) != null) {
+            if (tableModel.getRowCount() + batch.size() < MAX_DISPLAY_HITS) {
+                batch.add(hit);
+            }
+        }
+        tableModel.addHits(batch);
+        ZkSubtreeSearch current = search;
+        if (current == null) {
+            return;
+        }
+        String summary = "已扫描 " + current.getScannedCount() + " 个节点（" + current.getScannedBytes() / 1024
+                + " KB），命中 " + current.getMatchedCount();
+        if (current.getMatchedCount() > MAX_DISPLAY_HITS) {
+            summary += "，仅显示前 " + MAX_DISPLAY_HITS + " 个";
+        }
+        summaryLabel.setText(summary);
+    }
+
+    /**
+     * 命中结果表格模型，结果只追加
+     */
+    private static class HitTableModel extends AbstractTableModel {
+        private static final String[] COLUMN_NAMES = {"路径", "位置", "片段"};
+
+        private final List<ZkSubtreeSearch.Hit> hits = new ArrayList<>();
+
+        void clear() {
+            hits.clear();
+            fireTableDataChanged();
+        }
+
+        void addHits(List<ZkSubtreeSearch.Hit> batch) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            int first = hits.size();
+            hits.addAll(batch);
+            fireTableRowsInserted(first, hits.size() - 1);
+        }
+
+        ZkSubtreeSearch.Hit getHit(int row) {
+            return hits.get(row);
+        }
+
+        @Override
+        public int getRowCount() {
+            return hits.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMN_NAMES[column];
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            ZkSubtreeSearch.Hit hit = hits.get(rowIndex);
+            switch (columnIndex) {
+                case 0:
+                    return hit.getPath();
+                case 1:
+                    return hit.getOffset() < 0 ? "-" : String.valueOf(hit.getOffset());
+                default:
+                    return hit.getSnippet();
+            }
+        }
+    }
+}
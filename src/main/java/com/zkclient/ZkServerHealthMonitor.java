@@ -0,0 +1,309 @@
+package com.zkclient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 定时轮询集群中每个成员的四字命令，把结果记入各成员各指标的时间序列
+ * 每一轮并行向所有成员发送srvr、mntr、cons和wchs（见ZkFourLetterClient），全部返回或超时后才算完成；
+ * 上一轮未完成时跳过本轮，慢成员不会让请求堆积。命令不在服务器白名单中时，之后不再向该成员发送。
+ * 时间序列容量固定，按默认间隔约保存一小时。
+ */
+public class ZkServerHealthMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(ZkServerHealthMonitor.class);
+
+    // 每个时间序列保存的点数
+    private static final int HISTORY_SIZE = 720;
+    // 单个命令的超时上限（毫秒）
+    private static final int MAX_TIMEOUT = 5000;
+    // 每轮发送的命令，srvr在前，后面的命令能提供更准确的同名字段
+    private static final String[] COMMANDS = {"srvr", "mntr", "cons", "wchs"};
+
+    /**
+     * 图表显示的指标
+     */
+    public enum Metric {
+        LATENCY("平均延迟(ms)"),
+        OUTSTANDING("排队请求数"),
+        ZNODES("节点数"),
+        WATCHES("watch数"),
+        FOLLOWERS("follower数"),
+        SYNC_LAG("落后事务数");
+
+        private final String title;
+
+        Metric(String title) {
+            this.title = title;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+    }
+
+    /**
+     * 每轮轮询完成时的回调，在事件循环线程上调用
+     */
+    public interface Listener {
+        void roundCompleted();
+    }
+
+    /**
+     * 一个集群成员
+     */
+    public static class Member {
+        private final String host;
+        private final int port;
+        private final Map<Metric, ZkTimeSeries> series = new EnumMap<>(Metric.class);
+        // 不在白名单中的命令
+        private final Set<String> disabledCommands = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+        private volatile ZkServerStats lastStats;
+        private volatile String error;
+
+        Member(String host, int port) {
+            this.host = host;
+            this.port = port;
+            for (Metric metric : Metric.values()) {
+                series.put(metric, new ZkTimeSeries(HISTORY_SIZE));
+            }
+        }
+
+        public String getAddress() {
+            return host + ":" + port;
+        }
+
+        public ZkTimeSeries getSeries(Metric metric) {
+            return series.get(metric);
+        }
+
+        /**
+         * @return 最近一轮的状态，还没有完成过一轮时为null
+         */
+        public ZkServerStats getLastStats() {
+            return lastStats;
+        }
+
+        /**
+         * @return 最近一轮srvr失败的原因，成功时为null
+         */
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * @return 服务器白名单中没有、已停止发送的命令
+         */
+        public Set<String> getDisabledCommands() {
+            return disabledCommands;
+        }
+    }
+
+    private final List<Member> members = new ArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "zkclient-health");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+    private final AtomicBoolean polling = new AtomicBoolean();
+    private volatile Listener listener;
+    private ScheduledFuture<?> task;
+    private int intervalSeconds = 5;
+
+    /**
+     * @param connectString 集群连接串，可以带chroot后缀
+     */
+    public ZkServerHealthMonitor(String connectString) {
+        for (String address : ZkEnsembleChecker.splitConnectString(connectString)) {
+            int slash = address.indexOf('/');
+            String hostPort = slash >= 0 ? address.substring(0, slash) : address;
+            int colon = hostPort.lastIndexOf(':');
+            String host = colon > 0 ? hostPort.substring(0, colon) : hostPort;
+            int port = colon > 0 ? Integer.parseInt(hostPort.substring(colon + 1)) : 2181;
+            members.add(new Member(host, port));
+        }
+    }
+
+    public List<Member> getMembers() {
+        return members;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 开始或按新的间隔重新开始轮询，立即执行第一轮
+     * @param seconds 轮询间隔（秒）
+     */
+    public synchronized void start(int seconds) {
+        intervalSeconds = seconds;
+        if (task != null) {
+            task.cancel(false);
+        }
+        task = scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                poll();
+            }
+        }, 0, seconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 暂停轮询，已记录的时间序列保留
+     */
+    public synchronized void pause() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    public synchronized boolean isRunning() {
+        return task != null;
+    }
+
+    public synchronized int getIntervalSeconds() {
+        return intervalSeconds;
+    }
+
+    /**
+     * 停止轮询并释放线程，之后不能再启动
+     */
+    public synchronized void stop() {
+        pause();
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 发出一轮请求；上一轮还没有全部返回时跳过
+     */
+    private void poll() {
+        if (!polling.compareAndSet(false, true)) {
+            logger.debug("上一轮四字命令尚未完成，跳过本轮");
+            return;
+        }
+        final long time = System.currentTimeMillis();
+        int timeout = Math.min(MAX_TIMEOUT, getIntervalSeconds() * 1000);
+        final ZkServerStats[] stats = new ZkServerStats[members.size()];
+        final AtomicInteger pending = new AtomicInteger(members.size() * COMMANDS.length);
+        for (int i = 0; i < members.size(); i++) {
+            final Member member = members.get(i);
+            final ZkServerStats memberStats = new ZkServerStats();
+            stats[i] = memberStats;
+            // 各命令的响应先按命令保存，全部返回后按COMMANDS的顺序解析
+            final String[] responses = new String[COMMANDS.length];
+            final AtomicInteger memberPending = new AtomicInteger(COMMANDS.length);
+            for (int c = 0; c < COMMANDS.length; c++) {
+                final int index = c;
+                final String command = COMMANDS[c];
+                ZkFourLetterClient.Callback callback = new ZkFourLetterClient.Callback() {
+                    @Override
+                    public void completed(String response, Throwable error) {
+                        if (error != null) {
+                            if (index == 0) {
+                                member.error = error.toString();
+                            }
+                        } else if (ZkServerStats.isNotWhitelisted(response)) {
+                            member.disabledCommands.add(command);
+                            if (index == 0) {
+                                member.error = command + "不在服务器的四字命令白名单中";
+                            }
+                        } else if (response != null) {
+                            responses[index] = response;
+                            if (index == 0) {
+                                member.error = null;
+                            }
+                        }
+                        if (memberPending.decrementAndGet() == 0) {
+                            parse(memberStats, responses);
+                        }
+                        if (pending.decrementAndGet() == 0) {
+                            finishRound(time, stats);
+                        }
+                    }
+                };
+                if (member.disabledCommands.contains(command)) {
+                    // 已知不在白名单中，只计数不发送
+                    callback.completed(null, null);
+                } else {
+                    ZkFourLetterClient.send(member.host, member.port, command, timeout, callback);
+                }
+            }
+        }
+    }
+
+    private static void parse(ZkServerStats stats, String[] responses) {
+        for (int c = 0; c < COMMANDS.length; c++) {
+            String response = responses[c];
+            if (response == null) {
+                continue;
+            }
+            switch (COMMANDS[c]) {
+                case "srvr": stats.parseSrvr(response); break;
+                case "mntr": stats.parseMntr(response); break;
+                case "cons": stats.parseCons(response); break;
+                default: stats.parseWchs(response); break;
+            }
+        }
+    }
+
+    /**
+     * 一轮全部返回后计算同步落后数并写入时间序列
+     */
+    private void finishRound(long time, ZkServerStats[] stats) {
+        long reference = -1;
+        for (ZkServerStats s : stats) {
+            if (s.isLeader() && s.getZxid() >= 0) {
+                reference = s.getZxid();
+                break;
+            }
+            reference = Math.max(reference, s.getZxid());
+        }
+        for (int i = 0; i < stats.length; i++) {
+            Member member = members.get(i);
+            ZkServerStats s = stats[i];
+            boolean reachable = member.error == null && s.getZxid() >= 0;
+            // 不同epoch的zxid低32位不可比较，只在同一epoch内计算
+            if (reachable && reference >= 0 && (reference >>> 32) == (s.getZxid() >>> 32)) {
+                s.setSyncLag(Math.max(0, reference - s.getZxid()));
+            }
+            add(member, Metric.LATENCY, time, reachable ? s.getAvgLatency() : -1);
+            add(member, Metric.OUTSTANDING, time, reachable ? s.getOutstanding() : -1);
+            add(member, Metric.ZNODES, time, reachable ? s.getZnodeCount() : -1);
+            add(member, Metric.WATCHES, time, reachable ? s.getWatchCount() : -1);
+            add(member, Metric.FOLLOWERS, time, reachable ? s.getFollowers() : -1);
+            add(member, Metric.SYNC_LAG, time, reachable ? s.getSyncLag() : -1);
+            member.lastStats = reachable ? s : null;
+        }
+        polling.set(false);
+        Listener current = listener;
+        if (current != null) {
+            current.roundCompleted();
+        }
+    }
+
+    /**
+     * 未知的值（-1）记为NaN，图表上断开
+     */
+    private static void add(Member member, Metric metric, long time, double value) {
+        member.getSeries(metric).add(time, value < 0 ? Double.NaN : value);
+    }
+}
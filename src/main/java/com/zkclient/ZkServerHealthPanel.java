@@ -0,0 +1,233 @@
+package com.zkclient;
+
+import javax.swing.*;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 服务器状态面板，用ZkServerHealthMonitor轮询当前连接的每个集群成员，
+ * 表格显示各成员最近一轮的状态，折线图显示延迟、排队请求、节点数、watch数、follower数和落后事务数的变化
+ */
+public class ZkServerHealthPanel extends JPanel {
+    // 图表横轴显示的点数
+    private static final int VISIBLE_POINTS = 120;
+
+    private final MemberTableModel tableModel = new MemberTableModel();
+    private final JPanel chartPanel = new JPanel(new GridLayout(2, 3, 4, 4));
+    private final List<ZkTimeSeriesChart> charts = new ArrayList<>();
+    private JSpinner intervalSpinner;
+    private JButton pauseButton;
+    private JLabel summaryLabel;
+
+    private ZkServerHealthMonitor monitor;
+    private String connectString;
+
+    public ZkServerHealthPanel() {
+        super(new BorderLayout());
+        initComponents();
+    }
+
+    private void initComponents() {
+        intervalSpinner = new JSpinner(new SpinnerNumberModel(5, 1, 300, 1));
+        intervalSpinner.setToolTipText("每轮向每个成员发送srvr、mntr、cons、wchs，间隔越长对服务器的影响越小");
+        intervalSpinner.addChangeListener(new ChangeListener() {
+            @Override
+            public void stateChanged(ChangeEvent e) {
+                if (monitor != null && monitor.isRunning()) {
+                    monitor.start(getIntervalSeconds());
+                }
+                updateWindow();
+            }
+        });
+        pauseButton = new JButton("暂停");
+        pauseButton.setEnabled(false);
+        pauseButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (monitor == null) {
+                    return;
+                }
+                if (monitor.isRunning()) {
+                    monitor.pause();
+                } else {
+                    monitor.start(getIntervalSeconds());
+                }
+                updateButtons();
+            }
+        });
+        summaryLabel = new JLabel("连接后开始轮询");
+
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        topPanel.add(new JLabel("轮询间隔(秒):"));
+        topPanel.add(intervalSpinner);
+        topPanel.add(pauseButton);
+        topPanel.add(summaryLabel);
+        add(topPanel, BorderLayout.NORTH);
+
+        JTable table = new JTable(tableModel);
+        table.setFillsViewportHeight(true);
+        table.getColumnModel().getColumn(0).setPreferredWidth(160);
+        table.getColumnModel().getColumn(11).setPreferredWidth(240);
+        JScrollPane tableScroll = new JScrollPane(table);
+        tableScroll.setPreferredSize(new Dimension(600, 120));
+
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT, tableScroll, chartPanel);
+        splitPane.setResizeWeight(0.2);
+        add(splitPane, BorderLayout.CENTER);
+    }
+
+    /**
+     * 开始轮询指定集群；已在轮询同一集群时保持当前状态（包括暂停）
+     * @param connectString 当前连接的连接串
+     */
+    public void start(String connectString) {
+        if (connectString == null || (monitor != null && connectString.equals(this.connectString))) {
+            return;
+        }
+        close();
+        this.connectString = connectString;
+        monitor = new ZkServerHealthMonitor(connectString);
+        final ZkServerHealthMonitor current = monitor;
+        monitor.setListener(new ZkServerHealthMonitor.Listener() {
+            @Override
+            public void roundCompleted() {
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (monitor == current) {
+                            refresh();
+                        }
+                    }
+                });
+            }
+        });
+        chartPanel.removeAll();
+        charts.clear();
+        for (ZkServerHealthMonitor.Metric metric : ZkServerHealthMonitor.Metric.values()) {
+            ZkTimeSeriesChart chart = new ZkTimeSeriesChart(metric.getTitle());
+            for (ZkServerHealthMonitor.Member member : monitor.getMembers()) {
+                chart.addSeries(member.getAddress(), member.getSeries(metric));
+            }
+            charts.add(chart);
+            chartPanel.add(chart);
+        }
+        chartPanel.revalidate();
+        updateWindow();
+        tableModel.setMembers(monitor.getMembers());
+        monitor.start(getIntervalSeconds());
+        summaryLabel.setText("正在轮询 " + monitor.getMembers().size() + " 个成员");
+        updateButtons();
+    }
+
+    /**
+     * 停止轮询，断开连接时调用
+     */
+    public void close() {
+        if (monitor != null) {
+            monitor.stop();
+            monitor = null;
+            connectString = null;
+            summaryLabel.setText("已停止轮询");
+            updateButtons();
+        }
+    }
+
+    private int getIntervalSeconds() {
+        return ((Number) intervalSpinner.getValue()).intValue();
+    }
+
+    private void updateWindow() {
+        for (ZkTimeSeriesChart chart : charts) {
+            chart.setWindowMillis(getIntervalSeconds() * 1000L * VISIBLE_POINTS);
+        }
+    }
+
+    private void updateButtons() {
+        pauseButton.setEnabled(monitor != null);
+        pauseButton.setText(monitor != null && !monitor.isRunning() ? "继续" : "暂停");
+    }
+
+    private void refresh() {
+        tableModel.fireTableDataChanged();
+        for (ZkTimeSeriesChart chart : charts) {
+            chart.repaint();
+        }
+        int reachable = 0;
+        for (ZkServerHealthMonitor.Member member : monitor.getMembers()) {
+            if (member.getLastStats() != null) {
+                reachable++;
+            }
+        }
+        summaryLabel.setText(String.format("%d/%d 个成员可达，每 %d 秒轮询一次", reachable,
+                monitor.getMembers().size(), monitor.getIntervalSeconds()));
+    }
+
+    private static class MemberTableModel extends AbstractTableModel {
+        private final String[] columns = {"服务器", "模式", "Zxid", "延迟min/avg/max(ms)", "排队请求", "连接数",
+                "节点数", "watch数", "follower数", "落后事务数", "不可用命令", "错误"};
+        private List<ZkServerHealthMonitor.Member> members = Collections.emptyList();
+
+        void setMembers(List<ZkServerHealthMonitor.Member> members) {
+            this.members = members;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return members.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return columns.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return columns[column];
+        }
+
+        @Override
+        public Object getValueAt(int row, int column) {
+            ZkServerHealthMonitor.Member member = members.get(row);
+            ZkServerStats stats = member.getLastStats();
+            if (column == 0) {
+                return member.getAddress();
+            }
+            if (column == 10) {
+                return member.getDisabledCommands().isEmpty() ? "" : String.join(",", member.getDisabledCommands());
+            }
+            if (column == 11) {
+                return member.getError() != null ? member.getError() : "";
+            }
+            if (stats == null) {
+                return "";
+            }
+            switch (column) {
+                case 1: return stats.getMode();
+                case 2: return stats.getZxid() >= 0 ? "0x" + Long.toHexString(stats.getZxid()) : "";
+                case 3: return stats.getAvgLatency() >= 0
+                        ? stats.getMinLatency() + "/" + stats.getAvgLatency() + "/" + stats.getMaxLatency() : "";
+                case 4: return format(stats.getOutstanding());
+                case 5: return format(stats.getConnections());
+                case 6: return format(stats.getZnodeCount());
+                case 7: return format(stats.getWatchCount());
+                case 8: return stats.getFollowers() >= 0
+                        ? stats.getFollowers() + (stats.getSyncedFollowers() >= 0 ? "（已同步" + stats.getSyncedFollowers() + "）" : "")
+                        : "";
+                default: return format(stats.getSyncLag());
+            }
+        }
+
+        private static String format(long value) {
+            return value >= 0 ? String.valueOf(value) : "";
+        }
+    }
+}
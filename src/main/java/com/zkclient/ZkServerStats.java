@@ -0,0 +1,219 @@
+package com.zkclient;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 一个集群成员在一轮轮询中的状态，由mntr、srvr、cons、wchs的响应解析而来
+ * srvr在服务器默认的四字命令白名单中，总是可用；其余命令不在白名单中时对应字段保持-1。
+ */
+public class ZkServerStats {
+    // 不在四字命令白名单中时服务器返回的提示
+    private static final String NOT_WHITELISTED = "not in the whitelist";
+
+    private String mode;
+    private long zxid = -1;
+    private double minLatency = -1;
+    private double avgLatency = -1;
+    private double maxLatency = -1;
+    private long outstanding = -1;
+    private long znodeCount = -1;
+    private long watchCount = -1;
+    private long connections = -1;
+    private long followers = -1;
+    private long syncedFollowers = -1;
+    private long syncLag = -1;
+    private String version;
+
+    /**
+     * @return 响应是否为命令不在白名单中的提示
+     */
+    public static boolean isNotWhitelisted(String response) {
+        return response != null && response.contains(NOT_WHITELISTED);
+    }
+
+    /**
+     * 解析mntr的输出，每行为以制表符分隔的键和值
+     */
+    public void parseMntr(String response) {
+        Map<String, String> values = new HashMap<>();
+        for (String line : response.split("\n")) {
+            int tab = line.indexOf('\t');
+            if (tab > 0) {
+                values.put(line.substring(0, tab).trim(), line.substring(tab + 1).trim());
+            }
+        }
+        if (values.containsKey("zk_server_state")) {
+            mode = values.get("zk_server_state");
+        }
+        if (values.containsKey("zk_version")) {
+            version = values.get("zk_version");
+        }
+        minLatency = parseDouble(values.get("zk_min_latency"), minLatency);
+        avgLatency = parseDouble(values.get("zk_avg_latency"), avgLatency);
+        maxLatency = parseDouble(values.get("zk_max_latency"), maxLatency);
+        outstanding = parseLong(values.get("zk_outstanding_requests"), outstanding);
+        znodeCount = parseLong(values.get("zk_znode_count"), znodeCount);
+        watchCount = parseLong(values.get("zk_watch_count"), watchCount);
+        connections = parseLong(values.get("zk_num_alive_connections"), connections);
+        // 只有leader输出follower数，3.6起改名为zk_learners
+        followers = parseLong(values.get("zk_followers"), parseLong(values.get("zk_learners"), followers));
+        syncedFollowers = parseLong(values.get("zk_synced_followers"), syncedFollowers);
+    }
+
+    /**
+     * 解析srvr的输出，例如"Latency min/avg/max: 0/0.5/12"、"Zxid: 0x100000005"、"Mode: follower"
+     */
+    public void parseSrvr(String response) {
+        for (String line : response.split("\n")) {
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String key = line.substring(0, colon).trim();
+            String value = line.substring(colon + 1).trim();
+            if ("Zookeeper version".equals(key)) {
+                version = value;
+            } else if ("Latency min/avg/max".equals(key)) {
+                String[] parts = value.split("/");
+                if (parts.length == 3) {
+                    minLatency = parseDouble(parts[0], minLatency);
+                    avgLatency = parseDouble(parts[1], avgLatency);
+                    maxLatency = parseDouble(parts[2], maxLatency);
+                }
+            } else if ("Outstanding".equals(key)) {
+                outstanding = parseLong(value, outstanding);
+            } else if ("Zxid".equals(key)) {
+                try {
+                    zxid = Long.parseLong(value.startsWith("0x") ? value.substring(2) : value, 16);
+                } catch (NumberFormatException e) {
+                    // 保留原值
+                }
+            } else if ("Mode".equals(key)) {
+                mode = value;
+            } else if ("Node count".equals(key)) {
+                znodeCount = parseLong(value, znodeCount);
+            } else if ("Connections".equals(key)) {
+                connections = parseLong(value, connections);
+            }
+        }
+    }
+
+    /**
+     * 解析cons的输出，每个客户端连接一行，以" /地址:端口"开头
+     */
+    public void parseCons(String response) {
+        long count = 0;
+        for (String line : response.split("\n")) {
+            if (line.trim().startsWith("/")) {
+                count++;
+            }
+        }
+        connections = count;
+    }
+
+    /**
+     * 解析wchs的输出，例如"3 connections watching 5 paths\nTotal watches:8"
+     */
+    public void parseWchs(String response) {
+        for (String line : response.split("\n")) {
+            if (line.startsWith("Total watches:")) {
+                watchCount = parseLong(line.substring("Total watches:".length()), watchCount);
+            }
+        }
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static double parseDouble(String value, double defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * @return leader、follower、observer或standalone，未知时为null
+     */
+    public String getMode() {
+        return mode;
+    }
+
+    public boolean isLeader() {
+        return "leader".equals(mode);
+    }
+
+    public long getZxid() {
+        return zxid;
+    }
+
+    public double getMinLatency() {
+        return minLatency;
+    }
+
+    /**
+     * @return 平均请求延迟（毫秒），未知时为-1
+     */
+    public double getAvgLatency() {
+        return avgLatency;
+    }
+
+    public double getMaxLatency() {
+        return maxLatency;
+    }
+
+    public long getOutstanding() {
+        return outstanding;
+    }
+
+    public long getZnodeCount() {
+        return znodeCount;
+    }
+
+    public long getWatchCount() {
+        return watchCount;
+    }
+
+    public long getConnections() {
+        return connections;
+    }
+
+    /**
+     * @return follower数，只有leader在mntr可用时才有值
+     */
+    public long getFollowers() {
+        return followers;
+    }
+
+    public long getSyncedFollowers() {
+        return syncedFollowers;
+    }
+
+    /**
+     * @return 相对leader（没有leader时相对最大zxid）落后的事务数，未知时为-1
+     */
+    public long getSyncLag() {
+        return syncLag;
+    }
+
+    void setSyncLag(long syncLag) {
+        this.syncLag = syncLag;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+}
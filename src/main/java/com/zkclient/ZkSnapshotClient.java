@@ -0,0 +1,508 @@
+package com.zkclient;
+
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Id;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 离线读取ZooKeeper快照文件(snapshot.*)的只读客户端
+ * 打开时内存映射整个文件并顺序扫描一遍，只记录每个节点记录的偏移和父子关系，
+ * 数据、ACL和状态在访问时才从映射中读取，多GB的快照也只占用少量堆内存。
+ * 快照格式：FileHeader(ZKSN)、会话表、ACL缓存、按前序排列的节点记录，以路径"/"结束。
+ */
+public class ZkSnapshotClient extends ZkReadOnlyClient {
+    private static final Logger logger = LoggerFactory.getLogger(ZkSnapshotClient.class);
+
+    // 快照文件头魔数 "ZKSN"
+    private static final int SNAP_MAGIC = 0x5a4b534e;
+    // StatPersisted的长度：czxid、mzxid、ctime、mtime、version、cversion、aversion、ephemeralOwner、pzxid
+    private static final int STAT_SIZE = 8 * 4 + 4 * 3 + 8 * 2;
+    // ACL缓存中表示OPEN_ACL_UNSAFE的编号
+    private static final long OPEN_UNSAFE_ACL_ID = -1L;
+    // 子节点数超过该值时建立名称索引，否则顺序查找
+    private static final int CHILD_MAP_THRESHOLD = 32;
+    // 初始索引容量
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final File file;
+    private File mappedFile;
+    private ZkMappedFile mapped;
+    private volatile boolean closed;
+    private volatile long indexedBytes;
+    private long zxid = -1;
+    private long dbid;
+    private int sessionCount;
+
+    private final Map<Long, List<ACL>> aclCache = new HashMap<>();
+
+    // 节点索引，下标为节点在快照中的前序编号，0为根节点
+    private int nodeCount;
+    private String[] names = new String[INITIAL_CAPACITY];
+    private long[] offsets = new long[INITIAL_CAPACITY];
+    private int[] parents = new int[INITIAL_CAPACITY];
+    private int[] firstChild = new int[INITIAL_CAPACITY];
+    private int[] nextSibling = new int[INITIAL_CAPACITY];
+    private int[] childCount = new int[INITIAL_CAPACITY];
+    private int[] subtreeSize;
+
+    // 临时节点的所有者会话到节点编号
+    private final Map<Long, List<Integer>> ephemerals = new HashMap<>();
+
+    // 子节点较多的节点按需建立的名称索引
+    private final Map<Integer, Map<String, Integer>> childMaps = new ConcurrentHashMap<>();
+
+    /**
+     * @param file 快照文件，支持未压缩和.gz压缩的快照
+     */
+    public ZkSnapshotClient(File file) {
+        this.file = file;
+        String name = file.getName();
+        int dot = name.indexOf('.');
+        if (dot >= 0) {
+            String suffix = name.substring(dot + 1);
+            int end = suffix.indexOf('.');
+            try {
+                zxid = Long.parseLong(end >= 0 ? suffix.substring(0, end) : suffix, 16);
+            } catch (NumberFormatException e) {
+                // 文件名不是snapshot.<zxid>格式，不影响读取
+            }
+        }
+    }
+
+    /**
+     * 映射文件并建立节点索引
+     */
+    public void load() throws IOException {
+        mappedFile = prepareFile();
+        mapped = new ZkMappedFile(mappedFile);
+        long start = System.currentTimeMillis();
+        try {
+            long pos = readHeader(0);
+            pos = readSessions(pos);
+            pos = readAclCache(pos);
+            readNodes(pos);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        logger.info("已索引快照 {}：{} 个节点，耗时 {} ms", file, nodeCount, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 压缩的快照无法直接映射，先解压到临时文件
+     */
+    private File prepareFile() throws IOException {
+        String name = file.getName();
+        if (name.endsWith(".snappy")) {
+            throw new IOException("不支持snappy压缩的快照，请先用ZooKeeper工具解压: " + file);
+        }
+        if (!name.endsWith(".gz")) {
+            return file;
+        }
+        File temp = File.createTempFile("zk-snapshot-", ".tmp");
+        temp.deleteOnExit();
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file), 64 * 1024);
+             OutputStream out = new FileOutputStream(temp)) {
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        }
+        return temp;
+    }
+
+    private long readHeader(long pos) throws IOException {
+        if (mapped.length() < 16 || mapped.readInt(pos) != SNAP_MAGIC) {
+            throw new IOException("不是ZooKeeper快照文件: " + file);
+        }
+        dbid = mapped.readLong(pos + 8);
+        return pos + 16;
+    }
+
+    private long readSessions(long pos) throws IOException {
+        sessionCount = mapped.readInt(pos);
+        // 每个会话：long会话ID、int超时
+        return pos + 4 + (long) sessionCount * 12;
+    }
+
+    private long readAclCache(long pos) throws IOException {
+        int count = mapped.readInt(pos);
+        pos += 4;
+        for (int i = 0; i < count; i++) {
+            long key = mapped.readLong(pos);
+            int size = mapped.readInt(pos + 8);
+            pos += 12;
+            List<ACL> acl = new ArrayList<>(Math.max(0, size));
+            for (int j = 0; j < size; j++) {
+                int perms = mapped.readInt(pos);
+                pos += 4;
+                String scheme = mapped.readString(pos);
+                pos += mapped.bufferSize(pos);
+                String id = mapped.readString(pos);
+                pos += mapped.bufferSize(pos);
+                acl.add(new ACL(perms, new Id(scheme, id)));
+            }
+            aclCache.put(key, Collections.unmodifiableList(acl));
+        }
+        return pos;
+    }
+
+    /**
+     * 顺序扫描节点记录，前序排列保证父节点在子节点之前，用路径栈找到父节点
+     */
+    private void readNodes(long pos) throws IOException {
+        int[] stack = new int[64];
+        int depth = 0;
+        int[] lastChild = new int[INITIAL_CAPACITY];
+        String[] stackPaths = new String[64];
+        while (true) {
+            String path = mapped.readString(pos);
+            if (path == null || path.equals("/")) {
+                break;
+            }
+            long recordOffset = pos + mapped.bufferSize(pos);
+            long dataSize = mapped.bufferSize(recordOffset);
+            long next = recordOffset + dataSize + 8 + STAT_SIZE;
+            long ephemeralOwner = mapped.readLong(recordOffset + dataSize + 8 + 44);
+            int index = nodeCount;
+            ensureCapacity(index + 1);
+            if (lastChild.length < names.length) {
+                lastChild = Arrays.copyOf(lastChild, names.length);
+            }
+            offsets[index] = recordOffset;
+            firstChild[index] = -1;
+            nextSibling[index] = -1;
+            lastChild[index] = -1;
+            if (path.isEmpty()) {
+                if (index != 0) {
+                    throw new IOException("快照中出现多个根节点: " + file);
+                }
+                names[index] = "";
+                parents[index] = -1;
+                stackPaths[0] = "";
+                stack[0] = 0;
+                depth = 1;
+            } else {
+                if (depth == 0) {
+                    throw new IOException("快照节点记录缺少根节点: " + file);
+                }
+                int slash = path.lastIndexOf('/');
+                String parentPath = path.substring(0, slash);
+                while (depth > 0 && !stackPaths[depth - 1].equals(parentPath)) {
+                    depth--;
+                }
+                if (depth == 0) {
+                    throw new IOException("快照节点记录顺序异常: " + path);
+                }
+                int parent = stack[depth - 1];
+                names[index] = path.substring(slash + 1);
+                parents[index] = parent;
+                if (lastChild[parent] < 0) {
+                    firstChild[parent] = index;
+                } else {
+                    nextSibling[lastChild[parent]] = index;
+                }
+                lastChild[parent] = index;
+                childCount[parent]++;
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, depth * 2);
+                    stackPaths = Arrays.copyOf(stackPaths, depth * 2);
+                }
+                stack[depth] = index;
+                stackPaths[depth] = path;
+                depth++;
+            }
+            if (ephemeralOwner != 0) {
+                List<Integer> owned = ephemerals.get(ephemeralOwner);
+                if (owned == null) {
+                    owned = new ArrayList<>();
+                    ephemerals.put(ephemeralOwner, owned);
+                }
+                owned.add(index);
+            }
+            nodeCount++;
+            pos = next;
+            indexedBytes = pos;
+        }
+        if (nodeCount == 0) {
+            throw new IOException("快照中没有节点: " + file);
+        }
+        // 逆前序累加得到每个子树的大小
+        subtreeSize = new int[nodeCount];
+        for (int i = nodeCount - 1; i >= 0; i--) {
+            subtreeSize[i]++;
+            if (parents[i] >= 0) {
+                subtreeSize[parents[i]] += subtreeSize[i];
+            }
+        }
+        indexedBytes = mapped.length();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= names.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, names.length * 2);
+        names = Arrays.copyOf(names, newCapacity);
+        offsets = Arrays.copyOf(offsets, newCapacity);
+        parents = Arrays.copyOf(parents, newCapacity);
+        firstChild = Arrays.copyOf(firstChild, newCapacity);
+        nextSibling = Arrays.copyOf(nextSibling, newCapacity);
+        childCount = Arrays.copyOf(childCount, newCapacity);
+    }
+
+    /**
+     * 查找路径对应的节点编号
+     * @return 节点编号，不存在时返回-1
+     */
+    private int lookup(String path) {
+        if (path == null || !path.startsWith("/")) {
+            return -1;
+        }
+        int index = 0;
+        int start = 1;
+        while (start < path.length() && index >= 0) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = path.length();
+            }
+            index = findChild(index, path.substring(start, end));
+            start = end + 1;
+        }
+        return index;
+    }
+
+    private int findChild(int parent, String name) {
+        if (childCount[parent] > CHILD_MAP_THRESHOLD) {
+            Map<String, Integer> childMap = childMaps.get(parent);
+            if (childMap == null) {
+                childMap = new HashMap<>(childCount[parent] * 2);
+                for (int c = firstChild[parent]; c >= 0; c = nextSibling[c]) {
+                    childMap.put(names[c], c);
+                }
+                childMaps.put(parent, childMap);
+            }
+            Integer child = childMap.get(name);
+            return child != null ? child : -1;
+        }
+        for (int c = firstChild[parent]; c >= 0; c = nextSibling[c]) {
+            if (names[c].equals(name)) {
+                return c;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 由父节点链接拼出节点的完整路径
+     */
+    private String pathOf(int index) {
+        if (index == 0) {
+            return "/";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = index; i > 0; i = parents[i]) {
+            sb.insert(0, names[i]).insert(0, '/');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 获取快照中属于指定所有者的节点，会话关闭时用于删除其临时节点
+     * @param ephemeralOwner 会话ID，容器节点和TTL节点也以特殊的所有者值记录
+     */
+    public List<String> getEphemeralPaths(long ephemeralOwner) {
+        List<Integer> owned = ephemerals.get(ephemeralOwner);
+        if (owned == null) {
+            return Collections.emptyList();
+        }
+        List<String> paths = new ArrayList<>(owned.size());
+        for (int index : owned) {
+            paths.add(pathOf(index));
+        }
+        return paths;
+    }
+
+    private int require(String path) throws KeeperException {
+        if (closed) {
+            throw new KeeperException.ConnectionLossException();
+        }
+        int index = lookup(path);
+        if (index < 0) {
+            throw new KeeperException.NoNodeException(path);
+        }
+        return index;
+    }
+
+    /**
+     * 从映射中读取节点状态填入stat
+     */
+    private void fillStat(int index, Stat stat) throws KeeperException {
+        try {
+            long offset = offsets[index];
+            int dataLength = Math.max(0, mapped.readInt(offset));
+            long statOffset = offset + 4 + dataLength + 8;
+            stat.setCzxid(mapped.readLong(statOffset));
+            stat.setMzxid(mapped.readLong(statOffset + 8));
+            stat.setCtime(mapped.readLong(statOffset + 16));
+            stat.setMtime(mapped.readLong(statOffset + 24));
+            stat.setVersion(mapped.readInt(statOffset + 32));
+            stat.setCversion(mapped.readInt(statOffset + 36));
+            stat.setAversion(mapped.readInt(statOffset + 40));
+            stat.setEphemeralOwner(mapped.readLong(statOffset + 44));
+            stat.setPzxid(mapped.readLong(statOffset + 52));
+            stat.setDataLength(dataLength);
+            stat.setNumChildren(childCount[index]);
+        } catch (IOException e) {
+            throw readFailure(e);
+        }
+    }
+
+    private KeeperException readFailure(IOException e) {
+        logger.error("读取快照失败: {}", file, e);
+        return KeeperException.create(KeeperException.Code.MARSHALLINGERROR);
+    }
+
+    @Override
+    protected List<String> readChildren(String path) throws KeeperException {
+        int index = require(path);
+        List<String> children = new ArrayList<>(childCount[index]);
+        for (int c = firstChild[index]; c >= 0; c = nextSibling[c]) {
+            children.add(names[c]);
+        }
+        return children;
+    }
+
+    @Override
+    protected Stat readStat(String path) throws KeeperException {
+        if (closed) {
+            throw new KeeperException.ConnectionLossException();
+        }
+        int index = lookup(path);
+        if (index < 0) {
+            return null;
+        }
+        Stat stat = new Stat();
+        fillStat(index, stat);
+        return stat;
+    }
+
+    @Override
+    protected byte[] readData(String path, Stat stat) throws KeeperException {
+        int index = require(path);
+        if (stat != null) {
+            fillStat(index, stat);
+        }
+        try {
+            return mapped.readBuffer(offsets[index]);
+        } catch (IOException e) {
+            throw readFailure(e);
+        }
+    }
+
+    @Override
+    protected List<ACL> readAcl(String path, Stat stat) throws KeeperException {
+        int index = require(path);
+        if (stat != null) {
+            fillStat(index, stat);
+        }
+        long aclKey;
+        try {
+            long offset = offsets[index];
+            aclKey = mapped.readLong(offset + mapped.bufferSize(offset));
+        } catch (IOException e) {
+            throw readFailure(e);
+        }
+        if (aclKey == OPEN_UNSAFE_ACL_ID) {
+            return ZooDefs.Ids.OPEN_ACL_UNSAFE;
+        }
+        List<ACL> acl = aclCache.get(aclKey);
+        return acl != null ? acl : Collections.<ACL>emptyList();
+    }
+
+    @Override
+    protected int countDescendants(String path) throws KeeperException {
+        return subtreeSize[require(path)] - 1;
+    }
+
+    @Override
+    public String getDescription() {
+        return "快照 " + file.getName() + (zxid >= 0 ? " (zxid 0x" + Long.toHexString(zxid) + ")" : "");
+    }
+
+    @Override
+    public boolean isConnected() {
+        return !closed;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return 快照对应的最后一个事务zxid，从文件名解析，无法解析时返回-1
+     */
+    public long getZxid() {
+        return zxid;
+    }
+
+    public long getDbid() {
+        return dbid;
+    }
+
+    public int getSessionCount() {
+        return sessionCount;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * @return 已扫描的字节数，用于显示索引进度
+     */
+    public long getIndexedBytes() {
+        return indexedBytes;
+    }
+
+    /**
+     * @return 映射的文件大小，压缩的快照为解压后的大小
+     */
+    public long getMappedLength() {
+        return mapped != null ? mapped.length() : 0;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (mapped != null) {
+            mapped.close();
+        }
+        if (mappedFile != null && mappedFile != file) {
+            mappedFile.delete();
+        }
+    }
+}
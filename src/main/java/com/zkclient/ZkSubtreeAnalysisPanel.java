@@ -0,0 +1,219 @@
+package com.zkclient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableRowSorter;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 子树分析面板，在后台执行ZkSubtreeAnalyzer并定时刷新统计结果
+ */
+public class ZkSubtreeAnalysisPanel extends JPanel {
+    private static final Logger logger = LoggerFactory.getLogger(ZkSubtreeAnalysisPanel.class);
+
+    // 扫描过程中刷新结果的间隔（毫秒）
+    private static final int REFRESH_INTERVAL = 500;
+
+    private static final String[] COLUMN_NAMES = {
+        "子树", "节点数", "数据总量(字节)", "最大深度", "预估节点数", "状态"
+    };
+
+    private final ZkClient zkClient;
+    private final ExecutorService executorService;
+
+    private final StatsTableModel tableModel = new StatsTableModel();
+    private JLabel rootLabel;
+    private JLabel summaryLabel;
+    private JButton stopButton;
+    private Timer refreshTimer;
+
+    private volatile ZkSubtreeAnalyzer analyzer;
+
+    public ZkSubtreeAnalysisPanel(ZkClient zkClient, ExecutorService executorService) {
+        super(new BorderLayout());
+        this.zkClient = zkClient;
+        this.executorService = executorService;
+
+        initComponents();
+    }
+
+    private void initComponents() {
+        rootLabel = new JLabel("分析起点: -");
+        summaryLabel = new JLabel("");
+        stopButton = new JButton("停止");
+        stopButton.setEnabled(false);
+
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        topPanel.add(rootLabel);
+        topPanel.add(stopButton);
+        topPanel.add(summaryLabel);
+        add(topPanel, BorderLayout.NORTH);
+
+        JTable table = new JTable(tableModel);
+        table.setFillsViewportHeight(true);
+        table.setRowSorter(new TableRowSorter<>(tableModel));
+        table.getColumnModel().getColumn(0).setPreferredWidth(250);
+        add(new JScrollPane(table), BorderLayout.CENTER);
+
+        stopButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                ZkSubtreeAnalyzer current = analyzer;
+                if (current != null) {
+                    current.cancel();
+                }
+            }
+        });
+
+        refreshTimer = new Timer(REFRESH_INTERVAL, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                refreshResults();
+            }
+        });
+    }
+
+    /**
+     * 开始分析指定子树，已有分析任务会被取消，必须在EDT上调用
+     * @param path 分析起点
+     */
+    public void startAnalysis(final String path) {
+        ZkSubtreeAnalyzer previous = analyzer;
+        if (previous != null) {
+            previous.cancel();
+        }
+        if (!zkClient.isConnected()) {
+            summaryLabel.setText("未连接");
+            return;
+        }
+
+        final ZkSubtreeAnalyzer current = new ZkSubtreeAnalyzer(zkClient, path);
+        analyzer = current;
+        rootLabel.setText("分析起点: " + path);
+        summaryLabel.setText("正在扫描...");
+        stopButton.setEnabled(true);
+        tableModel.setRows(Collections.<ZkSubtreeAnalyzer.SubtreeStats>emptyList());
+        refreshTimer.start();
+
+        executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                final long start = System.currentTimeMillis();
+                String error = null;
+                try {
+                    current.run();
+                } catch (Exception e) {
+                    logger.error("子树分析失败: {}", path, e);
+                    error = e.getMessage();
+                }
+                final String finalError = error;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (analyzer != current) {
+                            return;
+                        }
+                        refreshTimer.stop();
+                        stopButton.setEnabled(false);
+                        refreshResults();
+                        long elapsed = System.currentTimeMillis() - start;
+                        if (finalError != null) {
+                            summaryLabel.setText("分析失败: " + finalError);
+                        } else if (current.isCancelled()) {
+                            summaryLabel.setText(summaryLabel.getText() + " (已停止)");
+                        } else {
+                            summaryLabel.setText(summaryLabel.getText() + "，耗时 " + elapsed + " ms");
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void refreshResults() {
+        ZkSubtreeAnalyzer current = analyzer;
+        if (current == null) {
+            return;
+        }
+        tableModel.setRows(current.snapshot());
+        summaryLabel.setText("已扫描 " + current.getTotalNodes() + " 个节点，" + tableModel.getRowCount() + " 个子树");
+    }
+
+    /**
+     * 子树统计表格模型
+     */
+    private static class StatsTableModel extends AbstractTableModel {
+        private List<ZkSubtreeAnalyzer.SubtreeStats> rows = Collections.emptyList();
+
+        void setRows(List<ZkSubtreeAnalyzer.SubtreeStats> rows) {
+            if (rows.size() == this.rows.size()) {
+                // 分组数量不变时只更新数值，保留排序和选中状态
+                this.rows = rows;
+                if (!rows.isEmpty()) {
+                    fireTableRowsUpdated(0, rows.size() - 1);
+                }
+            } else {
+                this.rows = rows;
+                fireTableDataChanged();
+            }
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMN_NAMES[column];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int columnIndex) {
+            switch (columnIndex) {
+                case 1:
+                case 2:
+                    return Long.class;
+                case 3:
+                case 4:
+                    return Integer.class;
+                default:
+                    return String.class;
+            }
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            ZkSubtreeAnalyzer.SubtreeStats stats = rows.get(rowIndex);
+            switch (columnIndex) {
+                case 0:
+                    return stats.getPath();
+                case 1:
+                    return stats.getNodeCount();
+                case 2:
+                    return stats.getDataBytes();
+                case 3:
+                    return stats.getMaxDepth();
+                case 4:
+                    return stats.getEstimatedCount();
+                case 5:
+                    return stats.isFinished() ? "完成" : (stats.getNodeCount() > 0 ? "扫描中" : "等待");
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.zkclient;
+
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.Stat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 子树大小分析（类似du），按遍历起点的直接子节点分组统计节点数、数据总量和最大深度
+ * 统计结果只按分组保存，内存占用与子树的节点总数无关
+ */
+public class ZkSubtreeAnalyzer {
+    // 遍历时的最大在途请求数
+    private static final int PIPELINE_WINDOW = 500;
+
+    /**
+     * 单个分组（起点的一个直接子节点及其所有后代）的统计信息
+     * 统计字段只由遍历线程写入，界面线程通过volatile读取中间结果
+     */
+    public static class SubtreeStats {
+        private final String path;
+        private volatile long nodeCount;
+        private volatile long dataBytes;
+        private volatile int maxDepth;
+        private volatile int estimatedCount = -1;
+        private volatile boolean finished;
+
+        SubtreeStats(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public long getNodeCount() {
+            return nodeCount;
+        }
+
+        public long getDataBytes() {
+            return dataBytes;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        /**
+         * @return getAllChildrenNumber得到的节点数（含自身），不可用时为-1
+         */
+        public int getEstimatedCount() {
+            return estimatedCount;
+        }
+
+        public boolean isFinished() {
+            return finished;
+        }
+    }
+
+    private final ZkClient zkClient;
+    private final String rootPath;
+    private final ZkTreeWalker walker;
+    private final Map<String, SubtreeStats> buckets = new ConcurrentHashMap<>();
+    private volatile long rootDataBytes;
+    private volatile long totalNodes;
+
+    public ZkSubtreeAnalyzer(ZkClient zkClient, String rootPath) {
+        this.zkClient = zkClient;
+        this.rootPath = rootPath;
+        this.walker = new ZkTreeWalker(zkClient, PIPELINE_WINDOW);
+    }
+
+    public String getRootPath() {
+        return rootPath;
+    }
+
+    /**
+     * @return 已扫描的节点总数（含起点）
+     */
+    public long getTotalNodes() {
+        return totalNodes;
+    }
+
+    /**
+     * @return 起点自身的数据长度
+     */
+    public long getRootDataBytes() {
+        return rootDataBytes;
+    }
+
+    /**
+     * @return 当前所有分组的统计信息，按路径排序以保持表格行顺序稳定
+     */
+    public List<SubtreeStats> snapshot() {
+        List<SubtreeStats> result = new ArrayList<>(buckets.values());
+        Collections.sort(result, new Comparator<SubtreeStats>() {
+            @Override
+            public int compare(SubtreeStats a, SubtreeStats b) {
+                return a.path.compareTo(b.path);
+            }
+        });
+        return result;
+    }
+
+    public void cancel() {
+        walker.cancel();
+    }
+
+    public boolean isCancelled() {
+        return walker.isCancelled();
+    }
+
+    /**
+     * 执行分析，阻塞直到完成或被取消
+     */
+    public void run() throws KeeperException, InterruptedException {
+        final String prefix = rootPath.equals("/") ? "/" : rootPath + "/";
+        walker.walk(rootPath, new ZkTreeWalker.Visitor() {
+            @Override
+            public boolean visit(ZkTreeWalker.Node node) {
+                int depth = node.getDepth();
+                Stat stat = node.getStat();
+                totalNodes++;
+                if (depth == 0) {
+                    rootDataBytes = stat.getDataLength();
+                    requestEstimates(prefix, node.getChildren());
+                    return true;
+                }
+                // 流水线中兄弟节点的子树交错返回，按路径中起点下的第一段确定分组
+                String path = node.getPath();
+                int end = path.indexOf('/', prefix.length());
+                SubtreeStats stats = bucketFor(end < 0 ? path : path.substring(0, end));
+                stats.nodeCount++;
+                stats.dataBytes += stat.getDataLength();
+                if (depth - 1 > stats.maxDepth) {
+                    stats.maxDepth = depth - 1;
+                }
+                return true;
+            }
+        });
+        // 分组的节点在整个遍历期间都可能到达，遍历结束后才算完成
+        if (!walker.isCancelled()) {
+            for (SubtreeStats stats : buckets.values()) {
+                stats.finished = true;
+            }
+        }
+    }
+
+    private SubtreeStats bucketFor(String path) {
+        SubtreeStats stats = buckets.get(path);
+        if (stats == null) {
+            stats = new SubtreeStats(path);
+            SubtreeStats existing = buckets.putIfAbsent(path, stats);
+            if (existing != null) {
+                stats = existing;
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * 对所有分组发起getAllChildrenNumber请求，先给出节点数的快速估计
+     * 服务端不支持时回调失败，保留-1即可
+     */
+    private void requestEstimates(String prefix, List<String> children) {
+        if (children == null) {
+            return;
+        }
+        final ZkRequestWindow window = new ZkRequestWindow(PIPELINE_WINDOW);
+        AsyncCallback.AllChildrenNumberCallback callback = new AsyncCallback.AllChildrenNumberCallback() {
+            @Override
+            public void processResult(int rc, String path, Object ctx, int number) {
+                if (rc == KeeperException.Code.OK.intValue()) {
+                    ((SubtreeStats) ctx).estimatedCount = number + 1;
+                }
+                window.release();
+            }
+        };
+        try {
+            for (String child : children) {
+                if (walker.isCancelled()) {
+                    return;
+                }
+                window.acquire();
+                zkClient.getAllChildrenNumberAsync(prefix + child, callback, bucketFor(prefix + child));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
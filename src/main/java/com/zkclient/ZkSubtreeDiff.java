@@ -0,0 +1,282 @@
+package com.zkclient;
+
+import org.apache.zookeeper.KeeperException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 比较两个ZooKeeper集群（或同一集群的两个位置）上的子树
+ * 两侧并行遍历并计算Merkle摘要树，比较时从起点向下只深入子树摘要不同的分支，
+ * 节点数据只在摘要中保留哈希值，展示数据差异时再按需读取。
+ * ZooKeeper服务端不提供子树摘要，每一侧仍需完整读取一次，
+ * 但读取是流水线化的，且两侧同时进行，节点数据不会常驻内存。
+ */
+public class ZkSubtreeDiff {
+    private static final Logger logger = LoggerFactory.getLogger(ZkSubtreeDiff.class);
+
+    // 每一侧遍历时的最大在途节点数
+    private static final int PIPELINE_WINDOW = 200;
+
+    /**
+     * 差异类型
+     */
+    public enum ChangeType {
+        ADDED("仅右侧存在"),
+        REMOVED("仅左侧存在"),
+        CHANGED("数据不同");
+
+        private final String label;
+
+        ChangeType(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    /**
+     * 一条差异，新增或删除的子树只记录其起点
+     */
+    public static class Difference {
+        private final String relativePath;
+        private final ChangeType type;
+        private final boolean hasChildren;
+
+        Difference(String relativePath, ChangeType type, boolean hasChildren) {
+            this.relativePath = relativePath;
+            this.type = type;
+            this.hasChildren = hasChildren;
+        }
+
+        /**
+         * @return 相对比较起点的路径，起点自身为空字符串
+         */
+        public String getRelativePath() {
+            return relativePath;
+        }
+
+        public ChangeType getType() {
+            return type;
+        }
+
+        /**
+         * @return 新增或删除的节点是否带有子节点
+         */
+        public boolean hasChildren() {
+            return hasChildren;
+        }
+    }
+
+    private final ZkClient leftClient;
+    private final String leftRoot;
+    private final ZkClient rightClient;
+    private final String rightRoot;
+    private final ZkTreeWalker leftWalker;
+    private final ZkTreeWalker rightWalker;
+
+    private ZkMerkleDigest leftDigest;
+    private ZkMerkleDigest rightDigest;
+
+    /**
+     * @param leftClient 左侧客户端
+     * @param leftRoot 左侧子树起点
+     * @param rightClient 右侧客户端
+     * @param rightRoot 右侧子树起点
+     */
+    public ZkSubtreeDiff(ZkClient leftClient, String leftRoot, ZkClient rightClient, String rightRoot) {
+        this.leftClient = leftClient;
+        this.leftRoot = leftRoot;
+        this.rightClient = rightClient;
+        this.rightRoot = rightRoot;
+        this.leftWalker = new ZkTreeWalker(leftClient, PIPELINE_WINDOW);
+        this.rightWalker = new ZkTreeWalker(rightClient, PIPELINE_WINDOW);
+    }
+
+    public ZkClient getLeftClient() {
+        return leftClient;
+    }
+
+    public ZkClient getRightClient() {
+        return rightClient;
+    }
+
+    /**
+     * @return 左侧已读取的节点数
+     */
+    public long getLeftScannedCount() {
+        return leftWalker.getVisitedCount();
+    }
+
+    /**
+     * @return 右侧已读取的节点数
+     */
+    public long getRightScannedCount() {
+        return rightWalker.getVisitedCount();
+    }
+
+    public void cancel() {
+        leftWalker.cancel();
+        rightWalker.cancel();
+    }
+
+    public boolean isCancelled() {
+        return leftWalker.isCancelled() || rightWalker.isCancelled();
+    }
+
+    /**
+     * 并行计算两侧的摘要树并比较，阻塞直到完成
+     * @return 按路径排序的差异列表，取消时返回空列表
+     */
+    public List<Difference> run() throws KeeperException, InterruptedException {
+        long startTime = System.currentTimeMillis();
+        ExecutorService rightExecutor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ZkMerkleDigest> rightFuture = rightExecutor.submit(new Callable<ZkMerkleDigest>() {
+                @Override
+                public ZkMerkleDigest call() throws Exception {
+                    return ZkMerkleDigest.compute(rightClient, rightRoot, rightWalker);
+                }
+            });
+            try {
+                leftDigest = ZkMerkleDigest.compute(leftClient, leftRoot, leftWalker);
+            } catch (KeeperException | RuntimeException e) {
+                rightWalker.cancel();
+                throw e;
+            }
+            rightDigest = awaitRight(rightFuture);
+        } finally {
+            rightExecutor.shutdownNow();
+        }
+
+        if (isCancelled()) {
+            logger.info("子树比较已取消");
+            return Collections.emptyList();
+        }
+        List<Difference> differences = compare(leftDigest, rightDigest);
+        logger.info("子树比较完成: {} ({} 个节点) vs {} ({} 个节点)，{} 处差异，耗时 {} ms",
+                leftRoot, leftDigest.getNodeCount(), rightRoot, rightDigest.getNodeCount(),
+                differences.size(), System.currentTimeMillis() - startTime);
+        return differences;
+    }
+
+    private ZkMerkleDigest awaitRight(Future<ZkMerkleDigest> future) throws KeeperException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof KeeperException) {
+                throw (KeeperException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * @return 差异在左侧的完整路径
+     */
+    public String getLeftPath(Difference difference) {
+        return leftDigest.toFullPath(difference.getRelativePath());
+    }
+
+    /**
+     * @return 差异在右侧的完整路径
+     */
+    public String getRightPath(Difference difference) {
+        return rightDigest.toFullPath(difference.getRelativePath());
+    }
+
+    /**
+     * 比较两棵摘要树，只深入子树摘要不同的分支
+     * @return 按路径排序的差异列表
+     */
+    public static List<Difference> compare(ZkMerkleDigest left, ZkMerkleDigest right) {
+        List<Difference> differences = new ArrayList<>();
+        Deque<String> stack = new ArrayDeque<>();
+        stack.push("");
+        while (!stack.isEmpty()) {
+            String path = stack.pop();
+            ZkMerkleDigest.NodeDigest l = left.get(path);
+            ZkMerkleDigest.NodeDigest r = right.get(path);
+            if (l == null || r == null) {
+                // 节点在遍历期间被删除，子节点列表中有名称但没有摘要
+                if (l != null || r != null) {
+                    ZkMerkleDigest.NodeDigest present = l != null ? l : r;
+                    differences.add(new Difference(path, l != null ? ChangeType.REMOVED : ChangeType.ADDED,
+                            !present.getChildren().isEmpty()));
+                }
+                continue;
+            }
+            if (Arrays.equals(l.getSubtreeDigest(), r.getSubtreeDigest())) {
+                continue;
+            }
+            if (!Arrays.equals(l.getDataDigest(), r.getDataDigest())) {
+                differences.add(new Difference(path, ChangeType.CHANGED, false));
+            }
+
+            // 两侧子节点名称都已排序，归并找出新增、删除和需要继续比较的子节点
+            List<String> leftChildren = l.getChildren();
+            List<String> rightChildren = r.getChildren();
+            List<String> common = new ArrayList<>();
+            int i = 0;
+            int j = 0;
+            while (i < leftChildren.size() || j < rightChildren.size()) {
+                int cmp;
+                if (i == leftChildren.size()) {
+                    cmp = 1;
+                } else if (j == rightChildren.size()) {
+                    cmp = -1;
+                } else {
+                    cmp = leftChildren.get(i).compareTo(rightChildren.get(j));
+                }
+                if (cmp < 0) {
+                    String child = path + "/" + leftChildren.get(i++);
+                    ZkMerkleDigest.NodeDigest removed = left.get(child);
+                    differences.add(new Difference(child, ChangeType.REMOVED,
+                            removed != null && !removed.getChildren().isEmpty()));
+                } else if (cmp > 0) {
+                    String child = path + "/" + rightChildren.get(j++);
+                    ZkMerkleDigest.NodeDigest added = right.get(child);
+                    differences.add(new Difference(child, ChangeType.ADDED,
+                            added != null && !added.getChildren().isEmpty()));
+                } else {
+                    common.add(path + "/" + leftChildren.get(i));
+                    i++;
+                    j++;
+                }
+            }
+            // 逆序入栈，保证结果按路径顺序输出
+            for (int k = common.size() - 1; k >= 0; k--) {
+                stack.push(common.get(k));
+            }
+        }
+        Collections.sort(differences, new Comparator<Difference>() {
+            @Override
+            public int compare(Difference a, Difference b) {
+                return a.getRelativePath().compareTo(b.getRelativePath());
+            }
+        });
+        return differences;
+    }
+}
@@ -0,0 +1,435 @@
+package com.zkclient;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Highlighter;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 子树比较对话框，选择两个已连接的标签页和各自的子树起点，列出差异并并排显示数据
+ */
+public class ZkSubtreeDiffDialog extends JDialog {
+    private static final Logger logger = LoggerFactory.getLogger(ZkSubtreeDiffDialog.class);
+
+    // 比较过程中刷新进度的间隔（毫秒）
+    private static final int PROGRESS_INTERVAL = 500;
+    // 逐行比较数据的最大行数乘积，超过后只并排显示不标记差异行
+    private static final long MAX_LINE_DIFF_CELLS = 4_000_000L;
+
+    private static final Color REMOVED_LINE_COLOR = new Color(255, 210, 210);
+    private static final Color ADDED_LINE_COLOR = new Color(210, 255, 210);
+
+    private final ExecutorService executorService = Executors.newFixedThreadPool(2);
+
+    private JComboBox<TabItem> leftCombo;
+    private JComboBox<TabItem> rightCombo;
+    private JTextField leftPathField;
+    private JTextField rightPathField;
+    private JButton compareButton;
+    private JButton stopButton;
+    private JLabel statusLabel;
+    private JTable diffTable;
+    private final DiffTableModel tableModel = new DiffTableModel();
+    private JTextArea leftDataArea;
+    private JTextArea rightDataArea;
+    private Timer progressTimer;
+
+    private volatile ZkSubtreeDiff diff;
+    // 数据加载的序号，用于丢弃过期的结果
+    private int dataGeneration = 0;
+
+    /**
+     * 下拉框中的标签页
+     */
+    private static class TabItem {
+        private final ZkConnectionTab tab;
+
+        TabItem(ZkConnectionTab tab) {
+            this.tab = tab;
+        }
+
+        @Override
+        public String toString() {
+            return tab.getConnectionName();
+        }
+    }
+
+    /**
+     * @param owner 主窗口
+     * @param tabs 已连接的标签页
+     * @param current 当前标签页，作为左侧的默认选择
+     */
+    public ZkSubtreeDiffDialog(Frame owner, List<ZkConnectionTab> tabs, ZkConnectionTab current) {
+        super(owner, "比较子树", false);
+        initComponents(tabs, current);
+        setSize(1000, 700);
+        setLocationRelativeTo(owner);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                ZkSubtreeDiff current = diff;
+                if (current != null) {
+                    current.cancel();
+                }
+                progressTimer.stop();
+                executorService.shutdownNow();
+            }
+        });
+    }
+
+    private void initComponents(List<ZkConnectionTab> tabs, ZkConnectionTab current) {
+        leftCombo = new JComboBox<>();
+        rightCombo = new JComboBox<>();
+        for (ZkConnectionTab tab : tabs) {
+            leftCombo.addItem(new TabItem(tab));
+            rightCombo.addItem(new TabItem(tab));
+        }
+        int leftIndex = Math.max(0, tabs.indexOf(current));
+        leftCombo.setSelectedIndex(leftIndex);
+        rightCombo.setSelectedIndex(tabs.size() > 1 ? (leftIndex == 0 ? 1 : 0) : 0);
+        String defaultPath = current != null ? current.getSelectedPath() : "/";
+        leftPathField = new JTextField(defaultPath, 25);
+        rightPathField = new JTextField(defaultPath, 25);
+        compareButton = new JButton("开始比较");
+        stopButton = new JButton("停止");
+        stopButton.setEnabled(false);
+        statusLabel = new JLabel(" ");
+
+        JPanel selectPanel = new JPanel(new GridBagLayout());
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(2, 4, 2, 4);
+        gbc.anchor = GridBagConstraints.WEST;
+        addSideRow(selectPanel, gbc, 0, "左侧:", leftCombo, leftPathField);
+        addSideRow(selectPanel, gbc, 1, "右侧:", rightCombo, rightPathField);
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        buttonPanel.add(compareButton);
+        buttonPanel.add(stopButton);
+        buttonPanel.add(statusLabel);
+
+        JPanel topPanel = new JPanel(new BorderLayout());
+        topPanel.add(selectPanel, BorderLayout.NORTH);
+        topPanel.add(buttonPanel, BorderLayout.SOUTH);
+
+        diffTable = new JTable(tableModel);
+        diffTable.setFillsViewportHeight(true);
+        diffTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        diffTable.getColumnModel().getColumn(0).setPreferredWidth(100);
+        diffTable.getColumnModel().getColumn(1).setPreferredWidth(700);
+
+        leftDataArea = createDataArea();
+        rightDataArea = createDataArea();
+        JScrollPane leftScroll = new JScrollPane(leftDataArea);
+        leftScroll.setBorder(BorderFactory.createTitledBorder("左侧数据"));
+        JScrollPane rightScroll = new JScrollPane(rightDataArea);
+        rightScroll.setBorder(BorderFactory.createTitledBorder("右侧数据"));
+        JSplitPane dataSplit = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, leftScroll, rightScroll);
+        dataSplit.setResizeWeight(0.5);
+
+        JSplitPane mainSplit = new JSplitPane(JSplitPane.VERTICAL_SPLIT, new JScrollPane(diffTable), dataSplit);
+        mainSplit.setResizeWeight(0.5);
+
+        getContentPane().setLayout(new BorderLayout());
+        getContentPane().add(topPanel, BorderLayout.NORTH);
+        getContentPane().add(mainSplit, BorderLayout.CENTER);
+
+        compareButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                startCompare();
+            }
+        });
+        stopButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                ZkSubtreeDiff current = diff;
+                if (current != null) {
+                    current.cancel();
+                }
+            }
+        });
+        diffTable.getSelectionModel().addListSelectionListener(new ListSelectionListener() {
+            @Override
+            public void valueChanged(ListSelectionEvent e) {
+                if (!e.getValueIsAdjusting()) {
+                    showSelectedDifference();
+                }
+            }
+        });
+        progressTimer = new Timer(PROGRESS_INTERVAL, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                ZkSubtreeDiff current = diff;
+                if (current != null) {
+                    statusLabel.setText("正在读取：左侧 " + current.getLeftScannedCount()
+                            + " 个节点，右侧 " + current.getRightScannedCount() + " 个节点");
+                }
+            }
+        });
+    }
+
+    private void addSideRow(JPanel panel, GridBagConstraints gbc, int row, String label,
+                            JComboBox<TabItem> combo, JTextField pathField) {
+        gbc.gridy = row;
+        gbc.gridx = 0;
+        gbc.fill = GridBagConstraints.NONE;
+        gbc.weightx = 0;
+        panel.add(new JLabel(label), gbc);
+        gbc.gridx = 1;
+        panel.add(combo, gbc);
+        gbc.gridx = 2;
+        panel.add(new JLabel("路径:"), gbc);
+        gbc.gridx = 3;
+        gbc.fill = GridBagConstraints.HORIZONTAL;
+        gbc.weightx = 1;
+        panel.add(pathField, gbc);
+    }
+
+    private JTextArea createDataArea() {
+        JTextArea area = new JTextArea();
+        area.setEditable(false);
+        area.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        return area;
+    }
+
+    private void startCompare() {
+        TabItem left = (TabItem) leftCombo.getSelectedItem();
+        TabItem right = (TabItem) rightCombo.getSelectedItem();
+        final String leftPath = leftPathField.getText().trim();
+        final String rightPath = rightPathField.getText().trim();
+        if (left == null || right == null || !leftPath.startsWith("/") || !rightPath.startsWith("/")) {
+            JOptionPane.showMessageDialog(this, "请选择两侧的连接并填写以/开头的路径", "提示", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (!left.tab.getZkClient().isConnected() || !right.tab.getZkClient().isConnected()) {
+            JOptionPane.showMessageDialog(this, "两侧的连接都必须已连接", "提示", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+
+        final ZkSubtreeDiff newDiff = new ZkSubtreeDiff(left.tab.getZkClient(), leftPath,
+                right.tab.getZkClient(), rightPath);
+        diff = newDiff;
+        tableModel.setDifferences(Collections.<ZkSubtreeDiff.Difference>emptyList());
+        clearDataAreas();
+        compareButton.setEnabled(false);
+        stopButton.setEnabled(true);
+        progressTimer.start();
+
+        executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                List<ZkSubtreeDiff.Difference> differences = Collections.emptyList();
+                String result;
+                try {
+                    differences = newDiff.run();
+                    result = newDiff.isCancelled() ? "比较已取消" : summarize(differences);
+                } catch (Exception e) {
+                    logger.error("比较子树失败: {} vs {}", leftPath, rightPath, e);
+                    result = "比较失败: " + e.getMessage();
+                }
+                final List<ZkSubtreeDiff.Difference> finalDifferences = differences;
+                final String finalResult = result;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        progressTimer.stop();
+                        compareButton.setEnabled(true);
+                        stopButton.setEnabled(false);
+                        tableModel.setDifferences(finalDifferences);
+                        statusLabel.setText(finalResult);
+                    }
+                });
+            }
+        });
+    }
+
+    private String summarize(List<ZkSubtreeDiff.Difference> differences) {
+        if (differences.isEmpty()) {
+            return "两侧子树完全相同";
+        }
+        int added = 0;
+        int removed = 0;
+        int changed = 0;
+        for (ZkSubtreeDiff.Difference difference : differences) {
+            switch (difference.getType()) {
+                case ADDED:
+                    added++;
+                    break;
+                case REMOVED:
+                    removed++;
+                    break;
+                default:
+                    changed++;
+                    break;
+            }
+        }
+        return "仅左侧存在 " + removed + "，仅右侧存在 " + added + "，数据不同 " + changed;
+    }
+
+    private void clearDataAreas() {
+        dataGeneration++;
+        leftDataArea.setText("");
+        rightDataArea.setText("");
+    }
+
+    /**
+     * 在后台读取选中差异两侧的数据，读取完成后并排显示并标记不同的行
+     */
+    private void showSelectedDifference() {
+        clearDataAreas();
+        int row = diffTable.getSelectedRow();
+        final ZkSubtreeDiff current = diff;
+        if (row < 0 || current == null) {
+            return;
+        }
+        final ZkSubtreeDiff.Difference difference = tableModel.getDifference(diffTable.convertRowIndexToModel(row));
+        final int generation = dataGeneration;
+        executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                final String leftText = difference.getType() == ZkSubtreeDiff.ChangeType.ADDED
+                        ? null : readData(current.getLeftClient(), current.getLeftPath(difference));
+                final String rightText = difference.getType() == ZkSubtreeDiff.ChangeType.REMOVED
+                        ? null : readData(current.getRightClient(), current.getRightPath(difference));
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != dataGeneration) {
+                            return;
+                        }
+                        showData(leftText, rightText);
+                    }
+                });
+            }
+        });
+    }
+
+    private String readData(ZkClient zkClient, String path) {
+        try {
+            byte[] data = zkClient.getData(path, null);
+            return data == null ? "" : new String(data, StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            return "读取数据失败: " + e.getMessage();
+        }
+    }
+
+    private void showData(String leftText, String rightText) {
+        leftDataArea.setText(leftText == null ? "(节点不存在)" : leftText);
+        rightDataArea.setText(rightText == null ? "(节点不存在)" : rightText);
+        leftDataArea.setCaretPosition(0);
+        rightDataArea.setCaretPosition(0);
+        if (leftText == null || rightText == null) {
+            return;
+        }
+
+        String[] leftLines = leftText.split("\n", -1);
+        String[] rightLines = rightText.split("\n", -1);
+        if ((long) leftLines.length * rightLines.length > MAX_LINE_DIFF_CELLS) {
+            return;
+        }
+        boolean[] leftCommon = new boolean[leftLines.length];
+        boolean[] rightCommon = new boolean[rightLines.length];
+        markCommonLines(leftLines, rightLines, leftCommon, rightCommon);
+        highlightLines(leftDataArea, leftCommon, REMOVED_LINE_COLOR);
+        highlightLines(rightDataArea, rightCommon, ADDED_LINE_COLOR);
+    }
+
+    /**
+     * 用最长公共子序列标记两侧相同的行
+     */
+    private static void markCommonLines(String[] a, String[] b, boolean[] aCommon, boolean[] bCommon) {
+        int[][] lcs = new int[a.length + 1][b.length + 1];
+        for (int i = a.length - 1; i >= 0; i--) {
+            for (int j = b.length - 1; j >= 0; j--) {
+                lcs[i][j] = a[i].equals(b[j]) ? lcs[i + 1][j + 1] + 1 : Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+            }
+        }
+        int i = 0;
+        int j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i].equals(b[j])) {
+                aCommon[i++] = true;
+                bCommon[j++] = true;
+            } else if (lcs[i + 1][j] >= lcs[i][j + 1]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+    }
+
+    private static void highlightLines(JTextArea area, boolean[] common, Color color) {
+        Highlighter.HighlightPainter painter = new DefaultHighlighter.DefaultHighlightPainter(color);
+        Highlighter highlighter = area.getHighlighter();
+        highlighter.removeAllHighlights();
+        try {
+            for (int line = 0; line < common.length && line < area.getLineCount(); line++) {
+                if (!common[line]) {
+                    highlighter.addHighlight(area.getLineStartOffset(line), area.getLineEndOffset(line), painter);
+                }
+            }
+        } catch (BadLocationException e) {
+            logger.warn("标记差异行失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 差异列表的表格模型
+     */
+    private static class DiffTableModel extends AbstractTableModel {
+        private static final String[] COLUMN_NAMES = {"差异", "相对路径"};
+
+        private List<ZkSubtreeDiff.Difference> differences = new ArrayList<>();
+
+        void setDifferences(List<ZkSubtreeDiff.Difference> differences) {
+            this.differences = differences;
+            fireTableDataChanged();
+        }
+
+        ZkSubtreeDiff.Difference getDifference(int row) {
+            return differences.get(row);
+        }
+
+        @Override
+        public int getRowCount() {
+            return differences.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMN_NAMES[column];
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            ZkSubtreeDiff.Difference difference = differences.get(rowIndex);
+            if (columnIndex == 0) {
+                return difference.getType().toString();
+            }
+            String path = difference.getRelativePath().isEmpty() ? "(起点)" : difference.getRelativePath();
+            return difference.hasChildren() ? path + " (含子节点)" : path;
+        }
+    }
+}
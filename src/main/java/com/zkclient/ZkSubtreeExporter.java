@@ -0,0 +1,92 @@
+package com.zkclient;
+
+import org.apache.zookeeper.KeeperException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * 子树导出器，遍历子树的同时把每个节点的路径、Stat、数据和ACL流式写入导出文件
+ * 在途节点数固定，节点读取完成即写出，内存占用与子树大小无关
+ */
+public class ZkSubtreeExporter {
+    private static final Logger logger = LoggerFactory.getLogger(ZkSubtreeExporter.class);
+
+    // 最大在途节点数，每个节点最多持有一份jute.maxbuffer大小的数据
+    private static final int PIPELINE_WINDOW = 100;
+
+    private final ZkClient zkClient;
+    private final String rootPath;
+    private final File file;
+    private final ZkTreeWalker walker;
+    private volatile long exportedCount = 0;
+    private volatile long exportedBytes = 0;
+
+    public ZkSubtreeExporter(ZkClient zkClient, String rootPath, File file) {
+        this.zkClient = zkClient;
+        this.rootPath = rootPath;
+        this.file = file;
+        this.walker = new ZkTreeWalker(zkClient, PIPELINE_WINDOW);
+        this.walker.setFetchData(true);
+        this.walker.setFetchAcl(true);
+    }
+
+    /**
+     * @return 已导出的节点数
+     */
+    public long getExportedCount() {
+        return exportedCount;
+    }
+
+    /**
+     * @return 已导出的节点数据总字节数（未压缩）
+     */
+    public long getExportedBytes() {
+        return exportedBytes;
+    }
+
+    public void cancel() {
+        walker.cancel();
+    }
+
+    public boolean isCancelled() {
+        return walker.isCancelled();
+    }
+
+    /**
+     * 执行导出，阻塞直到完成或被取消
+     */
+    public void run() throws IOException, KeeperException, InterruptedException {
+        logger.info("开始导出子树 {} 到 {}", rootPath, file);
+        long start = System.currentTimeMillis();
+        try (final ZkDumpWriter writer = new ZkDumpWriter(file, rootPath)) {
+            walker.walk(rootPath, new ZkTreeWalker.Visitor() {
+                @Override
+                public boolean visit(ZkTreeWalker.Node node) {
+                    try {
+                        writer.write(node.getPath(), node.getStat(), node.getData(), node.getAcl());
+                    } catch (IOException e) {
+                        walker.cancel();
+                        throw new UncheckedIOException(e);
+                    }
+                    exportedCount++;
+                    if (node.getData() != null) {
+                        exportedBytes += node.getData().length;
+                    }
+                    return true;
+                }
+            });
+            // 取消时不写结束记录，导入会拒绝不完整的文件
+            if (!walker.isCancelled()) {
+                writer.finish();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        logger.info("子树导出{}: {} 个节点，耗时 {} ms", walker.isCancelled() ? "已取消" : "完成",
+                exportedCount, System.currentTimeMillis() - start);
+    }
+}
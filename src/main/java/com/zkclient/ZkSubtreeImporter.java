@@ -0,0 +1,477 @@
+package com.zkclient;
+
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 子树导入器，流式读取导出文件并以multi批量创建节点
+ * 导出文件保证父节点在子节点之前，同一会话内的请求按发起顺序执行，
+ * 因此多个批次可以同时在途而不破坏父子顺序。
+ * 某个批次因节点已存在而整体失败时，退回为逐条处理，按冲突策略跳过、覆盖或失败。
+ * 增量文件中的删除记录会在之前的批次全部完成后递归删除对应子树，
+ * 因此先导入完整备份、再依次以覆盖策略导入增量文件即可还原到最新状态。
+ */
+public class ZkSubtreeImporter {
+    private static final Logger logger = LoggerFactory.getLogger(ZkSubtreeImporter.class);
+
+    // 每个multi批次的最大操作数
+    private static final int BATCH_MAX_OPS = 200;
+    // 每个multi批次的最大数据量，需要小于服务端jute.maxbuffer
+    private static final int BATCH_MAX_BYTES = 512 * 1024;
+    // 最大在途批次数
+    private static final int PIPELINE_WINDOW = 16;
+
+    /**
+     * 目标节点已存在时的处理策略
+     */
+    public enum ConflictPolicy {
+        OVERWRITE("覆盖"),
+        SKIP("跳过"),
+        FAIL("失败");
+
+        private final String displayName;
+
+        ConflictPolicy(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    /**
+     * 导入记录的来源，记录必须按父节点在前的顺序提供
+     */
+    public interface RecordSource extends Closeable {
+        /**
+         * @return 记录路径所在的子树起点
+         */
+        String getRootPath();
+
+        /**
+         * @return 下一条记录，没有更多记录时返回null
+         */
+        ZkDumpRecord next() throws IOException;
+    }
+
+    private final ZkClient zkClient;
+    private final File file;
+    private final RecordSource source;
+    private final String targetRoot;
+    private final ConflictPolicy policy;
+    private final ZkRequestWindow window = new ZkRequestWindow(PIPELINE_WINDOW);
+
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong updatedCount = new AtomicLong();
+    private final AtomicLong skippedCount = new AtomicLong();
+    private final AtomicLong conflictCount = new AtomicLong();
+    private final AtomicLong deletedCount = new AtomicLong();
+    private final AtomicReference<KeeperException> failure = new AtomicReference<>();
+    private volatile boolean cancelled = false;
+    private volatile long startTime;
+
+    /**
+     * @param zkClient ZooKeeper客户端
+     * @param file 导出文件
+     * @param targetRoot 导入位置，导出文件中的子树起点会被映射到该路径
+     * @param policy 冲突策略
+     */
+    public ZkSubtreeImporter(ZkClient zkClient, File file, String targetRoot, ConflictPolicy policy) {
+        this.zkClient = zkClient;
+        this.file = file;
+        this.source = null;
+        this.targetRoot = targetRoot;
+        this.policy = policy;
+    }
+
+    /**
+     * @param zkClient ZooKeeper客户端
+     * @param source 记录来源，导入结束后被关闭
+     * @param targetRoot 导入位置，记录中的子树起点会被映射到该路径
+     * @param policy 冲突策略
+     */
+    public ZkSubtreeImporter(ZkClient zkClient, RecordSource source, String targetRoot, ConflictPolicy policy) {
+        this.zkClient = zkClient;
+        this.file = null;
+        this.source = source;
+        this.targetRoot = targetRoot;
+        this.policy = policy;
+    }
+
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    public long getUpdatedCount() {
+        return updatedCount.get();
+    }
+
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    /**
+     * @return 按删除记录删除的子树数
+     */
+    public long getDeletedCount() {
+        return deletedCount.get();
+    }
+
+    /**
+     * @return 版本检查失败（导入期间被其他客户端修改）的节点数
+     */
+    public long getConflictCount() {
+        return conflictCount.get();
+    }
+
+    /**
+     * @return 已处理节点的速率（节点/秒）
+     */
+    public double getNodesPerSecond() {
+        long elapsed = System.currentTimeMillis() - startTime;
+        if (startTime == 0 || elapsed <= 0) {
+            return 0;
+        }
+        long processed = createdCount.get() + updatedCount.get() + skippedCount.get() + conflictCount.get();
+        return processed * 1000.0 / elapsed;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * 执行导入，阻塞直到完成、被取消或在FAIL策略下遇到冲突
+     */
+    public void run() throws IOException, KeeperException, InterruptedException {
+        startTime = System.currentTimeMillis();
+        try (RecordSource reader = source != null ? source : new ZkDumpReader(file)) {
+            String sourceRoot = reader.getRootPath();
+            logger.info("开始导入 {}（原路径 {}）到 {}，冲突策略: {}", file != null ? file : "记录流", sourceRoot,
+                    targetRoot, policy.name());
+
+            List<ZkDumpRecord> batch = new ArrayList<>();
+            int batchBytes = 0;
+            ZkDumpRecord record;
+            while (!cancelled && failure.get() == null && (record = reader.next()) != null) {
+                String path = mapPath(sourceRoot, record.getPath());
+                if (path == null) {
+                    logger.warn("跳过不在导出起点下的记录: {}", record.getPath());
+                    skippedCount.incrementAndGet();
+                    continue;
+                }
+                if (record.isDeleted()) {
+                    // 删除必须排在之前所有写入之后执行
+                    if (!batch.isEmpty()) {
+                        submitBatch(batch);
+                        batch = new ArrayList<>();
+                        batchBytes = 0;
+                    }
+                    window.awaitIdle();
+                    deleteSubtree(path);
+                    continue;
+                }
+                if (record.getStat().getEphemeralOwner() != 0) {
+                    // 临时节点属于原会话，不导入
+                    skippedCount.incrementAndGet();
+                    continue;
+                }
+                if (path.equals("/")) {
+                    // 根节点总是存在，按已存在的节点处理
+                    window.acquire();
+                    handleExisting(rebase(record, path), new Runnable() {
+                        @Override
+                        public void run() {
+                            window.release();
+                        }
+                    });
+                    continue;
+                }
+                if (path.equals(targetRoot)) {
+                    // 导入位置本身通常已存在，单独创建，已存在时按冲突策略处理，不让整个multi因NODEEXISTS失败
+                    if (!batch.isEmpty()) {
+                        submitBatch(batch);
+                        batch = new ArrayList<>();
+                        batchBytes = 0;
+                    }
+                    window.acquire();
+                    createTargetRoot(rebase(record, path));
+                    continue;
+                }
+
+                int size = record.getData() == null ? 0 : record.getData().length;
+                if (!batch.isEmpty() && (batch.size() >= BATCH_MAX_OPS || batchBytes + size > BATCH_MAX_BYTES)) {
+                    submitBatch(batch);
+                    batch = new ArrayList<>();
+                    batchBytes = 0;
+                }
+                batch.add(rebase(record, path));
+                batchBytes += size;
+            }
+            if (!batch.isEmpty() && !cancelled && failure.get() == null) {
+                submitBatch(batch);
+            }
+            window.awaitIdle();
+        }
+
+        KeeperException error = failure.get();
+        if (error != null) {
+            throw error;
+        }
+        logger.info("导入{}: 创建 {}，更新 {}，跳过 {}，冲突 {}，删除 {}，{} 节点/秒", cancelled ? "已取消" : "完成",
+                createdCount.get(), updatedCount.get(), skippedCount.get(), conflictCount.get(), deletedCount.get(),
+                String.format("%.1f", getNodesPerSecond()));
+    }
+
+    /**
+     * 把导出文件中的路径映射到导入位置
+     * @return 映射后的路径，不在导出起点之下时返回null
+     */
+    private String mapPath(String sourceRoot, String path) {
+        if (sourceRoot == null) {
+            return path;
+        }
+        if (path.equals(sourceRoot)) {
+            return targetRoot;
+        }
+        String sourcePrefix = sourceRoot.equals("/") ? "/" : sourceRoot + "/";
+        if (!path.startsWith(sourcePrefix)) {
+            return null;
+        }
+        String relative = path.substring(sourcePrefix.length());
+        return targetRoot.equals("/") ? "/" + relative : targetRoot + "/" + relative;
+    }
+
+    private void deleteSubtree(String path) throws InterruptedException {
+        try {
+            if (zkClient.deleteRecursive(path)) {
+                deletedCount.incrementAndGet();
+            }
+        } catch (KeeperException.NoNodeException e) {
+            // 目标中本来就不存在，无需处理
+        } catch (KeeperException e) {
+            fail(e);
+        }
+    }
+
+    private static ZkDumpRecord rebase(ZkDumpRecord record, String path) {
+        return new ZkDumpRecord(path, record.getStat(), record.getData(), record.getAcl());
+    }
+
+    private static List<ACL> aclOf(ZkDumpRecord record) {
+        return record.getAcl() == null || record.getAcl().isEmpty() ? ZooDefs.Ids.OPEN_ACL_UNSAFE : record.getAcl();
+    }
+
+    /**
+     * 创建导入位置节点，已存在时按已存在的节点处理，完成后释放窗口名额
+     */
+    private void createTargetRoot(final ZkDumpRecord record) {
+        final Runnable done = new Runnable() {
+            @Override
+            public void run() {
+                window.release();
+            }
+        };
+        zkClient.createAsync(record.getPath(), record.getData(), aclOf(record), CreateMode.PERSISTENT,
+                new AsyncCallback.StringCallback() {
+                    @Override
+                    public void processResult(int rc, String path, Object ctx, String name) {
+                        if (rc == KeeperException.Code.OK.intValue()) {
+                            createdCount.incrementAndGet();
+                            done.run();
+                        } else if (rc == KeeperException.Code.NODEEXISTS.intValue()) {
+                            handleExisting(record, done);
+                        } else {
+                            fail(KeeperException.create(KeeperException.Code.get(rc), path));
+                            done.run();
+                        }
+                    }
+                }, null);
+    }
+
+    /**
+     * 以一个multi请求提交一批创建操作
+     */
+    private void submitBatch(final List<ZkDumpRecord> batch) throws InterruptedException {
+        List<Op> ops = new ArrayList<>(batch.size());
+        for (ZkDumpRecord record : batch) {
+            ops.add(Op.create(record.getPath(), record.getData(), aclOf(record), CreateMode.PERSISTENT));
+        }
+        window.acquire();
+        zkClient.multiAsync(ops, new AsyncCallback.MultiCallback() {
+            @Override
+            public void processResult(int rc, String path, Object ctx, List<OpResult> results) {
+                if (rc == KeeperException.Code.OK.intValue()) {
+                    createdCount.addAndGet(batch.size());
+                    window.release();
+                } else if (rc == KeeperException.Code.NODEEXISTS.intValue()
+                        || rc == KeeperException.Code.NONODE.intValue()) {
+                    // 批次中有节点已存在（或其父节点在之前失败的批次中），退回为逐条处理
+                    // 逐条请求在本回调中按顺序发起，仍然排在后续批次的退回请求之前
+                    submitIndividually(batch);
+                } else {
+                    fail(KeeperException.create(KeeperException.Code.get(rc), batch.get(0).getPath()));
+                    window.release();
+                }
+            }
+        }, null);
+    }
+
+    /**
+     * 逐条创建一批节点，所有节点处理完毕后释放窗口名额
+     */
+    private void submitIndividually(final List<ZkDumpRecord> batch) {
+        final AtomicInteger pending = new AtomicInteger(batch.size());
+        final Runnable done = new Runnable() {
+            @Override
+            public void run() {
+                if (pending.decrementAndGet() == 0) {
+                    window.release();
+                }
+            }
+        };
+        for (final ZkDumpRecord record : batch) {
+            zkClient.createAsync(record.getPath(), record.getData(), aclOf(record), CreateMode.PERSISTENT,
+                    new AsyncCallback.StringCallback() {
+                        @Override
+                        public void processResult(int rc, String path, Object ctx, String name) {
+                            if (rc == KeeperException.Code.OK.intValue()) {
+                                createdCount.incrementAndGet();
+                                done.run();
+                            } else if (rc == KeeperException.Code.NODEEXISTS.intValue()) {
+                                handleExisting(record, done);
+                            } else {
+                                fail(KeeperException.create(KeeperException.Code.get(rc), path));
+                                done.run();
+                            }
+                        }
+                    }, null);
+        }
+    }
+
+    /**
+     * 按冲突策略处理已存在的节点
+     * 覆盖时先读取当前数据，内容不同则带版本号写入，再比较ACL，不同则带ACL版本号设置；
+     * 数据和ACL都相同则跳过，期间被修改则记为冲突
+     * @param done 处理完成后的回调
+     */
+    private void handleExisting(final ZkDumpRecord record, final Runnable done) {
+        if (policy == ConflictPolicy.SKIP) {
+            skippedCount.incrementAndGet();
+            done.run();
+            return;
+        }
+        if (policy == ConflictPolicy.FAIL) {
+            // 根节点和导入位置本身已存在不算冲突，只有其下的节点已存在才失败
+            if (record.getPath().equals("/") || record.getPath().equals(targetRoot)) {
+                skippedCount.incrementAndGet();
+            } else {
+                fail(KeeperException.create(KeeperException.Code.NODEEXISTS, record.getPath()));
+            }
+            done.run();
+            return;
+        }
+
+        zkClient.getDataAsync(record.getPath(), new AsyncCallback.DataCallback() {
+            @Override
+            public void processResult(int rc, String path, Object ctx, byte[] current, Stat stat) {
+                if (rc != KeeperException.Code.OK.intValue()) {
+                    fail(KeeperException.create(KeeperException.Code.get(rc), path));
+                    done.run();
+                    return;
+                }
+                byte[] data = record.getData();
+                if (Arrays.equals(current, data) || (data == null && current != null && current.length == 0)) {
+                    overwriteAcl(record, false, done);
+                    return;
+                }
+                zkClient.updateNodeAsync(path, data, stat.getVersion(), new AsyncCallback.StatCallback() {
+                    @Override
+                    public void processResult(int rc, String path, Object ctx, Stat stat) {
+                        if (rc == KeeperException.Code.OK.intValue()) {
+                            // 先写数据再改ACL，新ACL可能不再允许当前会话写入
+                            overwriteAcl(record, true, done);
+                            return;
+                        }
+                        if (rc == KeeperException.Code.BADVERSION.intValue()) {
+                            logger.warn("导入时节点被并发修改，未覆盖: {}", path);
+                            conflictCount.incrementAndGet();
+                        } else {
+                            fail(KeeperException.create(KeeperException.Code.get(rc), path));
+                        }
+                        done.run();
+                    }
+                }, null);
+            }
+        }, null);
+    }
+
+    /**
+     * 覆盖策略下比较并设置已存在节点的ACL，ACL条目相同（不计顺序）时不设置
+     * @param dataUpdated 数据是否已被覆盖
+     * @param done 处理完成后的回调
+     */
+    private void overwriteAcl(final ZkDumpRecord record, final boolean dataUpdated, final Runnable done) {
+        final List<ACL> acl = aclOf(record);
+        zkClient.getAclAsync(record.getPath(), new AsyncCallback.ACLCallback() {
+            @Override
+            public void processResult(int rc, String path, Object ctx, List<ACL> current, Stat stat) {
+                if (rc != KeeperException.Code.OK.intValue()) {
+                    fail(KeeperException.create(KeeperException.Code.get(rc), path));
+                    done.run();
+                    return;
+                }
+                if (new HashSet<>(current).equals(new HashSet<>(acl))) {
+                    (dataUpdated ? updatedCount : skippedCount).incrementAndGet();
+                    done.run();
+                    return;
+                }
+                zkClient.setAclAsync(path, acl, stat.getAversion(), new AsyncCallback.StatCallback() {
+                    @Override
+                    public void processResult(int rc, String path, Object ctx, Stat stat) {
+                        if (rc == KeeperException.Code.OK.intValue()) {
+                            updatedCount.incrementAndGet();
+                        } else if (rc == KeeperException.Code.BADVERSION.intValue()) {
+                            logger.warn("导入时节点ACL被并发修改，未覆盖: {}", path);
+                            conflictCount.incrementAndGet();
+                        } else {
+                            fail(KeeperException.create(KeeperException.Code.get(rc), path));
+                        }
+                        done.run();
+                    }
+                }, null);
+            }
+        }, null);
+    }
+
+    private void fail(KeeperException e) {
+        if (failure.compareAndSet(null, e)) {
+            logger.error("导入失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,758 @@
+package com.zkclient;
+
+import org.apache.zookeeper.AddWatchMode;
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.CreateMode;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Op;
+import org.apache.zookeeper.OpResult;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 子树镜像，把源集群上的子树持续同步到目标集群
+ * 启动时先在源子树上注册持久递归watch，再做一次全量复制：流水线读取源子树，
+ * 经有界队列交给导入器以multi批量写入目标，并删除目标上多余的节点。
+ * 之后按watch事件把变化的路径记入待同步集合（同一路径的多次变化合并为一次），
+ * 由同步线程成批读取源节点的最新状态并以multi写入目标；批次失败时逐个路径对账。
+ * 待同步路径过多、连接中断或会话过期后可能丢失事件，此时重新执行全量同步。
+ * 临时节点属于源会话，不做镜像。
+ */
+public class ZkSubtreeMirror {
+    private static final Logger logger = LoggerFactory.getLogger(ZkSubtreeMirror.class);
+
+    // 每个multi批次的最大操作数
+    private static final int BATCH_MAX_OPS = 200;
+    // 每个multi批次的最大数据量，需要小于服务端jute.maxbuffer
+    private static final int BATCH_MAX_BYTES = 512 * 1024;
+    // 写入目标时的最大在途批次数
+    private static final int PIPELINE_WINDOW = 16;
+    // 读取源子树时的最大在途节点数
+    private static final int READ_WINDOW = 200;
+    // 全量复制时读取与写入之间的队列长度，写入跟不上时阻塞读取
+    private static final int COPY_QUEUE_SIZE = 10000;
+    // 待同步路径的上限，超过后放弃逐个同步，改为全量同步
+    private static final int MAX_PENDING_PATHS = 100000;
+    // 同步线程等待新事件的间隔（毫秒）
+    private static final long POLL_INTERVAL = 200;
+
+    /**
+     * 镜像状态
+     */
+    public enum State {
+        STARTING("启动中"),
+        COPYING("全量复制"),
+        FOLLOWING("持续同步"),
+        STOPPED("已停止"),
+        FAILED("失败");
+
+        private final String displayName;
+
+        State(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    /**
+     * 一个待同步的路径
+     */
+    private static class Change {
+        final String path;
+        boolean created;
+        // 最早一次未同步事件的时间，用于计算延迟
+        final long eventTime;
+
+        Change(String path, boolean created, long eventTime) {
+            this.path = path;
+            this.created = created;
+            this.eventTime = eventTime;
+        }
+    }
+
+    private final ZkClient source;
+    private final String sourceRoot;
+    private final ZkClient target;
+    private final String targetRoot;
+    private final ZkRequestWindow window = new ZkRequestWindow(PIPELINE_WINDOW);
+
+    // 按首次事件顺序排列，父节点的创建总是排在子节点之前
+    private final LinkedHashMap<String, Change> pending = new LinkedHashMap<>();
+    // 所在批次失败、需要逐个对账的路径
+    private final ConcurrentLinkedQueue<Change> retries = new ConcurrentLinkedQueue<>();
+    // 在途批次中最早事件的时间
+    private final Map<Integer, Long> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger batchIds = new AtomicInteger();
+
+    private final AtomicLong eventCount = new AtomicLong();
+    private final AtomicLong appliedCount = new AtomicLong();
+    private final AtomicLong reconciledCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong resyncCount = new AtomicLong();
+
+    private volatile State state = State.STOPPED;
+    private volatile String failureMessage;
+    private volatile boolean running = false;
+    private volatile boolean resyncNeeded = false;
+    private volatile boolean rewatchNeeded = false;
+    private volatile boolean disconnected = false;
+    private volatile ZkSubtreeImporter copyImporter;
+    private volatile ZkTreeWalker copyWalker;
+    private Thread syncThread;
+
+    private final Watcher watcher = new Watcher() {
+        @Override
+        public void process(WatchedEvent event) {
+            handleEvent(event);
+        }
+    };
+
+    /**
+     * @param source 源集群客户端
+     * @param sourceRoot 源子树起点
+     * @param target 目标集群客户端
+     * @param targetRoot 目标位置，父节点必须已存在
+     */
+    public ZkSubtreeMirror(ZkClient source, String sourceRoot, ZkClient target, String targetRoot) {
+        this.source = source;
+        this.sourceRoot = sourceRoot;
+        this.target = target;
+        this.targetRoot = targetRoot;
+    }
+
+    public String getSourceRoot() {
+        return sourceRoot;
+    }
+
+    public String getTargetRoot() {
+        return targetRoot;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return 失败原因，未失败时为null
+     */
+    public String getFailureMessage() {
+        return failureMessage;
+    }
+
+    /**
+     * @return 当前或最近一次全量复制已处理的节点数
+     */
+    public long getCopiedCount() {
+        ZkSubtreeImporter importer = copyImporter;
+        if (importer == null) {
+            return 0;
+        }
+        return importer.getCreatedCount() + importer.getUpdatedCount() + importer.getSkippedCount();
+    }
+
+    /**
+     * @return 收到的源节点变化事件数
+     */
+    public long getEventCount() {
+        return eventCount.get();
+    }
+
+    /**
+     * @return 以批次方式同步到目标的路径数
+     */
+    public long getAppliedCount() {
+        return appliedCount.get();
+    }
+
+    /**
+     * @return 逐个对账同步的路径数
+     */
+    public long getReconciledCount() {
+        return reconciledCount.get();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    /**
+     * @return 启动后的全量同步次数，包括首次复制
+     */
+    public long getResyncCount() {
+        return resyncCount.get();
+    }
+
+    /**
+     * @return 尚未同步到目标的路径数
+     */
+    public int getPendingCount() {
+        synchronized (pending) {
+            return pending.size() + retries.size();
+        }
+    }
+
+    /**
+     * 复制延迟：最早一个尚未写入目标的源变化距今的时间
+     * @return 延迟（毫秒），没有待同步的变化时为0
+     */
+    public long getLagMillis() {
+        long oldest = Long.MAX_VALUE;
+        synchronized (pending) {
+            if (!pending.isEmpty()) {
+                oldest = pending.values().iterator().next().eventTime;
+            }
+        }
+        for (Change change : retries) {
+            oldest = Math.min(oldest, change.eventTime);
+        }
+        for (Long time : inFlight.values()) {
+            oldest = Math.min(oldest, time);
+        }
+        return oldest == Long.MAX_VALUE ? 0 : Math.max(0, System.currentTimeMillis() - oldest);
+    }
+
+    /**
+     * 在后台线程启动镜像
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        state = State.STARTING;
+        failureMessage = null;
+        syncThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                runLoop();
+            }
+        }, "zk-mirror-" + sourceRoot);
+        syncThread.setDaemon(true);
+        syncThread.start();
+    }
+
+    /**
+     * 停止镜像并等待同步线程退出
+     */
+    public void stop() throws InterruptedException {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = syncThread;
+        }
+        ZkTreeWalker walker = copyWalker;
+        if (walker != null) {
+            walker.cancel();
+        }
+        ZkSubtreeImporter importer = copyImporter;
+        if (importer != null) {
+            importer.cancel();
+        }
+        synchronized (pending) {
+            pending.notifyAll();
+        }
+        if (thread != null) {
+            thread.join();
+        }
+    }
+
+    private void runLoop() {
+        try {
+            source.addWatch(sourceRoot, watcher, AddWatchMode.PERSISTENT_RECURSIVE);
+            state = State.COPYING;
+            fullSync();
+            while (running) {
+                if (rewatchNeeded) {
+                    if (!source.isConnected()) {
+                        Thread.sleep(POLL_INTERVAL);
+                        continue;
+                    }
+                    // 会话过期后watch已失效，重新注册后期间的变化只能通过全量同步补上
+                    rewatchNeeded = false;
+                    source.addWatch(sourceRoot, watcher, AddWatchMode.PERSISTENT_RECURSIVE);
+                    resyncNeeded = true;
+                }
+                if (resyncNeeded) {
+                    resyncNeeded = false;
+                    state = State.COPYING;
+                    fullSync();
+                    continue;
+                }
+                state = State.FOLLOWING;
+                Change retry;
+                while (running && (retry = retries.poll()) != null) {
+                    reconcile(retry);
+                }
+                List<Change> batch = takeBatch();
+                if (!batch.isEmpty()) {
+                    applyBatch(batch);
+                }
+            }
+            window.awaitIdle();
+            state = State.STOPPED;
+        } catch (InterruptedException e) {
+            state = State.STOPPED;
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.error("子树镜像失败: {} -> {}", sourceRoot, targetRoot, e);
+            failureMessage = e.getMessage();
+            state = State.FAILED;
+        } finally {
+            running = false;
+            try {
+                source.removeWatches(sourceRoot, watcher);
+            } catch (Exception e) {
+                logger.debug("移除watch失败: {}", e.getMessage());
+            }
+            logger.info("子树镜像结束: {} -> {}，同步 {}，对账 {}，错误 {}", sourceRoot, targetRoot,
+                    appliedCount.get(), reconciledCount.get(), errorCount.get());
+        }
+    }
+
+    private void handleEvent(WatchedEvent event) {
+        if (event.getType() == Watcher.Event.EventType.None) {
+            switch (event.getState()) {
+                case Disconnected:
+                    disconnected = true;
+                    break;
+                case SyncConnected:
+                    // 重连后客户端会恢复持久watch，但断开期间的变化不会补发
+                    if (disconnected) {
+                        disconnected = false;
+                        resyncNeeded = true;
+                    }
+                    break;
+                case Expired:
+                    rewatchNeeded = true;
+                    break;
+                default:
+                    break;
+            }
+            return;
+        }
+        String path = event.getPath();
+        if (path == null) {
+            return;
+        }
+        switch (event.getType()) {
+            case NodeCreated:
+                markDirty(path, true);
+                break;
+            case NodeDeleted:
+            case NodeDataChanged:
+                markDirty(path, false);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void markDirty(String path, boolean created) {
+        eventCount.incrementAndGet();
+        synchronized (pending) {
+            Change change = pending.get(path);
+            if (change != null) {
+                change.created |= created;
+                return;
+            }
+            if (pending.size() >= MAX_PENDING_PATHS) {
+                logger.warn("待同步路径超过 {} 个，改为全量同步", MAX_PENDING_PATHS);
+                pending.clear();
+                resyncNeeded = true;
+                return;
+            }
+            pending.put(path, new Change(path, created, System.currentTimeMillis()));
+            pending.notifyAll();
+        }
+    }
+
+    /**
+     * 取出一批待同步路径，没有时等待一个轮询间隔
+     */
+    private List<Change> takeBatch() throws InterruptedException {
+        List<Change> batch = new ArrayList<>();
+        synchronized (pending) {
+            if (pending.isEmpty() && running) {
+                pending.wait(POLL_INTERVAL);
+            }
+            Iterator<Change> it = pending.values().iterator();
+            while (it.hasNext() && batch.size() < BATCH_MAX_OPS) {
+                batch.add(it.next());
+                it.remove();
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * 流水线读取一批路径在源上的最新状态，转换为multi操作写入目标
+     */
+    private void applyBatch(List<Change> batch) throws InterruptedException {
+        final int size = batch.size();
+        final byte[][] data = new byte[size][];
+        final Stat[] stats = new Stat[size];
+        final List<?>[] acls = new List<?>[size];
+        final int[] codes = new int[size];
+        int requests = size;
+        for (Change change : batch) {
+            if (change.created) {
+                requests++;
+            }
+        }
+        final CountDownLatch latch = new CountDownLatch(requests);
+        for (int i = 0; i < size; i++) {
+            final int index = i;
+            source.getDataAsync(batch.get(i).path, new AsyncCallback.DataCallback() {
+                @Override
+                public void processResult(int rc, String path, Object ctx, byte[] bytes, Stat stat) {
+                    codes[index] = rc;
+                    data[index] = bytes;
+                    stats[index] = stat;
+                    latch.countDown();
+                }
+            }, null);
+            if (!batch.get(i).created) {
+                continue;
+            }
+            // 只有新建的节点需要ACL
+            source.getAclAsync(batch.get(i).path, new AsyncCallback.ACLCallback() {
+                @Override
+                public void processResult(int rc, String path, Object ctx, List<ACL> acl, Stat stat) {
+                    acls[index] = acl;
+                    latch.countDown();
+                }
+            }, null);
+        }
+        latch.await();
+
+        List<Op> ops = new ArrayList<>();
+        List<Change> opChanges = new ArrayList<>();
+        int bytes = 0;
+        for (int i = 0; i < size; i++) {
+            Change change = batch.get(i);
+            String targetPath = toTargetPath(change.path);
+            Op op;
+            int opBytes = 0;
+            if (codes[i] == KeeperException.Code.NONODE.intValue()) {
+                op = Op.delete(targetPath, -1);
+            } else if (codes[i] != KeeperException.Code.OK.intValue()) {
+                // 源连接异常，稍后再对账
+                retries.add(change);
+                continue;
+            } else if (stats[i].getEphemeralOwner() != 0) {
+                continue;
+            } else if (change.created) {
+                op = Op.create(targetPath, data[i], aclOf(acls[i]), CreateMode.PERSISTENT);
+                opBytes = data[i] == null ? 0 : data[i].length;
+            } else {
+                op = Op.setData(targetPath, data[i], -1);
+                opBytes = data[i] == null ? 0 : data[i].length;
+            }
+            if (!ops.isEmpty() && bytes + opBytes > BATCH_MAX_BYTES) {
+                submit(ops, opChanges);
+                ops = new ArrayList<>();
+                opChanges = new ArrayList<>();
+                bytes = 0;
+            }
+            ops.add(op);
+            opChanges.add(change);
+            bytes += opBytes;
+        }
+        if (!ops.isEmpty()) {
+            submit(ops, opChanges);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ACL> aclOf(List<?> acl) {
+        return acl == null || acl.isEmpty() ? ZooDefs.Ids.OPEN_ACL_UNSAFE : (List<ACL>) acl;
+    }
+
+    /**
+     * 以一个multi请求写入目标，在途批次数达到上限时阻塞，形成对源事件处理的反压
+     */
+    private void submit(List<Op> ops, final List<Change> changes) throws InterruptedException {
+        long oldest = Long.MAX_VALUE;
+        for (Change change : changes) {
+            oldest = Math.min(oldest, change.eventTime);
+        }
+        final Integer batchId = batchIds.incrementAndGet();
+        window.acquire();
+        inFlight.put(batchId, oldest);
+        target.multiAsync(ops, new AsyncCallback.MultiCallback() {
+            @Override
+            public void processResult(int rc, String path, Object ctx, List<OpResult> results) {
+                if (rc == KeeperException.Code.OK.intValue()) {
+                    appliedCount.addAndGet(changes.size());
+                } else {
+                    // 目标与预期不符（节点已存在、父节点缺失、有子节点等），逐个路径对账
+                    retries.addAll(changes);
+                }
+                inFlight.remove(batchId);
+                window.release();
+            }
+        }, null);
+    }
+
+    /**
+     * 按源上的最新状态修正目标上的一个节点，在同步线程上同步执行
+     */
+    private void reconcile(Change change) throws InterruptedException {
+        try {
+            reconcilePath(change.path);
+            reconciledCount.incrementAndGet();
+        } catch (KeeperException.ConnectionLossException | KeeperException.SessionExpiredException e) {
+            // 连接恢复后再试
+            retries.add(change);
+            Thread.sleep(POLL_INTERVAL);
+        } catch (KeeperException e) {
+            logger.warn("同步节点失败: {}，{}", change.path, e.getMessage());
+            errorCount.incrementAndGet();
+        }
+    }
+
+    private void reconcilePath(String path) throws KeeperException, InterruptedException {
+        String targetPath = toTargetPath(path);
+        Stat stat = new Stat();
+        byte[] data;
+        List<ACL> acl;
+        try {
+            // 逐字节复制，源和目标的透明压缩设置都不改变数据
+            data = source.getRawData(path, stat);
+            acl = source.getAcl(path, new Stat());
+        } catch (KeeperException.NoNodeException e) {
+            try {
+                target.deleteRecursive(targetPath);
+            } catch (KeeperException.NoNodeException ignored) {
+                // 目标上也不存在
+            }
+            return;
+        }
+        if (stat.getEphemeralOwner() != 0) {
+            return;
+        }
+        try {
+            target.updateRawNode(targetPath, data, -1);
+        } catch (KeeperException.NoNodeException e) {
+            if (!path.equals(sourceRoot)) {
+                // 先补齐缺失的父节点
+                String parent = path.substring(0, Math.max(1, path.lastIndexOf('/')));
+                if (target.getStat(toTargetPath(parent)) == null) {
+                    reconcilePath(parent);
+                }
+            }
+            try {
+                target.createRawNode(targetPath, data, aclOf(acl), CreateMode.PERSISTENT);
+            } catch (KeeperException.NodeExistsException exists) {
+                target.updateRawNode(targetPath, data, -1);
+            }
+        }
+    }
+
+    /**
+     * 全量同步：流水线读取源子树交给导入器以覆盖策略写入目标，再删除目标上多余的子树
+     */
+    private void fullSync() throws KeeperException, InterruptedException, IOException {
+        resyncCount.incrementAndGet();
+        long startTime = System.currentTimeMillis();
+        logger.info("开始全量同步: {} -> {}", sourceRoot, targetRoot);
+
+        final Set<String> sourcePaths = new HashSet<>();
+        final QueueSource queueSource = new QueueSource(sourceRoot);
+        final ZkSubtreeImporter importer = new ZkSubtreeImporter(target, queueSource, targetRoot,
+                ZkSubtreeImporter.ConflictPolicy.OVERWRITE);
+        copyImporter = importer;
+        final ZkTreeWalker walker = new ZkTreeWalker(source, READ_WINDOW);
+        walker.setFetchData(true);
+        walker.setFetchAcl(true);
+        copyWalker = walker;
+        if (!running) {
+            walker.cancel();
+        }
+
+        ExecutorService importExecutor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<?> importFuture = importExecutor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    importer.run();
+                    return null;
+                }
+            });
+            queueSource.importFuture = importFuture;
+            walker.walk(sourceRoot, new ZkTreeWalker.Visitor() {
+                @Override
+                public boolean visit(ZkTreeWalker.Node node) {
+                    sourcePaths.add(node.getPath());
+                    if (!queueSource.put(new ZkDumpRecord(node.getPath(), node.getStat(), node.getData(),
+                            node.getAcl()))) {
+                        walker.cancel();
+                    }
+                    return true;
+                }
+            });
+            queueSource.finish();
+            awaitImport(importFuture);
+        } finally {
+            importExecutor.shutdownNow();
+        }
+        if (walker.isCancelled() || !running) {
+            return;
+        }
+
+        deleteExtraNodes(sourcePaths);
+        logger.info("全量同步完成: {} -> {}，{} 个节点，耗时 {} ms", sourceRoot, targetRoot, sourcePaths.size(),
+                System.currentTimeMillis() - startTime);
+    }
+
+    private void awaitImport(Future<?> future) throws KeeperException, InterruptedException, IOException {
+        try {
+            future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof KeeperException) {
+                throw (KeeperException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * 遍历目标子树，删除源上不存在的节点
+     */
+    private void deleteExtraNodes(final Set<String> sourcePaths) throws KeeperException, InterruptedException {
+        final List<String> extras = new ArrayList<>();
+        ZkTreeWalker walker = new ZkTreeWalker(target, READ_WINDOW);
+        copyWalker = walker;
+        walker.walk(targetRoot, new ZkTreeWalker.Visitor() {
+            @Override
+            public boolean visit(ZkTreeWalker.Node node) {
+                if (sourcePaths.contains(toSourcePath(node.getPath()))) {
+                    return true;
+                }
+                extras.add(node.getPath());
+                return false;
+            }
+        });
+        for (String path : extras) {
+            try {
+                target.deleteRecursive(path);
+            } catch (KeeperException.NoNodeException e) {
+                // 已被删除
+            }
+        }
+        if (!extras.isEmpty()) {
+            logger.info("删除目标上多余的子树 {} 个", extras.size());
+        }
+    }
+
+    private String toTargetPath(String path) {
+        if (path.equals(sourceRoot)) {
+            return targetRoot;
+        }
+        String relative = sourceRoot.equals("/") ? path : path.substring(sourceRoot.length());
+        return targetRoot.equals("/") ? relative : targetRoot + relative;
+    }
+
+    private String toSourcePath(String path) {
+        if (path.equals(targetRoot)) {
+            return sourceRoot;
+        }
+        String relative = targetRoot.equals("/") ? path : path.substring(targetRoot.length());
+        return sourceRoot.equals("/") ? relative : sourceRoot + relative;
+    }
+
+    /**
+     * 全量复制时连接遍历器和导入器的有界队列，队列满时阻塞遍历线程
+     */
+    private static class QueueSource implements ZkSubtreeImporter.RecordSource {
+        private static final ZkDumpRecord END = ZkDumpRecord.deleted("");
+
+        private final String rootPath;
+        private final BlockingQueue<ZkDumpRecord> queue = new ArrayBlockingQueue<>(COPY_QUEUE_SIZE);
+        private volatile Future<?> importFuture;
+
+        QueueSource(String rootPath) {
+            this.rootPath = rootPath;
+        }
+
+        /**
+         * @return 导入器已结束（失败或被取消）时返回false
+         */
+        boolean put(ZkDumpRecord record) {
+            try {
+                while (!queue.offer(record, POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+                    if (importFuture != null && importFuture.isDone()) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        void finish() {
+            put(END);
+        }
+
+        @Override
+        public String getRootPath() {
+            return rootPath;
+        }
+
+        @Override
+        public ZkDumpRecord next() throws IOException {
+            try {
+                ZkDumpRecord record = queue.take();
+                return record == END ? null : record;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("读取复制队列被中断", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            queue.clear();
+        }
+    }
+}
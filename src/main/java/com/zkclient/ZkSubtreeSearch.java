@@ -0,0 +1,183 @@
+package com.zkclient;
+
+import org.apache.zookeeper.KeeperException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 子树全文搜索
+ * 遍历线程用流水线异步getData读取节点数据，匹配交给工作线程在字节上并行执行，
+ * 命中结果在找到时立即通过HitListener回调，不等待遍历结束。
+ * 工作队列有界，匹配跟不上读取时由遍历线程自己执行匹配，从而限制内存中待匹配的数据量。
+ */
+public class ZkSubtreeSearch {
+    private static final Logger logger = LoggerFactory.getLogger(ZkSubtreeSearch.class);
+
+    // 最大在途节点数
+    private static final int PIPELINE_WINDOW = 100;
+    // 每个工作线程的待匹配队列长度
+    private static final int QUEUE_PER_WORKER = 64;
+
+    private final String rootPath;
+    private final ZkDataMatcher matcher;
+    private final boolean matchPath;
+    private final HitListener listener;
+    private final ZkTreeWalker walker;
+    private volatile boolean cancelled;
+
+    private final AtomicLong matchedCount = new AtomicLong();
+    private final AtomicLong scannedBytes = new AtomicLong();
+
+    /**
+     * 搜索命中回调，在工作线程或遍历线程上调用
+     */
+    public interface HitListener {
+        void onHit(Hit hit);
+    }
+
+    /**
+     * 一个命中的节点
+     */
+    public static class Hit {
+        private final String path;
+        private final int offset;
+        private final int dataLength;
+        private final String snippet;
+
+        Hit(String path, int offset, int dataLength, String snippet) {
+            this.path = path;
+            this.offset = offset;
+            this.dataLength = dataLength;
+            this.snippet = snippet;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return 匹配在数据中的字节位置，路径命中时返回-1
+         */
+        public int getOffset() {
+            return offset;
+        }
+
+        public int getDataLength() {
+            return dataLength;
+        }
+
+        /**
+         * @return 匹配位置附近的数据片段
+         */
+        public String getSnippet() {
+            return snippet;
+        }
+    }
+
+    /**
+     * @param zkClient ZooKeeper客户端
+     * @param rootPath 搜索起点
+     * @param matcher 匹配条件
+     * @param matchPath 是否同时匹配节点路径
+     * @param listener 命中回调
+     */
+    public ZkSubtreeSearch(ZkClient zkClient, String rootPath, ZkDataMatcher matcher, boolean matchPath,
+                           HitListener listener) {
+        this.rootPath = rootPath;
+        this.matcher = matcher;
+        this.matchPath = matchPath;
+        this.listener = listener;
+        this.walker = new ZkTreeWalker(zkClient, PIPELINE_WINDOW);
+        this.walker.setFetchData(true);
+    }
+
+    public void cancel() {
+        cancelled = true;
+        walker.cancel();
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return 已读取的节点数
+     */
+    public long getScannedCount() {
+        return walker.getVisitedCount();
+    }
+
+    /**
+     * @return 已匹配的数据总字节数
+     */
+    public long getScannedBytes() {
+        return scannedBytes.get();
+    }
+
+    public long getMatchedCount() {
+        return matchedCount.get();
+    }
+
+    /**
+     * 执行搜索，阻塞直到遍历和全部匹配完成或被取消
+     */
+    public void run() throws KeeperException, InterruptedException {
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(workers * QUEUE_PER_WORKER), new ThreadPoolExecutor.CallerRunsPolicy());
+        logger.info("开始搜索子树 {}：{}", rootPath, matcher.getText());
+        long start = System.currentTimeMillis();
+        try {
+            walker.walk(rootPath, new ZkTreeWalker.Visitor() {
+                @Override
+                public boolean visit(ZkTreeWalker.Node node) {
+                    final String path = node.getPath();
+                    final byte[] data = node.getData();
+                    if (matchPath || (data != null && data.length > 0)) {
+                        executor.execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                match(path, data);
+                            }
+                        });
+                    }
+                    return true;
+                }
+            });
+        } finally {
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                if (cancelled) {
+                    executor.shutdownNow();
+                }
+            }
+        }
+        logger.info("子树搜索{}: 扫描 {} 个节点，命中 {} 个，耗时 {} ms", cancelled ? "已取消" : "完成",
+                getScannedCount(), matchedCount.get(), System.currentTimeMillis() - start);
+    }
+
+    private void match(String path, byte[] data) {
+        if (cancelled) {
+            return;
+        }
+        if (data != null) {
+            scannedBytes.addAndGet(data.length);
+            ZkDataMatcher.Match match = matcher.find(data);
+            if (match != null) {
+                matchedCount.incrementAndGet();
+                listener.onHit(new Hit(path, match.getStart(), data.length, ZkDataMatcher.snippet(data, match)));
+                return;
+            }
+        }
+        if (matchPath && matcher.find(path.getBytes(StandardCharsets.UTF_8)) != null) {
+            matchedCount.incrementAndGet();
+            listener.onHit(new Hit(path, -1, data != null ? data.length : 0, "(路径匹配)"));
+        }
+    }
+}
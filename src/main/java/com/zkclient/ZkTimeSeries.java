@@ -0,0 +1,92 @@
+package com.zkclient;
+
+/**
+ * 固定容量的时间序列，写满后覆盖最旧的点
+ * 时间和值保存在两个预先分配的数组中，追加不分配对象；值为NaN表示该时刻没有数据。
+ * 由轮询线程写入、EDT读取，所有方法都加锁。
+ */
+public class ZkTimeSeries {
+    private final long[] times;
+    private final double[] values;
+    // 最旧的点的下标
+    private int start;
+    private int size;
+
+    /**
+     * @param capacity 最多保存的点数
+     */
+    public ZkTimeSeries(int capacity) {
+        times = new long[capacity];
+        values = new double[capacity];
+    }
+
+    /**
+     * 追加一个点，已满时覆盖最旧的点
+     * @param time 时间（毫秒）
+     * @param value 值，没有数据时为NaN
+     */
+    public synchronized void add(long time, double value) {
+        int index = (start + size) % times.length;
+        times[index] = time;
+        values[index] = value;
+        if (size < times.length) {
+            size++;
+        } else {
+            start = (start + 1) % times.length;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return times.length;
+    }
+
+    /**
+     * @param i 从旧到新的序号
+     */
+    public synchronized long getTime(int i) {
+        return times[(start + i) % times.length];
+    }
+
+    /**
+     * @param i 从旧到新的序号
+     */
+    public synchronized double getValue(int i) {
+        return values[(start + i) % values.length];
+    }
+
+    /**
+     * @return 最新的值，没有数据时为NaN
+     */
+    public synchronized double getLast() {
+        return size > 0 ? values[(start + size - 1) % values.length] : Double.NaN;
+    }
+
+    /**
+     * 把时间不早于from的点复制到调用方的数组中，数组不够大时只复制最新的部分
+     * @return 复制的点数
+     */
+    public synchronized int copy(long from, long[] timesOut, double[] valuesOut) {
+        int first = size;
+        while (first > 0 && times[(start + first - 1) % times.length] >= from) {
+            first--;
+        }
+        first = Math.max(first, size - Math.min(timesOut.length, valuesOut.length));
+        int count = 0;
+        for (int i = first; i < size; i++) {
+            int index = (start + i) % times.length;
+            timesOut[count] = times[index];
+            valuesOut[count] = values[index];
+            count++;
+        }
+        return count;
+    }
+
+    public synchronized void clear() {
+        start = 0;
+        size = 0;
+    }
+}
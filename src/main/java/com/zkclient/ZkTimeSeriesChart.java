@@ -0,0 +1,146 @@
+package com.zkclient;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 折线图，每个集群成员一条线，显示一个指标最近一段时间的变化
+ * 纵轴从0到可见数据的最大值，横轴固定为最近windowMillis毫秒；NaN处断开。
+ */
+public class ZkTimeSeriesChart extends JComponent {
+    private static final Color[] COLORS = {
+            new Color(0x1f77b4), new Color(0xff7f0e), new Color(0x2ca02c), new Color(0xd62728),
+            new Color(0x9467bd), new Color(0x8c564b), new Color(0xe377c2), new Color(0x17becf)};
+    private static final int PADDING = 6;
+
+    private final String title;
+    private final List<String> names = new ArrayList<>();
+    private final List<ZkTimeSeries> series = new ArrayList<>();
+    private long windowMillis = 10 * 60 * 1000L;
+    // 绘制时复用的缓冲区，只在EDT上使用
+    private long[] times = new long[0];
+    private double[] values = new double[0];
+
+    public ZkTimeSeriesChart(String title) {
+        this.title = title;
+        setPreferredSize(new Dimension(320, 160));
+        setOpaque(true);
+    }
+
+    /**
+     * 添加一条线
+     * @param name 图例中显示的名称
+     * @param timeSeries 数据
+     */
+    public void addSeries(String name, ZkTimeSeries timeSeries) {
+        names.add(name);
+        series.add(timeSeries);
+        if (times.length < timeSeries.capacity()) {
+            times = new long[timeSeries.capacity()];
+            values = new double[timeSeries.capacity()];
+        }
+        repaint();
+    }
+
+    /**
+     * @param windowMillis 横轴显示的时间范围（毫秒）
+     */
+    public void setWindowMillis(long windowMillis) {
+        this.windowMillis = windowMillis;
+        repaint();
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setColor(UIManager.getColor("Panel.background"));
+            g2.fillRect(0, 0, getWidth(), getHeight());
+            FontMetrics fm = g2.getFontMetrics();
+            int lineHeight = fm.getHeight();
+            long now = System.currentTimeMillis();
+            long from = now - windowMillis;
+
+            double max = 0;
+            double[] lastValues = new double[series.size()];
+            for (int s = 0; s < series.size(); s++) {
+                int count = series.get(s).copy(from, times, values);
+                lastValues[s] = Double.NaN;
+                for (int i = 0; i < count; i++) {
+                    if (!Double.isNaN(values[i])) {
+                        max = Math.max(max, values[i]);
+                    }
+                }
+                if (count > 0) {
+                    lastValues[s] = values[count - 1];
+                }
+            }
+            max = max > 0 ? max * 1.1 : 1;
+
+            Color foreground = UIManager.getColor("Label.foreground");
+            g2.setColor(foreground);
+            g2.drawString(title, PADDING, PADDING + fm.getAscent());
+            String maxLabel = formatValue(max);
+            int plotLeft = PADDING + fm.stringWidth(maxLabel) + 4;
+            int plotTop = PADDING + lineHeight + 4;
+            int plotRight = getWidth() - PADDING;
+            int plotBottom = getHeight() - PADDING - lineHeight * ((series.size() + 1) / 2) - 4;
+            if (plotRight - plotLeft < 10 || plotBottom - plotTop < 10) {
+                return;
+            }
+            g2.drawString(maxLabel, PADDING, plotTop + fm.getAscent());
+            g2.drawString("0", plotLeft - 4 - fm.stringWidth("0"), plotBottom);
+            g2.setColor(UIManager.getColor("Separator.foreground") != null
+                    ? UIManager.getColor("Separator.foreground") : Color.GRAY);
+            g2.drawRect(plotLeft, plotTop, plotRight - plotLeft, plotBottom - plotTop);
+
+            for (int s = 0; s < series.size(); s++) {
+                g2.setColor(COLORS[s % COLORS.length]);
+                int count = series.get(s).copy(from, times, values);
+                int prevX = 0;
+                int prevY = 0;
+                boolean connected = false;
+                for (int i = 0; i < count; i++) {
+                    if (Double.isNaN(values[i])) {
+                        connected = false;
+                        continue;
+                    }
+                    int x = plotLeft + (int) ((times[i] - from) * (plotRight - plotLeft) / windowMillis);
+                    int y = plotBottom - (int) (values[i] / max * (plotBottom - plotTop));
+                    if (connected) {
+                        g2.drawLine(prevX, prevY, x, y);
+                    } else {
+                        g2.fillRect(x - 1, y - 1, 3, 3);
+                    }
+                    prevX = x;
+                    prevY = y;
+                    connected = true;
+                }
+            }
+
+            // 图例：两列，显示成员和最新值
+            int columnWidth = (getWidth() - PADDING * 2) / 2;
+            for (int s = 0; s < series.size(); s++) {
+                int x = PADDING + (s % 2) * columnWidth;
+                int y = plotBottom + 4 + (s / 2) * lineHeight;
+                g2.setColor(COLORS[s % COLORS.length]);
+                g2.fillRect(x, y + (lineHeight - 8) / 2, 8, 8);
+                g2.setColor(foreground);
+                String label = names.get(s) + "  " + (Double.isNaN(lastValues[s]) ? "-" : formatValue(lastValues[s]));
+                g2.drawString(label, x + 12, y + fm.getAscent());
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    private static String formatValue(double value) {
+        if (value >= 100 || value == Math.rint(value)) {
+            return String.valueOf(Math.round(value));
+        }
+        return String.format("%.2f", value);
+    }
+}
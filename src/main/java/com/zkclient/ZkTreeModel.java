@@ -1,15 +1,20 @@
 package com.zkclient;
 
 import org.apache.zookeeper.KeeperException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreeNode;
 import javax.swing.tree.DefaultMutableTreeNode;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 /**
  * ZooKeeper树形模型，用于JTree组件展示ZK节点结构
  */
 public class ZkTreeModel extends DefaultTreeModel {
+    private static final Logger logger = LoggerFactory.getLogger(ZkTreeModel.class);
     private ZkClient zkClient;
 
     public ZkTreeModel(ZkClient zkClient) {
@@ -22,7 +27,7 @@ public class ZkTreeModel extends DefaultTreeModel {
      * 刷新整棵树
      */
     public void refreshTree() {
-        DefaultMutableTreeNode root = new DefaultMutableTreeNode(new ZkNode("/", "/"));
+        DefaultMutableTreeNode root = new DefaultMutableTreeNode(new ZkNode());
         
         // 先加载子节点，再设置为根节点
         if (zkClient != null && zkClient.isConnected()) {
@@ -48,12 +53,13 @@ public class ZkTreeModel extends DefaultTreeModel {
         // 清除当前节点的所有子节点
         parentNode.removeAllChildren();
         
+        Object event = ZkOperationEvents.beginTreeLoad();
         List<String> children = zkClient.getChildren(parentPath);
+        ZkOperationEvents.treeLoaded(event, parentPath, children != null ? children.size() : 0);
         if (children != null && !children.isEmpty()) {
             parentZkNode.setLeaf(false);
             for (String childName : children) {
-                String childPath = parentPath.equals("/") ? "/" + childName : parentPath + "/" + childName;
-                ZkNode childZkNode = new ZkNode(childPath, childName);
+                ZkNode childZkNode = new ZkNode(parentZkNode, childName);
                 // 创建子节点，但不加载其子节点
                 DefaultMutableTreeNode childNode = new DefaultMutableTreeNode(childZkNode);
                 parentNode.add(childNode);
@@ -63,6 +69,50 @@ public class ZkTreeModel extends DefaultTreeModel {
         }
     }
     
+    /**
+     * 沿路径逐级找到树节点，某一级的子节点没有加载过、或已加载的子节点中找不到下一级时，
+     * 用预先读取到的子节点列表填充该级；必须在EDT上调用
+     * @param path 目标路径
+     * @param childrenByPath 各上级路径的子节点列表，没有的层级只在已加载的子节点中查找
+     * @return 目标路径对应的树节点，某一级不存在时返回能到达的最深一级
+     */
+    public DefaultMutableTreeNode materializePath(String path, Map<String, List<String>> childrenByPath) {
+        DefaultMutableTreeNode node = (DefaultMutableTreeNode) getRoot();
+        if (!(node.getUserObject() instanceof ZkNode) || path.equals("/")) {
+            return node;
+        }
+        for (String name : path.substring(1).split("/")) {
+            DefaultMutableTreeNode child = findChild(node, name);
+            if (child == null) {
+                ZkNode parentZkNode = (ZkNode) node.getUserObject();
+                List<String> children = childrenByPath.get(parentZkNode.getPath());
+                if (children == null || !children.contains(name)) {
+                    return node;
+                }
+                // 用读取到的列表替换，包括展开时留下的"正在加载..."占位节点
+                node.removeAllChildren();
+                parentZkNode.setLeaf(children.isEmpty());
+                for (String childName : children) {
+                    node.add(new DefaultMutableTreeNode(new ZkNode(parentZkNode, childName)));
+                }
+                nodeStructureChanged(node);
+                child = findChild(node, name);
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    private static DefaultMutableTreeNode findChild(DefaultMutableTreeNode parent, String name) {
+        for (int i = 0; i < parent.getChildCount(); i++) {
+            DefaultMutableTreeNode child = (DefaultMutableTreeNode) parent.getChildAt(i);
+            if (child.getUserObject() instanceof ZkNode && ((ZkNode) child.getUserObject()).getName().equals(name)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
     /**
      * 检查节点是否有子节点（用于判断节点是否可以展开）
      * @param node 要检查的节点
@@ -89,25 +139,57 @@ public class ZkTreeModel extends DefaultTreeModel {
     }
 
     /**
-     * 刷新指定节点
+     * 刷新指定节点，必须在EDT上调用；后台线程应使用fetchChildren读取，
+     * 再通过ZkEdtUpdatePump.postChildren提交到EDT
      * @param node 要刷新的节点
      */
     public void refreshNode(DefaultMutableTreeNode node) {
         if (node == null || !(node.getUserObject() instanceof ZkNode)) {
             return;
         }
-        
+        applyChildren(node, fetchChildren(node));
+        nodeStructureChanged(node);
+    }
+
+    /**
+     * 读取节点的子节点列表，不修改模型，可以在后台线程调用
+     * @param node 树节点
+     * @return 子节点名称列表，未连接或读取失败时返回空列表
+     */
+    public List<String> fetchChildren(DefaultMutableTreeNode node) {
+        if (zkClient == null || !zkClient.isConnected() || !(node.getUserObject() instanceof ZkNode)) {
+            return Collections.emptyList();
+        }
+        String path = ((ZkNode) node.getUserObject()).getPath();
+        Object event = ZkOperationEvents.beginTreeLoad();
+        try {
+            List<String> children = zkClient.getChildren(path);
+            if (children == null) {
+                children = Collections.emptyList();
+            }
+            ZkOperationEvents.treeLoaded(event, path, children.size());
+            return children;
+        } catch (Exception e) {
+            logger.warn("读取子节点失败: {}", e.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * 用子节点列表替换树节点的子节点，不发出事件，必须在EDT上调用
+     * @param node 树节点
+     * @param children 子节点名称列表
+     */
+    public void applyChildren(DefaultMutableTreeNode node, List<String> children) {
+        if (!(node.getUserObject() instanceof ZkNode)) {
+            return;
+        }
         ZkNode zkNode = (ZkNode) node.getUserObject();
         node.removeAllChildren();
-        
-        if (zkClient != null && zkClient.isConnected()) {
-            try {
-                loadChildren(node);
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
+        zkNode.setLeaf(children.isEmpty());
+        for (String childName : children) {
+            node.add(new DefaultMutableTreeNode(new ZkNode(zkNode, childName)));
         }
-        nodeStructureChanged(node);
     }
     
     /**
@@ -0,0 +1,281 @@
+package com.zkclient;
+
+import org.apache.zookeeper.AsyncCallback;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 流水线式子树遍历器
+ * 同时保持固定数量的节点请求在途，按深度优先顺序展开待访问节点，
+ * 使待访问队列的大小只与树的深度和扇出有关，而与节点总数无关。
+ * Visitor总是在调用walk的线程中被调用，因此不需要额外同步；
+ * 父节点总是先于其子节点被访问。
+ */
+public class ZkTreeWalker {
+    private static final Logger logger = LoggerFactory.getLogger(ZkTreeWalker.class);
+
+    /**
+     * 节点访问回调
+     */
+    public interface Visitor {
+        /**
+         * 访问一个节点
+         * @param node 节点信息，只在本次调用期间有效
+         * @return 是否继续遍历该节点的子节点
+         */
+        boolean visit(Node node);
+    }
+
+    /**
+     * 按节点Stat决定是否需要读取数据和ACL
+     * 设置后每个节点先只读取子节点列表和Stat，需要时再发起第二轮请求
+     */
+    public interface DataFilter {
+        /**
+         * @param path 节点路径
+         * @param stat 节点状态
+         * @return 是否需要读取该节点的数据和ACL
+         */
+        boolean needData(String path, Stat stat);
+    }
+
+    /**
+     * 遍历得到的节点信息
+     */
+    public static class Node {
+        private final String path;
+        private final int depth;
+        private final AtomicInteger remaining = new AtomicInteger();
+        private boolean dataRequested;
+        private volatile int rc = KeeperException.Code.OK.intValue();
+        private volatile Stat stat;
+        private volatile List<String> children;
+        private volatile byte[] data;
+        private volatile List<ACL> acl;
+
+        Node(String path, int depth) {
+            this.path = path;
+            this.depth = depth;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return 相对遍历起点的深度，起点为0
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        public Stat getStat() {
+            return stat;
+        }
+
+        public List<String> getChildren() {
+            return children;
+        }
+
+        /**
+         * @return 节点数据，未开启数据读取时为null
+         */
+        public byte[] getData() {
+            return data;
+        }
+
+        /**
+         * @return 节点ACL，未开启ACL读取时为null
+         */
+        public List<ACL> getAcl() {
+            return acl;
+        }
+
+        private void fail(int code) {
+            if (code != KeeperException.Code.OK.intValue()) {
+                rc = code;
+            }
+        }
+    }
+
+    private final ZkClient zkClient;
+    private final int windowSize;
+    private boolean fetchData = false;
+    private boolean fetchAcl = false;
+    private DataFilter dataFilter;
+    private volatile boolean cancelled = false;
+    private volatile long visitedCount = 0;
+
+    /**
+     * @param zkClient ZooKeeper客户端
+     * @param windowSize 最大在途节点数
+     */
+    public ZkTreeWalker(ZkClient zkClient, int windowSize) {
+        this.zkClient = zkClient;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * 设置是否同时读取节点数据，开启后Stat来自getData的结果
+     */
+    public void setFetchData(boolean fetchData) {
+        this.fetchData = fetchData;
+    }
+
+    /**
+     * 设置是否同时读取节点ACL
+     */
+    public void setFetchAcl(boolean fetchAcl) {
+        this.fetchAcl = fetchAcl;
+    }
+
+    /**
+     * 设置数据读取过滤器，只对过滤器接受的节点读取数据和ACL
+     * 未读取数据的节点getData和getAcl返回null
+     */
+    public void setDataFilter(DataFilter dataFilter) {
+        this.dataFilter = dataFilter;
+    }
+
+    /**
+     * 取消遍历，walk会在当前在途请求返回后尽快结束
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * @return 已访问的节点数
+     */
+    public long getVisitedCount() {
+        return visitedCount;
+    }
+
+    /**
+     * 从指定节点开始遍历子树，阻塞直到遍历完成或被取消
+     * 遍历过程中被删除的节点会被跳过，起点不存在或发生其他错误时抛出异常
+     * @param rootPath 遍历起点
+     * @param visitor 节点访问回调
+     */
+    public void walk(String rootPath, Visitor visitor) throws KeeperException, InterruptedException {
+        final BlockingQueue<Node> completed = new LinkedBlockingQueue<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(new Node(rootPath, 0));
+        int inFlight = 0;
+
+        AsyncCallback.Children2Callback childrenCallback = new AsyncCallback.Children2Callback() {
+            @Override
+            public void processResult(int rc, String path, Object ctx, List<String> children, Stat stat) {
+                Node node = (Node) ctx;
+                node.fail(rc);
+                node.children = children;
+                if (!node.dataRequested || !fetchData) {
+                    node.stat = stat;
+                }
+                complete(node, completed);
+            }
+        };
+        AsyncCallback.DataCallback dataCallback = new AsyncCallback.DataCallback() {
+            @Override
+            public void processResult(int rc, String path, Object ctx, byte[] data, Stat stat) {
+                Node node = (Node) ctx;
+                node.fail(rc);
+                node.data = data;
+                node.stat = stat;
+                complete(node, completed);
+            }
+        };
+        AsyncCallback.ACLCallback aclCallback = new AsyncCallback.ACLCallback() {
+            @Override
+            public void processResult(int rc, String path, Object ctx, List<ACL> acl, Stat stat) {
+                Node node = (Node) ctx;
+                node.fail(rc);
+                node.acl = acl;
+                complete(node, completed);
+            }
+        };
+
+        while (!cancelled) {
+            while (inFlight < windowSize && !stack.isEmpty()) {
+                Node next = stack.pop();
+                if (dataFilter == null) {
+                    next.dataRequested = true;
+                    next.remaining.set(1 + (fetchData ? 1 : 0) + (fetchAcl ? 1 : 0));
+                    requestData(next, dataCallback, aclCallback);
+                } else {
+                    next.remaining.set(1);
+                }
+                zkClient.getChildrenAsync(next.path, childrenCallback, next);
+                inFlight++;
+            }
+            if (inFlight == 0) {
+                break;
+            }
+
+            Node node = completed.take();
+            inFlight--;
+
+            KeeperException.Code code = KeeperException.Code.get(node.rc);
+            if (code == KeeperException.Code.NONODE && node.depth > 0) {
+                // 遍历过程中节点被删除，跳过即可
+                logger.debug("遍历时节点已被删除: {}", node.path);
+                continue;
+            }
+            if (code != KeeperException.Code.OK) {
+                cancelled = true;
+                throw KeeperException.create(code, node.path);
+            }
+            if (!node.dataRequested && (fetchData || fetchAcl) && dataFilter.needData(node.path, node.stat)) {
+                // 第二轮：按过滤器结果读取数据和ACL，节点仍然占用在途名额
+                node.dataRequested = true;
+                node.remaining.set((fetchData ? 1 : 0) + (fetchAcl ? 1 : 0));
+                requestData(node, dataCallback, aclCallback);
+                inFlight++;
+                continue;
+            }
+
+            visitedCount++;
+            boolean descend = visitor.visit(node);
+            List<String> children = node.children;
+            if (descend && children != null && !children.isEmpty()) {
+                String prefix = node.path.equals("/") ? "/" : node.path + "/";
+                // 倒序入栈，使子节点按服务端返回的顺序被访问
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    stack.push(new Node(prefix + children.get(i), node.depth + 1));
+                }
+            }
+        }
+    }
+
+    private void requestData(Node node, AsyncCallback.DataCallback dataCallback, AsyncCallback.ACLCallback aclCallback) {
+        if (fetchData) {
+            zkClient.getDataAsync(node.path, dataCallback, node);
+        }
+        if (fetchAcl) {
+            zkClient.getAclAsync(node.path, aclCallback, node);
+        }
+    }
+
+    /**
+     * 节点的所有请求都返回后才交给遍历线程
+     */
+    private static void complete(Node node, BlockingQueue<Node> completed) {
+        if (node.remaining.decrementAndGet() == 0) {
+            completed.add(node);
+        }
+    }
+}
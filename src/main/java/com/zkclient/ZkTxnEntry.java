@@ -0,0 +1,318 @@
+package com.zkclient;
+
+import org.apache.jute.Record;
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.server.ByteBufferInputStream;
+import org.apache.zookeeper.server.Request;
+import org.apache.zookeeper.txn.CheckVersionTxn;
+import org.apache.zookeeper.txn.CloseSessionTxn;
+import org.apache.zookeeper.txn.CreateContainerTxn;
+import org.apache.zookeeper.txn.CreateSessionTxn;
+import org.apache.zookeeper.txn.CreateTTLTxn;
+import org.apache.zookeeper.txn.CreateTxn;
+import org.apache.zookeeper.txn.DeleteTxn;
+import org.apache.zookeeper.txn.ErrorTxn;
+import org.apache.zookeeper.txn.MultiTxn;
+import org.apache.zookeeper.txn.SetACLTxn;
+import org.apache.zookeeper.txn.SetDataTxn;
+import org.apache.zookeeper.txn.Txn;
+import org.apache.zookeeper.txn.TxnHeader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 事务日志中的一条事务
+ * multi事务拆分为多个操作，其他事务只有一个操作；会话事务的操作没有路径。
+ */
+public class ZkTxnEntry {
+    private final long offset;
+    private final long nextOffset;
+    private final long zxid;
+    private final long time;
+    private final long sessionId;
+    private final int cxid;
+    private final int type;
+    private final List<Operation> operations;
+
+    /**
+     * 事务中的一个操作
+     */
+    public static class Operation {
+        private final int type;
+        private final String path;
+        private final byte[] data;
+        private final List<ACL> acl;
+        private final int version;
+        private final boolean ephemeral;
+        private final long ttl;
+        private final int error;
+        private final List<String> paths;
+
+        private Operation(int type, String path, byte[] data, List<ACL> acl, int version,
+                          boolean ephemeral, long ttl, int error, List<String> paths) {
+            this.type = type;
+            this.path = path;
+            this.data = data;
+            this.acl = acl;
+            this.version = version;
+            this.ephemeral = ephemeral;
+            this.ttl = ttl;
+            this.error = error;
+            this.paths = paths;
+        }
+
+        public int getType() {
+            return type;
+        }
+
+        public String getTypeName() {
+            return Request.op2String(type);
+        }
+
+        /**
+         * @return 操作的节点路径，会话事务返回null
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * @return 创建或setData写入的数据
+         */
+        public byte[] getData() {
+            return data;
+        }
+
+        /**
+         * @return 创建或setACL写入的ACL
+         */
+        public List<ACL> getAcl() {
+            return acl;
+        }
+
+        /**
+         * 对于创建操作是父节点新的cversion，setData和setACL是节点新的版本，check是检查的版本
+         */
+        public int getVersion() {
+            return version;
+        }
+
+        public boolean isEphemeral() {
+            return ephemeral;
+        }
+
+        public boolean isContainer() {
+            return type == ZooDefs.OpCode.createContainer;
+        }
+
+        /**
+         * @return TTL节点的存活时间，其他节点为0
+         */
+        public long getTtl() {
+            return ttl;
+        }
+
+        /**
+         * @return error操作的错误码
+         */
+        public int getError() {
+            return error;
+        }
+
+        /**
+         * @return closeSession时要删除的临时节点，旧版本服务器写入的日志中没有该列表时为null
+         */
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        /**
+         * @return createSession的会话超时时间，存放在version中
+         */
+        public int getSessionTimeout() {
+            return version;
+        }
+    }
+
+    ZkTxnEntry(long offset, long nextOffset, TxnHeader header, Record txn) throws IOException {
+        this.offset = offset;
+        this.nextOffset = nextOffset;
+        this.zxid = header.getZxid();
+        this.time = header.getTime();
+        this.sessionId = header.getClientId();
+        this.cxid = header.getCxid();
+        this.type = header.getType();
+        if (txn instanceof MultiTxn) {
+            List<Operation> ops = new ArrayList<>();
+            for (Txn sub : ((MultiTxn) txn).getTxns()) {
+                ops.add(toOperation(sub.getType(), decodeSubTxn(sub)));
+            }
+            this.operations = Collections.unmodifiableList(ops);
+        } else {
+            this.operations = Collections.singletonList(toOperation(type, txn));
+        }
+    }
+
+    /**
+     * multi中的子事务以字节保存，按类型解码
+     */
+    private static Record decodeSubTxn(Txn sub) throws IOException {
+        Record record;
+        switch (sub.getType()) {
+            case ZooDefs.OpCode.create:
+            case ZooDefs.OpCode.create2:
+                record = new CreateTxn();
+                break;
+            case ZooDefs.OpCode.createContainer:
+                record = new CreateContainerTxn();
+                break;
+            case ZooDefs.OpCode.createTTL:
+                record = new CreateTTLTxn();
+                break;
+            case ZooDefs.OpCode.delete:
+            case ZooDefs.OpCode.deleteContainer:
+                record = new DeleteTxn();
+                break;
+            case ZooDefs.OpCode.setData:
+                record = new SetDataTxn();
+                break;
+            case ZooDefs.OpCode.check:
+                record = new CheckVersionTxn();
+                break;
+            case ZooDefs.OpCode.error:
+                record = new ErrorTxn();
+                break;
+            default:
+                throw new IOException("multi中不支持的事务类型: " + sub.getType());
+        }
+        ByteBufferInputStream.byteBuffer2Record(ByteBuffer.wrap(sub.getData()), record);
+        return record;
+    }
+
+    private static Operation toOperation(int type, Record txn) {
+        if (txn instanceof CreateTxn) {
+            CreateTxn create = (CreateTxn) txn;
+            return new Operation(type, create.getPath(), create.getData(), create.getAcl(),
+                    create.getParentCVersion(), create.getEphemeral(), 0, 0, null);
+        } else if (txn instanceof CreateContainerTxn) {
+            CreateContainerTxn create = (CreateContainerTxn) txn;
+            return new Operation(type, create.getPath(), create.getData(), create.getAcl(),
+                    create.getParentCVersion(), false, 0, 0, null);
+        } else if (txn instanceof CreateTTLTxn) {
+            CreateTTLTxn create = (CreateTTLTxn) txn;
+            return new Operation(type, create.getPath(), create.getData(), create.getAcl(),
+                    create.getParentCVersion(), false, create.getTtl(), 0, null);
+        } else if (txn instanceof DeleteTxn) {
+            return new Operation(type, ((DeleteTxn) txn).getPath(), null, null, -1, false, 0, 0, null);
+        } else if (txn instanceof SetDataTxn) {
+            SetDataTxn setData = (SetDataTxn) txn;
+            return new Operation(type, setData.getPath(), setData.getData(), null, setData.getVersion(), false, 0, 0, null);
+        } else if (txn instanceof SetACLTxn) {
+            SetACLTxn setAcl = (SetACLTxn) txn;
+            return new Operation(type, setAcl.getPath(), null, setAcl.getAcl(), setAcl.getVersion(), false, 0, 0, null);
+        } else if (txn instanceof CheckVersionTxn) {
+            CheckVersionTxn check = (CheckVersionTxn) txn;
+            return new Operation(type, check.getPath(), null, null, check.getVersion(), false, 0, 0, null);
+        } else if (txn instanceof ErrorTxn) {
+            return new Operation(type, null, null, null, -1, false, 0, ((ErrorTxn) txn).getErr(), null);
+        } else if (txn instanceof CreateSessionTxn) {
+            return new Operation(type, null, null, null, ((CreateSessionTxn) txn).getTimeOut(), false, 0, 0, null);
+        } else if (txn instanceof CloseSessionTxn) {
+            return new Operation(type, null, null, null, -1, false, 0, 0, ((CloseSessionTxn) txn).getPaths2Delete());
+        }
+        return new Operation(type, null, null, null, -1, false, 0, 0, null);
+    }
+
+    /**
+     * @return 事务记录在日志文件中的位置
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return 下一条事务记录的位置
+     */
+    public long getNextOffset() {
+        return nextOffset;
+    }
+
+    public long getZxid() {
+        return zxid;
+    }
+
+    /**
+     * @return leader处理事务时的时间戳（毫秒）
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public long getSessionId() {
+        return sessionId;
+    }
+
+    public int getCxid() {
+        return cxid;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public String getTypeName() {
+        return Request.op2String(type);
+    }
+
+    public List<Operation> getOperations() {
+        return operations;
+    }
+
+    /**
+     * 判断事务是否涉及指定子树
+     * @param prefix 子树路径，"/"或空表示全部
+     */
+    public boolean touches(String prefix) {
+        if (prefix == null || prefix.isEmpty() || prefix.equals("/")) {
+            return true;
+        }
+        for (Operation op : operations) {
+            if (inSubtree(op.path, prefix)) {
+                return true;
+            }
+            if (op.paths != null) {
+                for (String path : op.paths) {
+                    if (inSubtree(path, prefix)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean inSubtree(String path, String prefix) {
+        return path != null && (path.equals(prefix) || path.startsWith(prefix + "/"));
+    }
+
+    /**
+     * @return 操作涉及的路径，多个路径以逗号分隔
+     */
+    public String getPathSummary() {
+        StringBuilder sb = new StringBuilder();
+        for (Operation op : operations) {
+            if (op.path != null) {
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(op.path);
+            }
+        }
+        return sb.toString();
+    }
+}
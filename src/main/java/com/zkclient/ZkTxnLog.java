@@ -0,0 +1,277 @@
+package com.zkclient;
+
+import org.apache.zookeeper.server.TxnLogEntry;
+import org.apache.zookeeper.server.util.SerializeUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.zip.Adler32;
+
+/**
+ * 离线读取ZooKeeper事务日志文件(log.*)
+ * 打开时内存映射文件并顺序扫描一遍，只读取每条记录的长度、zxid和时间，每隔INDEX_INTERVAL条事务记录一个索引点；
+ * 事务内容在读取时才解码，百万级事务的日志也不需要整体加载。
+ * 日志格式：FileHeader(ZKLG)，之后每条记录为 long校验和、int长度、事务字节、结束标记'B'，
+ * 文件末尾是预分配的0，读到长度为0的记录即结束。
+ */
+public class ZkTxnLog implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(ZkTxnLog.class);
+
+    // 事务日志文件头魔数 "ZKLG"
+    private static final int LOG_MAGIC = 0x5a4b4c47;
+    // 文件头长度：魔数、版本、dbid
+    private static final int HEADER_SIZE = 16;
+    // 记录结束标记
+    private static final byte EOR = 'B';
+    // 每隔多少条事务记录一个索引点
+    private static final int INDEX_INTERVAL = 1024;
+    // TxnHeader中zxid和time相对事务字节起点的偏移：clientId(8) cxid(4) zxid(8) time(8)
+    private static final int ZXID_OFFSET = 12;
+    private static final int TIME_OFFSET = 20;
+
+    private final File file;
+    private ZkMappedFile mapped;
+    private volatile long indexedBytes;
+    private long dbid;
+    private long txnCount;
+    private long endOffset;
+
+    // 稀疏索引：第i个索引点是第i * INDEX_INTERVAL条事务
+    private int indexSize;
+    private long[] indexOffsets = new long[64];
+    private long[] indexZxids = new long[64];
+    private long[] indexTimes = new long[64];
+    private long firstZxid = -1;
+    private long lastZxid = -1;
+    private long firstTime;
+    private long lastTime;
+
+    public ZkTxnLog(File file) {
+        this.file = file;
+    }
+
+    /**
+     * 映射文件并建立稀疏索引
+     */
+    public void load() throws IOException {
+        mapped = new ZkMappedFile(file);
+        long start = System.currentTimeMillis();
+        try {
+            if (mapped.length() < HEADER_SIZE || mapped.readInt(0) != LOG_MAGIC) {
+                throw new IOException("不是ZooKeeper事务日志文件: " + file);
+            }
+            dbid = mapped.readLong(8);
+            buildIndex();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        logger.info("已索引事务日志 {}：{} 条事务，耗时 {} ms", file, txnCount, System.currentTimeMillis() - start);
+    }
+
+    private void buildIndex() throws IOException {
+        long pos = HEADER_SIZE;
+        long length = mapped.length();
+        while (true) {
+            int len = recordLength(pos);
+            if (len <= 0) {
+                break;
+            }
+            long txnStart = pos + 12;
+            long zxid = mapped.readLong(txnStart + ZXID_OFFSET);
+            long time = mapped.readLong(txnStart + TIME_OFFSET);
+            if (txnCount % INDEX_INTERVAL == 0) {
+                if (indexSize == indexOffsets.length) {
+                    indexOffsets = Arrays.copyOf(indexOffsets, indexSize * 2);
+                    indexZxids = Arrays.copyOf(indexZxids, indexSize * 2);
+                    indexTimes = Arrays.copyOf(indexTimes, indexSize * 2);
+                }
+                indexOffsets[indexSize] = pos;
+                indexZxids[indexSize] = zxid;
+                indexTimes[indexSize] = time;
+                indexSize++;
+            }
+            if (firstZxid < 0) {
+                firstZxid = zxid;
+                firstTime = time;
+            }
+            lastZxid = zxid;
+            lastTime = time;
+            txnCount++;
+            pos = txnStart + len + 1;
+            indexedBytes = pos;
+        }
+        endOffset = pos;
+        indexedBytes = length;
+    }
+
+    /**
+     * @return 位置pos处记录的事务字节长度，没有完整记录时返回0
+     */
+    private int recordLength(long pos) throws IOException {
+        long length = mapped.length();
+        if (pos + 12 > length) {
+            return 0;
+        }
+        int len = mapped.readInt(pos + 8);
+        // 最小的事务也包含完整的TxnHeader
+        if (len < TIME_OFFSET + 12 || pos + 12 + len + 1 > length) {
+            return 0;
+        }
+        if (mapped.readByte(pos + 12 + len) != EOR) {
+            // 服务器写入时被中断的最后一条记录
+            logger.warn("事务日志 {} 在位置 {} 处的记录不完整，忽略之后的内容", file, pos);
+            return 0;
+        }
+        return len;
+    }
+
+    /**
+     * 读取并解码一条事务
+     * @param offset 记录位置，由find方法或上一条事务的getNextOffset得到
+     * @return 事务，已到文件末尾时返回null
+     */
+    public ZkTxnEntry read(long offset) throws IOException {
+        if (offset >= endOffset) {
+            return null;
+        }
+        int len = recordLength(offset);
+        if (len <= 0) {
+            return null;
+        }
+        long crc = mapped.readLong(offset);
+        byte[] bytes = mapped.readBytes(offset + 12, len);
+        Adler32 checksum = new Adler32();
+        checksum.update(bytes, 0, bytes.length);
+        if (checksum.getValue() != crc) {
+            throw new IOException("事务日志校验和错误: " + file + " 位置 " + offset);
+        }
+        TxnLogEntry entry = SerializeUtils.deserializeTxn(bytes);
+        return new ZkTxnEntry(offset, offset + 12 + len + 1, entry.getHeader(), entry.getTxn());
+    }
+
+    /**
+     * 定位zxid不小于指定值的第一条事务
+     * @return 记录位置，没有这样的事务时返回getEndOffset()
+     */
+    public long findZxid(long zxid) throws IOException {
+        return scanFrom(floorIndex(indexZxids, zxid), zxid, true);
+    }
+
+    /**
+     * 定位时间不早于指定值的第一条事务
+     * 事务时间由leader写入，基本单调递增，按时间定位的结果在leader切换时可能有少量偏差
+     * @return 记录位置，没有这样的事务时返回getEndOffset()
+     */
+    public long findTime(long time) throws IOException {
+        return scanFrom(floorIndex(indexTimes, time), time, false);
+    }
+
+    /**
+     * @return 值小于目标的最后一个索引点，全部不小于目标时返回0
+     */
+    private int floorIndex(long[] values, long target) {
+        int low = 0;
+        int high = indexSize - 1;
+        int result = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < target) {
+                result = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return result;
+    }
+
+    private long scanFrom(int indexPoint, long target, boolean byZxid) throws IOException {
+        if (indexSize == 0) {
+            return endOffset;
+        }
+        long pos = indexOffsets[indexPoint];
+        while (pos < endOffset) {
+            int len = recordLength(pos);
+            if (len <= 0) {
+                break;
+            }
+            long value = mapped.readLong(pos + 12 + (byZxid ? ZXID_OFFSET : TIME_OFFSET));
+            if (value >= target) {
+                return pos;
+            }
+            pos = pos + 12 + len + 1;
+        }
+        return endOffset;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return 第一条事务的位置
+     */
+    public long getStartOffset() {
+        return HEADER_SIZE;
+    }
+
+    /**
+     * @return 最后一条完整事务之后的位置
+     */
+    public long getEndOffset() {
+        return endOffset;
+    }
+
+    public long getDbid() {
+        return dbid;
+    }
+
+    public long getTxnCount() {
+        return txnCount;
+    }
+
+    /**
+     * @return 第一条事务的zxid，日志为空时返回-1
+     */
+    public long getFirstZxid() {
+        return firstZxid;
+    }
+
+    /**
+     * @return 最后一条事务的zxid，日志为空时返回-1
+     */
+    public long getLastZxid() {
+        return lastZxid;
+    }
+
+    public long getFirstTime() {
+        return firstTime;
+    }
+
+    public long getLastTime() {
+        return lastTime;
+    }
+
+    /**
+     * @return 已扫描的字节数，用于显示索引进度
+     */
+    public long getIndexedBytes() {
+        return indexedBytes;
+    }
+
+    public long getLength() {
+        return mapped != null ? mapped.length() : 0;
+    }
+
+    @Override
+    public void close() {
+        if (mapped != null) {
+            mapped.close();
+        }
+    }
+}
@@ -0,0 +1,481 @@
+package com.zkclient;
+
+import org.apache.zookeeper.ZooDefs;
+import org.apache.zookeeper.data.ACL;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.*;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 事务日志查看对话框
+ * 按zxid或时间范围和路径前缀分页查询事务，只解码当前页需要的记录，选中事务时显示完整内容
+ */
+public class ZkTxnLogDialog extends JDialog {
+    private static final Logger logger = LoggerFactory.getLogger(ZkTxnLogDialog.class);
+
+    // 每页显示的事务数
+    private static final int PAGE_SIZE = 1000;
+    // 刷新进度的间隔（毫秒）
+    private static final int PROGRESS_INTERVAL = 300;
+    // 详情中最多显示的数据字节数
+    private static final int MAX_DATA_DISPLAY = 64 * 1024;
+    private static final String TIME_PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+    private final ZkTxnLog txnLog;
+
+    private JTextField fromField;
+    private JTextField toField;
+    private JTextField prefixField;
+    private JButton queryButton;
+    private JButton nextPageButton;
+    private JTable txnTable;
+    private final TxnTableModel tableModel = new TxnTableModel();
+    private JTextArea detailArea;
+    private JLabel statusLabel;
+    private Timer progressTimer;
+
+    // 日志概况，显示在状态栏
+    private String logSummary = "";
+    // 查询状态，只在事件线程上修改
+    private Query currentQuery;
+
+    /**
+     * 一次分页查询的条件和进度
+     */
+    private static class Query {
+        final long endZxid;
+        final long endTime;
+        final String prefix;
+        volatile long nextOffset;
+        volatile long scanned;
+        volatile boolean cancelled;
+        volatile boolean finished;
+
+        Query(long startOffset, long endZxid, long endTime, String prefix) {
+            this.nextOffset = startOffset;
+            this.endZxid = endZxid;
+            this.endTime = endTime;
+            this.prefix = prefix;
+        }
+    }
+
+    /**
+     * @param owner 主窗口
+     * @param file 事务日志文件，在对话框中后台建立索引
+     */
+    public ZkTxnLogDialog(Frame owner, File file) {
+        super(owner, "事务日志 - " + file.getName(), false);
+        txnLog = new ZkTxnLog(file);
+        initComponents();
+        setSize(1000, 700);
+        setLocationRelativeTo(owner);
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                if (currentQuery != null) {
+                    currentQuery.cancelled = true;
+                }
+                progressTimer.stop();
+                executorService.shutdownNow();
+                txnLog.close();
+            }
+        });
+        loadLog();
+    }
+
+    private void initComponents() {
+        fromField = new JTextField(14);
+        toField = new JTextField(14);
+        String hint = "zxid（如0x100000001）或时间（" + TIME_PATTERN + "），为空表示不限";
+        fromField.setToolTipText(hint);
+        toField.setToolTipText(hint);
+        prefixField = new JTextField("/", 15);
+        queryButton = new JButton("查询");
+        nextPageButton = new JButton("下一页");
+        queryButton.setEnabled(false);
+        nextPageButton.setEnabled(false);
+        statusLabel = new JLabel(" ");
+
+        JPanel topPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        topPanel.add(new JLabel("从:"));
+        topPanel.add(fromField);
+        topPanel.add(new JLabel("到:"));
+        topPanel.add(toField);
+        topPanel.add(new JLabel("路径前缀:"));
+        topPanel.add(prefixField);
+        topPanel.add(queryButton);
+        topPanel.add(nextPageButton);
+
+        txnTable = new JTable(tableModel);
+        txnTable.setFillsViewportHeight(true);
+        txnTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        txnTable.getColumnModel().getColumn(0).setPreferredWidth(120);
+        txnTable.getColumnModel().getColumn(1).setPreferredWidth(150);
+        txnTable.getColumnModel().getColumn(2).setPreferredWidth(140);
+        txnTable.getColumnModel().getColumn(3).setPreferredWidth(90);
+        txnTable.getColumnModel().getColumn(4).setPreferredWidth(500);
+
+        detailArea = new JTextArea();
+        detailArea.setEditable(false);
+        detailArea.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+
+        JSplitPane splitPane = new JSplitPane(JSplitPane.VERTICAL_SPLIT,
+                new JScrollPane(txnTable), new JScrollPane(detailArea));
+        splitPane.setDividerLocation(400);
+
+        getContentPane().setLayout(new BorderLayout());
+        getContentPane().add(topPanel, BorderLayout.NORTH);
+        getContentPane().add(splitPane, BorderLayout.CENTER);
+        getContentPane().add(statusLabel, BorderLayout.SOUTH);
+
+        queryButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                startQuery();
+            }
+        });
+        nextPageButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (currentQuery != null && !currentQuery.finished) {
+                    loadPage(currentQuery);
+                }
+            }
+        });
+        txnTable.getSelectionModel().addListSelectionListener(new ListSelectionListener() {
+            @Override
+            public void valueChanged(ListSelectionEvent e) {
+                if (!e.getValueIsAdjusting()) {
+                    showSelectedTxn();
+                }
+            }
+        });
+        progressTimer = new Timer(PROGRESS_INTERVAL, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                Query query = currentQuery;
+                if (query != null) {
+                    statusLabel.setText("正在查询：已扫描 " + query.scanned + " 条事务");
+                } else if (txnLog.getLength() > 0) {
+                    statusLabel.setText("正在索引：" + txnLog.getIndexedBytes() * 100 / txnLog.getLength() + "%");
+                }
+            }
+        });
+    }
+
+    private void loadLog() {
+        statusLabel.setText("正在索引 " + txnLog.getFile().getAbsolutePath());
+        progressTimer.start();
+        executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                String result;
+                boolean loaded = false;
+                try {
+                    txnLog.load();
+                    loaded = true;
+                    SimpleDateFormat dateFormat = new SimpleDateFormat(TIME_PATTERN);
+                    result = txnLog.getTxnCount() == 0 ? "日志中没有事务"
+                            : String.format("共 %d 条事务，zxid 0x%x - 0x%x，时间 %s - %s", txnLog.getTxnCount(),
+                            txnLog.getFirstZxid(), txnLog.getLastZxid(),
+                            dateFormat.format(txnLog.getFirstTime()), dateFormat.format(txnLog.getLastTime()));
+                } catch (Exception e) {
+                    logger.error("打开事务日志失败: {}", txnLog.getFile(), e);
+                    result = "打开事务日志失败: " + e.getMessage();
+                }
+                final String finalResult = result;
+                final boolean finalLoaded = loaded;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        progressTimer.stop();
+                        statusLabel.setText(finalResult);
+                        queryButton.setEnabled(finalLoaded);
+                        if (finalLoaded) {
+                            logSummary = finalResult;
+                            startQuery();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 解析范围输入：0x开头为zxid，否则按时间解析
+     * @return {是否为zxid, 值}，为空时返回null
+     */
+    static long[] parseBound(String text) throws ParseException {
+        text = text.trim();
+        if (text.isEmpty()) {
+            return null;
+        }
+        if (text.startsWith("0x") || text.startsWith("0X")) {
+            return new long[]{1, Long.parseLong(text.substring(2), 16)};
+        }
+        return new long[]{0, new SimpleDateFormat(TIME_PATTERN).parse(text).getTime()};
+    }
+
+    private void startQuery() {
+        long[] from;
+        long[] to;
+        try {
+            from = parseBound(fromField.getText());
+            to = parseBound(toField.getText());
+        } catch (ParseException | NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "范围格式错误，请输入0x开头的zxid或" + TIME_PATTERN + "格式的时间",
+                    "提示", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        String prefix = prefixField.getText().trim();
+        if (!prefix.isEmpty() && !prefix.startsWith("/")) {
+            JOptionPane.showMessageDialog(this, "路径前缀必须以/开头", "提示", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        if (prefix.length() > 1 && prefix.endsWith("/")) {
+            prefix = prefix.substring(0, prefix.length() - 1);
+        }
+        if (currentQuery != null) {
+            currentQuery.cancelled = true;
+        }
+        final long[] finalFrom = from;
+        final Query query = new Query(txnLog.getStartOffset(),
+                to != null && to[0] == 1 ? to[1] : Long.MAX_VALUE,
+                to != null && to[0] == 0 ? to[1] : Long.MAX_VALUE, prefix);
+        currentQuery = query;
+        tableModel.setEntries(new ArrayList<ZkTxnEntry>());
+        detailArea.setText("");
+        // 起点通过索引定位后再分页
+        executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    if (finalFrom != null) {
+                        query.nextOffset = finalFrom[0] == 1 ? txnLog.findZxid(finalFrom[1]) : txnLog.findTime(finalFrom[1]);
+                    }
+                } catch (Exception e) {
+                    logger.error("定位事务失败: {}", txnLog.getFile(), e);
+                }
+            }
+        });
+        loadPage(query);
+    }
+
+    /**
+     * 从查询的当前位置向后读取一页满足条件的事务
+     */
+    private void loadPage(final Query query) {
+        queryButton.setEnabled(false);
+        nextPageButton.setEnabled(false);
+        progressTimer.start();
+        executorService.submit(new Runnable() {
+            @Override
+            public void run() {
+                final List<ZkTxnEntry> page = new ArrayList<>();
+                String error = null;
+                try {
+                    long offset = query.nextOffset;
+                    while (!query.cancelled && page.size() < PAGE_SIZE) {
+                        ZkTxnEntry entry = txnLog.read(offset);
+                        if (entry == null || entry.getZxid() > query.endZxid || entry.getTime() > query.endTime) {
+                            query.finished = true;
+                            break;
+                        }
+                        query.scanned++;
+                        offset = entry.getNextOffset();
+                        if (entry.touches(query.prefix)) {
+                            page.add(entry);
+                        }
+                    }
+                    query.nextOffset = offset;
+                } catch (Exception e) {
+                    logger.error("读取事务日志失败: {}", txnLog.getFile(), e);
+                    error = "读取事务日志失败: " + e.getMessage();
+                    query.finished = true;
+                }
+                final String finalError = error;
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (query != currentQuery) {
+                            return;
+                        }
+                        progressTimer.stop();
+                        tableModel.setEntries(page);
+                        queryButton.setEnabled(true);
+                        nextPageButton.setEnabled(!query.finished);
+                        if (finalError != null) {
+                            statusLabel.setText(finalError);
+                        } else {
+                            statusLabel.setText(logSummary + "；本页 " + page.size() + " 条事务，累计扫描 " + query.scanned + " 条"
+                                    + (query.finished ? "，已到查询范围末尾" : ""));
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private void showSelectedTxn() {
+        int row = txnTable.getSelectedRow();
+        if (row < 0) {
+            detailArea.setText("");
+            return;
+        }
+        ZkTxnEntry entry = tableModel.getEntry(txnTable.convertRowIndexToModel(row));
+        StringBuilder sb = new StringBuilder();
+        sb.append("zxid: 0x").append(Long.toHexString(entry.getZxid())).append('\n');
+        sb.append("时间: ").append(new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(entry.getTime())).append('\n');
+        sb.append("会话: 0x").append(Long.toHexString(entry.getSessionId())).append('\n');
+        sb.append("cxid: ").append(entry.getCxid()).append('\n');
+        sb.append("类型: ").append(entry.getTypeName()).append('\n');
+        for (ZkTxnEntry.Operation op : entry.getOperations()) {
+            sb.append('\n').append("[").append(op.getTypeName()).append("] ");
+            if (op.getPath() != null) {
+                sb.append(op.getPath());
+            }
+            sb.append('\n');
+            appendOperation(sb, op);
+        }
+        detailArea.setText(sb.toString());
+        detailArea.setCaretPosition(0);
+    }
+
+    private static void appendOperation(StringBuilder sb, ZkTxnEntry.Operation op) {
+        switch (op.getType()) {
+            case ZooDefs.OpCode.create:
+            case ZooDefs.OpCode.create2:
+            case ZooDefs.OpCode.createContainer:
+            case ZooDefs.OpCode.createTTL:
+                sb.append("  父节点cversion: ").append(op.getVersion()).append('\n');
+                if (op.isEphemeral()) {
+                    sb.append("  临时节点\n");
+                }
+                if (op.getTtl() > 0) {
+                    sb.append("  TTL: ").append(op.getTtl()).append(" ms\n");
+                }
+                appendAcl(sb, op.getAcl());
+                appendData(sb, op.getData());
+                break;
+            case ZooDefs.OpCode.setData:
+            case ZooDefs.OpCode.reconfig:
+                sb.append("  新版本: ").append(op.getVersion()).append('\n');
+                appendData(sb, op.getData());
+                break;
+            case ZooDefs.OpCode.setACL:
+                sb.append("  新ACL版本: ").append(op.getVersion()).append('\n');
+                appendAcl(sb, op.getAcl());
+                break;
+            case ZooDefs.OpCode.check:
+                sb.append("  检查版本: ").append(op.getVersion()).append('\n');
+                break;
+            case ZooDefs.OpCode.error:
+                sb.append("  错误码: ").append(op.getError()).append('\n');
+                break;
+            case ZooDefs.OpCode.createSession:
+                sb.append("  会话超时: ").append(op.getSessionTimeout()).append(" ms\n");
+                break;
+            case ZooDefs.OpCode.closeSession:
+                if (op.getPaths() != null) {
+                    sb.append("  删除临时节点: ").append(op.getPaths()).append('\n');
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void appendAcl(StringBuilder sb, List<ACL> acl) {
+        if (acl == null) {
+            return;
+        }
+        for (ACL item : acl) {
+            sb.append("  ACL: ").append(item.getId().getScheme()).append(':').append(item.getId().getId())
+                    .append(" 权限 ").append(item.getPerms()).append('\n');
+        }
+    }
+
+    private static void appendData(StringBuilder sb, byte[] data) {
+        if (data == null) {
+            sb.append("  数据: null\n");
+            return;
+        }
+        sb.append("  数据 (").append(data.length).append(" 字节):\n");
+        int length = Math.min(data.length, MAX_DATA_DISPLAY);
+        sb.append(new String(data, 0, length, StandardCharsets.UTF_8));
+        if (length < data.length) {
+            sb.append("\n  ...（仅显示前 ").append(MAX_DATA_DISPLAY).append(" 字节）");
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * 事务列表的表格模型
+     */
+    private static class TxnTableModel extends AbstractTableModel {
+        private static final String[] COLUMN_NAMES = {"zxid", "时间", "会话", "类型", "路径"};
+
+        private final SimpleDateFormat dateFormat = new SimpleDateFormat(TIME_PATTERN);
+        private List<ZkTxnEntry> entries = new ArrayList<>();
+
+        void setEntries(List<ZkTxnEntry> entries) {
+            this.entries = entries;
+            fireTableDataChanged();
+        }
+
+        ZkTxnEntry getEntry(int row) {
+            return entries.get(row);
+        }
+
+        @Override
+        public int getRowCount() {
+            return entries.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMN_NAMES.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return COLUMN_NAMES[column];
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+            ZkTxnEntry entry = entries.get(rowIndex);
+            switch (columnIndex) {
+                case 0:
+                    return "0x" + Long.toHexString(entry.getZxid());
+                case 1:
+                    return dateFormat.format(entry.getTime());
+                case 2:
+                    return "0x" + Long.toHexString(entry.getSessionId());
+                case 3:
+                    return entry.getTypeName();
+                default:
+                    return entry.getPathSummary();
+            }
+        }
+    }
+}